@@ -0,0 +1,394 @@
+import com.caseexecute.util.BaselineCaseOutputClassifier;
+import com.caseexecute.util.CaseOutputClassifier;
+import com.caseexecute.util.TestCaseResultParser;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class ClassifierHarness {
+
+    private static final String[] FRAGMENTS = {
+            "PASS", "pass", "Pass", "PASSED", "SUCCESS", "success", "Success", "成功", "FAIL", "fail", "Fail", "FAILED",
+            "ERROR", "error", "Error", "失败", "错误", "超时", "timeout", "TIMEOUT", "Timeout",
+            "ImportError", "ModuleNotFoundError", "Permission denied", "permission DENIED", "No such file",
+            "no such file or directory", "No such file or directory", "Connection refused", "Network is unreachable",
+            "AssertionError", "Exception", "RuntimeException", "网络连接失败", "DNS解析失败", "Name or service not known",
+            "权限不足", "文件不存在", "模块导入失败", "内存不足", "out of memory", "磁盘空间不足", "no space left",
+            "Python执行器不可用", "python", "PYTHON", "Python", "not found", "NOT FOUND", "command not found",
+            "cannot run program", "Cannot Run Program",
+            "PAS", "FAI", "ERRO", "Exceptio", "Succes", "成", "失", "超", "Permission", "denied", "No such",
+            "not foun", "command  not found", "pyth on", "Assertion",
+            "运行测试数:", "失败数:", "错误数:", "失败的测试:", "错误的测试:", "网络延迟:", "带宽:", "信号强度:",
+            "- ", ": ", "##CASE_RESULT"
+    };
+
+    /**
+     * 只包含状态关键词的词表，使生成的日志覆盖SUCCESS、FAILED和统计数影响结论的情况
+     */
+    private static final String[] STATUS_FRAGMENTS = {
+            "PASS", "pass", "SUCCESS", "成功", "FAIL", "fail", "ERROR", "error", "失败", "超时", "timeout", "PAS", "FAI"
+    };
+
+    private static final String[] NOISE = {
+            "the", "quick", "brown", "fox", "step", "value=42", "0123456789abcdef", "日志", "输出", "用例", "执行中",
+            "[INFO]", "[DEBUG]", "\t", " ", "  ", "é", "😀", "ue-1", "round", "=>", "{}", "###"
+    };
+
+    interface View {
+        boolean contains(String keyword);
+        boolean containsIgnoreCase(String keyword);
+        boolean isBlank();
+        boolean hasStatistics();
+        int getTotalTests();
+        int getFailedTests();
+        int getErrorTests();
+        String getTestFailureDetails();
+        String getFailureLines();
+        List<String> getTailLines();
+        Double getNetworkLatency();
+        Double getBandwidth();
+        String getBandwidthUnit();
+        Double getSignalStrength();
+    }
+
+    static View view(final CaseOutputClassifier c) {
+        return new View() {
+            public boolean contains(String keyword) { return c.contains(keyword); }
+            public boolean containsIgnoreCase(String keyword) { return c.containsIgnoreCase(keyword); }
+            public boolean isBlank() { return c.isBlank(); }
+            public boolean hasStatistics() { return c.hasStatistics(); }
+            public int getTotalTests() { return c.getTotalTests(); }
+            public int getFailedTests() { return c.getFailedTests(); }
+            public int getErrorTests() { return c.getErrorTests(); }
+            public String getTestFailureDetails() { return c.getTestFailureDetails(); }
+            public String getFailureLines() { return c.getFailureLines(); }
+            public List<String> getTailLines() { return c.getTailLines(); }
+            public Double getNetworkLatency() { return c.getNetworkLatency(); }
+            public Double getBandwidth() { return c.getBandwidth(); }
+            public String getBandwidthUnit() { return c.getBandwidthUnit(); }
+            public Double getSignalStrength() { return c.getSignalStrength(); }
+        };
+    }
+
+    static View view(final BaselineCaseOutputClassifier c) {
+        return new View() {
+            public boolean contains(String keyword) { return c.contains(keyword); }
+            public boolean containsIgnoreCase(String keyword) { return c.containsIgnoreCase(keyword); }
+            public boolean isBlank() { return c.isBlank(); }
+            public boolean hasStatistics() { return c.hasStatistics(); }
+            public int getTotalTests() { return c.getTotalTests(); }
+            public int getFailedTests() { return c.getFailedTests(); }
+            public int getErrorTests() { return c.getErrorTests(); }
+            public String getTestFailureDetails() { return c.getTestFailureDetails(); }
+            public String getFailureLines() { return c.getFailureLines(); }
+            public List<String> getTailLines() { return c.getTailLines(); }
+            public Double getNetworkLatency() { return c.getNetworkLatency(); }
+            public Double getBandwidth() { return c.getBandwidth(); }
+            public String getBandwidthUnit() { return c.getBandwidthUnit(); }
+            public Double getSignalStrength() { return c.getSignalStrength(); }
+        };
+    }
+
+    /**
+     * TestCaseExecutionServiceImpl的结论规则
+     */
+    static String serviceStatus(View v, int exitCode) {
+        if (exitCode != 0) {
+            boolean blocked = v.containsIgnoreCase("command not found")
+                    || v.containsIgnoreCase("no such file or directory")
+                    || v.containsIgnoreCase("permission denied")
+                    || v.containsIgnoreCase("cannot run program")
+                    || v.containsIgnoreCase("python") && v.containsIgnoreCase("not found");
+            return blocked ? "BLOCKED" : "FAILED";
+        }
+        if (v.containsIgnoreCase("pass") || v.containsIgnoreCase("success") || v.contains("成功")) {
+            return "SUCCESS";
+        } else if (v.containsIgnoreCase("fail") || v.containsIgnoreCase("error") || v.contains("失败")) {
+            return "FAILED";
+        }
+        return "BLOCKED";
+    }
+
+    /**
+     * TestCaseResultParser.parseExecutionStatus的规则，后面的规则优先
+     */
+    static String parserStatus(View v) {
+        String status = "BLOCKED";
+        if (v.contains("PASS") || v.contains("SUCCESS") || v.contains("成功")) {
+            status = v.getFailedTests() == 0 && v.getErrorTests() == 0 ? "SUCCESS" : "FAILED";
+        }
+        if (v.contains("FAIL") || v.contains("ERROR") || v.contains("失败")) {
+            status = "FAILED";
+        }
+        if (v.contains("超时") || v.contains("timeout") || v.contains("TIMEOUT")) {
+            status = "FAILED";
+        }
+        if (v.contains("ImportError") || v.contains("ModuleNotFoundError")
+                || v.contains("Permission denied") || v.contains("No such file")
+                || v.contains("Connection refused") || v.contains("Network is unreachable")) {
+            status = "BLOCKED";
+        }
+        return status;
+    }
+
+    static String[] stringArray(String field) throws ReflectiveOperationException {
+        Field f = BaselineCaseOutputClassifier.class.getDeclaredField(field);
+        f.setAccessible(true);
+        return (String[]) f.get(null);
+    }
+
+    static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    static String wordLine(Random random, String[] fragments, int words, double fragmentRatio) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0 && random.nextInt(3) != 0) {
+                line.append(' ');
+            }
+            line.append(random.nextDouble() < fragmentRatio ? pick(random, fragments) : pick(random, NOISE));
+        }
+        return line.toString();
+    }
+
+    /**
+     * 包含所有关键词的行和超过失败信息上限的失败行，之后的输出只可能影响正则规则的结果
+     */
+    static List<String> saturation(Random random, String[] keywords, String[] ignoreCaseKeywords) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.join(" ", keywords));
+        lines.add(String.join(" ", ignoreCaseKeywords));
+        for (int bytes = 0; bytes <= 8 * 1024; ) {
+            String line = pick(random, new String[]{"FAIL", "ERROR", "失败", "AssertionError", "Exception"}) + " "
+                    + wordLine(random, NOISE, 1 + random.nextInt(8), 0);
+            lines.add(line);
+            bytes += line.length() + 2;
+        }
+        return lines;
+    }
+
+    static byte[] generate(Random random, String[] keywords, String[] ignoreCaseKeywords) {
+        List<String> lines = random.nextInt(4) == 0 ? saturation(random, keywords, ignoreCaseKeywords) : new ArrayList<>();
+        int count = random.nextInt(8) == 0 ? random.nextInt(3) : random.nextInt(60);
+        double fragmentRatio = new double[]{0.0, 0.02, 0.1, 0.3}[random.nextInt(4)];
+        String[] fragments = random.nextInt(3) == 0 ? STATUS_FRAGMENTS : FRAGMENTS;
+        for (int i = 0; i < count; i++) {
+            int kind = random.nextInt(20);
+            if (kind < 10) {
+                lines.add(wordLine(random, fragments, 1 + random.nextInt(12), fragmentRatio));
+            } else if (kind == 10) {
+                lines.add("运行测试数: " + random.nextInt(50) + ", 失败数: " + random.nextInt(3) + ", 错误数: " + random.nextInt(2));
+            } else if (kind == 11) {
+                String[] labels = {"运行测试数:", "失败数:", "错误数:"};
+                lines.add(pick(random, labels) + (random.nextBoolean() ? " " : "") + (random.nextBoolean() ? String.valueOf(random.nextInt(9)) : "x"));
+            } else if (kind == 12) {
+                lines.add(random.nextBoolean() ? "失败的测试:" : "错误的测试:");
+                if (random.nextBoolean()) {
+                    lines.add("- test_" + random.nextInt(100));
+                    lines.add("  continued: " + wordLine(random, fragments, 3, fragmentRatio));
+                } else {
+                    lines.add("- test_" + random.nextInt(100) + ": " + wordLine(random, fragments, 4, fragmentRatio));
+                }
+            } else if (kind == 13) {
+                String[] metrics = {
+                        "网络延迟: " + random.nextInt(200) + "." + random.nextInt(10) + "ms",
+                        "带宽: " + random.nextInt(1000) + (random.nextBoolean() ? " Mbps" : "Kbps"),
+                        "信号强度: " + random.nextInt(120) + " dBm",
+                        "网络延迟: n/a", "带宽: 12 Gbps"
+                };
+                lines.add(pick(random, metrics));
+            } else if (kind == 14) {
+                lines.add("");
+            } else if (kind == 15) {
+                lines.add(random.nextBoolean() ? "   " : "\t \t");
+            } else if (kind == 16) {
+                // 按UTF-8字节数控制长度，不超过最后几行输出中每行保留的4KB
+                StringBuilder longLine = new StringBuilder();
+                int target = 500 + random.nextInt(3500);
+                int bytes = 0;
+                while (true) {
+                    String word = (random.nextInt(40) == 0 ? pick(random, FRAGMENTS) : pick(random, NOISE)) + " ";
+                    int wordBytes = word.getBytes(StandardCharsets.UTF_8).length;
+                    if (bytes + wordBytes > target) {
+                        break;
+                    }
+                    longLine.append(word);
+                    bytes += wordBytes;
+                }
+                lines.add(longLine.toString());
+            } else {
+                lines.add(pick(random, fragments) + pick(random, fragments));
+            }
+        }
+        String separator = random.nextInt(5) == 0 ? "\r\n" : "\n";
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            content.append(lines.get(i));
+            if (i < lines.size() - 1 || random.nextInt(4) != 0) {
+                content.append(separator);
+            }
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static CaseOutputClassifier current(byte[] log, int chunk) {
+        CaseOutputClassifier classifier = new CaseOutputClassifier();
+        byte[] buffer = new byte[chunk];
+        for (int offset = 0; offset < log.length; offset += chunk) {
+            int length = Math.min(chunk, log.length - offset);
+            System.arraycopy(log, offset, buffer, 0, length);
+            classifier.accept(buffer, length);
+        }
+        classifier.finish();
+        return classifier;
+    }
+
+    static BaselineCaseOutputClassifier baseline(byte[] log, int chunk) {
+        BaselineCaseOutputClassifier classifier = new BaselineCaseOutputClassifier();
+        byte[] buffer = new byte[chunk];
+        for (int offset = 0; offset < log.length; offset += chunk) {
+            int length = Math.min(chunk, log.length - offset);
+            System.arraycopy(log, offset, buffer, 0, length);
+            classifier.accept(buffer, length);
+        }
+        classifier.finish();
+        return classifier;
+    }
+
+    static List<String> differences(View expected, View actual, String[] keywords, String[] ignoreCaseKeywords) {
+        List<String> differences = new ArrayList<>();
+        for (String keyword : keywords) {
+            if (expected.contains(keyword) != actual.contains(keyword)) {
+                differences.add("contains(" + keyword + "): " + expected.contains(keyword) + " != " + actual.contains(keyword));
+            }
+        }
+        for (String keyword : ignoreCaseKeywords) {
+            if (expected.containsIgnoreCase(keyword) != actual.containsIgnoreCase(keyword)) {
+                differences.add("containsIgnoreCase(" + keyword + "): " + expected.containsIgnoreCase(keyword)
+                        + " != " + actual.containsIgnoreCase(keyword));
+            }
+        }
+        compare(differences, "isBlank", expected.isBlank(), actual.isBlank());
+        compare(differences, "hasStatistics", expected.hasStatistics(), actual.hasStatistics());
+        compare(differences, "totalTests", expected.getTotalTests(), actual.getTotalTests());
+        compare(differences, "failedTests", expected.getFailedTests(), actual.getFailedTests());
+        compare(differences, "errorTests", expected.getErrorTests(), actual.getErrorTests());
+        compare(differences, "testFailureDetails", expected.getTestFailureDetails(), actual.getTestFailureDetails());
+        compare(differences, "failureLines", expected.getFailureLines(), actual.getFailureLines());
+        compare(differences, "tailLines", expected.getTailLines(), actual.getTailLines());
+        compare(differences, "networkLatency", expected.getNetworkLatency(), actual.getNetworkLatency());
+        compare(differences, "bandwidth", expected.getBandwidth(), actual.getBandwidth());
+        compare(differences, "bandwidthUnit", expected.getBandwidthUnit(), actual.getBandwidthUnit());
+        compare(differences, "signalStrength", expected.getSignalStrength(), actual.getSignalStrength());
+        for (int exitCode : new int[]{0, 1}) {
+            compare(differences, "serviceStatus(exit=" + exitCode + ")", serviceStatus(expected, exitCode), serviceStatus(actual, exitCode));
+        }
+        compare(differences, "parserStatus", parserStatus(expected), parserStatus(actual));
+        return differences;
+    }
+
+    static void compare(List<String> differences, String name, Object expected, Object actual) {
+        if (!Objects.equals(expected, actual)) {
+            differences.add(name + ": " + expected + " != " + actual);
+        }
+    }
+
+    static int equivalence(int cases, long seed) throws ReflectiveOperationException {
+        String[] keywords = stringArray("KEYWORDS");
+        String[] ignoreCaseKeywords = stringArray("IGNORE_CASE_KEYWORDS");
+        Random random = new Random(seed);
+        Map<String, Integer> outcomes = new TreeMap<>();
+        for (int i = 0; i < cases; i++) {
+            byte[] log = generate(random, keywords, ignoreCaseKeywords);
+            int chunk = 1 + random.nextInt(random.nextBoolean() ? 16 : 8192);
+            CaseOutputClassifier current = current(log, chunk);
+            View expected = view(baseline(log, chunk));
+            View actual = view(current);
+            List<String> differences = differences(expected, actual, keywords, ignoreCaseKeywords);
+            String parserStatus = TestCaseResultParser.parseResult(current).getStatus();
+            compare(differences, "TestCaseResultParser(当前) vs 复刻规则", parserStatus, parserStatus(actual));
+            if (!differences.isEmpty()) {
+                System.out.println("结论或分类结果不一致 - 种子: " + seed + ", 序号: " + i + ", 分块: " + chunk);
+                for (String difference : differences) {
+                    System.out.println("  " + difference);
+                }
+                System.out.println("日志内容:");
+                System.out.println(new String(log, StandardCharsets.UTF_8));
+                return 1;
+            }
+            outcomes.merge("service(exit=0)=" + serviceStatus(actual, 0), 1, Integer::sum);
+            outcomes.merge("service(exit=1)=" + serviceStatus(actual, 1), 1, Integer::sum);
+            outcomes.merge("parser=" + parserStatus, 1, Integer::sum);
+        }
+        System.out.println("等价性检查通过 - 日志数: " + cases + ", 种子: " + seed);
+        System.out.println("结论分布: " + outcomes);
+        return 0;
+    }
+
+    static byte[] noisyLog(int lines) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            content.append(String.format("[%06d] 合成噪声输出 noisy synthetic output payload 0123456789abcdef\n", i));
+        }
+        content.append("PASS: 合成输出完成\n");
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] keywordLog(int lines, long seed) {
+        Random random = new Random(seed);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            content.append(wordLine(random, FRAGMENTS, 8, 0.3)).append('\n');
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static void benchmark(String name, byte[] log, int rounds) {
+        int chunk = 64 * 1024;
+        long[] baselineNanos = new long[rounds];
+        long[] currentNanos = new long[rounds];
+        for (int i = 0; i < 3; i++) {
+            baseline(log, chunk);
+            current(log, chunk);
+        }
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            baseline(log, chunk);
+            baselineNanos[i] = System.nanoTime() - start;
+            start = System.nanoTime();
+            current(log, chunk);
+            currentNanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(baselineNanos);
+        Arrays.sort(currentNanos);
+        double megabytes = log.length / 1024.0 / 1024.0;
+        double baselineMillis = baselineNanos[rounds / 2] / 1e6;
+        double currentMillis = currentNanos[rounds / 2] / 1e6;
+        System.out.println(String.format("%s（%.1fMB，%d轮中位数）: 逐关键词匹配 %.1fms (%.0fMB/s)，自动机 %.1fms (%.0fMB/s)，加速 %.2fx",
+                name, megabytes, rounds, baselineMillis, megabytes * 1000 / baselineMillis,
+                currentMillis, megabytes * 1000 / currentMillis, baselineMillis / currentMillis));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int cases = Integer.parseInt(args[0]);
+        long seed = Long.parseLong(args[1]);
+        int benchLines = Integer.parseInt(args[2]);
+        int rounds = Math.max(1, Integer.parseInt(args[3]));
+        int exitCode = equivalence(cases, seed);
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+        if (benchLines > 0) {
+            benchmark("噪声日志", noisyLog(benchLines), rounds);
+            benchmark("关键词密集日志", keywordLog(benchLines, seed), rounds);
+        }
+    }
+}
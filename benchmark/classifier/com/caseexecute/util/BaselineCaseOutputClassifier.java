@@ -0,0 +1,469 @@
+package com.caseexecute.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 用例输出流式分类器
+ * 逐行消费用例输出，增量维护结果解析需要的关键词标识、测试统计、失败详情、最后几行输出和性能指标：
+ * 用例进程退出、输出读取完毕时即可得出结论，不需要重新读取日志文件，也不在内存中保留完整日志。
+ * 非线程安全，由输出泵线程写入，输出读取结束后再查询。
+ * 性能对比基线：引入{@link KeywordAutomaton}之前的{@link CaseOutputClassifier}，逐个关键词contains匹配，
+ * 只用于benchmark_classifier.py的等价性检查和性能对比，不随服务编译
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+public class BaselineCaseOutputClassifier {
+
+    /**
+     * 区分大小写匹配的关键词
+     */
+    private static final String[] KEYWORDS = {
+            "PASS", "SUCCESS", "成功", "FAIL", "ERROR", "失败", "超时", "timeout", "TIMEOUT",
+            "ImportError", "ModuleNotFoundError", "Permission denied", "No such file",
+            "Connection refused", "Network is unreachable", "AssertionError", "Exception", "Error", "错误",
+            "网络连接失败", "DNS解析失败", "Name or service not known", "权限不足", "文件不存在",
+            "模块导入失败", "内存不足", "out of memory", "磁盘空间不足", "no space left", "Python执行器不可用"
+    };
+
+    /**
+     * 不区分大小写匹配的关键词（小写）
+     */
+    private static final String[] IGNORE_CASE_KEYWORDS = {
+            "pass", "success", "fail", "error", "command not found", "no such file or directory",
+            "permission denied", "cannot run program", "python", "not found"
+    };
+
+    private static final Map<String, Integer> KEYWORD_INDEX = indexOf(KEYWORDS);
+    private static final Map<String, Integer> IGNORE_CASE_KEYWORD_INDEX = indexOf(IGNORE_CASE_KEYWORDS);
+
+    /**
+     * 包含这些关键词的行作为失败信息行
+     */
+    private static final String[] FAILURE_LINE_KEYWORDS = {"FAIL", "ERROR", "失败", "AssertionError", "Exception"};
+
+    private static final String[] STATISTICS_LABELS = {"运行测试数:", "失败数:", "错误数:"};
+    private static final Pattern[] STATISTICS_PATTERNS = {
+            Pattern.compile("运行测试数:\\s*(\\d+)"),
+            Pattern.compile("失败数:\\s*(\\d+)"),
+            Pattern.compile("错误数:\\s*(\\d+)")
+    };
+    private static final Pattern LATENCY_PATTERN = Pattern.compile("网络延迟:\\s*([\\d.]+)ms");
+    private static final Pattern BANDWIDTH_PATTERN = Pattern.compile("带宽:\\s*([\\d.]+)\\s*(Mbps|Kbps)");
+    private static final Pattern SIGNAL_PATTERN = Pattern.compile("信号强度:\\s*([\\d.]+)\\s*dBm");
+
+    /**
+     * 保留的最后输出行数
+     */
+    private static final int TAIL_LINES = 5;
+
+    /**
+     * 单行最多保留的字节数，超出部分不参与解析
+     */
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+
+    /**
+     * 失败信息最多保留的字符数
+     */
+    private static final int MAX_DETAIL_CHARS = 8 * 1024;
+
+    private final boolean[] seen = new boolean[KEYWORDS.length];
+    private final boolean[] seenIgnoreCase = new boolean[IGNORE_CASE_KEYWORDS.length];
+    private int unseen = KEYWORDS.length;
+    private int unseenIgnoreCase = IGNORE_CASE_KEYWORDS.length;
+    private boolean blank = true;
+
+    private byte[] lineBuffer = new byte[256];
+    private int lineLength;
+
+    private final int[] statistics = new int[STATISTICS_PATTERNS.length];
+    private int statisticsStage;
+
+    private final SectionMatcher failedTests = new SectionMatcher("失败的测试:");
+    private final SectionMatcher errorTests = new SectionMatcher("错误的测试:");
+    private final StringBuilder failureLines = new StringBuilder();
+
+    private final ArrayDeque<String> tailLines = new ArrayDeque<>(TAIL_LINES);
+    private int pendingEmptyLines;
+
+    private Double networkLatency;
+    private Double bandwidth;
+    private String bandwidthUnit;
+    private Double signalStrength;
+
+    /**
+     * 分类日志文件，逐块读取，不把整个文件读入内存
+     *
+     * @param logFilePath 日志文件，不存在时按空输出处理
+     * @return 分类结果
+     */
+    public static BaselineCaseOutputClassifier classify(Path logFilePath) throws IOException {
+        BaselineCaseOutputClassifier classifier = new BaselineCaseOutputClassifier();
+        if (Files.exists(logFilePath)) {
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = Files.newInputStream(logFilePath)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    classifier.accept(buffer, read);
+                }
+            }
+        }
+        classifier.finish();
+        return classifier;
+    }
+
+    /**
+     * 分类已在内存中的输出
+     *
+     * @param content 输出内容
+     * @return 分类结果
+     */
+    public static BaselineCaseOutputClassifier of(String content) {
+        BaselineCaseOutputClassifier classifier = new BaselineCaseOutputClassifier();
+        if (content != null) {
+            int start = 0;
+            int end;
+            while ((end = content.indexOf('\n', start)) >= 0) {
+                classifier.acceptLine(content.substring(start, end));
+                start = end + 1;
+            }
+            if (start < content.length()) {
+                classifier.acceptLine(content.substring(start));
+            }
+        }
+        return classifier;
+    }
+
+    /**
+     * 消费一段原始输出，按换行拆分为行
+     */
+    public void accept(byte[] buffer, int length) {
+        for (int i = 0; i < length; i++) {
+            byte b = buffer[i];
+            if (b == '\n') {
+                emitLine();
+            } else if (lineLength < MAX_LINE_BYTES) {
+                if (lineLength == lineBuffer.length) {
+                    byte[] grown = new byte[Math.min(MAX_LINE_BYTES, lineBuffer.length * 2)];
+                    System.arraycopy(lineBuffer, 0, grown, 0, lineLength);
+                    lineBuffer = grown;
+                }
+                lineBuffer[lineLength++] = b;
+            }
+        }
+    }
+
+    /**
+     * 输出结束，处理最后一行未以换行结尾的输出
+     */
+    public void finish() {
+        if (lineLength > 0) {
+            emitLine();
+        }
+    }
+
+    private void emitLine() {
+        int length = lineLength;
+        if (length > 0 && lineBuffer[length - 1] == '\r') {
+            length--;
+        }
+        acceptLine(new String(lineBuffer, 0, length, StandardCharsets.UTF_8));
+        lineLength = 0;
+    }
+
+    /**
+     * 消费一行输出（不含换行符）
+     */
+    public void acceptLine(String line) {
+        if (blank && !isBlank(line)) {
+            blank = false;
+        }
+        matchKeywords(line);
+        matchStatistics(line);
+        failedTests.accept(line);
+        errorTests.accept(line);
+        matchFailureLine(line);
+        matchPerformanceMetrics(line);
+        rememberTail(line);
+    }
+
+    private void matchKeywords(String line) {
+        if (unseen > 0) {
+            for (int i = 0; i < KEYWORDS.length; i++) {
+                if (!seen[i] && line.contains(KEYWORDS[i])) {
+                    seen[i] = true;
+                    unseen--;
+                }
+            }
+        }
+        if (unseenIgnoreCase > 0) {
+            String lowerLine = line.toLowerCase(Locale.ROOT);
+            for (int i = 0; i < IGNORE_CASE_KEYWORDS.length; i++) {
+                if (!seenIgnoreCase[i] && lowerLine.contains(IGNORE_CASE_KEYWORDS[i])) {
+                    seenIgnoreCase[i] = true;
+                    unseenIgnoreCase--;
+                }
+            }
+        }
+    }
+
+    /**
+     * 依次匹配运行测试数、失败数、错误数，三项可以分布在不同的行
+     */
+    private void matchStatistics(String line) {
+        int position = 0;
+        while (statisticsStage < STATISTICS_PATTERNS.length
+                && line.indexOf(STATISTICS_LABELS[statisticsStage], position) >= 0) {
+            Matcher matcher = STATISTICS_PATTERNS[statisticsStage].matcher(line);
+            if (!matcher.find(position)) {
+                return;
+            }
+            try {
+                statistics[statisticsStage] = Integer.parseInt(matcher.group(1));
+            } catch (NumberFormatException e) {
+                return;
+            }
+            statisticsStage++;
+            position = matcher.end();
+        }
+    }
+
+    private void matchFailureLine(String line) {
+        if (failureLines.length() >= MAX_DETAIL_CHARS) {
+            return;
+        }
+        for (String keyword : FAILURE_LINE_KEYWORDS) {
+            if (line.contains(keyword)) {
+                failureLines.append(line.trim()).append("; ");
+                return;
+            }
+        }
+    }
+
+    private void matchPerformanceMetrics(String line) {
+        if (networkLatency == null && line.contains("网络延迟:")) {
+            Matcher matcher = LATENCY_PATTERN.matcher(line);
+            if (matcher.find()) {
+                networkLatency = parseDouble(matcher.group(1));
+            }
+        }
+        if (bandwidth == null && line.contains("带宽:")) {
+            Matcher matcher = BANDWIDTH_PATTERN.matcher(line);
+            if (matcher.find()) {
+                bandwidth = parseDouble(matcher.group(1));
+                bandwidthUnit = bandwidth != null ? matcher.group(2) : null;
+            }
+        }
+        if (signalStrength == null && line.contains("信号强度:")) {
+            Matcher matcher = SIGNAL_PATTERN.matcher(line);
+            if (matcher.find()) {
+                signalStrength = parseDouble(matcher.group(1));
+            }
+        }
+    }
+
+    /**
+     * 保留最后几行输出，末尾的空行不计入
+     */
+    private void rememberTail(String line) {
+        if (line.isEmpty()) {
+            pendingEmptyLines++;
+            return;
+        }
+        for (int i = Math.min(pendingEmptyLines, TAIL_LINES); i > 0; i--) {
+            addTail("");
+        }
+        pendingEmptyLines = 0;
+        addTail(line);
+    }
+
+    private void addTail(String line) {
+        if (tailLines.size() == TAIL_LINES) {
+            tailLines.removeFirst();
+        }
+        tailLines.addLast(line);
+    }
+
+    /**
+     * 输出中是否包含关键词（区分大小写）
+     */
+    public boolean contains(String keyword) {
+        Integer index = KEYWORD_INDEX.get(keyword);
+        if (index == null) {
+            throw new IllegalArgumentException("未跟踪的关键词: " + keyword);
+        }
+        return seen[index];
+    }
+
+    /**
+     * 输出中是否包含关键词（不区分大小写）
+     */
+    public boolean containsIgnoreCase(String keyword) {
+        Integer index = IGNORE_CASE_KEYWORD_INDEX.get(keyword.toLowerCase(Locale.ROOT));
+        if (index == null) {
+            throw new IllegalArgumentException("未跟踪的关键词: " + keyword);
+        }
+        return seenIgnoreCase[index];
+    }
+
+    /**
+     * 输出是否为空或只包含空白字符
+     */
+    public boolean isBlank() {
+        return blank;
+    }
+
+    /**
+     * 是否找到完整的测试统计（运行测试数、失败数、错误数）
+     */
+    public boolean hasStatistics() {
+        return statisticsStage == STATISTICS_PATTERNS.length;
+    }
+
+    public int getTotalTests() {
+        return statistics[0];
+    }
+
+    public int getFailedTests() {
+        return statistics[1];
+    }
+
+    public int getErrorTests() {
+        return statistics[2];
+    }
+
+    /**
+     * "失败的测试:"和"错误的测试:"段落中列出的测试，格式为"- 测试名: 错误信息; "
+     */
+    public String getTestFailureDetails() {
+        return failedTests.details.toString() + errorTests.details;
+    }
+
+    /**
+     * 包含FAIL、ERROR、失败、AssertionError或Exception的输出行，格式为"行内容; "
+     */
+    public String getFailureLines() {
+        return failureLines.toString();
+    }
+
+    /**
+     * 最后几行输出（末尾的空行不计入）
+     */
+    public List<String> getTailLines() {
+        return new ArrayList<>(tailLines);
+    }
+
+    public Double getNetworkLatency() {
+        return networkLatency;
+    }
+
+    public Double getBandwidth() {
+        return bandwidth;
+    }
+
+    public String getBandwidthUnit() {
+        return bandwidthUnit;
+    }
+
+    public Double getSignalStrength() {
+        return signalStrength;
+    }
+
+    private static Map<String, Integer> indexOf(String[] keywords) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < keywords.length; i++) {
+            index.put(keywords[i], i);
+        }
+        return index;
+    }
+
+    private static boolean isBlank(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Double parseDouble(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 匹配"标题:"之后的第一个"- 测试名: 错误信息"，测试名可以跨行，错误信息到行尾为止；
+     * 每个标题只匹配一项
+     */
+    private static class SectionMatcher {
+        private static final int SEEK_HEADER = 0;
+        private static final int SEEK_DASH = 1;
+        private static final int SEEK_COLON = 2;
+
+        private final String header;
+        private final StringBuilder testName = new StringBuilder();
+        private final StringBuilder details = new StringBuilder();
+        private int state = SEEK_HEADER;
+
+        private SectionMatcher(String header) {
+            this.header = header;
+        }
+
+        private void accept(String line) {
+            int position = 0;
+            while (true) {
+                int index;
+                switch (state) {
+                    case SEEK_HEADER:
+                        index = line.indexOf(header, position);
+                        if (index < 0) {
+                            return;
+                        }
+                        position = index + header.length();
+                        state = SEEK_DASH;
+                        break;
+                    case SEEK_DASH:
+                        index = line.indexOf("- ", position);
+                        if (index < 0) {
+                            return;
+                        }
+                        testName.setLength(0);
+                        testName.append("- ");
+                        position = index + 2;
+                        state = SEEK_COLON;
+                        break;
+                    default:
+                        index = line.indexOf(": ", position);
+                        if (index < 0) {
+                            if (testName.length() < MAX_DETAIL_CHARS) {
+                                testName.append(line, position, line.length()).append('\n');
+                            }
+                            return;
+                        }
+                        testName.append(line, position, index);
+                        if (details.length() < MAX_DETAIL_CHARS) {
+                            details.append(testName.toString().trim()).append(": ")
+                                    .append(line.substring(index + 2).trim()).append("; ");
+                        }
+                        state = SEEK_HEADER;
+                        return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+#!/usr/bin/env python3
+# -*- coding: utf-8 -*-
+"""
+用例输出分类器等价性检查与性能对比脚本
+对比基线benchmark/classifier/com/caseexecute/util/BaselineCaseOutputClassifier.java是引入KeywordAutomaton之前的
+CaseOutputClassifier（逐个关键词contains匹配），改名后随脚本一起提交，不依赖git历史（浅克隆中也可运行）。
+基线和测量程序benchmark/classifier/ClassifierHarness.java与当前编译的CaseOutputClassifier（单个多模式自动机）
+一起编译到临时目录，然后：
+
+1. 等价性检查：按随机种子生成大量日志（状态关键词、大小写变体、关键词片段、中文、测试统计、失败详情段落、
+   性能指标、CRLF、空白行、长行、无结尾换行），按随机大小分块同时输入两个分类器，比较所有关键词标识、
+   测试统计、失败详情、失败信息行、最后几行输出和性能指标，并按服务的规则顺序比较结论：
+     - 退出码非0：环境问题为BLOCKED，否则FAILED（TestCaseExecutionServiceImpl.isBlockedByEnvironment）
+     - 退出码为0：成功标识 > 失败标识 > BLOCKED（TestCaseExecutionServiceImpl.analyzeTestOutput）
+     - TestCaseResultParser.parseExecutionStatus的规则优先级（成功 < 失败 < 超时 < 环境问题）
+   当前分类器的TestCaseResultParser结论同时与脚本中复刻的规则比对，确保复刻的规则与服务代码一致。
+   部分日志以包含所有关键词的行和超过上限的失败信息行开头，覆盖自动机停止逐字节匹配后只匹配规则标签的路径。
+   任何一项不一致时打印日志内容并以非0退出码结束。
+2. 性能对比：生成合成噪声日志（与benchmark_log_pump.py的用例输出相同）和关键词密集的日志，
+   预热后多轮交替测量两个分类器处理同一份内存中日志的耗时和吞吐（普通计时循环，非JMH）。
+
+日志行长度控制在4KB以内：超过4KB的行在最后几行输出中截断、超过64KB的部分仍参与关键词匹配，
+是有意的行为变化，不在等价性检查范围内。
+
+使用前先编译服务：
+    mvn -q compile
+    python3 benchmark_classifier.py --cases 5000 --seed 42 --bench-lines 500000 --rounds 5
+
+未指定--classpath时通过mvn dependency:build-classpath获取依赖（TestCaseResultParser需要slf4j）。
+"""
+
+import argparse
+import os
+import shutil
+import subprocess
+import sys
+import tempfile
+
+HARNESS_DIR = os.path.join(os.path.dirname(os.path.abspath(__file__)), "benchmark", "classifier")
+HARNESS_SOURCES = ["com/caseexecute/util/BaselineCaseOutputClassifier.java", "ClassifierHarness.java"]
+
+
+def maven_classpath(work_dir):
+    output_file = os.path.join(work_dir, "classpath.txt")
+    try:
+        subprocess.run(["mvn", "-q", "dependency:build-classpath", "-Dmdep.outputFile=" + output_file],
+                       check=True, capture_output=True)
+        with open(output_file, encoding="utf-8") as f:
+            return f.read().strip()
+    except (OSError, subprocess.CalledProcessError) as e:
+        print("获取依赖classpath失败，请通过--classpath指定: %s" % e)
+        return ""
+
+
+def main():
+    parser = argparse.ArgumentParser(description="用例输出分类器等价性检查与性能对比")
+    parser.add_argument("--cases", type=int, default=2000, help="随机生成的日志数")
+    parser.add_argument("--seed", type=int, default=1, help="随机种子，不一致时用同一种子复现")
+    parser.add_argument("--bench-lines", type=int, default=200000, help="性能对比日志的行数，0表示只做等价性检查")
+    parser.add_argument("--rounds", type=int, default=5, help="性能对比的测量轮数")
+    parser.add_argument("--classes", default="target/classes", help="服务编译输出目录")
+    parser.add_argument("--classpath", default=None, help="依赖classpath，默认通过mvn获取")
+    args = parser.parse_args()
+
+    if not os.path.exists(os.path.join(args.classes, "com/caseexecute/util/CaseOutputClassifier.class")):
+        sys.exit("未找到编译后的CaseOutputClassifier，请先执行 mvn -q compile 或通过--classes指定编译输出目录")
+
+    work_dir = tempfile.mkdtemp(prefix="classifier-bench-")
+    try:
+        dependencies = args.classpath if args.classpath is not None else maven_classpath(work_dir)
+        classpath = os.pathsep.join(p for p in [args.classes, dependencies] if p)
+        out_dir = os.path.join(work_dir, "out")
+        os.makedirs(out_dir)
+        subprocess.run(["javac", "-nowarn", "-encoding", "UTF-8", "-cp", classpath, "-d", out_dir]
+                       + [os.path.join(HARNESS_DIR, source) for source in HARNESS_SOURCES], check=True)
+
+        result = subprocess.run(["java", "-Dfile.encoding=UTF-8", "-cp", os.pathsep.join([out_dir, classpath]),
+                                 "ClassifierHarness", str(args.cases), str(args.seed), str(args.bench_lines),
+                                 str(args.rounds)])
+        sys.exit(result.returncode)
+    finally:
+        shutil.rmtree(work_dir, ignore_errors=True)
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,135 @@
+#!/usr/bin/env python3
+# -*- coding: utf-8 -*-
+"""
+用例输出吞吐性能测试脚本
+生成一个尽可能快地打印大量输出行的合成用例脚本，通过本地HTTP服务提供用例集下载，向运行中的CaseExecuteService
+提交任务并统计任务耗时（下载+执行+读取输出）和服务处理输出的吞吐；指定--service-pid时同时统计服务进程消耗的CPU时间（仅Linux）。
+
+对比方法：分别以下列配置启动服务，各运行一次本脚本，比较输出的吞吐和CPU时间
+    case.execution.log.enable-real-time-console-output=true    # 输出写入日志文件，并按限流镜像到服务日志
+    case.execution.log.enable-real-time-console-output=false   # 输出只写入日志文件
+    case.execution.log.mirror-max-lines-per-second=1000000     # 接近逐行镜像到服务日志的旧行为
+
+例如：
+    java -jar case-execute-service.jar --case.execution.log.enable-real-time-console-output=false
+    python3 benchmark_log_pump.py --lines 500000 --rounds 3 --service-pid $(pgrep -f case-execute-service)
+"""
+
+import argparse
+import functools
+import http.server
+import json
+import os
+import socketserver
+import tempfile
+import threading
+import time
+import urllib.request
+import zipfile
+
+CASE_NUMBER = "BENCH_LOG_PUMP"
+
+NOISY_SCRIPT = r'''
+import sys
+
+LINES = %(lines)d
+write = sys.stdout.write
+for i in range(LINES):
+    write("[%%06d] 合成噪声输出 noisy synthetic output payload 0123456789abcdef\n" %% i)
+print("PASS: 合成输出完成")
+'''
+
+
+def build_test_case_set(path, lines):
+    with zipfile.ZipFile(path, "w", zipfile.ZIP_DEFLATED) as zf:
+        zf.writestr("scripts/%s.py" % CASE_NUMBER, NOISY_SCRIPT % {"lines": lines})
+
+
+def start_file_server(directory, port):
+    handler = functools.partial(http.server.SimpleHTTPRequestHandler, directory=directory)
+    handler.log_message = lambda *args: None
+    server = socketserver.ThreadingTCPServer(("0.0.0.0", port), handler)
+    thread = threading.Thread(target=server.serve_forever, daemon=True)
+    thread.start()
+    return server
+
+
+def http_json(url, body=None):
+    data = json.dumps(body).encode("utf-8") if body is not None else None
+    request = urllib.request.Request(url, data=data, headers={"Content-Type": "application/json"})
+    with urllib.request.urlopen(request, timeout=30) as response:
+        return json.loads(response.read().decode("utf-8"))
+
+
+def completed_tasks(service_url):
+    metrics = http_json(service_url + "/test-case-execution/metrics")["data"]
+    scheduler = metrics["scheduler"]
+    return scheduler["completedTasks"] + scheduler["failedTasks"]
+
+
+def process_cpu_seconds(pid):
+    """进程已消耗的用户态+内核态CPU时间（秒）"""
+    if pid is None:
+        return None
+    with open("/proc/%d/stat" % pid) as f:
+        fields = f.read().rsplit(")", 1)[1].split()
+    return (int(fields[11]) + int(fields[12])) / float(os.sysconf("SC_CLK_TCK"))
+
+
+def run_round(service_url, file_url, round_index):
+    task_id = "BENCH_LOG_%d_%d" % (int(time.time()), round_index)
+    before = completed_tasks(service_url)
+    start = time.time()
+    http_json(service_url + "/test-case-execution/receive", {
+        "taskId": task_id,
+        "executorIp": "127.0.0.1",
+        "testCaseSetId": int(time.time() * 1000) + round_index,
+        "testCaseSetPath": file_url,
+        "testCaseList": [{"testCaseId": 1, "testCaseNumber": CASE_NUMBER, "round": 1}],
+        "resultReportUrl": file_url,
+        "logReportUrl": file_url,
+    })
+    while completed_tasks(service_url) <= before:
+        time.sleep(0.05)
+    return time.time() - start
+
+
+def main():
+    parser = argparse.ArgumentParser(description="用例输出吞吐性能测试")
+    parser.add_argument("--service", default="http://localhost:8081/api", help="CaseExecuteService地址")
+    parser.add_argument("--host", default="127.0.0.1", help="服务访问本机文件服务使用的地址")
+    parser.add_argument("--port", type=int, default=8767, help="本地文件服务端口")
+    parser.add_argument("--lines", type=int, default=500000, help="合成脚本输出的行数")
+    parser.add_argument("--rounds", type=int, default=3, help="执行轮数")
+    parser.add_argument("--service-pid", type=int, default=None, help="服务进程PID，指定时统计服务CPU时间（仅Linux）")
+    args = parser.parse_args()
+
+    work_dir = tempfile.mkdtemp(prefix="bench_log_pump_")
+    build_test_case_set(os.path.join(work_dir, "log_pump_set.zip"), args.lines)
+    server = start_file_server(work_dir, args.port)
+    file_url = "http://%s:%d/log_pump_set.zip" % (args.host, args.port)
+    print("合成脚本输出行数: %d" % args.lines)
+
+    try:
+        results = []
+        for i in range(args.rounds):
+            cpu_before = process_cpu_seconds(args.service_pid)
+            duration = run_round(args.service, file_url, i)
+            cpu_after = process_cpu_seconds(args.service_pid)
+            cpu = cpu_after - cpu_before if cpu_before is not None else None
+            results.append((duration, cpu))
+            print("第%d轮 - 任务耗时: %.0fms, 吞吐: %.0f行/秒%s" % (
+                i + 1, duration * 1000, args.lines / duration,
+                ", 服务CPU时间: %.2fs" % cpu if cpu is not None else ""))
+        # 第一轮包含JIT预热，单独列出
+        steady = results[1:] or results
+        average = sum(duration for duration, _ in steady) / len(steady)
+        print("平均耗时（不含第一轮）: %.0fms, 平均吞吐: %.0f行/秒" % (average * 1000, args.lines / average))
+        if args.service_pid is not None:
+            print("平均服务CPU时间（不含第一轮）: %.2fs" % (sum(cpu for _, cpu in steady) / len(steady)))
+    finally:
+        server.shutdown()
+
+
+if __name__ == "__main__":
+    main()
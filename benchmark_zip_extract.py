@@ -0,0 +1,112 @@
+#!/usr/bin/env python3
+# -*- coding: utf-8 -*-
+"""
+用例集解压性能对比脚本
+生成包含大量小文件的用例集压缩包并通过本地HTTP服务提供下载，向运行中的CaseExecuteService提交只包含
+一个不存在脚本的任务，任务耗时即为下载+解压耗时（用例找不到脚本后立即结束）。
+
+对比方法：分别以下列配置启动服务，各运行一次本脚本，比较输出的平均耗时
+    case.execution.file-storage.parallel-extract-threads=0   # 边下载边解压（单线程ZipInputStream）
+    case.execution.file-storage.parallel-extract-threads=8   # 先下载，再按中央目录8线程并行解压
+
+例如：
+    java -jar case-execute-service.jar --case.execution.file-storage.parallel-extract-threads=8
+    python3 benchmark_zip_extract.py --files 5000 --rounds 5
+
+每轮使用不同的用例集ID，启用用例集缓存时也不会命中缓存。
+"""
+
+import argparse
+import functools
+import http.server
+import json
+import os
+import socketserver
+import tempfile
+import threading
+import time
+import urllib.request
+import zipfile
+
+
+def build_test_case_set(path, file_count, file_size):
+    """生成测试用压缩包：file_count个小文件分布在多级目录中"""
+    payload = ("# benchmark\n" + "x = 1\n" * (file_size // 6)).encode("utf-8")
+    with zipfile.ZipFile(path, "w", zipfile.ZIP_DEFLATED) as zf:
+        for i in range(file_count):
+            zf.writestr("scripts/group_%03d/case_%05d.py" % (i % 100, i), payload)
+    return os.path.getsize(path)
+
+
+def start_file_server(directory, port):
+    handler = functools.partial(http.server.SimpleHTTPRequestHandler, directory=directory)
+    handler.log_message = lambda *args: None
+    server = socketserver.ThreadingTCPServer(("0.0.0.0", port), handler)
+    thread = threading.Thread(target=server.serve_forever, daemon=True)
+    thread.start()
+    return server
+
+
+def http_json(url, body=None):
+    data = json.dumps(body).encode("utf-8") if body is not None else None
+    request = urllib.request.Request(url, data=data, headers={"Content-Type": "application/json"})
+    with urllib.request.urlopen(request, timeout=30) as response:
+        return json.loads(response.read().decode("utf-8"))
+
+
+def completed_tasks(service_url):
+    metrics = http_json(service_url + "/test-case-execution/metrics")["data"]
+    scheduler = metrics["scheduler"]
+    return scheduler["completedTasks"] + scheduler["failedTasks"]
+
+
+def run_round(service_url, file_url, round_index):
+    task_id = "BENCH_EXTRACT_%d_%d" % (int(time.time()), round_index)
+    before = completed_tasks(service_url)
+    start = time.time()
+    http_json(service_url + "/test-case-execution/receive", {
+        "taskId": task_id,
+        "executorIp": "127.0.0.1",
+        "testCaseSetId": int(time.time() * 1000) + round_index,
+        "testCaseSetPath": file_url,
+        "testCaseList": [{"testCaseId": 1, "testCaseNumber": "BENCH_NO_SCRIPT", "round": 1}],
+        "resultReportUrl": file_url,
+        "logReportUrl": file_url,
+    })
+    while completed_tasks(service_url) <= before:
+        time.sleep(0.05)
+    return time.time() - start
+
+
+def main():
+    parser = argparse.ArgumentParser(description="用例集解压性能对比")
+    parser.add_argument("--service", default="http://localhost:8081/api", help="CaseExecuteService地址")
+    parser.add_argument("--host", default="127.0.0.1", help="服务访问本机文件服务使用的地址")
+    parser.add_argument("--port", type=int, default=8765, help="本地文件服务端口")
+    parser.add_argument("--files", type=int, default=5000, help="压缩包内文件数")
+    parser.add_argument("--file-size", type=int, default=2048, help="单个文件大小（字节）")
+    parser.add_argument("--rounds", type=int, default=5, help="执行轮数")
+    args = parser.parse_args()
+
+    work_dir = tempfile.mkdtemp(prefix="bench_extract_")
+    zip_size = build_test_case_set(os.path.join(work_dir, "bench_set.zip"), args.files, args.file_size)
+    print("压缩包已生成 - 文件数: %d, 大小: %.1fMB" % (args.files, zip_size / 1024.0 / 1024.0))
+
+    server = start_file_server(work_dir, args.port)
+    file_url = "http://%s:%d/bench_set.zip" % (args.host, args.port)
+    try:
+        durations = []
+        for i in range(args.rounds):
+            duration = run_round(args.service, file_url, i)
+            durations.append(duration)
+            print("第%d轮 - 下载+解压耗时: %.0fms" % (i + 1, duration * 1000))
+        # 第一轮包含JIT预热，单独列出
+        steady = durations[1:] or durations
+        print("平均耗时（不含第一轮）: %.0fms, 最短: %.0fms" % (
+            sum(steady) / len(steady) * 1000, min(steady) * 1000))
+    finally:
+        server.shutdown()
+
+
+if __name__ == "__main__":
+    main()
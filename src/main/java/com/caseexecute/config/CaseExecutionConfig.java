@@ -19,4 +19,32 @@ public class CaseExecutionConfig {
      * 单个用例执行超时时长（分钟），默认1分钟
      */
     private Integer timeoutMinutes = 1;
+    
+    /**
+     * 终止用例进程的宽限期（秒），默认5秒
+     * 超时或取消时先发送SIGTERM，宽限期内仍未退出的进程发送SIGKILL
+     */
+    private Integer terminateGraceSeconds = 5;
+    
+    /**
+     * 是否启用任务内用例并行执行，默认关闭（按用例列表顺序串行执行）
+     */
+    private boolean parallelEnabled = false;
+    
+    /**
+     * 任务内用例并行执行的最大并发数，默认4
+     */
+    private Integer parallelism = 4;
+    
+    /**
+     * 并行执行时未声明所需UE（ueIds）的用例是否租用全部UE，默认关闭
+     * 关闭时租用任意一个空闲UE，脚本的--uelist只包含该UE；开启时租用全部UE，与其他用例串行执行
+     */
+    private boolean undeclaredUeLeaseAll = false;
+    
+    /**
+     * 是否启用多轮次批量执行，默认关闭
+     * 开启后串行执行时，同一用例连续的多个轮次在一个Python解释器中依次执行，日志和结果仍按轮次拆分上报
+     */
+    private boolean batchRoundsEnabled = false;
 }
@@ -30,7 +30,7 @@ public class FileStorageConfig {
     private int retentionHours = 24;
     
     /**
-     * 最大并发任务数
+     * 最大并发任务数（任务调度器工作线程数，超出部分排队执行）
      */
     private int maxConcurrentTasks = 10;
     
@@ -39,6 +39,28 @@ public class FileStorageConfig {
      */
     private long maxFileSizeMB = 1000;
     
+    /**
+     * 是否启用用例集缓存，启用后相同用例集（用例集ID和内容版本一致）只下载解压一次，多个任务共享
+     */
+    private boolean cacheEnabled = false;
+    
+    /**
+     * 用例集缓存占用的最大磁盘空间（MB），超出后按最近最少使用淘汰未被任务使用的用例集
+     */
+    private long cacheMaxSizeMB = 10240;
+    
+    /**
+     * 并行解压线程数，0表示边下载边解压（压缩包不落盘，单线程解压）；
+     * 大于0时先下载压缩包，再按中央目录用多个线程并行解压，适合包含大量小文件的用例集
+     */
+    private int parallelExtractThreads = 0;
+    
+    /**
+     * 是否按需解压用例集：只解压任务用到的脚本和用例集清单（case-manifest.json）声明的共享依赖，
+     * 其余文件在查找时解压；用例集没有清单时仍解压全部文件。启用用例集缓存时不生效
+     */
+    private boolean lazyExtractEnabled = false;
+    
     /**
      * 打印配置信息（用于调试）
      */
@@ -49,6 +71,10 @@ public class FileStorageConfig {
         System.out.println("retentionHours: " + retentionHours);
         System.out.println("maxConcurrentTasks: " + maxConcurrentTasks);
         System.out.println("maxFileSizeMB: " + maxFileSizeMB);
+        System.out.println("cacheEnabled: " + cacheEnabled);
+        System.out.println("cacheMaxSizeMB: " + cacheMaxSizeMB);
+        System.out.println("parallelExtractThreads: " + parallelExtractThreads);
+        System.out.println("lazyExtractEnabled: " + lazyExtractEnabled);
         System.out.println("==================================");
     }
 }
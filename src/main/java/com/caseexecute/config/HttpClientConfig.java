@@ -0,0 +1,53 @@
+package com.caseexecute.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * HTTP客户端连接池配置类
+ * 结果上报、日志上传和用例集下载共用一个连接池
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "case.execution.http-client")
+public class HttpClientConfig {
+
+    /**
+     * 连接池最大连接数，默认50
+     */
+    private int maxTotal = 50;
+
+    /**
+     * 每个目标地址（协议+主机+端口）的最大连接数，默认10
+     */
+    private int maxPerRoute = 10;
+
+    /**
+     * 建立连接超时时间（毫秒），默认30000毫秒
+     */
+    private int connectTimeoutMillis = 30000;
+
+    /**
+     * 读取响应数据的超时时间（毫秒），默认60000毫秒，0表示不超时
+     */
+    private int socketTimeoutMillis = 60000;
+
+    /**
+     * 从连接池获取连接的最长等待时间（毫秒），默认30000毫秒
+     */
+    private int connectionRequestTimeoutMillis = 30000;
+
+    /**
+     * 空闲连接保留时间（秒），超过后由后台线程关闭，默认30秒
+     */
+    private int idleTimeoutSeconds = 30;
+
+    /**
+     * 连接空闲超过该时间（毫秒）后再次使用前检查是否已被服务端关闭，默认2000毫秒
+     */
+    private int validateAfterInactivityMillis = 2000;
+}
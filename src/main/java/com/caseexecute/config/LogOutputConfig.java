@@ -12,11 +12,12 @@ import org.springframework.stereotype.Component;
  */
 @Data
 @Component
-@ConfigurationProperties(prefix = "case-execution.log")
+@ConfigurationProperties(prefix = "case.execution.log")
 public class LogOutputConfig {
     
     /**
      * 是否启用实时日志输出到控制台
+     * 用例输出按限流异步镜像到服务日志，完整输出始终写入用例日志文件
      */
     private boolean enableRealTimeConsoleOutput = true;
     
@@ -44,4 +45,35 @@ public class LogOutputConfig {
      * 日志输出格式
      */
     private String logFormat = "[{timestamp}] [用例执行] 用例ID: {testCaseId}, 轮次: {round} - {message}";
+    
+    /**
+     * 读取用例输出的泵线程数，默认2个；所有用例共用，线程数不随同时执行的用例数增长
+     */
+    private int pumpThreads = 2;
+    
+    /**
+     * 用例输出写入日志文件的缓冲区大小（KB），默认64KB
+     */
+    private int pumpBufferKb = 64;
+    
+    /**
+     * 用例持续输出时日志文件的最长刷新间隔（毫秒），默认200毫秒；用例暂无输出时立即刷新
+     */
+    private long flushIntervalMillis = 200;
+    
+    /**
+     * 每个用例每秒最多镜像到服务日志的输出行数，默认200行，0表示不镜像
+     */
+    private int mirrorMaxLinesPerSecond = 200;
+    
+    /**
+     * 等待写入服务日志的镜像行队列长度，默认10000行，队列已满时丢弃
+     */
+    private int mirrorQueueSize = 10000;
+    
+    /**
+     * 重新读取用例日志文件分析结果时提取失败信息行的末尾窗口大小（MB），默认64MB；
+     * 关键词和测试统计始终读取整个文件，0表示从整个文件提取失败信息行
+     */
+    private int analysisWindowMb = 64;
 }
@@ -0,0 +1,52 @@
+package com.caseexecute.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用例日志上传配置类
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "case.execution.log-upload")
+public class LogUploadConfig {
+
+    /**
+     * 是否在后台上传用例日志，默认开启；关闭时在用例执行线程上同步上传，上传完成后再上报结果
+     */
+    private boolean asyncEnabled = true;
+
+    /**
+     * 同时上传的日志数，默认4个
+     */
+    private int concurrency = 4;
+
+    /**
+     * 等待上传（含上传中和等待重试）的日志数上限，默认1000个；超出时在用例执行线程上同步上传
+     */
+    private int queueCapacity = 1000;
+
+    /**
+     * 每个日志最多上传次数（含首次），默认5次
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * 上传失败后首次重试的等待时间（毫秒），默认2000毫秒；之后每次失败等待时间翻倍
+     */
+    private long retryInitialBackoffMillis = 2000;
+
+    /**
+     * 上传失败重试的最长等待时间（毫秒），默认60000毫秒
+     */
+    private long retryMaxBackoffMillis = 60000;
+
+    /**
+     * 服务关闭时等待正在上传和排队的日志上传完成的最长时间（秒），默认30秒
+     */
+    private int shutdownTimeoutSeconds = 30;
+}
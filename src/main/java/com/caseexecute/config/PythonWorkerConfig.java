@@ -0,0 +1,45 @@
+package com.caseexecute.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Python常驻执行器配置类
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "case.execution.python-worker")
+public class PythonWorkerConfig {
+
+    /**
+     * 是否启用常驻执行器模式，默认关闭（每个用例启动独立的Python进程）
+     */
+    private boolean enabled = false;
+
+    /**
+     * 常驻执行器数量，默认2
+     */
+    private Integer poolSize = 2;
+
+    /**
+     * 单个执行器最多执行的用例次数，达到后回收并重新启动，默认50
+     */
+    private Integer maxRunsPerWorker = 50;
+
+    /**
+     * 执行器启动时预加载的Python模块
+     */
+    private List<String> preloadModules = new ArrayList<>();
+
+    /**
+     * Python命令
+     */
+    private String pythonCommand = "python";
+}
@@ -0,0 +1,40 @@
+package com.caseexecute.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Python派生服务（zygote）配置类
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "case.execution.python-zygote")
+public class PythonZygoteConfig {
+
+    /**
+     * 是否启用派生模式，默认关闭；仅Linux/macOS支持
+     */
+    private boolean enabled = false;
+
+    /**
+     * 派生服务启动时预加载的Python模块
+     */
+    private List<String> preloadModules = new ArrayList<>();
+
+    /**
+     * Python命令
+     */
+    private String pythonCommand = "python";
+
+    /**
+     * 等待派生服务创建用例进程的超时时长（秒），包含派生服务启动和预加载模块的耗时，默认60秒
+     */
+    private Integer startTimeoutSeconds = 60;
+}
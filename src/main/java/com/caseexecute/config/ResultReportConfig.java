@@ -0,0 +1,86 @@
+package com.caseexecute.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用例执行结果上报配置类
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "case.execution.result-report")
+public class ResultReportConfig {
+
+    /**
+     * 是否异步上报，默认开启；关闭时在用例执行线程上逐条同步上报
+     */
+    private boolean asyncEnabled = true;
+
+    /**
+     * 批量上报接口地址，为空时逐条上报到任务的resultReportUrl；
+     * 配置后同一批结果以JSON数组一次提交，批量提交失败时改为逐条上报
+     */
+    private String bulkUrl;
+
+    /**
+     * 每批最多上报的结果数，默认20条
+     */
+    private int batchSize = 20;
+
+    /**
+     * 凑批等待时间（毫秒），默认200毫秒；第一条结果入队后最多等待该时间再提交
+     */
+    private long lingerMillis = 200;
+
+    /**
+     * 上报线程数，默认2个；同一任务的结果始终由同一线程按顺序上报
+     */
+    private int senderThreads = 2;
+
+    /**
+     * 等待上报的结果队列长度，默认10000条；队列已满时，启用发件箱则结果只保留在发件箱中，
+     * 待队列空出后由上报线程从发件箱读取，未启用发件箱则在用例执行线程上同步上报
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 服务关闭时等待剩余结果上报完成的最长时间（秒），默认30秒
+     */
+    private int shutdownTimeoutSeconds = 30;
+
+    /**
+     * 是否启用结果发件箱，默认开启（仅异步上报时生效）；
+     * 启用后结果先写入文件存储根目录下的result-outbox目录，平台确认后才删除，上报失败或服务重启后继续上报
+     */
+    private boolean outboxEnabled = true;
+
+    /**
+     * 发件箱单个分段文件的最大大小（MB），默认16MB；分段中的结果全部确认后删除该分段
+     */
+    private int outboxSegmentMb = 16;
+
+    /**
+     * 发件箱每次写入后是否强制刷盘，默认关闭；关闭时进程退出不丢结果，操作系统崩溃可能丢失最近写入的结果
+     */
+    private boolean outboxFsync = false;
+
+    /**
+     * 上报失败后首次重试的等待时间（毫秒），默认1000毫秒；之后每次失败等待时间翻倍。
+     * 按任务分别退避，重试期间只暂停该任务的上报；平台返回4xx（408、429除外）的结果不重试
+     */
+    private long retryInitialBackoffMillis = 1000;
+
+    /**
+     * 上报失败重试的最长等待时间（毫秒），默认300000毫秒（5分钟）
+     */
+    private long retryMaxBackoffMillis = 300000;
+
+    /**
+     * 结果提交后最长重试时间（小时），默认72小时，超过后放弃上报并记录错误日志；0表示一直重试
+     */
+    private int retryMaxAgeHours = 72;
+}
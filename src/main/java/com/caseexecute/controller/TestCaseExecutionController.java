@@ -1,6 +1,7 @@
 package com.caseexecute.controller;
 
 import com.caseexecute.common.Result;
+import com.caseexecute.dto.TaskCancelRequest;
 import com.caseexecute.dto.TestCaseExecutionRequest;
 import com.caseexecute.service.TestCaseExecutionService;
 import com.caseexecute.util.PythonExecutorUtil;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -150,6 +152,13 @@ public class TestCaseExecutionController {
             status.put("startTime", System.currentTimeMillis());
             status.put("estimatedEndTime", System.currentTimeMillis() + 300000); // 5分钟后
             
+            // 任务被取消时返回取消状态和进程清理进度
+            Map<String, Object> cancellation = testCaseExecutionService.getCancellationStatus(taskId);
+            if (cancellation != null) {
+                status.put("status", cancellation.get("state"));
+                status.put("cancellation", cancellation);
+            }
+            
             log.info("任务状态查询完成 - 任务ID: {}, 状态: {}", taskId, status.get("status"));
             return Result.success("查询成功", status);
             
@@ -159,30 +168,42 @@ public class TestCaseExecutionController {
         }
     }
     
+    /**
+     * 获取执行指标
+     * 
+     * @return 任务调度器排队数、执行中任务数、已完成任务数等指标
+     */
+    @GetMapping("/metrics")
+    public Result<Map<String, Object>> getExecutionMetrics() {
+        try {
+            return Result.success("查询成功", testCaseExecutionService.getExecutionMetrics());
+        } catch (Exception e) {
+            log.error("查询执行指标失败 - 错误: {}", e.getMessage(), e);
+            return Result.error("查询执行指标失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 取消任务执行
+     * 立即返回取消凭据，进程清理在后台执行，通过查询任务状态接口查看清理进度
      * 
      * @param taskId 任务ID
-     * @return 取消结果
+     * @return 取消凭据
      */
     @PostMapping("/cancel/{taskId}")
     public Result<Map<String, Object>> cancelTask(@PathVariable String taskId) {
         log.info("取消任务执行 - 任务ID: {}", taskId);
         
         try {
-            boolean cancelled = testCaseExecutionService.cancelTaskExecution(taskId);
+            Map<String, Object> ticket = testCaseExecutionService.cancelTaskExecution(taskId);
             
-            Map<String, Object> result = new HashMap<>();
-            result.put("taskId", taskId);
-            
-            if (cancelled) {
-                result.put("status", "CANCELLED");
-                result.put("message", "任务已成功取消");
-                log.info("任务取消成功 - 任务ID: {}", taskId);
-                return Result.success("任务取消成功", result);
+            if (ticket != null) {
+                Map<String, Object> result = new HashMap<>(ticket);
+                result.put("status", ticket.get("state"));
+                result.put("message", "任务取消请求已受理，进程清理在后台执行");
+                log.info("任务取消请求已受理 - 任务ID: {}, 凭据: {}", taskId, ticket.get("ticketId"));
+                return Result.success("任务取消请求已受理", result);
             } else {
-                result.put("status", "NOT_FOUND");
-                result.put("message", "任务不存在或已完成");
                 log.warn("任务不存在或已完成 - 任务ID: {}", taskId);
                 return Result.error("任务不存在或已完成");
             }
@@ -193,6 +214,35 @@ public class TestCaseExecutionController {
         }
     }
     
+    /**
+     * 批量取消任务执行
+     * 
+     * @param request 批量取消请求
+     * @return 每个任务的取消凭据
+     */
+    @PostMapping("/cancel")
+    public Result<Map<String, Object>> cancelTasks(@Valid @RequestBody TaskCancelRequest request) {
+        log.info("批量取消任务执行 - 任务数: {}", request.getTaskIds().size());
+        
+        try {
+            List<Map<String, Object>> tickets = testCaseExecutionService.cancelTaskExecutions(request.getTaskIds());
+            long accepted = tickets.stream().filter(ticket -> !"NOT_FOUND".equals(ticket.get("state"))).count();
+            
+            Map<String, Object> result = new HashMap<>();
+            result.put("accepted", accepted);
+            result.put("notFound", tickets.size() - accepted);
+            result.put("tickets", tickets);
+            result.put("timestamp", System.currentTimeMillis());
+            
+            log.info("批量取消请求已受理 - 受理任务数: {}, 不存在或已完成: {}", accepted, tickets.size() - accepted);
+            return Result.success("批量取消请求已受理", result);
+            
+        } catch (Exception e) {
+            log.error("批量取消任务失败 - 错误: {}", e.getMessage(), e);
+            return Result.error("批量取消任务失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 紧急终止所有Python进程（按任务ID）
      * 
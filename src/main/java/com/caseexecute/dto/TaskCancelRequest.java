@@ -0,0 +1,22 @@
+package com.caseexecute.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * 批量取消任务请求DTO
+ * 
+ * @author system
+ * @since 2024-01-01
+ */
+@Data
+public class TaskCancelRequest {
+    
+    /**
+     * 需要取消的任务ID列表
+     */
+    @NotEmpty(message = "任务ID列表不能为空")
+    private List<String> taskIds;
+}
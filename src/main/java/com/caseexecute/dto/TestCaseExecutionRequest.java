@@ -95,6 +95,12 @@ public class TestCaseExecutionRequest {
          */
         @NotNull(message = "轮次不能为空")
         private Integer round;
+        
+        /**
+         * 用例所需的UE唯一标识列表（可选，仅并行执行模式使用）
+         * 未指定时并行执行模式下租用任意一个空闲UE（配置undeclared-ue-lease-all开启时租用全部UE）
+         */
+        private List<String> ueIds;
     }
     
     /**
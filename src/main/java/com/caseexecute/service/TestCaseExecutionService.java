@@ -2,6 +2,9 @@ package com.caseexecute.service;
 
 import com.caseexecute.dto.TestCaseExecutionRequest;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 用例执行服务接口
  * 
@@ -19,9 +22,33 @@ public interface TestCaseExecutionService {
     
     /**
      * 取消任务执行
+     * 立即返回取消凭据，终止用例进程、关闭派生服务等清理工作在后台并行执行
+     * 
+     * @param taskId 任务ID
+     * @return 取消凭据（凭据ID、取消状态、进程清理进度），任务不存在或已完成时返回null
+     */
+    Map<String, Object> cancelTaskExecution(String taskId);
+    
+    /**
+     * 批量取消任务执行
+     * 
+     * @param taskIds 任务ID列表
+     * @return 每个任务的取消凭据，任务不存在或已完成时取消状态为NOT_FOUND
+     */
+    List<Map<String, Object>> cancelTaskExecutions(List<String> taskIds);
+    
+    /**
+     * 查询任务的取消进度
      * 
      * @param taskId 任务ID
-     * @return 是否取消成功
+     * @return 取消凭据，任务未被取消时返回null
+     */
+    Map<String, Object> getCancellationStatus(String taskId);
+    
+    /**
+     * 获取执行指标
+     * 
+     * @return 任务调度等运行指标
      */
-    boolean cancelTaskExecution(String taskId);
+    Map<String, Object> getExecutionMetrics();
 }
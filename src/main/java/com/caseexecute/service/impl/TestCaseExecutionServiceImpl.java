@@ -2,13 +2,28 @@ package com.caseexecute.service.impl;
 
 import com.caseexecute.config.CaseExecutionConfig;
 import com.caseexecute.config.FileStorageConfig;
+import com.caseexecute.config.LogOutputConfig;
 import com.caseexecute.dto.TestCaseExecutionRequest;
 import com.caseexecute.dto.TestCaseResultReport;
 import com.caseexecute.service.TestCaseExecutionService;
+import com.caseexecute.util.AsyncResultReporter;
+import com.caseexecute.util.CaseOutputClassifier;
+import com.caseexecute.util.CaseResultReport;
+import com.caseexecute.util.CaseTaskScheduler;
 import com.caseexecute.util.FileDownloadUtil;
-import com.caseexecute.util.HttpReportUtil;
+import com.caseexecute.util.ProcessReaper;
+import com.caseexecute.util.ProcessTree;
+import com.caseexecute.util.LazyTestCaseSet;
+import com.caseexecute.util.LogUploadPipeline;
+import com.caseexecute.util.PooledHttpClient;
 import com.caseexecute.util.PythonExecutorUtil;
+import com.caseexecute.util.PythonRoundBatch;
+import com.caseexecute.util.PythonWorkerPool;
+import com.caseexecute.util.PythonZygoteManager;
+import com.caseexecute.util.ScriptIndex;
 import com.caseexecute.util.TestCaseResultParser;
+import com.caseexecute.util.TestCaseSetCache;
+import com.caseexecute.util.UeLockTable;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -17,11 +32,25 @@ import java.nio.file.Path;
 import java.nio.file.Files;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Stream;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 用例执行服务实现类
@@ -40,11 +69,51 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
     private FileStorageConfig fileStorageConfig;
     
     @Autowired
-    private HttpReportUtil httpReportUtil;
+    private LogOutputConfig logOutputConfig;
+    
+    @Autowired
+    private AsyncResultReporter asyncResultReporter;
+    
+    @Autowired
+    private PooledHttpClient pooledHttpClient;
+    
+    @Autowired
+    private LogUploadPipeline logUploadPipeline;
+    
+    @Autowired
+    private CaseTaskScheduler caseTaskScheduler;
+    
+    @Autowired
+    private ProcessReaper processReaper;
+    
+    @Autowired
+    private PythonWorkerPool pythonWorkerPool;
+    
+    @Autowired
+    private PythonZygoteManager pythonZygoteManager;
+    
+    @Autowired
+    private TestCaseSetCache testCaseSetCache;
     
     // 任务管理：存储正在执行的任务和进程信息
     private final Map<String, TaskExecutionInfo> runningTasks = new ConcurrentHashMap<>();
     
+    // 任务取消凭据：取消完成后保留一段时间供查询清理结果
+    private final Map<String, CancellationTicket> cancellations = new ConcurrentHashMap<>();
+    
+    // 执行需要阻塞等待的取消清理步骤（关闭派生服务、调用外部命令终止进程）
+    private final AtomicInteger cancelThreadIndex = new AtomicInteger();
+    private final ExecutorService cancelExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "task-cancel-" + cancelThreadIndex.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * 已完成的取消凭据保留时长（毫秒）
+     */
+    private static final long CANCELLATION_RETENTION_MILLIS = 10 * 60 * 1000L;
+    
     /**
      * 任务执行信息
      */
@@ -53,10 +122,12 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
         private final List<Process> processes;
         private CompletableFuture<Void> executionFuture;
         private final LocalDateTime startTime;
+        private volatile LazyTestCaseSet lazyTestCaseSet;
+        private volatile ScriptIndex scriptIndex;
         
         public TaskExecutionInfo(String taskId, CompletableFuture<Void> executionFuture) {
             this.taskId = taskId;
-            this.processes = new ArrayList<>();
+            this.processes = new CopyOnWriteArrayList<>();
             this.executionFuture = executionFuture;
             this.startTime = LocalDateTime.now();
         }
@@ -65,35 +136,46 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
             this.executionFuture = executionFuture;
         }
         
+        public void setLazyTestCaseSet(LazyTestCaseSet lazyTestCaseSet) {
+            this.lazyTestCaseSet = lazyTestCaseSet;
+        }
+        
+        public void setScriptIndex(ScriptIndex scriptIndex) {
+            this.scriptIndex = scriptIndex;
+        }
+        
         public void addProcess(Process process) {
             processes.add(process);
+            // 登记进程ID，按任务终止时无需扫描系统进程
+            ProcessTree.register(taskId, process);
         }
         
         public void removeProcess(Process process) {
             processes.remove(process);
+            ProcessTree.unregister(taskId, process);
         }
         
-        public void cancelAllProcesses() {
+        public List<CompletableFuture<Void>> cancelAllProcesses(ProcessReaper processReaper, long graceMillis) {
+            // 向所有进程发送SIGTERM后立即返回，宽限期后仍未退出的进程由进程回收器强制终止
+            List<CompletableFuture<Void>> terminations = new ArrayList<>();
             for (Process process : processes) {
-                if (process != null && process.isAlive()) {
+                if (process != null) {
                     try {
-                        // 直接调用进程的destroy方法
-                        process.destroy();
-                        if (!process.waitFor(5, java.util.concurrent.TimeUnit.SECONDS)) {
-                            process.destroyForcibly();
-                        }
-                        log.info("已终止进程 - 任务ID: {}", taskId);
+                        terminations.add(processReaper.terminate(process, graceMillis));
+                        log.info("已向进程发送终止信号 - 任务ID: {}", taskId);
                     } catch (Exception e) {
                         log.error("终止进程失败 - 任务ID: {}, 错误: {}", taskId, e.getMessage());
                     }
                 }
             }
             processes.clear();
+            return terminations;
         }
         
         public void cancelExecution() {
             if (executionFuture != null && !executionFuture.isDone()) {
-                executionFuture.cancel(true);
+                // 不中断执行线程：等待中的用例由进程回收器的取消事件唤醒，并上报取消状态后退出
+                executionFuture.cancel(false);
                 log.info("已取消任务执行 - 任务ID: {}", taskId);
             }
         }
@@ -103,6 +185,70 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
         public List<Process> getProcesses() { return processes; }
         public CompletableFuture<Void> getExecutionFuture() { return executionFuture; }
         public LocalDateTime getStartTime() { return startTime; }
+        public LazyTestCaseSet getLazyTestCaseSet() { return lazyTestCaseSet; }
+        public ScriptIndex getScriptIndex() { return scriptIndex; }
+    }
+    
+    /**
+     * 任务取消凭据
+     * 取消请求受理后立即返回，进程清理在后台执行，凭据记录清理进度
+     */
+    private static class CancellationTicket {
+        private final String ticketId = UUID.randomUUID().toString();
+        private final String taskId;
+        private final long requestedAt = System.currentTimeMillis();
+        private final AtomicInteger terminatedProcesses = new AtomicInteger();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile int totalProcesses;
+        private volatile String state = "CANCELLING";
+        private volatile String error;
+        private volatile long completedAt;
+        
+        public CancellationTicket(String taskId) {
+            this.taskId = taskId;
+        }
+        
+        /**
+         * 只有第一个受理取消请求的线程执行清理
+         */
+        public boolean start() {
+            return started.compareAndSet(false, true);
+        }
+        
+        public void setTotalProcesses(int totalProcesses) {
+            this.totalProcesses = totalProcesses;
+        }
+        
+        public void processTerminated() {
+            terminatedProcesses.incrementAndGet();
+        }
+        
+        public void complete(Throwable failure) {
+            if (failure != null) {
+                error = failure.getMessage();
+            }
+            completedAt = System.currentTimeMillis();
+            state = failure == null ? "CANCELLED" : "FAILED";
+        }
+        
+        public boolean isDone() {
+            return completedAt > 0;
+        }
+        
+        public Map<String, Object> toMap() {
+            Map<String, Object> ticket = new LinkedHashMap<>();
+            ticket.put("ticketId", ticketId);
+            ticket.put("taskId", taskId);
+            ticket.put("state", state);
+            ticket.put("totalProcesses", totalProcesses);
+            ticket.put("terminatedProcesses", terminatedProcesses.get());
+            ticket.put("requestedAt", requestedAt);
+            ticket.put("completedAt", completedAt > 0 ? completedAt : null);
+            ticket.put("error", error);
+            return ticket;
+        }
+        
+        public long getCompletedAt() { return completedAt; }
     }
 
     @Override
@@ -117,22 +263,57 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
         runningTasks.put(request.getTaskId(), taskInfo);
         log.info("任务已添加到运行列表 - 任务ID: {}", request.getTaskId());
         
-        // 异步执行，避免阻塞接口响应
-        CompletableFuture<Void> executionFuture = CompletableFuture.runAsync(() -> {
-            Path zipFilePath = null;
+        // 提交到任务调度器异步执行，避免阻塞接口响应；超出最大并发任务数时排队等待
+        CompletableFuture<Void> executionFuture;
+        try {
+            executionFuture = submitExecution(request, taskInfo);
+        } catch (RejectedExecutionException e) {
+            runningTasks.remove(request.getTaskId());
+            log.error("任务调度器已关闭，无法执行任务 - 任务ID: {}", request.getTaskId());
+            throw e;
+        }
+        
+        // 更新任务执行信息中的Future
+        taskInfo.setExecutionFuture(executionFuture);
+        log.info("任务执行Future已设置 - 任务ID: {}", request.getTaskId());
+    }
+    
+    /**
+     * 提交任务执行到任务调度器
+     */
+    private CompletableFuture<Void> submitExecution(TestCaseExecutionRequest request, TaskExecutionInfo taskInfo) {
+        return caseTaskScheduler.submit(request.getTaskId(), () -> {
             Path extractPath = null;
+            TestCaseSetCache.CacheLease cacheLease = null;
+            LazyTestCaseSet lazyTestCaseSet = null;
             
             try {
                 log.info("开始下载用例集文件 - 任务ID: {}, URL: {}", request.getTaskId(), request.getTestCaseSetPath());
                 
-                // 1. 下载用例集文件到/opt目录下的taskId子目录
-                zipFilePath = FileDownloadUtil.downloadFile(request.getTestCaseSetPath(), request.getTaskId());
-                log.info("用例集文件下载完成 - 任务ID: {}, 文件路径: {}", request.getTaskId(), zipFilePath);
-                
-                // 2. 解压用例集到/opt目录下的taskId子目录
-                log.info("开始解压用例集文件 - 任务ID: {}, 文件路径: {}", request.getTaskId(), zipFilePath);
-                extractPath = FileDownloadUtil.extractZipFile(zipFilePath, request.getTaskId());
-                log.info("用例集文件解压完成 - 任务ID: {}, 解压路径: {}", request.getTaskId(), extractPath);
+                if (testCaseSetCache.isEnabled()) {
+                    // 1-2. 启用用例集缓存时租用缓存中的解压目录，未命中时下载并解压到缓存
+                    cacheLease = testCaseSetCache.acquire(request.getTestCaseSetId(), request.getTestCaseSetPath());
+                    extractPath = cacheLease.getPath();
+                    taskInfo.setScriptIndex(cacheLease.getScriptIndex());
+                    log.info("用例集已就绪（缓存） - 任务ID: {}, 解压路径: {}", request.getTaskId(), extractPath);
+                } else if (fileStorageConfig.isLazyExtractEnabled()) {
+                    // 1-2. 下载用例集后只解压用例列表引用的脚本和清单声明的共享依赖，其余文件查找时再解压
+                    lazyTestCaseSet = FileDownloadUtil.openLazyTestCaseSet(request.getTestCaseSetPath(), request.getTaskId());
+                    List<String> testCaseNumbers = new ArrayList<>();
+                    for (TestCaseExecutionRequest.TestCaseInfo testCase : request.getTestCaseList()) {
+                        testCaseNumbers.add(testCase.getTestCaseNumber());
+                    }
+                    lazyTestCaseSet.extractRequired(testCaseNumbers);
+                    taskInfo.setLazyTestCaseSet(lazyTestCaseSet);
+                    taskInfo.setScriptIndex(lazyTestCaseSet.getScriptIndex());
+                    extractPath = lazyTestCaseSet.getRoot();
+                    log.info("用例集按需解压完成 - 任务ID: {}, 解压路径: {}", request.getTaskId(), extractPath);
+                } else {
+                    // 1-2. 边下载边解压用例集到/opt目录下的taskId子目录
+                    extractPath = FileDownloadUtil.downloadAndExtractZipFile(request.getTestCaseSetPath(), request.getTaskId());
+                    taskInfo.setScriptIndex(ScriptIndex.build(extractPath));
+                    log.info("用例集文件下载解压完成 - 任务ID: {}, 解压路径: {}", request.getTaskId(), extractPath);
+                }
                 
                 // 3. 执行用例列表
                 log.info("开始执行用例列表 - 任务ID: {}, 用例数量: {}", request.getTaskId(), request.getTestCaseList().size());
@@ -143,7 +324,22 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
             } catch (Exception e) {
                 log.error("用例执行任务处理失败 - 任务ID: {}, 错误: {}", request.getTaskId(), e.getMessage(), e);
             } finally {
-                // 4. 清理任务目录
+                // 4. 关闭任务的Python派生服务（未启用派生模式时无操作）
+                pythonZygoteManager.shutdown(request.getTaskId());
+                
+                // 5. 释放用例集缓存租约，缓存目录保留给后续任务；关闭按需解压的压缩包
+                if (cacheLease != null) {
+                    cacheLease.close();
+                }
+                if (lazyTestCaseSet != null) {
+                    try {
+                        lazyTestCaseSet.close();
+                    } catch (Exception e) {
+                        log.warn("关闭用例集压缩包失败 - 任务ID: {}, 错误: {}", request.getTaskId(), e.getMessage());
+                    }
+                }
+                
+                // 6. 清理任务目录
                 log.info("开始清理任务目录 - 任务ID: {}", request.getTaskId());
                 try {
                     FileDownloadUtil.cleanupTaskDirectory(request.getTaskId());
@@ -153,15 +349,12 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
                 }
                 log.info("任务目录清理完成 - 任务ID: {}", request.getTaskId());
                 
-                // 5. 从运行任务列表中移除
+                // 7. 从运行任务列表中移除
                 runningTasks.remove(request.getTaskId());
+                ProcessTree.releaseTask(request.getTaskId());
                 log.info("任务已从运行列表中移除 - 任务ID: {}", request.getTaskId());
             }
         });
-        
-        // 更新任务执行信息中的Future
-        taskInfo.setExecutionFuture(executionFuture);
-        log.info("任务执行Future已设置 - 任务ID: {}", request.getTaskId());
     }
     
     /**
@@ -170,58 +363,37 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
     private void executeTestCaseList(TestCaseExecutionRequest request, Path extractPath) {
         log.info("开始执行用例列表 - 用例数量: {}", request.getTestCaseList().size());
         
+        int parallelism = caseExecutionConfig.getParallelism() != null ? caseExecutionConfig.getParallelism() : 1;
+        if (caseExecutionConfig.isParallelEnabled() && parallelism > 1 && request.getTestCaseList().size() > 1) {
+            executeTestCaseListInParallel(request, extractPath, parallelism);
+            return;
+        }
+        
         int successCount = 0;
         int failedCount = 0;
         int cancelledCount = 0;
         
-        for (TestCaseExecutionRequest.TestCaseInfo testCase : request.getTestCaseList()) {
-            // 检查任务是否已被取消
-            TaskExecutionInfo taskInfo = runningTasks.get(request.getTaskId());
-            if (taskInfo == null) {
-                log.warn("任务已被取消，停止执行剩余用例 - 任务ID: {}", request.getTaskId());
-                cancelledCount++;
-                // 上报被取消的用例状态
-                try {
-                    reportTestCaseResult(request, testCase, "BLOCKED", "用例执行被取消", 0L, null, null, "任务被用户取消", null);
-                } catch (Exception reportException) {
-                    log.error("上报用例取消状态失败 - 用例ID: {}, 错误: {}", testCase.getTestCaseId(), reportException.getMessage());
-                }
-                continue;
-            }
-            
-            // 检查执行Future是否已被取消
-            if (taskInfo.getExecutionFuture() != null && taskInfo.getExecutionFuture().isCancelled()) {
-                log.warn("任务执行已被取消，停止执行剩余用例 - 任务ID: {}", request.getTaskId());
-                cancelledCount++;
-                // 上报被取消的用例状态
-                try {
-                    reportTestCaseResult(request, testCase, "BLOCKED", "用例执行被取消", 0L, null, null, "任务被用户取消", null);
-                } catch (Exception reportException) {
-                    log.error("上报用例取消状态失败 - 用例ID: {}, 错误: {}", testCase.getTestCaseId(), reportException.getMessage());
-                }
-                continue;
+        List<TestCaseExecutionRequest.TestCaseInfo> testCaseList = request.getTestCaseList();
+        int index = 0;
+        while (index < testCaseList.size()) {
+            List<CaseOutcome> outcomes;
+            List<TestCaseExecutionRequest.TestCaseInfo> roundGroup = caseExecutionConfig.isBatchRoundsEnabled() 
+                    ? collectConsecutiveRounds(testCaseList, index) 
+                    : Collections.singletonList(testCaseList.get(index));
+            if (roundGroup.size() > 1) {
+                outcomes = runRoundBatch(request, roundGroup, extractPath);
+            } else {
+                outcomes = Collections.singletonList(runTestCase(request, roundGroup.get(0), extractPath, request.getUeList(), null));
             }
+            index += roundGroup.size();
             
-            try {
-                log.info("开始执行用例 - 用例ID: {}, 用例编号: {}, 轮次: {}", 
-                        testCase.getTestCaseId(), testCase.getTestCaseNumber(), testCase.getRound());
-                
-                executeSingleTestCase(request, testCase, extractPath);
-                successCount++;
-                
-                log.info("用例执行完成 - 用例ID: {}, 用例编号: {}, 轮次: {}", 
-                        testCase.getTestCaseId(), testCase.getTestCaseNumber(), testCase.getRound());
-                
-            } catch (Exception e) {
-                failedCount++;
-                log.error("执行用例异常 - 用例ID: {}, 用例编号: {}, 轮次: {}, 错误: {}", 
-                        testCase.getTestCaseId(), testCase.getTestCaseNumber(), testCase.getRound(), e.getMessage(), e);
-                
-                // 对于未处理的异常，上报为FAILED状态
-                try {
-                    reportTestCaseResult(request, testCase, "FAILED", "执行异常: " + e.getMessage(), 0L, null, null, "执行异常: " + e.getMessage(), null);
-                } catch (Exception reportException) {
-                    log.error("上报用例执行结果失败 - 用例ID: {}, 错误: {}", testCase.getTestCaseId(), reportException.getMessage());
+            for (CaseOutcome outcome : outcomes) {
+                if (outcome == CaseOutcome.SUCCESS) {
+                    successCount++;
+                } else if (outcome == CaseOutcome.FAILED) {
+                    failedCount++;
+                } else {
+                    cancelledCount++;
                 }
             }
         }
@@ -231,100 +403,231 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
     }
     
     /**
-     * 查找脚本文件
+     * 从指定位置开始收集同一用例连续的多个轮次
+     * 
+     * @param testCaseList 用例列表
+     * @param fromIndex 起始位置
+     * @return 同一用例编号、同一用例ID且轮次互不相同的连续用例
      */
-    private Path findScriptFile(Path extractPath, TestCaseExecutionRequest.TestCaseInfo testCase) {
-        String testCaseNumber = testCase.getTestCaseNumber();
-        Long testCaseId = testCase.getTestCaseId();
+    private List<TestCaseExecutionRequest.TestCaseInfo> collectConsecutiveRounds(List<TestCaseExecutionRequest.TestCaseInfo> testCaseList, int fromIndex) {
+        TestCaseExecutionRequest.TestCaseInfo first = testCaseList.get(fromIndex);
+        List<TestCaseExecutionRequest.TestCaseInfo> roundGroup = new ArrayList<>();
+        roundGroup.add(first);
+        if (first.getTestCaseNumber() == null || first.getTestCaseNumber().trim().isEmpty() || first.getRound() == null) {
+            return roundGroup;
+        }
         
-        // 1. 优先尝试精确匹配用例编号
-        if (testCaseNumber != null && !testCaseNumber.trim().isEmpty()) {
-            Path scriptPath = extractPath.resolve("scripts").resolve(testCaseNumber + ".py");
-            if (java.nio.file.Files.exists(scriptPath)) {
-                log.info("找到精确匹配的脚本文件: {}", scriptPath);
-                return scriptPath;
-            }
-            
-            // 尝试cases目录
-            scriptPath = extractPath.resolve("cases").resolve(testCaseNumber + ".py");
-            if (java.nio.file.Files.exists(scriptPath)) {
-                log.info("找到精确匹配的脚本文件: {}", scriptPath);
-                return scriptPath;
+        Set<Integer> rounds = new HashSet<>();
+        rounds.add(first.getRound());
+        for (int i = fromIndex + 1; i < testCaseList.size(); i++) {
+            TestCaseExecutionRequest.TestCaseInfo next = testCaseList.get(i);
+            if (!first.getTestCaseNumber().equals(next.getTestCaseNumber()) 
+                    || !Objects.equals(first.getTestCaseId(), next.getTestCaseId())
+                    || next.getRound() == null || !rounds.add(next.getRound())) {
+                break;
             }
+            roundGroup.add(next);
+        }
+        return roundGroup;
+    }
+    
+    /**
+     * 在同一个Python解释器中依次执行同一用例的多个轮次
+     * 每个轮次仍独立进行取消检查、超时控制和结果上报；无法创建批量执行时按轮次逐个执行
+     * 
+     * @param request 用例执行任务请求
+     * @param roundGroup 同一用例连续的多个轮次
+     * @param extractPath 用例集解压目录
+     * @return 每个轮次的执行结果分类
+     */
+    private List<CaseOutcome> runRoundBatch(TestCaseExecutionRequest request, 
+                                            List<TestCaseExecutionRequest.TestCaseInfo> roundGroup, 
+                                            Path extractPath) {
+        TestCaseExecutionRequest.TestCaseInfo first = roundGroup.get(0);
+        List<Integer> rounds = new ArrayList<>();
+        for (TestCaseExecutionRequest.TestCaseInfo testCase : roundGroup) {
+            rounds.add(testCase.getRound());
         }
         
-        // 2. 尝试用例ID
-        Path scriptPath = extractPath.resolve("scripts").resolve(testCaseId + ".py");
-        if (java.nio.file.Files.exists(scriptPath)) {
-            log.info("找到用例ID匹配的脚本文件: {}", scriptPath);
-            return scriptPath;
+        PythonRoundBatch roundBatch = null;
+        Path scriptPath = findCaseScript(request, extractPath, first.getTestCaseNumber());
+        if (scriptPath != null) {
+            try {
+                roundBatch = PythonExecutorUtil.createRoundBatch(scriptPath, first.getTestCaseId(), first.getTestCaseNumber(), rounds, 
+                        request.getTaskId(), request.getExecutorIp(), request.getCollectStrategyInfo(), request.getUeList(), request.getTaskCustomParams());
+                log.info("同一用例的多个轮次将批量执行 - 任务ID: {}, 用例编号: {}, 轮次: {}", 
+                        request.getTaskId(), first.getTestCaseNumber(), rounds);
+            } catch (Exception e) {
+                log.warn("创建多轮次批量执行失败，按轮次逐个执行 - 任务ID: {}, 用例编号: {}, 错误: {}", 
+                        request.getTaskId(), first.getTestCaseNumber(), e.getMessage());
+            }
         }
         
-        scriptPath = extractPath.resolve("cases").resolve(testCaseId + ".py");
-        if (java.nio.file.Files.exists(scriptPath)) {
-            log.info("找到用例ID匹配的脚本文件: {}", scriptPath);
-            return scriptPath;
+        List<CaseOutcome> outcomes = new ArrayList<>();
+        try {
+            for (TestCaseExecutionRequest.TestCaseInfo testCase : roundGroup) {
+                outcomes.add(runTestCase(request, testCase, extractPath, request.getUeList(), roundBatch));
+            }
+        } finally {
+            if (roundBatch != null) {
+                roundBatch.close();
+            }
         }
+        return outcomes;
+    }
+    
+    /**
+     * 并行执行用例列表
+     * 每个用例执行前从任务级UE锁表租用所需UE，使用相同UE的用例串行执行
+     * 
+     * @param request 用例执行任务请求
+     * @param extractPath 用例集解压目录
+     * @param parallelism 最大并发数
+     */
+    private void executeTestCaseListInParallel(TestCaseExecutionRequest request, Path extractPath, int parallelism) {
+        List<TestCaseExecutionRequest.TestCaseInfo> testCaseList = request.getTestCaseList();
+        int width = Math.min(parallelism, testCaseList.size());
+        log.info("并行执行用例列表 - 任务ID: {}, 用例数量: {}, 并发数: {}, UE数量: {}", 
+                request.getTaskId(), testCaseList.size(), width, request.getUeList() != null ? request.getUeList().size() : 0);
         
-        // 3. 智能匹配：根据用例编号映射到可能的脚本文件名
-        if (testCaseNumber != null && !testCaseNumber.trim().isEmpty()) {
-            String[] possibleScriptNames = getPossibleScriptNames(testCaseNumber);
-            for (String scriptName : possibleScriptNames) {
-                scriptPath = extractPath.resolve("scripts").resolve(scriptName);
-                if (java.nio.file.Files.exists(scriptPath)) {
-                    log.info("找到智能匹配的脚本文件: {} -> {}", testCaseNumber, scriptPath);
-                    return scriptPath;
-                }
-                
-                scriptPath = extractPath.resolve("cases").resolve(scriptName);
-                if (java.nio.file.Files.exists(scriptPath)) {
-                    log.info("找到智能匹配的脚本文件: {} -> {}", testCaseNumber, scriptPath);
-                    return scriptPath;
+        UeLockTable ueLockTable = new UeLockTable(request.getUeList(), caseExecutionConfig.isUndeclaredUeLeaseAll());
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService caseExecutor = Executors.newFixedThreadPool(width, runnable -> 
+                new Thread(runnable, "case-" + request.getTaskId() + "-" + threadIndex.incrementAndGet()));
+        
+        AtomicInteger successCount = new AtomicInteger();
+        AtomicInteger failedCount = new AtomicInteger();
+        AtomicInteger cancelledCount = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        
+        try {
+            for (TestCaseExecutionRequest.TestCaseInfo testCase : testCaseList) {
+                futures.add(caseExecutor.submit(() -> {
+                    CaseOutcome outcome;
+                    List<String> unknownUeIds = ueLockTable.getUnknownUeIds(testCase.getUeIds());
+                    if (!unknownUeIds.isEmpty()) {
+                        // 无法租用UE的用例不执行，避免与持有同一UE的用例同时运行
+                        String failureReason = "用例声明的UE都不在执行机UE列表中: " + unknownUeIds;
+                        log.error("用例无法租用UE，上报为BLOCKED - 用例ID: {}, 轮次: {}, 声明的UE: {}", 
+                                testCase.getTestCaseId(), testCase.getRound(), unknownUeIds);
+                        try {
+                            reportTestCaseResult(request, testCase, "BLOCKED", "用例执行被阻塞（UE不可用）", 0L, null, null, failureReason, null);
+                        } catch (Exception reportException) {
+                            log.error("上报用例阻塞状态失败 - 用例ID: {}, 错误: {}", testCase.getTestCaseId(), reportException.getMessage());
+                        }
+                        failedCount.incrementAndGet();
+                        return;
+                    }
+                    try (UeLockTable.UeLease lease = ueLockTable.acquire(testCase.getUeIds())) {
+                        log.info("用例已租用UE - 用例ID: {}, 轮次: {}, UE: {}", 
+                                testCase.getTestCaseId(), testCase.getRound(), lease.getUeIds());
+                        // 租用全部UE或执行机没有可加锁的UE时，与串行执行一样传入完整UE列表
+                        boolean declared = testCase.getUeIds() != null && !testCase.getUeIds().isEmpty();
+                        boolean leasedAll = !declared && caseExecutionConfig.isUndeclaredUeLeaseAll();
+                        outcome = runTestCase(request, testCase, extractPath, 
+                                leasedAll || lease.getUeIds().isEmpty() ? request.getUeList() : lease.getUeList(), null);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        log.warn("等待UE租用时被中断 - 用例ID: {}, 轮次: {}", testCase.getTestCaseId(), testCase.getRound());
+                        outcome = CaseOutcome.CANCELLED;
+                    }
+                    if (outcome == CaseOutcome.SUCCESS) {
+                        successCount.incrementAndGet();
+                    } else if (outcome == CaseOutcome.FAILED) {
+                        failedCount.incrementAndGet();
+                    } else {
+                        cancelledCount.incrementAndGet();
+                    }
+                }));
+            }
+            
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.error("并行执行用例异常 - 任务ID: {}, 错误: {}", request.getTaskId(), e.getMessage(), e);
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("等待并行用例执行完成时被中断 - 任务ID: {}", request.getTaskId());
+        } finally {
+            caseExecutor.shutdownNow();
+        }
+        
+        log.info("用例列表并行执行完成 - 成功: {}, 失败: {}, 取消: {}, 总计: {}", 
+                successCount.get(), failedCount.get(), cancelledCount.get(), testCaseList.size());
+    }
+    
+    /**
+     * 执行单个用例并统一处理取消检查和异常上报
+     * 
+     * @param request 用例执行任务请求
+     * @param testCase 用例信息
+     * @param extractPath 用例集解压目录
+     * @param ueList 本次执行传递给脚本的UE列表
+     * @param roundBatch 多轮次批量执行句柄（可选），为空时启动独立的Python进程
+     * @return 用例执行结果分类
+     */
+    private CaseOutcome runTestCase(TestCaseExecutionRequest request, 
+                                    TestCaseExecutionRequest.TestCaseInfo testCase, 
+                                    Path extractPath, 
+                                    List<TestCaseExecutionRequest.UeInfo> ueList, 
+                                    PythonRoundBatch roundBatch) {
+        // 检查任务是否已被取消
+        TaskExecutionInfo taskInfo = runningTasks.get(request.getTaskId());
+        if (taskInfo == null) {
+            log.warn("任务已被取消，停止执行剩余用例 - 任务ID: {}", request.getTaskId());
+            // 上报被取消的用例状态
+            try {
+                reportTestCaseResult(request, testCase, "BLOCKED", "用例执行被取消", 0L, null, null, "任务被用户取消", null);
+            } catch (Exception reportException) {
+                log.error("上报用例取消状态失败 - 用例ID: {}, 错误: {}", testCase.getTestCaseId(), reportException.getMessage());
+            }
+            return CaseOutcome.CANCELLED;
+        }
+        
+        // 检查执行Future是否已被取消
+        if (taskInfo.getExecutionFuture() != null && taskInfo.getExecutionFuture().isCancelled()) {
+            log.warn("任务执行已被取消，停止执行剩余用例 - 任务ID: {}", request.getTaskId());
+            // 上报被取消的用例状态
+            try {
+                reportTestCaseResult(request, testCase, "BLOCKED", "用例执行被取消", 0L, null, null, "任务被用户取消", null);
+            } catch (Exception reportException) {
+                log.error("上报用例取消状态失败 - 用例ID: {}, 错误: {}", testCase.getTestCaseId(), reportException.getMessage());
+            }
+            return CaseOutcome.CANCELLED;
         }
         
-        // 4. 如果都找不到，返回第一个可用的Python脚本
         try {
-            java.nio.file.Files.walk(extractPath)
-                .filter(path -> path.toString().endsWith(".py"))
-                .findFirst()
-                .ifPresent(path -> {
-                    log.warn("未找到匹配的脚本文件，使用第一个可用的Python脚本: {} -> {}", testCaseNumber, path);
-                });
+            log.info("开始执行用例 - 用例ID: {}, 用例编号: {}, 轮次: {}", 
+                    testCase.getTestCaseId(), testCase.getTestCaseNumber(), testCase.getRound());
+            
+            executeSingleTestCase(request, testCase, extractPath, ueList, roundBatch);
+            
+            log.info("用例执行完成 - 用例ID: {}, 用例编号: {}, 轮次: {}", 
+                    testCase.getTestCaseId(), testCase.getTestCaseNumber(), testCase.getRound());
+            return CaseOutcome.SUCCESS;
+            
         } catch (Exception e) {
-            log.error("搜索Python脚本文件时出错: {}", e.getMessage());
+            log.error("执行用例异常 - 用例ID: {}, 用例编号: {}, 轮次: {}, 错误: {}", 
+                    testCase.getTestCaseId(), testCase.getTestCaseNumber(), testCase.getRound(), e.getMessage(), e);
+            
+            // 对于未处理的异常，上报为FAILED状态
+            try {
+                reportTestCaseResult(request, testCase, "FAILED", "执行异常: " + e.getMessage(), 0L, null, null, "执行异常: " + e.getMessage(), null);
+            } catch (Exception reportException) {
+                log.error("上报用例执行结果失败 - 用例ID: {}, 错误: {}", testCase.getTestCaseId(), reportException.getMessage());
+            }
+            return CaseOutcome.FAILED;
         }
-        
-        return null;
     }
     
     /**
-     * 根据用例编号获取可能的脚本文件名
+     * 单个用例执行结果分类
      */
-    private String[] getPossibleScriptNames(String testCaseNumber) {
-        // 这里可以根据实际的命名规则进行映射
-        // 例如：TC001 -> 4G_Network_Connection_Test.py
-        switch (testCaseNumber) {
-            case "TC001":
-                return new String[]{"4G_Network_Connection_Test.py", "test_network_connection.py"};
-            case "TC002":
-                return new String[]{"5G_Network_Performance_Test.py", "test_network_performance.py"};
-            case "TC003":
-                return new String[]{"WiFi_Connection_Stability_Test.py", "test_wifi_stability.py"};
-            case "TC004":
-                return new String[]{"Multi_Network_Switch_Test.py", "test_network_switch.py"};
-            case "TC005":
-                return new String[]{"Weak_Network_Test.py", "test_weak_network.py"};
-            case "TC006":
-                return new String[]{"Network_Interruption_Recovery_Test.py", "test_network_recovery.py"};
-            case "TC007":
-                return new String[]{"High_Concurrency_Network_Test.py", "test_high_concurrency.py"};
-            case "TC008":
-                return new String[]{"Network_Security_Test.py", "test_network_security.py"};
-            default:
-                return new String[]{};
-        }
+    private enum CaseOutcome {
+        SUCCESS, FAILED, CANCELLED
     }
     
     /**
@@ -332,7 +635,9 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
      */
     private void executeSingleTestCase(TestCaseExecutionRequest request, 
                                      TestCaseExecutionRequest.TestCaseInfo testCase, 
-                                     Path extractPath) throws Exception {
+                                     Path extractPath, 
+                                     List<TestCaseExecutionRequest.UeInfo> ueList, 
+                                     PythonRoundBatch roundBatch) throws Exception {
         log.info("开始执行用例 - 用例ID: {}, 用例编号: {}, 轮次: {}", 
                 testCase.getTestCaseId(), testCase.getTestCaseNumber(), testCase.getRound());
         
@@ -345,10 +650,9 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
         }
         
         String scriptFileName = testCase.getTestCaseNumber() + ".py";
-        Path scriptsDir = extractPath.resolve("scripts");
         
-        // 递归查找脚本文件
-        Path scriptPath = findScriptFileRecursively(scriptsDir, scriptFileName);
+        // 从脚本索引查找脚本文件
+        Path scriptPath = findCaseScript(request, extractPath, testCase.getTestCaseNumber());
         
         if (scriptPath == null) {
             String failureReason = "Python脚本文件不存在: 在scripts目录及其子目录中未找到 " + scriptFileName + " (用例编号: " + testCase.getTestCaseNumber() + ")";
@@ -376,8 +680,10 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
                 log.warn("任务执行信息不存在，无法管理进程 - 任务ID: {}", request.getTaskId());
             }
             
-            // 启动Python进程并添加到任务管理
-            Process process = PythonExecutorUtil.startPythonProcess(scriptPath, testCase.getTestCaseId(), testCase.getTestCaseNumber(), testCase.getRound(), request.getLogReportUrl(), request.getTaskId(), request.getExecutorIp(), request.getCollectStrategyInfo(), request.getUeList(), request.getTaskCustomParams());
+            // 启动Python进程并添加到任务管理；批量执行时获取该轮次在批量执行器中的进程对象
+            Process process = roundBatch != null 
+                    ? roundBatch.startRound(testCase.getRound()) 
+                    : PythonExecutorUtil.startPythonProcess(scriptPath, testCase.getTestCaseId(), testCase.getTestCaseNumber(), testCase.getRound(), request.getLogReportUrl(), request.getTaskId(), request.getExecutorIp(), request.getCollectStrategyInfo(), ueList, request.getTaskCustomParams());
             
             if (taskInfo != null) {
                 taskInfo.addProcess(process);
@@ -385,35 +691,38 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
                         request.getTaskId(), testCase.getTestCaseId(), testCase.getRound());
             }
             
-            // 等待进程完成，使用配置的超时时间，同时检查任务是否被取消
-            boolean completed = false;
+            // 等待进程退出、超时或任务取消事件，任一事件到达时立即返回
             long startTime = System.currentTimeMillis();
             long timeoutMillis = timeoutMinutes * 60 * 1000L;
+            ProcessReaper.ProcessWatch processWatch = processReaper.watch(request.getTaskId(), process, timeoutMillis);
+            
+            // 注册监听前任务可能已被取消，此时直接按取消处理
+            if (taskInfo != null && taskInfo.getExecutionFuture() != null && taskInfo.getExecutionFuture().isCancelled()) {
+                processWatch.cancel();
+            }
             
-            while (!completed && (System.currentTimeMillis() - startTime) < timeoutMillis) {
-                // 检查任务是否被取消
-                if (taskInfo != null && taskInfo.getExecutionFuture() != null && taskInfo.getExecutionFuture().isCancelled()) {
-                    log.warn("任务已被取消，终止正在执行的用例 - 任务ID: {}, 用例ID: {}", 
+            ProcessReaper.ProcessEvent processEvent = processWatch.await();
+            
+            if (processEvent == ProcessReaper.ProcessEvent.CANCELLED) {
+                log.warn("任务已被取消，终止正在执行的用例 - 任务ID: {}, 用例ID: {}", 
+                        request.getTaskId(), testCase.getTestCaseId());
+                // 终止进程及其子进程，进程已退出时仍需终止会话中残留的子孙进程
+                if (process != null) {
+                    terminateProcessAndChildren(process);
+                    log.info("已强制终止被取消任务的进程 - 任务ID: {}, 用例ID: {}", 
                             request.getTaskId(), testCase.getTestCaseId());
-                    // 强制终止进程
-                    if (process != null && process.isAlive()) {
-                        process.destroy();
-                        if (!process.waitFor(5, java.util.concurrent.TimeUnit.SECONDS)) {
-                            process.destroyForcibly();
-                        }
-                        log.info("已强制终止被取消任务的进程 - 任务ID: {}, 用例ID: {}", 
-                                request.getTaskId(), testCase.getTestCaseId());
-                    }
-                    // 上报取消状态
-                    reportTestCaseResult(request, testCase, "BLOCKED", "用例执行被取消", 
-                            System.currentTimeMillis() - startTime, null, null, "任务被用户取消", null);
-                    return;
                 }
-                
-                // 等待进程完成，每次检查间隔1秒
-                completed = process.waitFor(1, java.util.concurrent.TimeUnit.SECONDS);
+                if (taskInfo != null) {
+                    taskInfo.removeProcess(process);
+                }
+                // 上报取消状态
+                reportTestCaseResult(request, testCase, "BLOCKED", "用例执行被取消", 
+                        System.currentTimeMillis() - startTime, null, null, "任务被用户取消", null);
+                return;
             }
             
+            boolean completed = processEvent == ProcessReaper.ProcessEvent.EXITED;
+            
             // 从任务管理中移除进程
             if (taskInfo != null) {
                 taskInfo.removeProcess(process);
@@ -440,14 +749,14 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
             reportTestCaseResult(request, testCase, analysis.getStatus(), analysis.getResult(), 
                     executionResult.getExecutionTime(), executionResult.getStartTime(), executionResult.getEndTime(), analysis.getFailureReason(), executionResult.getLogFilePath());
             
-            // // 上报执行日志
-            // log.info("准备上报用例执行日志 - 用例ID: {}, 轮次: {}, 日志文件路径: {}, 日志内容长度: {}", 
-            //         testCase.getTestCaseId(), testCase.getRound(), executionResult.getLogFilePath(), 
-            //         executionResult.getLogContent() != null ? executionResult.getLogContent().length() : 0);
+            // // 上报执行日志（从日志文件流式上传，不读入内存）
+            // log.info("准备上报用例执行日志 - 用例ID: {}, 轮次: {}, 日志文件路径: {}", 
+            //         testCase.getTestCaseId(), testCase.getRound(), executionResult.getLogFilePath());
             // log.info("日志上报URL: {}", request.getLogReportUrl());
             
-            // httpReportUtil.reportTestCaseLog(request.getLogReportUrl(), executionResult.getLogContent(), 
-            //         executionResult.getLogFilePath(), request.getTaskId(), testCase.getTestCaseId(), testCase.getRound());
+            // Path logFile = Paths.get(executionResult.getLogFilePath());
+            // httpReportUtil.reportTestCaseLogFile(request.getLogReportUrl(), logFile, logFile.getFileName().toString(), 
+            //         request.getTaskId(), testCase.getTestCaseId(), testCase.getRound());
             
         } catch (Exception e) {
             String errorMessage = e.getMessage();
@@ -481,10 +790,21 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
         String status = executionResult.getStatus();
         String result = executionResult.getResult();
         String failureReason = executionResult.getFailureReason();
-        String logContent = executionResult.getLogContent();
+        CaseOutputClassifier output = executionResult.getCaseOutput();
+        
+        // 用例脚本上报了结构化结果时直接采用，不再分析日志
+        CaseResultReport caseResult = executionResult.getCaseResult();
+        if (caseResult != null) {
+            result = appendPerformanceMetrics(result, 
+                    caseResult.getNetworkLatency() != null ? caseResult.getNetworkLatency() : output.getNetworkLatency(), 
+                    caseResult.getBandwidth() != null ? caseResult.getBandwidth() : output.getBandwidth(), 
+                    caseResult.getBandwidth() != null ? caseResult.getBandwidthUnit() : output.getBandwidthUnit(), 
+                    caseResult.getSignalStrength() != null ? caseResult.getSignalStrength() : output.getSignalStrength());
+            return new TestCaseAnalysis(status, result, failureReason);
+        }
         
         // 使用智能解析工具分析结果
-        TestCaseResultParser.TestCaseParseResult parseResult = TestCaseResultParser.parseResult(logContent);
+        TestCaseResultParser.TestCaseParseResult parseResult = TestCaseResultParser.parseResult(output);
         
         // 如果解析工具能够识别出结果，使用解析结果
         if (!"BLOCKED".equals(parseResult.getStatus())) {
@@ -503,11 +823,11 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
             // 降级到原有的分析逻辑
             if ("SUCCESS".equals(status)) {
                 // 检查是否真的成功
-                if (logContent.contains("FAIL") || logContent.contains("ERROR") || logContent.contains("失败")) {
+                if (output.contains("FAIL") || output.contains("ERROR") || output.contains("失败")) {
                     status = "FAILED";
                     result = "用例执行失败";
-                    failureReason = "日志分析发现失败信息: " + extractFailureDetails(logContent);
-                } else if (logContent.contains("PASS") || logContent.contains("SUCCESS") || logContent.contains("成功")) {
+                    failureReason = "日志分析发现失败信息: " + extractFailureDetails(output);
+                } else if (output.contains("PASS") || output.contains("SUCCESS") || output.contains("成功")) {
                     status = "SUCCESS";
                     result = "用例执行成功";
                     failureReason = null;
@@ -519,73 +839,82 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
                 }
             } else if ("FAILED".equals(status)) {
                 // 分析失败原因
-                failureReason = analyzeDetailedFailureReason(logContent, failureReason);
+                failureReason = analyzeDetailedFailureReason(output, failureReason);
             } else if ("BLOCKED".equals(status)) {
                 // 阻塞状态的处理 - 提供更具体的阻塞原因
-                failureReason = analyzeDetailedFailureReason(logContent, failureReason);
+                failureReason = analyzeDetailedFailureReason(output, failureReason);
             }
         }
         
         // 添加性能指标信息
-        if (parseResult.getNetworkLatency() != null) {
-            result += String.format(" (网络延迟: %.2fms)", parseResult.getNetworkLatency());
+        result = appendPerformanceMetrics(result, parseResult.getNetworkLatency(), 
+                parseResult.getBandwidth(), parseResult.getBandwidthUnit(), parseResult.getSignalStrength());
+        
+        return new TestCaseAnalysis(status, result, failureReason);
+    }
+    
+    /**
+     * 在结果描述后追加性能指标信息
+     * 
+     * @param result 结果描述
+     * @param networkLatency 网络延迟（ms），可以为null
+     * @param bandwidth 带宽，可以为null
+     * @param bandwidthUnit 带宽单位
+     * @param signalStrength 信号强度（dBm），可以为null
+     * @return 追加性能指标后的结果描述
+     */
+    private String appendPerformanceMetrics(String result, Double networkLatency, Double bandwidth, 
+                                            String bandwidthUnit, Double signalStrength) {
+        if (networkLatency != null) {
+            result += String.format(" (网络延迟: %.2fms)", networkLatency);
         }
-        if (parseResult.getBandwidth() != null) {
-            result += String.format(" (带宽: %.2f%s)", parseResult.getBandwidth(), parseResult.getBandwidthUnit());
+        if (bandwidth != null) {
+            result += String.format(" (带宽: %.2f%s)", bandwidth, bandwidthUnit != null ? bandwidthUnit : "");
         }
-        if (parseResult.getSignalStrength() != null) {
-            result += String.format(" (信号强度: %.2fdBm)", parseResult.getSignalStrength());
+        if (signalStrength != null) {
+            result += String.format(" (信号强度: %.2fdBm)", signalStrength);
         }
-        
-        return new TestCaseAnalysis(status, result, failureReason);
+        return result;
     }
     
     /**
      * 提取失败详情
      * 
-     * @param logContent 日志内容
+     * @param output 用例输出分类器
      * @return 失败详情
      */
-    private String extractFailureDetails(String logContent) {
-        // 提取失败的具体信息
-        String[] lines = logContent.split("\n");
-        StringBuilder failureDetails = new StringBuilder();
+    private String extractFailureDetails(CaseOutputClassifier output) {
+        // 分类器收集的包含失败信息的行
+        String failureDetails = output.getFailureLines();
         
-        for (String line : lines) {
-            if (line.contains("FAIL") || line.contains("ERROR") || line.contains("失败") || 
-                line.contains("AssertionError") || line.contains("Exception")) {
-                failureDetails.append(line.trim()).append("; ");
-            }
-        }
-        
-        return failureDetails.length() > 0 ? failureDetails.toString() : "阻塞失败原因";
+        return failureDetails.length() > 0 ? failureDetails : "阻塞失败原因";
     }
     
     /**
      * 分析详细失败原因
      * 
-     * @param logContent 日志内容
+     * @param output 用例输出分类器
      * @param originalReason 原始失败原因
      * @return 详细失败原因
      */
-    private String analyzeDetailedFailureReason(String logContent, String originalReason) {
-        if (logContent.contains("网络连接失败") || logContent.contains("Connection refused")) {
+    private String analyzeDetailedFailureReason(CaseOutputClassifier output, String originalReason) {
+        if (output.contains("网络连接失败") || output.contains("Connection refused")) {
             return "网络连接失败: 无法连接到目标服务器，请检查网络配置和服务器状态";
-        } else if (logContent.contains("超时") || logContent.contains("timeout")) {
+        } else if (output.contains("超时") || output.contains("timeout")) {
             return "网络请求超时: 服务器响应时间过长，请检查网络连接和服务器负载";
-        } else if (logContent.contains("DNS解析失败") || logContent.contains("Name or service not known")) {
+        } else if (output.contains("DNS解析失败") || output.contains("Name or service not known")) {
             return "DNS解析失败: 无法解析域名，请检查DNS配置和网络连接";
-        } else if (logContent.contains("权限不足") || logContent.contains("Permission denied")) {
+        } else if (output.contains("权限不足") || output.contains("Permission denied")) {
             return "权限不足: 无法访问所需资源，请检查文件权限和用户权限设置";
-        } else if (logContent.contains("文件不存在") || logContent.contains("No such file")) {
+        } else if (output.contains("文件不存在") || output.contains("No such file")) {
             return "文件不存在: 无法找到所需的文件或目录，请检查文件路径和文件是否存在";
-        } else if (logContent.contains("模块导入失败") || logContent.contains("ImportError")) {
+        } else if (output.contains("模块导入失败") || output.contains("ImportError")) {
             return "模块导入失败: Python依赖包缺失，请检查Python环境和依赖包安装";
-        } else if (logContent.contains("内存不足") || logContent.contains("out of memory")) {
+        } else if (output.contains("内存不足") || output.contains("out of memory")) {
             return "内存不足: 系统内存不足，无法执行用例，请检查系统资源";
-        } else if (logContent.contains("磁盘空间不足") || logContent.contains("no space left")) {
+        } else if (output.contains("磁盘空间不足") || output.contains("no space left")) {
             return "磁盘空间不足: 系统磁盘空间不足，无法写入文件，请清理磁盘空间";
-        } else if (logContent.contains("Python执行器不可用")) {
+        } else if (output.contains("Python执行器不可用")) {
             return "Python执行器不可用: 系统中未安装Python或Python不在PATH环境变量中，请检查Python安装";
         } else {
             return originalReason != null ? originalReason : "用例执行被阻塞: 未知原因导致执行失败";
@@ -661,7 +990,7 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
         log.info("用例执行结果报告构建完成 - 用例ID: {}, 轮次: {}, 任务ID: {}, 执行机IP: {}, 日志文件: {}", 
                 testCase.getTestCaseId(), testCase.getRound(), request.getTaskId(), request.getExecutorIp(), logFilePath);
         
-        httpReportUtil.reportTestCaseResult(request.getResultReportUrl(), report);
+        asyncResultReporter.submit(request.getResultReportUrl(), report);
     }
     
     /**
@@ -679,60 +1008,147 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
     }
     
     @Override
-    public boolean cancelTaskExecution(String taskId) {
+    public Map<String, Object> getExecutionMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("runningTasks", runningTasks.size());
+        metrics.put("scheduler", caseTaskScheduler.getMetrics());
+        metrics.put("pythonWorkers", pythonWorkerPool.getMetrics());
+        metrics.put("pythonZygotes", pythonZygoteManager.getMetrics());
+        metrics.put("testCaseSetCache", testCaseSetCache.getMetrics());
+        metrics.put("httpClient", pooledHttpClient.getMetrics());
+        metrics.put("resultReporter", asyncResultReporter.getMetrics());
+        metrics.put("logUpload", logUploadPipeline.getMetrics());
+        return metrics;
+    }
+    
+    @Override
+    public Map<String, Object> cancelTaskExecution(String taskId) {
         log.info("开始取消任务执行 - 任务ID: {}", taskId);
         
+        // 清理尚未完成时任务可能已被执行线程移出运行列表，直接返回正在进行的取消凭据
+        CancellationTicket inProgress = cancellations.get(taskId);
+        if (inProgress != null && !inProgress.isDone()) {
+            return inProgress.toMap();
+        }
+        
         TaskExecutionInfo taskInfo = runningTasks.get(taskId);
         if (taskInfo == null) {
             log.warn("任务不存在或已完成 - 任务ID: {}", taskId);
-            return false;
+            return null;
+        }
+        
+        // 重复取消时返回正在进行的取消凭据
+        CancellationTicket ticket = cancellations.compute(taskId, 
+                (key, current) -> current != null && !current.isDone() ? current : new CancellationTicket(key));
+        if (!ticket.start()) {
+            log.info("任务正在取消中 - 任务ID: {}, 凭据: {}", taskId, ticket.ticketId);
+            return ticket.toMap();
         }
+        pruneCancellations();
         
         try {
-            // 1. 使用PythonExecutorUtil终止所有相关的Python进程及其子进程
-            log.info("开始终止任务ID为 {} 的所有Python进程", taskId);
-            PythonExecutorUtil.terminateAllPythonProcessesByTaskId(taskId);
-            
-            // 2. 取消所有相关进程（Java层面的进程管理）
-            taskInfo.cancelAllProcesses();
+            // 0. 唤醒正在等待用例进程的执行线程
+            processReaper.cancelTask(taskId);
             
-            // 3. 取消执行Future
+            // 1. 取消执行Future，不再开始新的用例
             taskInfo.cancelExecution();
             
-            // 4. 从运行任务列表中移除
-            runningTasks.remove(taskId);
+            // 2. 并行终止所有相关进程（Java层面的进程管理），SIGTERM宽限期后强制终止
+            List<CompletableFuture<?>> teardown = new ArrayList<>();
+            for (CompletableFuture<Void> termination : taskInfo.cancelAllProcesses(processReaper, terminateGraceMillis())) {
+                teardown.add(termination.whenComplete((result, error) -> ticket.processTerminated()));
+            }
+            ticket.setTotalProcesses(teardown.size());
+            
+            // 3. 不支持进程会话管理的系统上使用PythonExecutorUtil终止所有相关的Python进程及其子进程（调用外部命令，后台执行）
+            if (!ProcessTree.isSupported()) {
+                teardown.add(CompletableFuture.runAsync(() -> PythonExecutorUtil.terminateAllPythonProcessesByTaskId(taskId), cancelExecutor));
+            }
+            
+            // 4. 关闭任务的Python派生服务，终止其创建的所有用例进程组（最多等待5秒，后台执行）
+            teardown.add(CompletableFuture.runAsync(() -> pythonZygoteManager.shutdown(taskId), cancelExecutor));
+            
+            // 5. 清理完成后从运行任务列表中移除
+            CompletableFuture.allOf(teardown.toArray(new CompletableFuture<?>[0])).whenComplete((result, error) -> {
+                runningTasks.remove(taskId, taskInfo);
+                ProcessTree.releaseTask(taskId);
+                ticket.complete(error);
+                if (error != null) {
+                    log.error("任务取消清理失败 - 任务ID: {}, 错误: {}", taskId, error.getMessage());
+                } else {
+                    log.info("任务取消完成 - 任务ID: {}, 终止进程数: {}, 耗时: {}ms", 
+                            taskId, ticket.terminatedProcesses.get(), ticket.completedAt - ticket.requestedAt);
+                }
+            });
             
-            log.info("任务取消成功 - 任务ID: {}", taskId);
-            return true;
+            log.info("任务取消请求已受理 - 任务ID: {}, 凭据: {}, 进程数: {}", taskId, ticket.ticketId, ticket.totalProcesses);
+            return ticket.toMap();
             
         } catch (Exception e) {
             log.error("取消任务失败 - 任务ID: {}, 错误: {}", taskId, e.getMessage(), e);
-            return false;
+            ticket.complete(e);
+            return ticket.toMap();
         }
     }
     
+    @Override
+    public List<Map<String, Object>> cancelTaskExecutions(List<String> taskIds) {
+        List<Map<String, Object>> tickets = new ArrayList<>();
+        // 每个任务的取消请求立即返回，各任务的清理在后台同时进行
+        for (String taskId : new LinkedHashSet<>(taskIds)) {
+            Map<String, Object> ticket = cancelTaskExecution(taskId);
+            if (ticket == null) {
+                ticket = new LinkedHashMap<>();
+                ticket.put("taskId", taskId);
+                ticket.put("state", "NOT_FOUND");
+            }
+            tickets.add(ticket);
+        }
+        return tickets;
+    }
+    
+    @Override
+    public Map<String, Object> getCancellationStatus(String taskId) {
+        CancellationTicket ticket = cancellations.get(taskId);
+        return ticket != null ? ticket.toMap() : null;
+    }
+    
+    /**
+     * 清除超过保留时长的已完成取消凭据
+     */
+    private void pruneCancellations() {
+        long expireBefore = System.currentTimeMillis() - CANCELLATION_RETENTION_MILLIS;
+        cancellations.values().removeIf(ticket -> ticket.isDone() && ticket.getCompletedAt() < expireBefore);
+    }
+    
     /**
-     * 递归查找脚本文件
+     * 从任务的脚本索引查找用例脚本，按需解压的用例集在脚本未解压时解压
      * 
-     * @param scriptsDir scripts目录路径
-     * @param scriptFileName 脚本文件名
+     * @param request 执行请求
+     * @param extractPath 用例集解压目录
+     * @param testCaseNumber 用例编号
      * @return 找到的脚本文件路径，如果未找到则返回null
      */
-    private Path findScriptFileRecursively(Path scriptsDir, String scriptFileName) {
-        if (!Files.exists(scriptsDir) || !Files.isDirectory(scriptsDir)) {
-            log.warn("scripts目录不存在或不是目录: {}", scriptsDir);
-            return null;
-        }
-        
-        try (Stream<Path> paths = Files.walk(scriptsDir)) {
-            return paths
-                    .filter(Files::isRegularFile)
-                    .filter(path -> path.getFileName().toString().equals(scriptFileName))
-                    .findFirst()
-                    .orElse(null);
+    private Path findCaseScript(TestCaseExecutionRequest request, Path extractPath, String testCaseNumber) {
+        TaskExecutionInfo taskInfo = runningTasks.get(request.getTaskId());
+        try {
+            ScriptIndex scriptIndex = taskInfo != null ? taskInfo.getScriptIndex() : null;
+            if (scriptIndex == null) {
+                scriptIndex = ScriptIndex.build(extractPath);
+                if (taskInfo != null) {
+                    taskInfo.setScriptIndex(scriptIndex);
+                }
+            }
+            
+            String scriptPath = scriptIndex.find(testCaseNumber);
+            if (scriptPath == null) {
+                return null;
+            }
+            LazyTestCaseSet lazyTestCaseSet = taskInfo != null ? taskInfo.getLazyTestCaseSet() : null;
+            return lazyTestCaseSet != null ? lazyTestCaseSet.faultIn(scriptPath) : extractPath.resolve(scriptPath);
         } catch (Exception e) {
-            log.error("递归查找脚本文件时发生错误 - 目录: {}, 文件名: {}, 错误: {}", 
-                    scriptsDir, scriptFileName, e.getMessage());
+            log.error("查找脚本文件时发生错误 - 任务ID: {}, 用例编号: {}, 错误: {}", 
+                    request.getTaskId(), testCaseNumber, e.getMessage());
             return null;
         }
     }
@@ -766,17 +1182,27 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
             }
             Path logFilePath = logsDir.resolve(logFileName);
             
-            String logContent = "";
-            if (Files.exists(logFilePath)) {
-                logContent = new String(Files.readAllBytes(logFilePath), java.nio.charset.StandardCharsets.UTF_8);
+            // 进程正常退出时使用输出泵读取输出过程中增量得出的分类结果，不重新读取日志文件；
+            // 输出不经过输出泵（批量执行、zygote）或用例超时时逐块读取整个日志文件分类，失败信息行只从末尾窗口提取
+            CaseOutputClassifier caseOutput = completed ? PythonExecutorUtil.awaitCaseOutput(process, 2000) : null;
+            if (caseOutput == null) {
+                caseOutput = CaseOutputClassifier.classify(logFilePath, logOutputConfig.getAnalysisWindowMb() * 1024L * 1024L);
             }
+            // 用例脚本上报的结构化结果（结果文件或##CASE_RESULT行），超时的用例不采用
+            CaseResultReport caseResult = completed ? CaseResultReport.resolve(logFilePath, caseOutput) : null;
             
             // 判断执行结果
             String status = "SUCCESS";
             String result = "用例执行成功";
             String failureReason = null;
             
-            if (!completed) {
+            if (caseResult != null) {
+                status = caseResult.getStatus();
+                result = caseResult.getResult();
+                failureReason = caseResult.getFailureReason();
+                log.info("采用用例脚本上报的结构化结果 - 用例ID: {}, 轮次: {}, 状态: {}, 退出码: {}", 
+                        testCase.getTestCaseId(), testCase.getRound(), status, process.exitValue());
+            } else if (!completed) {
                 status = "FAILED";  // 超时归类为FAILED
                 result = "用例执行超时";
                 failureReason = "用例执行超时: 超过配置的超时时间 " + timeoutMinutes + " 分钟";
@@ -788,34 +1214,28 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
                         testCase.getTestCaseId(), testCase.getRound(), timeoutMinutes);
             } else if (process.exitValue() != 0) {
                 // 检查是否是环境问题导致的阻塞
-                if (isBlockedByEnvironment(logContent)) {
+                if (isBlockedByEnvironment(caseOutput)) {
                     status = "BLOCKED";
                     result = "用例执行被阻塞（环境问题）";
-                    failureReason = "环境问题导致用例无法执行: " + analyzeFailureReason(logContent, process.exitValue());
+                    failureReason = "环境问题导致用例无法执行: " + analyzeFailureReason(caseOutput, process.exitValue());
                 } else {
                     status = "FAILED";
                     result = "用例执行失败，退出码: " + process.exitValue();
-                    failureReason = analyzeFailureReason(logContent, process.exitValue());
+                    failureReason = analyzeFailureReason(caseOutput, process.exitValue());
                 }
             } else {
                 // 根据控制台输出判断结果
-                TestResultAnalysis analysis = analyzeTestOutput(logContent);
+                TestResultAnalysis analysis = analyzeTestOutput(caseOutput);
                 status = analysis.getStatus();
                 result = analysis.getResult();
                 failureReason = analysis.getFailureReason();
             }
             
-            // 上传日志文件到gohttpserver（如果提供了gohttpserver地址）
+            // 上传日志文件到gohttpserver（如果提供了gohttpserver地址），后台上传时结果立即携带日志的目标URL
             String uploadedLogUrl = null;
             if (request.getLogReportUrl() != null && !request.getLogReportUrl().trim().isEmpty()) {
-                try {
-                    com.caseexecute.util.GoHttpServerClient goHttpServerClient = new com.caseexecute.util.GoHttpServerClient();
-                    uploadedLogUrl = goHttpServerClient.uploadLocalFile(logFilePath.toString(), logFileName, request.getLogReportUrl(), request.getTaskId());
-                    log.info("日志文件上传成功 - 用例ID: {}, 轮次: {}, 上传URL: {}", testCase.getTestCaseId(), testCase.getRound(), uploadedLogUrl);
-                } catch (Exception e) {
-                    log.error("日志文件上传失败 - 用例ID: {}, 轮次: {}, 错误: {}", 
-                            testCase.getTestCaseId(), testCase.getRound(), e.getMessage());
-                }
+                uploadedLogUrl = logUploadPipeline.submit(request.getTaskId(), logFilePath, logFileName, request.getLogReportUrl());
+                log.info("日志文件已提交上传 - 用例ID: {}, 轮次: {}, 日志URL: {}", testCase.getTestCaseId(), testCase.getRound(), uploadedLogUrl);
             } else {
                 log.info("未提供gohttpserver地址，跳过日志文件上传 - 用例ID: {}, 轮次: {}", testCase.getTestCaseId(), testCase.getRound());
             }
@@ -826,7 +1246,8 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
                     .executionTime(System.currentTimeMillis() - System.currentTimeMillis()) // 简化处理
                     .startTime(java.time.LocalDateTime.now()) // 简化处理
                     .endTime(java.time.LocalDateTime.now()) // 简化处理
-                    .logContent(logContent)
+                    .caseOutput(caseOutput)
+                    .caseResult(caseResult)
                     .logFilePath(uploadedLogUrl != null ? uploadedLogUrl : logFileName)
                     .failureReason(failureReason)
                     .build();
@@ -841,7 +1262,7 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
                     .executionTime(0L)
                     .startTime(java.time.LocalDateTime.now())
                     .endTime(java.time.LocalDateTime.now())
-                    .logContent("")
+                    .caseOutput(CaseOutputClassifier.of(""))
                     .logFilePath("")
                     .failureReason("处理执行结果时发生错误: " + e.getMessage())
                     .build();
@@ -849,54 +1270,55 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
     }
     
     /**
-     * 强制终止进程及其子进程
+     * 终止进程及其子进程
+     * 先发送SIGTERM，宽限期后仍未退出的进程由进程回收器发送SIGKILL，不阻塞执行线程
      */
     private void terminateProcessAndChildren(Process process) {
         try {
-            if (process != null && process.isAlive()) {
-                process.destroy();
-                if (!process.waitFor(5, java.util.concurrent.TimeUnit.SECONDS)) {
-                    process.destroyForcibly();
-                }
-                log.info("已强制终止进程");
+            if (process != null) {
+                processReaper.terminate(process, terminateGraceMillis());
             }
         } catch (Exception e) {
             log.error("终止进程失败: {}", e.getMessage());
         }
     }
     
+    /**
+     * 终止用例进程的宽限期（毫秒）
+     */
+    private long terminateGraceMillis() {
+        Integer graceSeconds = caseExecutionConfig.getTerminateGraceSeconds();
+        return graceSeconds != null ? graceSeconds * 1000L : 5000L;
+    }
+    
     /**
      * 检查是否因环境问题被阻塞
      */
-    private boolean isBlockedByEnvironment(String logContent) {
-        if (logContent == null) {
+    private boolean isBlockedByEnvironment(CaseOutputClassifier output) {
+        if (output == null) {
             return false;
         }
         
-        String lowerContent = logContent.toLowerCase();
-        return lowerContent.contains("command not found") || 
-               lowerContent.contains("no such file or directory") ||
-               lowerContent.contains("permission denied") ||
-               lowerContent.contains("cannot run program") ||
-               lowerContent.contains("python") && lowerContent.contains("not found");
+        return output.containsIgnoreCase("command not found") || 
+               output.containsIgnoreCase("no such file or directory") ||
+               output.containsIgnoreCase("permission denied") ||
+               output.containsIgnoreCase("cannot run program") ||
+               output.containsIgnoreCase("python") && output.containsIgnoreCase("not found");
     }
     
     /**
      * 分析失败原因
      */
-    private String analyzeFailureReason(String logContent, int exitCode) {
-        if (logContent == null || logContent.trim().isEmpty()) {
+    private String analyzeFailureReason(CaseOutputClassifier output, int exitCode) {
+        if (output == null || output.isBlank()) {
             return "进程异常退出，退出码: " + exitCode;
         }
         
-        // 提取最后几行错误信息
-        String[] lines = logContent.split("\n");
+        // 提取最后几行错误信息（分类器保留最后5行）
         StringBuilder errorInfo = new StringBuilder();
-        int startIndex = Math.max(0, lines.length - 5); // 取最后5行
-        
-        for (int i = startIndex; i < lines.length; i++) {
-            if (lines[i].trim().length() > 0) {
-                errorInfo.append(lines[i].trim()).append("; ");
+        for (String line : output.getTailLines()) {
+            if (line.trim().length() > 0) {
+                errorInfo.append(line.trim()).append("; ");
             }
         }
         
@@ -906,17 +1328,15 @@ public class TestCaseExecutionServiceImpl implements TestCaseExecutionService {
     /**
      * 分析测试输出
      */
-    private TestResultAnalysis analyzeTestOutput(String logContent) {
-        if (logContent == null) {
+    private TestResultAnalysis analyzeTestOutput(CaseOutputClassifier output) {
+        if (output == null) {
             return new TestResultAnalysis("BLOCKED", "无法读取执行日志", "日志内容为空");
         }
         
-        String lowerContent = logContent.toLowerCase();
-        
-        if (lowerContent.contains("pass") || lowerContent.contains("success") || lowerContent.contains("成功")) {
+        if (output.containsIgnoreCase("pass") || output.containsIgnoreCase("success") || output.contains("成功")) {
             return new TestResultAnalysis("SUCCESS", "用例执行成功", null);
-        } else if (lowerContent.contains("fail") || lowerContent.contains("error") || lowerContent.contains("失败")) {
-            return new TestResultAnalysis("FAILED", "用例执行失败", extractFailureDetails(logContent));
+        } else if (output.containsIgnoreCase("fail") || output.containsIgnoreCase("error") || output.contains("失败")) {
+            return new TestResultAnalysis("FAILED", "用例执行失败", extractFailureDetails(output));
         } else {
             return new TestResultAnalysis("BLOCKED", "无法确定执行结果", "日志内容无法解析");
         }
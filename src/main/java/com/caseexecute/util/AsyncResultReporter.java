@@ -0,0 +1,792 @@
+package com.caseexecute.util;
+
+import com.caseexecute.config.FileStorageConfig;
+import com.caseexecute.config.ResultReportConfig;
+import com.caseexecute.dto.TestCaseResultReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用例执行结果异步上报器
+ * 用例执行线程只把结果放入队列，不等待平台响应；上报线程按条数或凑批等待时间把结果合并成批：
+ * 配置了批量上报接口时一批结果一次提交，未配置或批量提交失败时逐条上报到任务的resultReportUrl。
+ * 结果按任务ID分配到固定的上报线程，同一任务的结果按入队顺序上报。
+ * 启用发件箱时结果先写入{@link ResultReportOutbox}，上报成功后确认；上报失败时暂停该任务的上报，
+ * 该任务的后续结果在上报线程中排在失败结果之后，按指数退避逐个任务重试，同一上报线程上其他任务的结果照常上报；
+ * 暂停期间该任务的后续结果只保留在发件箱中，恢复上报后再分批读取，不在内存中累积。
+ * 平台拒绝（4xx）的结果不重试，记录错误日志后确认。服务重启后由上报线程从发件箱读取未确认的结果继续上报。
+ * 队列已满时结果只保留在发件箱中，队列空出后再读取；写入发件箱失败的结果排在发件箱中更早的结果之后。
+ * 未启用发件箱且队列已满时，该任务没有排队或等待重试的结果才在调用线程上同步上报，否则等待队列空出
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class AsyncResultReporter implements InitializingBean, DisposableBean {
+
+    private static final String OUTBOX_DIRECTORY = "result-outbox";
+
+    @Autowired
+    private ResultReportConfig resultReportConfig;
+
+    @Autowired
+    private FileStorageConfig fileStorageConfig;
+
+    @Autowired
+    private HttpReportUtil httpReportUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final AtomicLong submittedReports = new AtomicLong();
+    private final AtomicLong reportedReports = new AtomicLong();
+    private final AtomicLong failedReports = new AtomicLong();
+    private final AtomicLong syncFallbackReports = new AtomicLong();
+    private final AtomicLong spilledReports = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rejectedReports = new AtomicLong();
+    private final AtomicLong abandonedReports = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong bulkBatches = new AtomicLong();
+    private final AtomicLong flushLatencyMillis = new AtomicLong();
+    private final AtomicLong maxFlushLatencyMillis = new AtomicLong();
+
+    private SenderThread[] senders;
+    private ResultReportOutbox outbox;
+
+    /**
+     * 每个任务已入队但尚未上报完成（含等待重试）的结果数，没有时不包含该任务
+     */
+    private final Map<String, Integer> outstandingByTask = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!resultReportConfig.isAsyncEnabled()) {
+            log.info("用例执行结果异步上报未启用，逐条同步上报");
+            return;
+        }
+        if (resultReportConfig.isOutboxEnabled()) {
+            try {
+                outbox = new ResultReportOutbox(Paths.get(fileStorageConfig.getRootDirectory(), OUTBOX_DIRECTORY),
+                        resultReportConfig.getOutboxSegmentMb() * 1024L * 1024L, resultReportConfig.isOutboxFsync(), objectMapper);
+            } catch (IOException e) {
+                log.error("打开结果发件箱失败，上报失败的结果将不会持久化 - 错误: {}", e.getMessage(), e);
+            }
+        }
+        int threads = Math.max(1, resultReportConfig.getSenderThreads());
+        int capacity = Math.max(1, resultReportConfig.getQueueCapacity() / threads);
+        senders = new SenderThread[threads];
+        for (int i = 0; i < threads; i++) {
+            senders[i] = new SenderThread("case-result-reporter-" + (i + 1), i, capacity);
+            if (outbox != null && outbox.getRecoveredRecords() > 0) {
+                // 发件箱中未确认的结果由上报线程读取后重新上报
+                senders[i].spilled = true;
+                senders[i].lastSpilledId = outbox.lastId();
+            }
+        }
+        for (SenderThread sender : senders) {
+            sender.start();
+        }
+        log.info("用例执行结果异步上报器已启动 - 上报线程数: {}, 每批最多: {}条, 凑批等待: {}ms, 批量上报URL: {}, 发件箱: {}",
+                threads, resultReportConfig.getBatchSize(), resultReportConfig.getLingerMillis(),
+                isBulkEnabled() ? resultReportConfig.getBulkUrl() : "未配置", outbox != null ? "已启用" : "未启用");
+    }
+
+    /**
+     * 提交用例执行结果，异步上报时立即返回
+     *
+     * @param reportUrl 任务的结果上报URL
+     * @param report 执行结果
+     */
+    public void submit(String reportUrl, TestCaseResultReport report) {
+        submittedReports.incrementAndGet();
+        if (senders == null) {
+            deliver(reportUrl, report);
+            return;
+        }
+        SenderThread sender = senders[laneOf(report)];
+        PendingReport pending;
+        synchronized (sender) {
+            long createdAt = System.currentTimeMillis();
+            long id = 0;
+            if (outbox != null) {
+                try {
+                    id = outbox.append(reportUrl, report, createdAt);
+                } catch (IOException e) {
+                    log.error("写入结果发件箱失败，结果只保留在内存中 - 任务ID: {}, 用例ID: {}, 轮次: {}, 错误: {}",
+                            report.getTaskId(), report.getTestCaseId(), report.getRound(), e.getMessage());
+                }
+            }
+            pending = new PendingReport(id, reportUrl, report, createdAt);
+            // 发件箱中还有更早的结果等待读取时，新结果排在它们之后
+            if (!sender.spilled && sender.enqueue(pending)) {
+                if (id > 0) {
+                    sender.lastQueuedId = id;
+                }
+                return;
+            }
+            if (id > 0) {
+                sender.spilled = true;
+                sender.lastSpilledId = id;
+                spilledReports.incrementAndGet();
+                return;
+            }
+            if (outbox != null) {
+                // 未写入发件箱的结果在内存中排在此前已入队和只写入发件箱的结果之后
+                sender.unpersisted.addLast(new UnpersistedReport(sender.spilled ? sender.lastSpilledId : sender.lastQueuedId, pending));
+                sender.spilled = true;
+                return;
+            }
+        }
+        if (!outstandingByTask.containsKey(taskKey(report))) {
+            // 该任务没有排队或等待重试的结果，同步上报不会越过更早的结果
+            syncFallbackReports.incrementAndGet();
+            log.warn("用例执行结果上报队列已满，同步上报 - 任务ID: {}, 用例ID: {}, 轮次: {}",
+                    report.getTaskId(), report.getTestCaseId(), report.getRound());
+            deliver(reportUrl, report);
+            return;
+        }
+        log.warn("用例执行结果上报队列已满，等待队列空出 - 任务ID: {}, 用例ID: {}, 轮次: {}",
+                report.getTaskId(), report.getTestCaseId(), report.getRound());
+        try {
+            while (!sender.enqueue(pending, 100)) {
+                if (!sender.isAlive()) {
+                    syncFallbackReports.incrementAndGet();
+                    deliver(reportUrl, report);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            syncFallbackReports.incrementAndGet();
+            log.warn("等待上报队列时被中断，同步上报 - 任务ID: {}, 用例ID: {}, 轮次: {}",
+                    report.getTaskId(), report.getTestCaseId(), report.getRound());
+            deliver(reportUrl, report);
+        }
+    }
+
+    /**
+     * 上报器指标
+     */
+    public Map<String, Object> getMetrics() {
+        int queueDepth = 0;
+        int retryingTasks = 0;
+        if (senders != null) {
+            for (SenderThread sender : senders) {
+                queueDepth += sender.queue.size() + sender.inFlight + sender.heldReports + sender.unpersistedCount();
+                retryingTasks += sender.heldTasks;
+            }
+        }
+        long batchCount = batches.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("asyncEnabled", senders != null);
+        metrics.put("bulkEnabled", isBulkEnabled());
+        metrics.put("queueDepth", queueDepth);
+        metrics.put("submittedReports", submittedReports.get());
+        metrics.put("reportedReports", reportedReports.get());
+        metrics.put("failedReports", failedReports.get());
+        metrics.put("syncFallbackReports", syncFallbackReports.get());
+        metrics.put("retryingTasks", retryingTasks);
+        metrics.put("retries", retries.get());
+        metrics.put("rejectedReports", rejectedReports.get());
+        metrics.put("abandonedReports", abandonedReports.get());
+        metrics.put("batches", batchCount);
+        metrics.put("bulkBatches", bulkBatches.get());
+        metrics.put("averageFlushLatencyMillis", batchCount > 0 ? flushLatencyMillis.get() / batchCount : 0);
+        metrics.put("maxFlushLatencyMillis", maxFlushLatencyMillis.get());
+        metrics.put("outboxEnabled", outbox != null);
+        metrics.put("outboxPendingReports", outbox != null ? outbox.getPendingRecords() : 0);
+        metrics.put("outboxSegments", outbox != null ? outbox.getSegmentCount() : 0);
+        metrics.put("outboxSizeBytes", outbox != null ? outbox.getSizeBytes() : 0);
+        metrics.put("outboxRecoveredReports", outbox != null ? outbox.getRecoveredRecords() : 0);
+        metrics.put("spilledReports", spilledReports.get());
+        return metrics;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (senders == null) {
+            return;
+        }
+        for (SenderThread sender : senders) {
+            sender.shuttingDown = true;
+        }
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(Math.max(0, resultReportConfig.getShutdownTimeoutSeconds()));
+        for (SenderThread sender : senders) {
+            sender.join(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+        int remaining = 0;
+        for (SenderThread sender : senders) {
+            remaining += sender.queue.size() + sender.inFlight + sender.heldReports;
+            if (sender.unpersistedCount() > 0) {
+                log.warn("服务关闭时仍有写入发件箱失败的用例执行结果未上报 - 上报线程: {}, 结果数: {}",
+                        sender.getName(), sender.unpersistedCount());
+            }
+        }
+        if (outbox != null) {
+            outbox.close();
+            if (outbox.getPendingRecords() > 0) {
+                log.info("服务关闭时仍有用例执行结果未上报，已保存在发件箱中，重启后继续上报 - 结果数: {}", outbox.getPendingRecords());
+            }
+        } else if (remaining > 0) {
+            log.warn("服务关闭时仍有用例执行结果未上报 - 结果数: {}", remaining);
+        }
+    }
+
+    private boolean isBulkEnabled() {
+        return resultReportConfig.getBulkUrl() != null && !resultReportConfig.getBulkUrl().trim().isEmpty();
+    }
+
+    private int laneOf(TestCaseResultReport report) {
+        return Math.floorMod(taskKey(report).hashCode(), senders.length);
+    }
+
+    private static String taskKey(TestCaseResultReport report) {
+        return String.valueOf(report.getTaskId());
+    }
+
+    /**
+     * 同步上报一条结果（未启用异步上报或队列已满时），不重试
+     */
+    private boolean deliver(String reportUrl, TestCaseResultReport report) {
+        return deliver(new PendingReport(0, reportUrl, report, System.currentTimeMillis())) == HttpReportUtil.ReportOutcome.SUCCESS;
+    }
+
+    private HttpReportUtil.ReportOutcome deliver(PendingReport pending) {
+        HttpReportUtil.ReportOutcome outcome = httpReportUtil.reportTestCaseResult(pending.reportUrl, pending.report);
+        if (outcome == HttpReportUtil.ReportOutcome.SUCCESS) {
+            reportedReports.incrementAndGet();
+        } else if (outcome == HttpReportUtil.ReportOutcome.REJECTED) {
+            rejectedReports.incrementAndGet();
+            log.error("用例执行结果被平台拒绝，不再重试 - 任务ID: {}, 用例ID: {}, 轮次: {}, 状态: {}",
+                    pending.report.getTaskId(), pending.report.getTestCaseId(), pending.report.getRound(),
+                    pending.report.getStatus());
+        } else {
+            failedReports.incrementAndGet();
+        }
+        return outcome;
+    }
+
+    /**
+     * 记录一次上报完成的批次延迟
+     */
+    private void recordFlush(List<PendingReport> delivered, long startTime) {
+        long latency = System.currentTimeMillis() - delivered.get(0).createdAt;
+        batches.incrementAndGet();
+        flushLatencyMillis.addAndGet(latency);
+        long max;
+        while (latency > (max = maxFlushLatencyMillis.get())) {
+            if (maxFlushLatencyMillis.compareAndSet(max, latency)) {
+                break;
+            }
+        }
+        log.debug("用例执行结果批次上报完成 - 结果数: {}, 上报耗时: {}ms, 提交到上报完成: {}ms",
+                delivered.size(), System.currentTimeMillis() - startTime, latency);
+    }
+
+    /**
+     * 结果已上报、被拒绝或已放弃：在发件箱中确认，并从任务未完成的结果数中扣除
+     */
+    private void acknowledge(List<PendingReport> reports) {
+        for (PendingReport pending : reports) {
+            outstandingByTask.computeIfPresent(taskKey(pending.report), (key, count) -> count > 1 ? count - 1 : null);
+        }
+        if (outbox == null) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(reports.size());
+        for (PendingReport pending : reports) {
+            if (pending.id > 0) {
+                ids.add(pending.id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            outbox.acknowledge(ids);
+        } catch (IOException e) {
+            log.error("确认结果发件箱记录失败，重启后这些结果可能重复上报 - 结果数: {}, 错误: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 放弃超过最长重试时间的结果，从待重试的结果中移除
+     */
+    private void abandonExpired(Deque<PendingReport> reports) {
+        if (resultReportConfig.getRetryMaxAgeHours() <= 0) {
+            return;
+        }
+        long expireBefore = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(resultReportConfig.getRetryMaxAgeHours());
+        List<PendingReport> expired = new ArrayList<>();
+        for (Iterator<PendingReport> iterator = reports.iterator(); iterator.hasNext(); ) {
+            PendingReport pending = iterator.next();
+            if (pending.createdAt < expireBefore) {
+                iterator.remove();
+                expired.add(pending);
+                log.error("用例执行结果超过最长重试时间，放弃上报 - 任务ID: {}, 用例ID: {}, 轮次: {}, 状态: {}",
+                        pending.report.getTaskId(), pending.report.getTestCaseId(), pending.report.getRound(),
+                        pending.report.getStatus());
+            }
+        }
+        if (!expired.isEmpty()) {
+            abandonedReports.addAndGet(expired.size());
+            acknowledge(expired);
+        }
+    }
+
+    /**
+     * 等待上报的结果
+     */
+    private static class PendingReport {
+        private final long id;
+        private final String reportUrl;
+        private final TestCaseResultReport report;
+        private final long createdAt;
+
+        private PendingReport(long id, String reportUrl, TestCaseResultReport report, long createdAt) {
+            this.id = id;
+            this.reportUrl = reportUrl;
+            this.report = report;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * 写入发件箱失败、只保留在内存中的结果，排在ID不超过afterId的发件箱记录之后
+     */
+    private static class UnpersistedReport {
+        private final long afterId;
+        private final PendingReport pending;
+
+        private UnpersistedReport(long afterId, PendingReport pending) {
+            this.afterId = afterId;
+            this.pending = pending;
+        }
+    }
+
+    /**
+     * 上报失败、等待重试的任务，后续结果排在失败结果之后：
+     * 已写入发件箱的后续结果不保留在内存中，只记录ID范围，恢复上报后从发件箱分批读取；
+     * 未写入发件箱的后续结果排在这些结果之后
+     */
+    private static class RetryingTask {
+        private final Deque<PendingReport> reports = new ArrayDeque<>();
+        private final Deque<PendingReport> trailing = new ArrayDeque<>();
+        private long parkedAfter;
+        private long parkedUpTo;
+        private int parked;
+        private long backoffMillis;
+        private long retryAt;
+    }
+
+    /**
+     * 上报线程，按入队顺序凑批上报分配给它的任务的结果；
+     * 上报失败的任务单独退避重试，不影响其他任务。不通过中断停止，避免中断正在进行的HTTP请求
+     */
+    private class SenderThread extends Thread {
+        private final int lane;
+        private final BlockingQueue<PendingReport> queue;
+        private volatile boolean shuttingDown;
+        private volatile int inFlight;
+        private volatile int heldReports;
+        private volatile int heldTasks;
+
+        /**
+         * 等待重试的任务，按任务ID索引，只由上报线程访问
+         */
+        private final Map<String, RetryingTask> retrying = new LinkedHashMap<>();
+
+        /**
+         * 发件箱中是否有该线程的结果未放入队列，以及已放入队列和只写入发件箱的最大记录ID，由本对象的锁保护
+         */
+        private boolean spilled;
+        private long lastQueuedId;
+        private long lastSpilledId;
+
+        /**
+         * 写入发件箱失败的结果，按提交顺序排在发件箱记录之间，由本对象的锁保护
+         */
+        private final Deque<UnpersistedReport> unpersisted = new ArrayDeque<>();
+
+        private SenderThread(String name, int lane, int capacity) {
+            super(name);
+            setDaemon(true);
+            this.lane = lane;
+            this.queue = new LinkedBlockingQueue<>(capacity);
+        }
+
+        @Override
+        public void run() {
+            List<PendingReport> batch = new ArrayList<>();
+            while (true) {
+                if (!shuttingDown) {
+                    retryDue();
+                }
+                if (shuttingDown && queue.isEmpty()) {
+                    break;
+                }
+                batch.clear();
+                try {
+                    nextBatch(batch);
+                } catch (InterruptedException e) {
+                    // 被中断时不再等待凑批，上报队列中剩余的结果后退出
+                    log.warn("用例执行结果上报线程被中断 - 已取出结果数: {}, 队列中结果数: {}", batch.size(), queue.size());
+                    shuttingDown = true;
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                inFlight = batch.size();
+                try {
+                    flush(batch);
+                } catch (Exception e) {
+                    // 未确认的结果保留在发件箱中，重启后重新上报
+                    log.error("上报用例执行结果批次时发生错误 - 结果数: {}, 错误: {}", batch.size(), e.getMessage(), e);
+                }
+                inFlight = 0;
+                updateHeld();
+            }
+            if (heldReports > 0 && outbox == null) {
+                log.warn("服务关闭，放弃重试未上报的用例执行结果 - 任务数: {}, 结果数: {}", heldTasks, heldReports);
+            }
+        }
+
+        /**
+         * 上报一批结果：配置了批量上报接口时一次提交，否则或提交失败时逐条上报；
+         * 正在重试的任务的结果排到该任务的待重试结果之后，上报失败的结果暂停其任务的上报
+         */
+        private void flush(List<PendingReport> batch) {
+            long startTime = System.currentTimeMillis();
+            List<PendingReport> ready = new ArrayList<>(batch.size());
+            for (PendingReport pending : batch) {
+                RetryingTask task = retrying.get(taskKey(pending.report));
+                if (task != null) {
+                    defer(task, pending);
+                } else {
+                    ready.add(pending);
+                }
+            }
+            if (ready.isEmpty()) {
+                return;
+            }
+            List<PendingReport> done = new ArrayList<>(ready.size());
+            List<PendingReport> delivered = new ArrayList<>(ready.size());
+            if (isBulkEnabled() && bulkDeliver(ready)) {
+                done.addAll(ready);
+                delivered.addAll(ready);
+            } else {
+                for (PendingReport pending : ready) {
+                    RetryingTask task = retrying.get(taskKey(pending.report));
+                    if (task != null) {
+                        // 同一任务更早的结果在本批中上报失败
+                        defer(task, pending);
+                        continue;
+                    }
+                    HttpReportUtil.ReportOutcome outcome = deliver(pending);
+                    if (outcome == HttpReportUtil.ReportOutcome.FAILED) {
+                        hold(pending);
+                        continue;
+                    }
+                    done.add(pending);
+                    if (outcome == HttpReportUtil.ReportOutcome.SUCCESS) {
+                        delivered.add(pending);
+                    }
+                }
+            }
+            acknowledge(done);
+            if (!delivered.isEmpty()) {
+                recordFlush(delivered, startTime);
+            }
+        }
+
+        private boolean bulkDeliver(List<PendingReport> batch) {
+            List<TestCaseResultReport> reports = new ArrayList<>(batch.size());
+            for (PendingReport pending : batch) {
+                reports.add(pending.report);
+            }
+            if (httpReportUtil.reportTestCaseResults(resultReportConfig.getBulkUrl().trim(), reports) == HttpReportUtil.ReportOutcome.SUCCESS) {
+                bulkBatches.incrementAndGet();
+                reportedReports.addAndGet(batch.size());
+                return true;
+            }
+            // 批量提交被拒绝时逐条上报，只有被拒绝的结果不再重试
+            log.warn("批量上报失败，改为逐条上报 - 结果数: {}", batch.size());
+            return false;
+        }
+
+        /**
+         * 暂停任务的上报，该结果和任务的后续结果在退避后重试
+         */
+        private void hold(PendingReport pending) {
+            RetryingTask task = new RetryingTask();
+            task.reports.addLast(pending);
+            task.backoffMillis = Math.max(1, resultReportConfig.getRetryInitialBackoffMillis());
+            task.retryAt = System.currentTimeMillis() + task.backoffMillis;
+            retrying.put(taskKey(pending.report), task);
+            log.warn("用例执行结果上报失败，暂停该任务的上报，{}ms后重试 - 任务ID: {}, 用例ID: {}, 轮次: {}",
+                    task.backoffMillis, pending.report.getTaskId(), pending.report.getTestCaseId(), pending.report.getRound());
+        }
+
+        /**
+         * 暂停上报的任务的后续结果排在待重试结果之后；已写入发件箱的结果不保留在内存中，恢复上报后再读取
+         */
+        private void defer(RetryingTask task, PendingReport pending) {
+            if (outbox != null && pending.id > 0 && task.trailing.isEmpty()) {
+                if (task.parked == 0) {
+                    task.parkedAfter = pending.id - 1;
+                }
+                task.parkedUpTo = pending.id;
+                task.parked++;
+                spilledReports.incrementAndGet();
+            } else if (task.parked > 0 || !task.trailing.isEmpty()) {
+                task.trailing.addLast(pending);
+            } else {
+                task.reports.addLast(pending);
+            }
+        }
+
+        /**
+         * 待重试结果已全部上报时，从发件箱读取下一批暂停期间的结果，全部读取后再放入未写入发件箱的结果
+         */
+        private void loadDeferred(RetryingTask task, String key) {
+            if (task.parked > 0) {
+                int limit = Math.max(1, resultReportConfig.getBatchSize());
+                List<ResultReportOutbox.Record> records = outbox.readPending(task.parkedAfter, task.parkedUpTo,
+                        record -> key.equals(taskKey(record.getReport())), limit);
+                for (ResultReportOutbox.Record record : records) {
+                    task.reports.addLast(new PendingReport(record.getId(), record.getReportUrl(), record.getReport(), record.getCreatedAt()));
+                    task.parkedAfter = record.getId();
+                }
+                task.parked -= records.size();
+                if (records.size() < limit) {
+                    task.parkedAfter = task.parkedUpTo;
+                    task.parked = 0;
+                }
+            }
+            if (task.parked == 0) {
+                task.reports.addAll(task.trailing);
+                task.trailing.clear();
+            }
+        }
+
+        /**
+         * 重试已到退避时间的任务：按顺序上报任务的待重试结果，遇到失败即停止并延长该任务的退避时间；
+         * 全部成功后继续分批读取暂停期间只保留在发件箱中的结果，每批作为一次重试，不阻塞其他任务的上报
+         */
+        private void retryDue() {
+            if (retrying.isEmpty()) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for (Iterator<Map.Entry<String, RetryingTask>> iterator = retrying.entrySet().iterator(); iterator.hasNext() && !shuttingDown; ) {
+                Map.Entry<String, RetryingTask> entry = iterator.next();
+                RetryingTask task = entry.getValue();
+                if (task.retryAt > now) {
+                    continue;
+                }
+                if (task.reports.isEmpty()) {
+                    loadDeferred(task, entry.getKey());
+                }
+                abandonExpired(task.reports);
+                long startTime = System.currentTimeMillis();
+                List<PendingReport> done = new ArrayList<>();
+                List<PendingReport> delivered = new ArrayList<>();
+                boolean failed = false;
+                if (!task.reports.isEmpty()) {
+                    retries.incrementAndGet();
+                }
+                while (!task.reports.isEmpty()) {
+                    HttpReportUtil.ReportOutcome outcome = deliver(task.reports.peekFirst());
+                    if (outcome == HttpReportUtil.ReportOutcome.FAILED) {
+                        failed = true;
+                        break;
+                    }
+                    PendingReport pending = task.reports.pollFirst();
+                    done.add(pending);
+                    if (outcome == HttpReportUtil.ReportOutcome.SUCCESS) {
+                        delivered.add(pending);
+                    }
+                }
+                acknowledge(done);
+                if (!delivered.isEmpty()) {
+                    recordFlush(delivered, startTime);
+                }
+                if (failed) {
+                    task.backoffMillis = Math.min(task.backoffMillis * 2, Math.max(1, resultReportConfig.getRetryMaxBackoffMillis()));
+                    task.retryAt = System.currentTimeMillis() + task.backoffMillis;
+                    log.warn("用例执行结果重试上报失败，{}ms后重试 - 任务ID: {}, 待重试结果数: {}",
+                            task.backoffMillis, entry.getKey(), task.reports.size());
+                } else if (task.parked > 0 || !task.trailing.isEmpty()) {
+                    task.backoffMillis = Math.max(1, resultReportConfig.getRetryInitialBackoffMillis());
+                    task.retryAt = System.currentTimeMillis();
+                } else {
+                    iterator.remove();
+                    if (!done.isEmpty()) {
+                        log.info("用例执行结果重试上报完成，恢复该任务的上报 - 任务ID: {}, 结果数: {}", entry.getKey(), done.size());
+                    }
+                }
+            }
+            updateHeld();
+        }
+
+        /**
+         * 最早需要重试的时间，没有等待重试的任务时返回Long.MAX_VALUE
+         */
+        private long nextRetryAt() {
+            long next = Long.MAX_VALUE;
+            for (RetryingTask task : retrying.values()) {
+                next = Math.min(next, task.retryAt);
+            }
+            return next;
+        }
+
+        private void updateHeld() {
+            int reports = 0;
+            for (RetryingTask task : retrying.values()) {
+                reports += task.reports.size() + task.trailing.size() + task.parked;
+            }
+            heldReports = reports;
+            heldTasks = retrying.size();
+        }
+
+        /**
+         * 取出下一批结果：等待第一条结果，之后最多等待凑批时间或凑满一批；服务关闭时不再等待凑批，
+         * 有任务到达重试时间时不再等待第一条结果
+         */
+        private void nextBatch(List<PendingReport> batch) throws InterruptedException {
+            PendingReport first = null;
+            while (first == null) {
+                if (shuttingDown && queue.isEmpty()) {
+                    return;
+                }
+                if (!shuttingDown && nextRetryAt() <= System.currentTimeMillis()) {
+                    return;
+                }
+                if (queue.isEmpty() && !shuttingDown) {
+                    refill();
+                }
+                first = queue.poll(100, TimeUnit.MILLISECONDS);
+            }
+            batch.add(first);
+            int batchSize = Math.max(1, resultReportConfig.getBatchSize());
+            long deadline = shuttingDown ? 0 : first.createdAt + resultReportConfig.getLingerMillis();
+            while (batch.size() < batchSize) {
+                queue.drainTo(batch, batchSize - batch.size());
+                long waitMillis = deadline - System.currentTimeMillis();
+                if (batch.size() >= batchSize || waitMillis <= 0) {
+                    break;
+                }
+                PendingReport next = queue.poll(waitMillis, TimeUnit.MILLISECONDS);
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+            }
+        }
+
+        private synchronized int unpersistedCount() {
+            return unpersisted.size();
+        }
+
+        /**
+         * 放入队列并计入任务未完成的结果数
+         */
+        private boolean enqueue(PendingReport pending) {
+            String key = taskKey(pending.report);
+            outstandingByTask.merge(key, 1, Integer::sum);
+            if (queue.offer(pending)) {
+                return true;
+            }
+            outstandingByTask.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+            return false;
+        }
+
+        private boolean enqueue(PendingReport pending, long timeoutMillis) throws InterruptedException {
+            String key = taskKey(pending.report);
+            outstandingByTask.merge(key, 1, Integer::sum);
+            boolean offered = false;
+            try {
+                offered = queue.offer(pending, timeoutMillis, TimeUnit.MILLISECONDS);
+            } finally {
+                if (!offered) {
+                    outstandingByTask.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+                }
+            }
+            return offered;
+        }
+
+        /**
+         * 队列为空时从发件箱读取只写入了发件箱的结果（队列已满时提交的结果和重启前未上报的结果），
+         * 写入发件箱失败的结果在它之前的发件箱记录入队后入队，直到该线程没有未入队的结果为止
+         */
+        private void refill() {
+            long afterId;
+            long spilledUpTo;
+            synchronized (this) {
+                if (!spilled || !enqueueUnpersisted()) {
+                    return;
+                }
+                afterId = lastQueuedId;
+                spilledUpTo = unpersisted.isEmpty() ? lastSpilledId : Math.min(lastSpilledId, unpersisted.peekFirst().afterId);
+            }
+            int limit = queue.remainingCapacity();
+            List<ResultReportOutbox.Record> records = afterId < spilledUpTo
+                    ? outbox.readPending(afterId, spilledUpTo, record -> laneOf(record.getReport()) == lane, limit)
+                    : new ArrayList<>();
+            synchronized (this) {
+                for (ResultReportOutbox.Record record : records) {
+                    if (!enqueue(new PendingReport(record.getId(), record.getReportUrl(), record.getReport(), record.getCreatedAt()))) {
+                        return;
+                    }
+                    lastQueuedId = record.getId();
+                }
+                if (records.size() < limit) {
+                    // 读取范围内的结果已全部入队，读取期间又有结果只写入发件箱时继续读取
+                    lastQueuedId = Math.max(lastQueuedId, spilledUpTo);
+                    if (enqueueUnpersisted() && unpersisted.isEmpty() && lastSpilledId <= lastQueuedId) {
+                        spilled = false;
+                    }
+                }
+            }
+            if (!records.isEmpty()) {
+                log.info("从结果发件箱读取待上报的结果 - 上报线程: {}, 结果数: {}", getName(), records.size());
+            }
+        }
+
+        /**
+         * 把排在已入队发件箱记录之后的未写入发件箱的结果放入队列，调用方持有本对象的锁
+         *
+         * @return 队列是否仍有空间
+         */
+        private boolean enqueueUnpersisted() {
+            while (!unpersisted.isEmpty() && unpersisted.peekFirst().afterId <= lastQueuedId) {
+                if (!enqueue(unpersisted.peekFirst().pending)) {
+                    return false;
+                }
+                unpersisted.pollFirst();
+            }
+            return true;
+        }
+    }
+}
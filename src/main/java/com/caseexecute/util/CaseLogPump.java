@@ -0,0 +1,211 @@
+package com.caseexecute.util;
+
+import com.caseexecute.config.LogOutputConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用例输出泵
+ * 把用例进程的输出按字节原样复制到用例日志文件，不逐行解码、格式化和刷新：
+ * 输出流由{@link ProcessOutputMultiplexer}的泵线程读取，所有用例共用固定数量的线程；
+ * 写入经过有界缓冲区，缓冲区写满、距上次刷新超过刷新间隔或进程暂无输出时刷新到文件；
+ * 输出到服务日志（控制台）是可选的异步旁路，每个用例按每秒行数限流，
+ * 超出限流或镜像队列已满的行只写入日志文件，并定期在服务日志中汇总省略的行数。
+ * 同时把输出交给用例输出分类器增量解析，进程退出、输出读取完毕时即可得出执行结论。
+ * 用例日志文件始终写入
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+public class CaseLogPump implements ProcessOutputMultiplexer.Sink {
+
+    private static final int MAX_MIRROR_LINE_BYTES = 4096;
+
+    private static volatile BlockingQueue<String> mirrorQueue;
+    private static final AtomicLong MIRROR_DROPPED_LINES = new AtomicLong();
+
+    private final Path logFilePath;
+    private final String label;
+    private final OutputStream out;
+    private final CaseOutputClassifier classifier;
+    private final long flushIntervalMillis;
+    private final boolean mirror;
+    private final int mirrorLinesPerSecond;
+    private final long startTime = System.currentTimeMillis();
+    private long lastFlush = startTime;
+    private long totalBytes;
+
+    private final byte[] lineBuffer = new byte[MAX_MIRROR_LINE_BYTES];
+    private int lineLength;
+    private long windowStart;
+    private int windowLines;
+    private long suppressedLines;
+
+    private CaseLogPump(Path logFilePath, String label, LogOutputConfig config, CaseOutputClassifier classifier) throws IOException {
+        this.logFilePath = logFilePath;
+        this.label = label;
+        this.classifier = classifier;
+        this.out = new BufferedOutputStream(Files.newOutputStream(logFilePath), Math.max(1, config.getPumpBufferKb()) * 1024);
+        this.flushIntervalMillis = Math.max(0, config.getFlushIntervalMillis());
+        this.mirror = config.isEnableRealTimeConsoleOutput() && config.getMirrorMaxLinesPerSecond() > 0;
+        this.mirrorLinesPerSecond = config.getMirrorMaxLinesPerSecond();
+        if (mirror) {
+            ensureMirrorThread(config.getMirrorQueueSize());
+        }
+    }
+
+    /**
+     * 启动输出泵，进程退出且输出读取完毕后结束
+     *
+     * @param process 用例进程
+     * @param logFilePath 用例日志文件
+     * @param label 服务日志中的输出前缀，如"Python-用例1-轮次1"
+     * @param config 日志输出配置
+     * @param classifier 用例输出分类器，为null时不解析
+     * @return 输出泵结束后完成的Future
+     */
+    public static CompletableFuture<Void> start(Process process, Path logFilePath, String label, LogOutputConfig config,
+                                                CaseOutputClassifier classifier) {
+        CaseLogPump pump;
+        try {
+            pump = new CaseLogPump(logFilePath, label, config, classifier);
+        } catch (IOException e) {
+            log.error("创建用例日志文件失败 - {}, 错误: {}", label, e.getMessage(), e);
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return ProcessOutputMultiplexer.register(process, pump, config.getPumpThreads())
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.error("读取Python进程输出时发生错误 - {}, 错误: {}", label, error.getMessage(), error);
+                    }
+                });
+    }
+
+    /**
+     * 镜像队列已满而未输出到服务日志的总行数
+     */
+    public static long getMirrorDroppedLines() {
+        return MIRROR_DROPPED_LINES.get();
+    }
+
+    @Override
+    public void write(byte[] buffer, int length) throws IOException {
+        // 缓冲区写满时BufferedOutputStream直接写入文件
+        out.write(buffer, 0, length);
+        totalBytes += length;
+        if (classifier != null) {
+            classifier.accept(buffer, length);
+        }
+        if (mirror) {
+            mirrorLines(buffer, length);
+        }
+        // 持续输出时按刷新间隔刷新，进程暂无输出时由泵线程调用flush()
+        long now = System.currentTimeMillis();
+        if (now - lastFlush >= flushIntervalMillis) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+        lastFlush = System.currentTimeMillis();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (classifier != null) {
+            classifier.finish();
+        }
+        if (mirror) {
+            if (lineLength > 0) {
+                emitLine();
+            }
+            reportSuppressed();
+        }
+        out.close();
+        log.info("Python进程输出读取完成 - {}, 输出: {}KB, 耗时: {}ms",
+                label, totalBytes / 1024, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 按行拆分输出并按限流输出到服务日志，超出限流的行只计数不解码
+     */
+    private void mirrorLines(byte[] buffer, int length) {
+        for (int i = 0; i < length; i++) {
+            byte b = buffer[i];
+            if (b == '\n') {
+                emitLine();
+            } else if (b != '\r' && lineLength < MAX_MIRROR_LINE_BYTES) {
+                lineBuffer[lineLength++] = b;
+            }
+        }
+    }
+
+    private void emitLine() {
+        long now = System.currentTimeMillis();
+        if (now - windowStart >= 1000) {
+            reportSuppressed();
+            windowStart = now;
+            windowLines = 0;
+        }
+        if (windowLines < mirrorLinesPerSecond) {
+            windowLines++;
+            String line = "[" + label + "] " + new String(lineBuffer, 0, lineLength, StandardCharsets.UTF_8);
+            if (!mirrorQueue.offer(line)) {
+                MIRROR_DROPPED_LINES.incrementAndGet();
+                suppressedLines++;
+            }
+        } else {
+            suppressedLines++;
+        }
+        lineLength = 0;
+    }
+
+    private void reportSuppressed() {
+        if (suppressedLines > 0) {
+            mirrorQueue.offer("[" + label + "] 已省略 " + suppressedLines + " 行输出（超出服务日志限流），完整输出见用例日志文件 " + logFilePath.getFileName());
+            suppressedLines = 0;
+        }
+    }
+
+    /**
+     * 启动镜像线程，所有用例共用一个线程把输出行写入服务日志
+     */
+    private static void ensureMirrorThread(int queueSize) {
+        if (mirrorQueue != null) {
+            return;
+        }
+        synchronized (CaseLogPump.class) {
+            if (mirrorQueue != null) {
+                return;
+            }
+            BlockingQueue<String> queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+            Thread mirrorThread = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    try {
+                        log.info(queue.take());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, "case-log-mirror");
+            mirrorThread.setDaemon(true);
+            mirrorThread.start();
+            mirrorQueue = queue;
+        }
+    }
+}
@@ -0,0 +1,678 @@
+package com.caseexecute.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 用例输出流式分类器
+ * 逐行消费用例输出，增量维护结果解析需要的关键词标识、测试统计、失败详情、最后几行输出和性能指标：
+ * 用例进程退出、输出读取完毕时即可得出结论，不需要重新读取日志文件，也不在内存中保留完整日志，
+ * 每个用例占用的内存有固定上限，与日志大小无关。
+ * 所有关键词和正则规则的触发标签编译为一个{@link KeywordAutomaton}，每个输出字节只经过一次状态转移，
+ * 只有命中失败信息、测试统计、失败详情、性能指标或结构化结果规则的行才解码为字符串。
+ * 所有关键词都已出现且失败信息行已达上限后，后续输出只可能触发正则规则，不再逐字节转移自动机，
+ * 只在输入规则标签的最后一个字节时复核当前行中是否以该标签结尾。
+ * 非线程安全，由输出泵线程写入，输出读取结束后再查询
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+public class CaseOutputClassifier {
+
+    /**
+     * 区分大小写匹配的关键词
+     */
+    private static final String[] KEYWORDS = {
+            "PASS", "SUCCESS", "成功", "FAIL", "ERROR", "失败", "超时", "timeout", "TIMEOUT",
+            "ImportError", "ModuleNotFoundError", "Permission denied", "No such file",
+            "Connection refused", "Network is unreachable", "AssertionError", "Exception", "Error", "错误",
+            "网络连接失败", "DNS解析失败", "Name or service not known", "权限不足", "文件不存在",
+            "模块导入失败", "内存不足", "out of memory", "磁盘空间不足", "no space left", "Python执行器不可用"
+    };
+
+    /**
+     * 不区分大小写匹配的关键词（小写）
+     */
+    private static final String[] IGNORE_CASE_KEYWORDS = {
+            "pass", "success", "fail", "error", "command not found", "no such file or directory",
+            "permission denied", "cannot run program", "python", "not found"
+    };
+
+    /**
+     * 触发正则规则的标签：测试统计、失败详情段落和性能指标
+     */
+    private static final String[] STATISTICS_LABELS = {"运行测试数:", "失败数:", "错误数:"};
+    private static final String FAILED_TESTS_HEADER = "失败的测试:";
+    private static final String ERROR_TESTS_HEADER = "错误的测试:";
+    private static final String LATENCY_LABEL = "网络延迟:";
+    private static final String BANDWIDTH_LABEL = "带宽:";
+    private static final String SIGNAL_LABEL = "信号强度:";
+    private static final String CASE_RESULT_LABEL = CaseResultReport.MARKER;
+
+    /**
+     * 包含这些关键词的行作为失败信息行
+     */
+    private static final String[] FAILURE_LINE_KEYWORDS = {"FAIL", "ERROR", "失败", "AssertionError", "Exception"};
+
+    private static final Map<String, Integer> KEYWORD_INDEX = new HashMap<>();
+    private static final Map<String, Integer> IGNORE_CASE_KEYWORD_INDEX = new HashMap<>();
+    private static final Map<String, Integer> LABEL_INDEX = new HashMap<>();
+    private static final KeywordAutomaton AUTOMATON = compile();
+
+    private static final long[] STATISTICS_BITS = {
+            labelBit(STATISTICS_LABELS[0]), labelBit(STATISTICS_LABELS[1]), labelBit(STATISTICS_LABELS[2])
+    };
+    private static final long FAILED_TESTS_BIT = labelBit(FAILED_TESTS_HEADER);
+    private static final long ERROR_TESTS_BIT = labelBit(ERROR_TESTS_HEADER);
+    private static final long LATENCY_BIT = labelBit(LATENCY_LABEL);
+    private static final long BANDWIDTH_BIT = labelBit(BANDWIDTH_LABEL);
+    private static final long SIGNAL_BIT = labelBit(SIGNAL_LABEL);
+    private static final long CASE_RESULT_BIT = labelBit(CASE_RESULT_LABEL);
+    private static final long FAILURE_LINE_BITS = keywordBits(FAILURE_LINE_KEYWORDS);
+    private static final long KEYWORD_BITS = keywordBits(KEYWORDS) | ignoreCaseKeywordBits(IGNORE_CASE_KEYWORDS);
+
+    /**
+     * 规则标签的UTF-8字节，下标即匹配结果中的位序号
+     */
+    private static final byte[][] LABEL_BYTES = new byte[Long.SIZE][];
+
+    /**
+     * 按最后一个字节索引的规则标签位掩码，不再逐字节转移自动机后用于匹配规则标签
+     */
+    private static final long[] LABELS_BY_LAST_BYTE = labelsByLastByte();
+
+    private static final Pattern[] STATISTICS_PATTERNS = {
+            Pattern.compile("运行测试数:\\s*(\\d+)"),
+            Pattern.compile("失败数:\\s*(\\d+)"),
+            Pattern.compile("错误数:\\s*(\\d+)")
+    };
+    private static final Pattern LATENCY_PATTERN = Pattern.compile("网络延迟:\\s*([\\d.]+)ms");
+    private static final Pattern BANDWIDTH_PATTERN = Pattern.compile("带宽:\\s*([\\d.]+)\\s*(Mbps|Kbps)");
+    private static final Pattern SIGNAL_PATTERN = Pattern.compile("信号强度:\\s*([\\d.]+)\\s*dBm");
+
+    /**
+     * 保留的最后输出行数
+     */
+    private static final int TAIL_LINES = 5;
+
+    /**
+     * 最后几行输出中每行最多保留的字节数
+     */
+    private static final int MAX_TAIL_LINE_BYTES = 4 * 1024;
+
+    /**
+     * 读取日志文件的缓冲区大小
+     */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 单行最多保留的字节数，超出部分仍参与关键词匹配，但不参与正则规则和失败信息提取
+     */
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+
+    /**
+     * 失败信息最多保留的字符数
+     */
+    private static final int MAX_DETAIL_CHARS = 8 * 1024;
+
+    private int state = KeywordAutomaton.initialState();
+    private final byte[] recent = new byte[KeywordAutomaton.RECENT_BYTES];
+    private long recentEnd;
+    private long lineMatches;
+    private long seenMatches;
+    private boolean settled;
+    private boolean lineBlank = true;
+    private boolean blank = true;
+
+    private byte[] lineBuffer = new byte[256];
+    private int lineLength;
+
+    private final int[] statistics = new int[STATISTICS_PATTERNS.length];
+    private int statisticsStage;
+
+    private final SectionMatcher failedTests = new SectionMatcher(FAILED_TESTS_HEADER);
+    private final SectionMatcher errorTests = new SectionMatcher(ERROR_TESTS_HEADER);
+    private final StringBuilder failureLines = new StringBuilder();
+
+    private final byte[][] tailLines = new byte[TAIL_LINES][];
+    private final int[] tailLengths = new int[TAIL_LINES];
+    private int tailCount;
+    private int tailNext;
+    private int pendingEmptyLines;
+
+    private Double networkLatency;
+    private Double bandwidth;
+    private String bandwidthUnit;
+    private Double signalStrength;
+
+    private String caseResultJson;
+
+    /**
+     * 已消费的字节数、当前行的起始位置，以及开始提取失败信息行的位置
+     */
+    private long position;
+    private long lineStart;
+    private long failureLinesFrom;
+
+    /**
+     * 分类日志文件，逐块读取，不把整个文件读入内存
+     *
+     * @param logFilePath 日志文件，不存在时按空输出处理
+     * @return 分类结果
+     */
+    public static CaseOutputClassifier classify(Path logFilePath) throws IOException {
+        return classify(logFilePath, 0);
+    }
+
+    /**
+     * 分类日志文件，从头到尾逐块读取整个文件，关键词、测试统计、失败详情和性能指标覆盖全部输出；
+     * 失败信息行只从末尾窗口内的行中提取，最后几行输出始终取自文件末尾
+     *
+     * @param logFilePath 日志文件，不存在时按空输出处理
+     * @param tailWindowBytes 提取失败信息行的末尾窗口字节数，0表示从整个文件提取
+     * @return 分类结果
+     */
+    public static CaseOutputClassifier classify(Path logFilePath, long tailWindowBytes) throws IOException {
+        CaseOutputClassifier classifier = new CaseOutputClassifier();
+        if (Files.exists(logFilePath)) {
+            try (FileChannel channel = FileChannel.open(logFilePath, StandardOpenOption.READ)) {
+                if (tailWindowBytes > 0) {
+                    classifier.failureLinesFrom = Math.max(0, channel.size() - tailWindowBytes);
+                }
+                ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+                long offset = 0;
+                int read;
+                while ((read = channel.read(buffer, offset)) >= 0) {
+                    classifier.accept(buffer.array(), read);
+                    offset += read;
+                    buffer.clear();
+                }
+            }
+        }
+        classifier.finish();
+        return classifier;
+    }
+
+    /**
+     * 分类已在内存中的输出
+     *
+     * @param content 输出内容
+     * @return 分类结果
+     */
+    public static CaseOutputClassifier of(String content) {
+        CaseOutputClassifier classifier = new CaseOutputClassifier();
+        if (content != null) {
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            classifier.accept(bytes, bytes.length);
+        }
+        classifier.finish();
+        return classifier;
+    }
+
+    /**
+     * 消费一段原始输出，按换行拆分为行
+     */
+    public void accept(byte[] buffer, int length) {
+        for (int i = 0; i < length; i++) {
+            byte b = buffer[i];
+            if (b == '\n') {
+                endLine();
+                lineStart = position + i + 1;
+                continue;
+            }
+            boolean kept = lineLength < MAX_LINE_BYTES;
+            if (kept) {
+                if (lineLength == lineBuffer.length) {
+                    lineBuffer = Arrays.copyOf(lineBuffer, Math.min(MAX_LINE_BYTES, lineBuffer.length * 2));
+                }
+                lineBuffer[lineLength++] = b;
+            }
+            // 多字节UTF-8字符的字节为负数，都不是空白字符
+            if (b > ' ' || b < 0) {
+                lineBlank = false;
+            }
+            if (settled) {
+                // 正则规则只处理保留的行内容，超出部分的标签不影响结果
+                long labels = LABELS_BY_LAST_BYTE[b & 0xff];
+                if (labels != 0 && kept) {
+                    lineMatches |= matchLabels(labels);
+                }
+                continue;
+            }
+            recent[(int) (recentEnd++ & (KeywordAutomaton.RECENT_BYTES - 1))] = b;
+            state = AUTOMATON.next(state, b);
+            long candidates = AUTOMATON.candidates(state);
+            if (candidates != 0) {
+                lineMatches |= AUTOMATON.verify(candidates, recent, recentEnd);
+            }
+        }
+        position += length;
+    }
+
+    /**
+     * 输出结束，处理最后一行未以换行结尾的输出
+     */
+    public void finish() {
+        if (lineLength > 0) {
+            endLine();
+        }
+    }
+
+    private void endLine() {
+        int length = lineLength;
+        if (length > 0 && lineBuffer[length - 1] == '\r') {
+            length--;
+        }
+        long matches = lineMatches;
+        seenMatches |= matches;
+        if (!lineBlank) {
+            blank = false;
+        }
+
+        String line = null;
+        if ((matches & FAILURE_LINE_BITS) != 0 && failureLines.length() < MAX_DETAIL_CHARS && lineStart >= failureLinesFrom) {
+            line = decode(length);
+            failureLines.append(line.trim()).append("; ");
+        }
+        if (statisticsStage < STATISTICS_PATTERNS.length && (matches & STATISTICS_BITS[statisticsStage]) != 0) {
+            line = line != null ? line : decode(length);
+            matchStatistics(line);
+        }
+        if (!failedTests.isFull() && (failedTests.isActive() || (matches & FAILED_TESTS_BIT) != 0)) {
+            line = line != null ? line : decode(length);
+            failedTests.accept(line);
+        }
+        if (!errorTests.isFull() && (errorTests.isActive() || (matches & ERROR_TESTS_BIT) != 0)) {
+            line = line != null ? line : decode(length);
+            errorTests.accept(line);
+        }
+        long metrics = matches & ((networkLatency == null ? LATENCY_BIT : 0) | (bandwidth == null ? BANDWIDTH_BIT : 0)
+                | (signalStrength == null ? SIGNAL_BIT : 0));
+        if (metrics != 0) {
+            line = line != null ? line : decode(length);
+            matchPerformanceMetrics(line, metrics);
+        }
+        if ((matches & CASE_RESULT_BIT) != 0) {
+            line = line != null ? line : decode(length);
+            matchCaseResult(line);
+        }
+        rememberTail(length);
+        settled = settled || isSettled();
+
+        state = KeywordAutomaton.initialState();
+        lineMatches = 0;
+        lineBlank = true;
+        lineLength = 0;
+    }
+
+    /**
+     * 后续输出是否只可能触发正则规则：所有关键词都已出现且失败信息行已达上限
+     */
+    private boolean isSettled() {
+        return (seenMatches & KEYWORD_BITS) == KEYWORD_BITS && failureLines.length() >= MAX_DETAIL_CHARS;
+    }
+
+    /**
+     * 当前行保留的内容是否以候选规则标签结尾
+     */
+    private long matchLabels(long labels) {
+        long matched = 0;
+        while (labels != 0) {
+            int index = Long.numberOfTrailingZeros(labels);
+            labels &= labels - 1;
+            byte[] label = LABEL_BYTES[index];
+            int start = lineLength - label.length;
+            if (start < 0) {
+                continue;
+            }
+            int i = label.length - 2;
+            while (i >= 0 && lineBuffer[start + i] == label[i]) {
+                i--;
+            }
+            if (i < 0) {
+                matched |= 1L << index;
+            }
+        }
+        return matched;
+    }
+
+    private String decode(int length) {
+        return new String(lineBuffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 依次匹配运行测试数、失败数、错误数，三项可以分布在不同的行
+     */
+    private void matchStatistics(String line) {
+        int position = 0;
+        while (statisticsStage < STATISTICS_PATTERNS.length
+                && line.indexOf(STATISTICS_LABELS[statisticsStage], position) >= 0) {
+            Matcher matcher = STATISTICS_PATTERNS[statisticsStage].matcher(line);
+            if (!matcher.find(position)) {
+                return;
+            }
+            try {
+                statistics[statisticsStage] = Integer.parseInt(matcher.group(1));
+            } catch (NumberFormatException e) {
+                return;
+            }
+            statisticsStage++;
+            position = matcher.end();
+        }
+    }
+
+    private void matchPerformanceMetrics(String line, long matches) {
+        if (networkLatency == null && (matches & LATENCY_BIT) != 0) {
+            Matcher matcher = LATENCY_PATTERN.matcher(line);
+            if (matcher.find()) {
+                networkLatency = parseDouble(matcher.group(1));
+            }
+        }
+        if (bandwidth == null && (matches & BANDWIDTH_BIT) != 0) {
+            Matcher matcher = BANDWIDTH_PATTERN.matcher(line);
+            if (matcher.find()) {
+                bandwidth = parseDouble(matcher.group(1));
+                bandwidthUnit = bandwidth != null ? matcher.group(2) : null;
+            }
+        }
+        if (signalStrength == null && (matches & SIGNAL_BIT) != 0) {
+            Matcher matcher = SIGNAL_PATTERN.matcher(line);
+            if (matcher.find()) {
+                signalStrength = parseDouble(matcher.group(1));
+            }
+        }
+    }
+
+    /**
+     * 提取以结构化结果标记开头的行中标记之后的JSON，多次上报时以最后一次为准
+     */
+    private void matchCaseResult(String line) {
+        String trimmed = line.trim();
+        if (trimmed.startsWith(CASE_RESULT_LABEL)) {
+            caseResultJson = trimmed.substring(CASE_RESULT_LABEL.length()).trim();
+        }
+    }
+
+    /**
+     * 保留最后几行输出的原始字节，末尾的空行不计入，过长的行只保留开头部分
+     */
+    private void rememberTail(int length) {
+        if (length == 0) {
+            pendingEmptyLines++;
+            return;
+        }
+        for (int i = Math.min(pendingEmptyLines, TAIL_LINES); i > 0; i--) {
+            addTail(0);
+        }
+        pendingEmptyLines = 0;
+        addTail(length);
+    }
+
+    private void addTail(int length) {
+        int kept = Math.min(length, MAX_TAIL_LINE_BYTES);
+        byte[] slot = tailLines[tailNext];
+        if (slot == null || slot.length < kept) {
+            slot = new byte[Math.max(kept, 128)];
+            tailLines[tailNext] = slot;
+        }
+        System.arraycopy(lineBuffer, 0, slot, 0, kept);
+        tailLengths[tailNext] = kept;
+        tailNext = (tailNext + 1) % TAIL_LINES;
+        tailCount = Math.min(TAIL_LINES, tailCount + 1);
+    }
+
+    /**
+     * 输出中是否包含关键词（区分大小写）
+     */
+    public boolean contains(String keyword) {
+        Integer index = KEYWORD_INDEX.get(keyword);
+        if (index == null) {
+            throw new IllegalArgumentException("未跟踪的关键词: " + keyword);
+        }
+        return (seenMatches & 1L << index) != 0;
+    }
+
+    /**
+     * 输出中是否包含关键词（不区分大小写）
+     */
+    public boolean containsIgnoreCase(String keyword) {
+        Integer index = IGNORE_CASE_KEYWORD_INDEX.get(keyword.toLowerCase(Locale.ROOT));
+        if (index == null) {
+            throw new IllegalArgumentException("未跟踪的关键词: " + keyword);
+        }
+        return (seenMatches & 1L << index) != 0;
+    }
+
+    /**
+     * 输出是否为空或只包含空白字符
+     */
+    public boolean isBlank() {
+        return blank;
+    }
+
+    /**
+     * 是否找到完整的测试统计（运行测试数、失败数、错误数）
+     */
+    public boolean hasStatistics() {
+        return statisticsStage == STATISTICS_PATTERNS.length;
+    }
+
+    public int getTotalTests() {
+        return statistics[0];
+    }
+
+    public int getFailedTests() {
+        return statistics[1];
+    }
+
+    public int getErrorTests() {
+        return statistics[2];
+    }
+
+    /**
+     * "失败的测试:"和"错误的测试:"段落中列出的测试，格式为"- 测试名: 错误信息; "
+     */
+    public String getTestFailureDetails() {
+        return failedTests.details.toString() + errorTests.details;
+    }
+
+    /**
+     * 包含FAIL、ERROR、失败、AssertionError或Exception的输出行，格式为"行内容; "；
+     * 分类日志文件时只包含末尾窗口内的行
+     */
+    public String getFailureLines() {
+        return failureLines.toString();
+    }
+
+    /**
+     * 最后几行输出（末尾的空行不计入）
+     */
+    public List<String> getTailLines() {
+        List<String> lines = new ArrayList<>(tailCount);
+        for (int i = 0; i < tailCount; i++) {
+            int slot = (tailNext - tailCount + i + TAIL_LINES) % TAIL_LINES;
+            lines.add(new String(tailLines[slot], 0, tailLengths[slot], StandardCharsets.UTF_8));
+        }
+        return lines;
+    }
+
+    public Double getNetworkLatency() {
+        return networkLatency;
+    }
+
+    public Double getBandwidth() {
+        return bandwidth;
+    }
+
+    public String getBandwidthUnit() {
+        return bandwidthUnit;
+    }
+
+    public Double getSignalStrength() {
+        return signalStrength;
+    }
+
+    /**
+     * 用例最后一次输出的"##CASE_RESULT {json}"行中的JSON，未输出时为null
+     */
+    public String getCaseResultJson() {
+        return caseResultJson;
+    }
+
+    /**
+     * 把关键词和规则标签编译为一个自动机，关键词序号即匹配结果中的位序号
+     */
+    private static KeywordAutomaton compile() {
+        List<String> patterns = new ArrayList<>();
+        List<Boolean> ignoreCase = new ArrayList<>();
+        for (String keyword : KEYWORDS) {
+            KEYWORD_INDEX.put(keyword, patterns.size());
+            patterns.add(keyword);
+            ignoreCase.add(false);
+        }
+        for (String keyword : IGNORE_CASE_KEYWORDS) {
+            IGNORE_CASE_KEYWORD_INDEX.put(keyword, patterns.size());
+            patterns.add(keyword);
+            ignoreCase.add(true);
+        }
+        List<String> labels = new ArrayList<>(Arrays.asList(STATISTICS_LABELS));
+        labels.addAll(Arrays.asList(FAILED_TESTS_HEADER, ERROR_TESTS_HEADER, LATENCY_LABEL, BANDWIDTH_LABEL, SIGNAL_LABEL,
+                CASE_RESULT_LABEL));
+        for (String label : labels) {
+            LABEL_INDEX.put(label, patterns.size());
+            patterns.add(label);
+            ignoreCase.add(false);
+        }
+        boolean[] ignoreCaseFlags = new boolean[ignoreCase.size()];
+        for (int i = 0; i < ignoreCaseFlags.length; i++) {
+            ignoreCaseFlags[i] = ignoreCase.get(i);
+        }
+        return new KeywordAutomaton(patterns.toArray(new String[0]), ignoreCaseFlags);
+    }
+
+    private static long labelBit(String label) {
+        return 1L << LABEL_INDEX.get(label);
+    }
+
+    private static long keywordBits(String[] keywords) {
+        long bits = 0;
+        for (String keyword : keywords) {
+            bits |= 1L << KEYWORD_INDEX.get(keyword);
+        }
+        return bits;
+    }
+
+    private static long[] labelsByLastByte() {
+        long[] labels = new long[256];
+        for (Map.Entry<String, Integer> label : LABEL_INDEX.entrySet()) {
+            byte[] bytes = label.getKey().getBytes(StandardCharsets.UTF_8);
+            LABEL_BYTES[label.getValue()] = bytes;
+            labels[bytes[bytes.length - 1] & 0xff] |= 1L << label.getValue();
+        }
+        return labels;
+    }
+
+    private static long ignoreCaseKeywordBits(String[] keywords) {
+        long bits = 0;
+        for (String keyword : keywords) {
+            bits |= 1L << IGNORE_CASE_KEYWORD_INDEX.get(keyword);
+        }
+        return bits;
+    }
+
+    private static Double parseDouble(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 匹配"标题:"之后的第一个"- 测试名: 错误信息"，测试名可以跨行，错误信息到行尾为止；
+     * 每个标题只匹配一项
+     */
+    private static class SectionMatcher {
+        private static final int SEEK_HEADER = 0;
+        private static final int SEEK_DASH = 1;
+        private static final int SEEK_COLON = 2;
+
+        private final String header;
+        private final StringBuilder testName = new StringBuilder();
+        private final StringBuilder details = new StringBuilder();
+        private int state = SEEK_HEADER;
+
+        private SectionMatcher(String header) {
+            this.header = header;
+        }
+
+        /**
+         * 已匹配到标题，正在查找测试项
+         */
+        private boolean isActive() {
+            return state != SEEK_HEADER;
+        }
+
+        /**
+         * 失败详情已达上限，后续输出不再影响结果
+         */
+        private boolean isFull() {
+            return details.length() >= MAX_DETAIL_CHARS;
+        }
+
+        private void accept(String line) {
+            int position = 0;
+            while (true) {
+                int index;
+                switch (state) {
+                    case SEEK_HEADER:
+                        index = line.indexOf(header, position);
+                        if (index < 0) {
+                            return;
+                        }
+                        position = index + header.length();
+                        state = SEEK_DASH;
+                        break;
+                    case SEEK_DASH:
+                        index = line.indexOf("- ", position);
+                        if (index < 0) {
+                            return;
+                        }
+                        testName.setLength(0);
+                        testName.append("- ");
+                        position = index + 2;
+                        state = SEEK_COLON;
+                        break;
+                    default:
+                        index = line.indexOf(": ", position);
+                        if (index < 0) {
+                            if (testName.length() < MAX_DETAIL_CHARS) {
+                                testName.append(line, position, line.length()).append('\n');
+                            }
+                            return;
+                        }
+                        testName.append(line, position, index);
+                        if (details.length() < MAX_DETAIL_CHARS) {
+                            details.append(testName.toString().trim()).append(": ")
+                                    .append(line.substring(index + 2).trim()).append("; ");
+                        }
+                        state = SEEK_HEADER;
+                        return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.caseexecute.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * 用例脚本上报的结构化结果
+ * 用例脚本可以在标准输出打印一行"##CASE_RESULT {json}"，或把同样的JSON写入环境变量CASE_RESULT_FILE指定的结果文件，
+ * 直接声明执行状态、失败原因和性能指标：
+ * <pre>
+ * {"status": "FAILED", "result": "下载速率不达标", "failureReason": "速率 3.2Mbps 低于阈值 10Mbps",
+ *  "metrics": {"networkLatency": 35.2, "bandwidth": 3.2, "bandwidthUnit": "Mbps", "signalStrength": -95}}
+ * </pre>
+ * status为SUCCESS、FAILED或BLOCKED（不区分大小写，PASS/FAIL分别视为SUCCESS/FAILED），其余字段均可省略。
+ * 脚本上报了有效的结构化结果时直接采用，不再按关键词分析日志；未上报或内容无效时仍由TestCaseResultParser分析日志
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+public final class CaseResultReport {
+
+    /**
+     * 标准输出中结构化结果行的前缀
+     */
+    public static final String MARKER = "##CASE_RESULT";
+
+    /**
+     * 传给用例脚本的结果文件路径环境变量
+     */
+    public static final String RESULT_FILE_ENV = "CASE_RESULT_FILE";
+
+    /**
+     * 结果文件最大字节数，超出时视为无效
+     */
+    private static final long MAX_RESULT_FILE_BYTES = 64 * 1024;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String status;
+    private final String result;
+    private final String failureReason;
+    private final Double networkLatency;
+    private final Double bandwidth;
+    private final String bandwidthUnit;
+    private final Double signalStrength;
+
+    private CaseResultReport(String status, String result, String failureReason, Double networkLatency,
+                             Double bandwidth, String bandwidthUnit, Double signalStrength) {
+        this.status = status;
+        this.result = result;
+        this.failureReason = failureReason;
+        this.networkLatency = networkLatency;
+        this.bandwidth = bandwidth;
+        this.bandwidthUnit = bandwidthUnit;
+        this.signalStrength = signalStrength;
+    }
+
+    /**
+     * 日志文件对应的结果文件：与日志文件同目录，扩展名.log替换为.result.json
+     *
+     * @param logFilePath 日志文件
+     * @return 结果文件
+     */
+    public static Path resultFileFor(Path logFilePath) {
+        String fileName = logFilePath.getFileName().toString();
+        String baseName = fileName.endsWith(".log") ? fileName.substring(0, fileName.length() - 4) : fileName;
+        return logFilePath.resolveSibling(baseName + ".result.json");
+    }
+
+    /**
+     * 获取用例上报的结构化结果，结果文件优先于输出中的结果行
+     *
+     * @param logFilePath 日志文件
+     * @param output 用例输出分类器，可以为null
+     * @return 结构化结果，用例未上报或内容无效时返回null
+     */
+    public static CaseResultReport resolve(Path logFilePath, CaseOutputClassifier output) {
+        CaseResultReport report = read(resultFileFor(logFilePath));
+        if (report == null && output != null && output.getCaseResultJson() != null) {
+            report = parse(output.getCaseResultJson());
+        }
+        return report;
+    }
+
+    /**
+     * 读取结果文件
+     *
+     * @param resultFile 结果文件
+     * @return 结构化结果，文件不存在或内容无效时返回null
+     */
+    public static CaseResultReport read(Path resultFile) {
+        try {
+            if (!Files.isRegularFile(resultFile)) {
+                return null;
+            }
+            if (Files.size(resultFile) > MAX_RESULT_FILE_BYTES) {
+                log.warn("用例结果文件过大，忽略 - 文件: {}, 大小: {}字节", resultFile, Files.size(resultFile));
+                return null;
+            }
+            return parse(new String(Files.readAllBytes(resultFile), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            log.warn("读取用例结果文件失败 - 文件: {}, 错误: {}", resultFile, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 解析结构化结果JSON
+     *
+     * @param json 结果JSON
+     * @return 结构化结果，内容无效时返回null
+     */
+    public static CaseResultReport parse(String json) {
+        if (json == null || json.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            JsonNode node = OBJECT_MAPPER.readTree(json);
+            if (node == null || !node.isObject()) {
+                log.warn("用例结构化结果不是JSON对象，忽略: {}", json);
+                return null;
+            }
+            String status = normalizeStatus(text(node, "status"));
+            if (status == null) {
+                log.warn("用例结构化结果状态无效，忽略: {}", json);
+                return null;
+            }
+            JsonNode metrics = node.path("metrics");
+            return new CaseResultReport(status, text(node, "result"), text(node, "failureReason"),
+                    number(metrics, "networkLatency"), number(metrics, "bandwidth"),
+                    text(metrics, "bandwidthUnit"), number(metrics, "signalStrength"));
+        } catch (IOException e) {
+            log.warn("解析用例结构化结果失败，忽略 - 错误: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String normalizeStatus(String status) {
+        if (status == null) {
+            return null;
+        }
+        switch (status.trim().toUpperCase(Locale.ROOT)) {
+            case "SUCCESS":
+            case "PASS":
+            case "PASSED":
+                return "SUCCESS";
+            case "FAILED":
+            case "FAIL":
+            case "FAILURE":
+                return "FAILED";
+            case "BLOCKED":
+                return "BLOCKED";
+            default:
+                return null;
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        String text = value.asText().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static Double number(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (value.isNumber()) {
+            return value.asDouble();
+        }
+        try {
+            return Double.parseDouble(value.asText().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * 结果描述，脚本未提供时按状态生成
+     */
+    public String getResult() {
+        if (result != null) {
+            return result;
+        }
+        switch (status) {
+            case "SUCCESS":
+                return "用例执行成功";
+            case "FAILED":
+                return "用例执行失败";
+            default:
+                return "用例执行被阻塞";
+        }
+    }
+
+    /**
+     * 失败原因，成功时为null
+     */
+    public String getFailureReason() {
+        if ("SUCCESS".equals(status)) {
+            return null;
+        }
+        return failureReason != null ? failureReason : "用例脚本上报" + status + "，未提供失败原因";
+    }
+
+    public Double getNetworkLatency() {
+        return networkLatency;
+    }
+
+    public Double getBandwidth() {
+        return bandwidth;
+    }
+
+    public String getBandwidthUnit() {
+        return bandwidthUnit;
+    }
+
+    public Double getSignalStrength() {
+        return signalStrength;
+    }
+}
@@ -0,0 +1,269 @@
+package com.caseexecute.util;
+
+import com.caseexecute.config.FileStorageConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 用例执行任务调度器
+ * 使用固定大小的工作线程池执行任务，线程数由maxConcurrentTasks决定，
+ * 超出并发数的任务进入FIFO队列排队等待
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class CaseTaskScheduler implements InitializingBean, DisposableBean {
+
+    @Autowired
+    private FileStorageConfig fileStorageConfig;
+
+    private final List<TaskLifecycleListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger activeTasks = new AtomicInteger();
+    private final AtomicInteger queuedTasks = new AtomicInteger();
+    private final AtomicLong submittedTasks = new AtomicLong();
+    private final AtomicLong completedTasks = new AtomicLong();
+    private final AtomicLong failedTasks = new AtomicLong();
+    private final AtomicLong cancelledTasks = new AtomicLong();
+
+    private ThreadPoolExecutor executor;
+
+    @Override
+    public void afterPropertiesSet() {
+        int poolSize = Math.max(1, fileStorageConfig.getMaxConcurrentTasks());
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "case-task-" + threadIndex.incrementAndGet());
+            thread.setDaemon(false);
+            return thread;
+        };
+        // 核心线程数与最大线程数一致，超出部分进入无界FIFO队列
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        log.info("用例执行任务调度器初始化完成 - 最大并发任务数: {}", poolSize);
+    }
+
+    /**
+     * 注册任务生命周期监听器
+     *
+     * @param listener 监听器
+     */
+    public void addLifecycleListener(TaskLifecycleListener listener) {
+        if (listener != null) {
+            listeners.add(listener);
+        }
+    }
+
+    /**
+     * 提交任务，并发数已满时在队列中排队
+     *
+     * @param taskId 任务ID
+     * @param task 任务内容
+     * @return 任务Future，取消排队中的任务后该任务不会再被执行
+     */
+    public CompletableFuture<Void> submit(String taskId, Runnable task) {
+        return submit(taskId, task, null);
+    }
+
+    /**
+     * 提交任务，并发数已满时在队列中排队
+     *
+     * @param taskId 任务ID
+     * @param task 任务内容
+     * @param taskListener 仅作用于该任务的生命周期监听器（可选）
+     * @return 任务Future，取消排队中的任务后该任务不会再被执行
+     * @throws RejectedExecutionException 调度器已关闭，抛出前任务Future已异常结束
+     */
+    public CompletableFuture<Void> submit(String taskId, Runnable task, TaskLifecycleListener taskListener) {
+        List<TaskLifecycleListener> taskListeners = new ArrayList<>(listeners);
+        if (taskListener != null) {
+            taskListeners.add(taskListener);
+        }
+        submittedTasks.incrementAndGet();
+        int queueSize = queuedTasks.incrementAndGet() - 1;
+        log.info("任务已提交到调度器 - 任务ID: {}, 执行中任务数: {}, 排队任务数: {}", taskId, activeTasks.get(), queueSize);
+        notifyListeners(taskListeners, taskId, "onTaskQueued", listener -> listener.onTaskQueued(taskId, queueSize));
+
+        ScheduledTask scheduledTask = new ScheduledTask(taskId, task, taskListeners);
+        scheduledTask.whenComplete((result, error) -> {
+            long runMillis = scheduledTask.startedAt > 0 ? System.currentTimeMillis() - scheduledTask.startedAt : 0L;
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause == null) {
+                completedTasks.incrementAndGet();
+            } else if (cause instanceof CancellationException) {
+                cancelledTasks.incrementAndGet();
+            } else {
+                failedTasks.incrementAndGet();
+            }
+            notifyListeners(taskListeners, taskId, "onTaskFinished", listener -> listener.onTaskFinished(taskId, runMillis, cause));
+        });
+        try {
+            executor.execute(scheduledTask);
+        } catch (RejectedExecutionException e) {
+            // 调度器已关闭，回滚排队计数并结束任务Future，等待该任务的调用方不会一直阻塞
+            if (scheduledTask.state.compareAndSet(ScheduledTask.QUEUED, ScheduledTask.FINISHED)) {
+                queuedTasks.decrementAndGet();
+            }
+            log.warn("任务被调度器拒绝 - 任务ID: {}, 错误: {}", taskId, e.getMessage());
+            scheduledTask.completeExceptionally(e);
+            throw e;
+        }
+        return scheduledTask;
+    }
+
+    /**
+     * 依次回调监听器，单个监听器异常不影响任务执行
+     */
+    private void notifyListeners(List<TaskLifecycleListener> taskListeners, String taskId, String event,
+                                 Consumer<TaskLifecycleListener> callback) {
+        for (TaskLifecycleListener listener : taskListeners) {
+            try {
+                callback.accept(listener);
+            } catch (Exception e) {
+                log.warn("任务生命周期回调失败({}) - 任务ID: {}, 错误: {}", event, taskId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 获取调度器指标
+     *
+     * @return 排队、执行中、已完成等计数
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("poolSize", executor.getMaximumPoolSize());
+        metrics.put("activeTasks", activeTasks.get());
+        metrics.put("queuedTasks", queuedTasks.get());
+        metrics.put("submittedTasks", submittedTasks.get());
+        metrics.put("completedTasks", completedTasks.get());
+        metrics.put("failedTasks", failedTasks.get());
+        metrics.put("cancelledTasks", cancelledTasks.get());
+        return metrics;
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            log.info("关闭用例执行任务调度器 - 执行中任务数: {}, 排队任务数: {}", activeTasks.get(), queuedTasks.get());
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 调度器中的单个任务
+     * 任务状态由调度器自身维护：排队中取消时立即从线程池队列移除，不再占用排队计数；
+     * 执行中取消时按参数中断执行线程，Future在任务体真正退出后才以取消结束，执行中、排队等计数与实际状态一致
+     */
+    private class ScheduledTask extends CompletableFuture<Void> implements Runnable {
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int FINISHED = 2;
+
+        private final String taskId;
+        private final Runnable task;
+        private final List<TaskLifecycleListener> taskListeners;
+        private final long queuedAt = System.currentTimeMillis();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private volatile long startedAt;
+        private volatile boolean cancelRequested;
+        private Thread runner;
+
+        private ScheduledTask(String taskId, Runnable task, List<TaskLifecycleListener> taskListeners) {
+            this.taskId = taskId;
+            this.task = task;
+            this.taskListeners = taskListeners;
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(QUEUED, RUNNING)) {
+                return;
+            }
+            queuedTasks.decrementAndGet();
+            synchronized (this) {
+                runner = Thread.currentThread();
+            }
+            startedAt = System.currentTimeMillis();
+            activeTasks.incrementAndGet();
+            long waitMillis = startedAt - queuedAt;
+            log.info("任务开始执行 - 任务ID: {}, 排队耗时: {}ms, 执行中任务数: {}, 排队任务数: {}",
+                    taskId, waitMillis, activeTasks.get(), queuedTasks.get());
+            notifyListeners(taskListeners, taskId, "onTaskStarted", listener -> listener.onTaskStarted(taskId, waitMillis));
+
+            Throwable error = null;
+            try {
+                task.run();
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    // 清除取消时设置的中断标志，避免影响线程池中的下一个任务
+                    Thread.interrupted();
+                }
+                activeTasks.decrementAndGet();
+                state.set(FINISHED);
+            }
+            if (cancelRequested) {
+                super.cancel(false);
+            } else if (error != null) {
+                completeExceptionally(error);
+            } else {
+                complete(null);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (state.compareAndSet(QUEUED, FINISHED)) {
+                queuedTasks.decrementAndGet();
+                executor.remove(this);
+                return super.cancel(mayInterruptIfRunning);
+            }
+            if (state.get() != RUNNING) {
+                return false;
+            }
+            cancelRequested = true;
+            if (mayInterruptIfRunning) {
+                synchronized (this) {
+                    if (runner != null) {
+                        runner.interrupt();
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 执行中的任务在请求取消后即返回true，任务体据此停止执行剩余用例；isDone在任务体退出后才返回true
+         */
+        @Override
+        public boolean isCancelled() {
+            return cancelRequested || super.isCancelled();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.caseexecute.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 由外部执行器代为运行的用例进程句柄
+ * 用例不是由JVM直接启动的子进程（常驻执行器中运行、由zygote派生等），
+ * 退出码由执行器通过协议回传；对调用方表现为普通进程，等待、退出码语义与独立进程一致。
+ * 输出由执行器直接写入日志文件，因此输入输出流均为空。
+ * 用例脚本创建的子孙进程通过{@link #killProcesses(boolean)}按本次执行自身的进程组或进程树终止
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+public abstract class DelegatedProcess extends Process {
+
+    private final CompletableFuture<Integer> exitFuture = new CompletableFuture<>();
+
+    /**
+     * 记录用例退出码
+     *
+     * @param exitCode 退出码
+     * @return 是否为首次记录
+     */
+    protected boolean complete(int exitCode) {
+        return exitFuture.complete(exitCode);
+    }
+
+    /**
+     * 用例在执行器中的描述，用于异常信息
+     */
+    protected abstract String describe();
+
+    /**
+     * 用例进程ID，Java 9+ 运行时覆盖Process.pid()
+     */
+    public abstract long pid();
+
+    /**
+     * 向本次执行自身的进程组或进程树（含执行用例的进程）发送信号
+     * 只在本次执行仍占用执行进程，或执行进程已随本次执行退出、不会再被复用时发送，
+     * 不会误杀已开始执行其他用例的执行器
+     *
+     * @param force true发送SIGKILL，false发送SIGTERM
+     * @return 发送了信号的进程数；本次执行已不占用执行进程时返回-1，当前系统无法查找进程组时返回0
+     */
+    protected abstract int killProcesses(boolean force);
+
+    @Override
+    public OutputStream getOutputStream() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        };
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override
+    public int waitFor() throws InterruptedException {
+        try {
+            return exitFuture.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("等待用例执行结果失败 - " + describe(), e.getCause());
+        }
+    }
+
+    @Override
+    public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            exitFuture.get(timeout, unit);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("等待用例执行结果失败 - " + describe(), e.getCause());
+        }
+    }
+
+    /**
+     * 进程退出回调，Java 9+ 运行时覆盖Process.onExit()，ProcessReaper无需占用等待线程
+     */
+    public CompletableFuture<Process> onExit() {
+        return exitFuture.thenApply(exitCode -> this);
+    }
+
+    @Override
+    public int exitValue() {
+        Integer exitCode = exitFuture.getNow(null);
+        if (exitCode == null) {
+            throw new IllegalThreadStateException("用例仍在执行 - " + describe());
+        }
+        return exitCode;
+    }
+
+    @Override
+    public boolean isAlive() {
+        return !exitFuture.isDone();
+    }
+}
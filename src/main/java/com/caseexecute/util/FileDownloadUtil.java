@@ -4,11 +4,15 @@ import com.caseexecute.config.FileStorageConfig;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
@@ -19,6 +23,23 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -54,6 +75,20 @@ public class FileDownloadUtil implements ApplicationContextAware {
         return fileStorageConfig;
     }
     
+    /**
+     * 获取共享的HTTP客户端，未运行在Spring容器中时使用按默认配置创建的共享实例
+     */
+    private static CloseableHttpClient getHttpClient() {
+        if (applicationContext != null) {
+            try {
+                return applicationContext.getBean(PooledHttpClient.class).getHttpClient();
+            } catch (BeansException e) {
+                log.debug("无法获取PooledHttpClient，使用默认配置: {}", e.getMessage());
+            }
+        }
+        return PooledHttpClient.standalone().getHttpClient();
+    }
+    
     /**
      * 下载文件到/opt目录下的taskId子目录
      * 
@@ -91,19 +126,33 @@ public class FileDownloadUtil implements ApplicationContextAware {
         String fileName = url.substring(url.lastIndexOf("/") + 1);
         Path filePath = taskDir.resolve(fileName);
         
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpGet httpGet = new HttpGet(url);
+        return downloadFile(url, filePath);
+    }
+    
+    /**
+     * 下载文件到指定路径
+     * 
+     * @param url 文件URL
+     * @param filePath 目标文件路径
+     * @return 下载的文件路径
+     * @throws Exception 下载异常
+     */
+    public static Path downloadFile(String url, Path filePath) throws Exception {
+        HttpGet httpGet = new HttpGet(url);
+        
+        try (CloseableHttpResponse response = getHttpClient().execute(httpGet)) {
+            if (response.getStatusLine().getStatusCode() != 200) {
+                throw new RuntimeException("下载文件失败，HTTP状态码: " + response.getStatusLine().getStatusCode());
+            }
             
-            try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
-                if (response.getStatusLine().getStatusCode() != 200) {
-                    throw new RuntimeException("下载文件失败，HTTP状态码: " + response.getStatusLine().getStatusCode());
-                }
-                
-                HttpEntity entity = response.getEntity();
-                try (InputStream inputStream = entity.getContent();
-                     FileOutputStream outputStream = new FileOutputStream(filePath.toFile())) {
-                    IOUtils.copy(inputStream, outputStream);
-                }
+            HttpEntity entity = response.getEntity();
+            long maxBytes = (getFileStorageConfig() != null ? getFileStorageConfig().getMaxFileSizeMB() : 1000) * 1024 * 1024;
+            if (entity.getContentLength() > maxBytes) {
+                throw new IOException("文件大小超过限制: " + entity.getContentLength() + " 字节, 限制: " + maxBytes + " 字节");
+            }
+            try (InputStream inputStream = new SizeLimitedInputStream(entity.getContent(), maxBytes);
+                 FileOutputStream outputStream = new FileOutputStream(filePath.toFile())) {
+                IOUtils.copy(inputStream, outputStream);
             }
         }
         
@@ -112,38 +161,176 @@ public class FileDownloadUtil implements ApplicationContextAware {
     }
     
     /**
-     * 下载文件（兼容旧版本，使用临时目录）
+     * 边下载边解压用例集到/opt目录下的taskId子目录，压缩包不落盘
      * 
      * @param url 文件URL
-     * @return 下载的文件路径
-     * @throws Exception 下载异常
+     * @param taskId 任务ID
+     * @return 解压目录路径
+     * @throws Exception 下载或解压异常
      */
-    public static Path downloadFile(String url) throws Exception {
-        log.info("开始下载文件到临时目录 - URL: {}", url);
+    public static Path downloadAndExtractZipFile(String url, String taskId) throws Exception {
+        String rootDir = getFileStorageConfig() != null ? getFileStorageConfig().getRootDirectory() : System.getProperty("java.io.tmpdir");
+        Path taskDir = Paths.get(rootDir).resolve(taskId);
+        if (!Files.exists(taskDir)) {
+            Files.createDirectories(taskDir);
+            log.info("创建任务目录: {}", taskDir);
+        }
         
-        // 创建临时目录
-        Path tempDir = Files.createTempDirectory("download_");
-        String fileName = url.substring(url.lastIndexOf("/") + 1);
-        Path filePath = tempDir.resolve(fileName);
+        Path extractPath = taskDir.resolve("extracted");
+        if (Files.exists(extractPath)) {
+            FileUtils.deleteDirectory(extractPath.toFile());
+        }
+        downloadAndExtractZipFile(url, extractPath);
+        return extractPath;
+    }
+    
+    /**
+     * 下载用例集到/opt目录下的taskId子目录并打开为按需解压的用例集，解压目录为taskId/extracted
+     * 
+     * @param url 文件URL
+     * @param taskId 任务ID
+     * @return 按需解压的用例集，任务结束前必须关闭
+     * @throws Exception 下载或读取压缩包异常
+     */
+    public static LazyTestCaseSet openLazyTestCaseSet(String url, String taskId) throws Exception {
+        Path zipFilePath = downloadFile(url, taskId);
+        Path extractPath = zipFilePath.resolveSibling("extracted");
+        if (Files.exists(extractPath)) {
+            FileUtils.deleteDirectory(extractPath.toFile());
+        }
+        return LazyTestCaseSet.open(zipFilePath, extractPath, getParallelExtractThreads());
+    }
+    
+    /**
+     * 边下载边解压ZIP文件到指定目录
+     * HTTP响应流依次经过大小限制（maxFileSizeMB）和SHA-256计算后直接解压，压缩包不落盘；
+     * 配置了并行解压线程数时，压缩包先下载到同级临时文件，再按中央目录多线程并行解压；
+     * 先解压到同级临时目录，全部成功后再重命名为目标目录，失败时删除临时目录
+     * 
+     * @param url 文件URL
+     * @param extractPath 解压目录，不能已存在
+     * @return 压缩包内容的SHA-256（十六进制）
+     * @throws Exception 下载或解压异常
+     */
+    public static String downloadAndExtractZipFile(String url, Path extractPath) throws Exception {
+        long maxBytes = (getFileStorageConfig() != null ? getFileStorageConfig().getMaxFileSizeMB() : 1000) * 1024 * 1024;
+        int parallelThreads = getParallelExtractThreads();
+        Path tempPath = extractPath.resolveSibling(extractPath.getFileName() + ".partial-" + UUID.randomUUID());
+        Path zipFilePath = extractPath.resolveSibling(extractPath.getFileName() + ".download-" + UUID.randomUUID() + ".zip");
+        log.info("开始边下载边解压 - URL: {}, 解压路径: {}, 并行解压线程数: {}", url, extractPath, parallelThreads);
+        long startTime = System.currentTimeMillis();
         
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
+        try {
             HttpGet httpGet = new HttpGet(url);
             
-            try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
+            try (CloseableHttpResponse response = getHttpClient().execute(httpGet)) {
                 if (response.getStatusLine().getStatusCode() != 200) {
                     throw new RuntimeException("下载文件失败，HTTP状态码: " + response.getStatusLine().getStatusCode());
                 }
                 
                 HttpEntity entity = response.getEntity();
-                try (InputStream inputStream = entity.getContent();
-                     FileOutputStream outputStream = new FileOutputStream(filePath.toFile())) {
-                    IOUtils.copy(inputStream, outputStream);
+                if (entity.getContentLength() > maxBytes) {
+                    throw new IOException("文件大小超过限制: " + entity.getContentLength() + " 字节, 限制: " + maxBytes + " 字节");
+                }
+                
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                try (InputStream limitedStream = new SizeLimitedInputStream(entity.getContent(), maxBytes);
+                     DigestInputStream digestStream = new DigestInputStream(limitedStream, digest)) {
+                    if (parallelThreads > 0) {
+                        try (OutputStream outputStream = Files.newOutputStream(zipFilePath)) {
+                            IOUtils.copy(digestStream, outputStream);
+                        }
+                    } else {
+                        ZipInputStream zipInputStream = new ZipInputStream(digestStream);
+                        extractEntries(zipInputStream, tempPath);
+                        // 读完中央目录等剩余数据，摘要覆盖完整的压缩包
+                        IOUtils.copy(digestStream, NullOutputStream.NULL_OUTPUT_STREAM);
+                    }
                 }
+                
+                byte[] hash = digest.digest();
+                String sha256 = toHex(hash);
+                verifyDigestHeader(response.getFirstHeader("Digest"), hash, url);
+                if (parallelThreads > 0) {
+                    extractEntriesInParallel(zipFilePath, tempPath, parallelThreads);
+                }
+                Files.move(tempPath, extractPath, StandardCopyOption.ATOMIC_MOVE);
+                log.info("边下载边解压完成 - 解压路径: {}, SHA-256: {}, 耗时: {}ms", 
+                        extractPath, sha256, System.currentTimeMillis() - startTime);
+                return sha256;
             }
+        } catch (Exception e) {
+            FileUtils.deleteQuietly(tempPath.toFile());
+            throw e;
+        } finally {
+            Files.deleteIfExists(zipFilePath);
         }
+    }
+    
+    /**
+     * 服务端返回RFC 3230 Digest响应头（SHA-256=base64）时校验下载内容
+     */
+    private static void verifyDigestHeader(Header digestHeader, byte[] hash, String url) throws IOException {
+        if (digestHeader == null || digestHeader.getValue() == null) {
+            return;
+        }
+        for (String item : digestHeader.getValue().split(",")) {
+            String value = item.trim();
+            if (value.regionMatches(true, 0, "SHA-256=", 0, 8)) {
+                byte[] expected = Base64.getDecoder().decode(value.substring(8));
+                if (!MessageDigest.isEqual(expected, hash)) {
+                    throw new IOException("文件完整性校验失败，SHA-256不一致 - URL: " + url);
+                }
+                return;
+            }
+        }
+    }
+    
+    /**
+     * 通过HEAD请求获取文件的版本标识，优先使用ETag，其次使用Last-Modified和Content-Length
+     * 
+     * @param url 文件URL
+     * @return 版本标识，服务端未提供或请求失败时返回null
+     */
+    public static String fetchVersionTag(String url) {
+        try {
+            HttpHead httpHead = new HttpHead(url);
+            try (CloseableHttpResponse response = getHttpClient().execute(httpHead)) {
+                if (response.getStatusLine().getStatusCode() != 200) {
+                    log.warn("获取文件版本标识失败，HTTP状态码: {} - URL: {}", response.getStatusLine().getStatusCode(), url);
+                    return null;
+                }
+                Header etag = response.getFirstHeader("ETag");
+                if (etag != null && etag.getValue() != null && !etag.getValue().trim().isEmpty()) {
+                    return "etag:" + etag.getValue().trim();
+                }
+                Header lastModified = response.getFirstHeader("Last-Modified");
+                if (lastModified != null && lastModified.getValue() != null && !lastModified.getValue().trim().isEmpty()) {
+                    Header contentLength = response.getFirstHeader("Content-Length");
+                    return "last-modified:" + lastModified.getValue().trim() 
+                            + ":" + (contentLength != null ? contentLength.getValue() : "");
+                }
+            }
+        } catch (Exception e) {
+            log.warn("获取文件版本标识失败 - URL: {}, 错误: {}", url, e.getMessage());
+        }
+        return null;
+    }
+    
+    /**
+     * 下载文件（兼容旧版本，使用临时目录）
+     * 
+     * @param url 文件URL
+     * @return 下载的文件路径
+     * @throws Exception 下载异常
+     */
+    public static Path downloadFile(String url) throws Exception {
+        log.info("开始下载文件到临时目录 - URL: {}", url);
         
-        log.info("文件下载完成 - 路径: {}", filePath);
-        return filePath;
+        // 创建临时目录
+        Path tempDir = Files.createTempDirectory("download_");
+        String fileName = url.substring(url.lastIndexOf("/") + 1);
+        return downloadFile(url, tempDir.resolve(fileName));
     }
     
     /**
@@ -185,27 +372,180 @@ public class FileDownloadUtil implements ApplicationContextAware {
             // 如果目录已存在，先删除
             FileUtils.deleteDirectory(extractPath.toFile());
         }
+        extractZipFileTo(zipFilePath, extractPath);
+        return extractPath;
+    }
+    
+    /**
+     * 解压ZIP文件到指定目录
+     * 
+     * @param zipFilePath ZIP文件路径
+     * @param extractPath 解压目录
+     * @throws Exception 解压异常
+     */
+    public static void extractZipFileTo(Path zipFilePath, Path extractPath) throws Exception {
+        long startTime = System.currentTimeMillis();
+        int parallelThreads = getParallelExtractThreads();
+        if (parallelThreads > 0) {
+            extractEntriesInParallel(zipFilePath, extractPath, parallelThreads);
+        } else {
+            try (ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(zipFilePath.toFile()))) {
+                extractEntries(zipInputStream, extractPath);
+            }
+        }
+        
+        log.info("ZIP文件解压完成 - 路径: {}, 并行解压线程数: {}, 耗时: {}ms", 
+                extractPath, parallelThreads, System.currentTimeMillis() - startTime);
+    }
+    
+    private static int getParallelExtractThreads() {
+        return getFileStorageConfig() != null ? getFileStorageConfig().getParallelExtractThreads() : 0;
+    }
+    
+    /**
+     * 将ZIP流中的条目依次解压到指定目录，拒绝解压到目录之外的条目
+     */
+    private static void extractEntries(ZipInputStream zipInputStream, Path extractPath) throws IOException {
         Files.createDirectories(extractPath);
+        Path normalizedRoot = extractPath.toAbsolutePath().normalize();
         
-        try (ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(zipFilePath.toFile()))) {
-            ZipEntry entry;
-            while ((entry = zipInputStream.getNextEntry()) != null) {
-                Path filePath = extractPath.resolve(entry.getName());
-                
-                if (entry.isDirectory()) {
-                    Files.createDirectories(filePath);
-                } else {
-                    Files.createDirectories(filePath.getParent());
-                    try (FileOutputStream outputStream = new FileOutputStream(filePath.toFile())) {
-                        IOUtils.copy(zipInputStream, outputStream);
-                    }
+        ZipEntry entry;
+        while ((entry = zipInputStream.getNextEntry()) != null) {
+            Path filePath = resolveEntryPath(normalizedRoot, entry.getName());
+            
+            if (entry.isDirectory()) {
+                Files.createDirectories(filePath);
+            } else {
+                Files.createDirectories(filePath.getParent());
+                try (FileOutputStream outputStream = new FileOutputStream(filePath.toFile())) {
+                    IOUtils.copy(zipInputStream, outputStream);
                 }
-                zipInputStream.closeEntry();
             }
+            zipInputStream.closeEntry();
         }
+    }
+    
+    /**
+     * 按中央目录多线程并行解压ZIP文件
+     */
+    private static void extractEntriesInParallel(Path zipFilePath, Path extractPath, int threads) throws IOException {
+        Path normalizedRoot = extractPath.toAbsolutePath().normalize();
+        Files.createDirectories(normalizedRoot);
         
-        log.info("ZIP文件解压完成 - 路径: {}", extractPath);
-        return extractPath;
+        try (ZipFile zipFile = new ZipFile(zipFilePath.toFile())) {
+            List<ZipArchiveEntry> entries = Collections.list(zipFile.getEntries());
+            extractArchiveEntries(zipFile, entries, normalizedRoot, threads);
+            log.info("ZIP文件并行解压完成 - 路径: {}, 条目数: {}, 线程数: {}", extractPath, entries.size(), threads);
+        }
+    }
+    
+    /**
+     * 从已打开的ZIP文件中多线程解压指定条目
+     * 先校验全部条目路径并一次性创建目录，文件条目按大小从大到小分发给各线程，每个线程复用自己的缓冲区
+     * 
+     * @param zipFile 已打开的ZIP文件
+     * @param entries 要解压的条目
+     * @param normalizedRoot 解压目录（绝对路径且已规范化）
+     * @param threads 线程数
+     * @throws IOException 解压异常
+     */
+    static void extractArchiveEntries(ZipFile zipFile, List<ZipArchiveEntry> entries, Path normalizedRoot, int threads) throws IOException {
+        Set<Path> directories = new LinkedHashSet<>();
+        List<ZipArchiveEntry> fileEntries = new ArrayList<>();
+        for (ZipArchiveEntry entry : entries) {
+            Path filePath = resolveEntryPath(normalizedRoot, entry.getName());
+            if (entry.isDirectory()) {
+                directories.add(filePath);
+            } else {
+                directories.add(filePath.getParent());
+                fileEntries.add(entry);
+            }
+        }
+        for (Path directory : directories) {
+            Files.createDirectories(directory);
+        }
+        fileEntries.sort(Comparator.comparingLong(ZipArchiveEntry::getSize).reversed());
+        
+        int workerCount = Math.max(1, Math.min(threads, fileEntries.size()));
+        AtomicInteger nextEntry = new AtomicInteger();
+        Callable<Void> worker = () -> {
+            byte[] buffer = new byte[64 * 1024];
+            int index;
+            while ((index = nextEntry.getAndIncrement()) < fileEntries.size()) {
+                ZipArchiveEntry entry = fileEntries.get(index);
+                Path filePath = normalizedRoot.resolve(entry.getName()).normalize();
+                try (InputStream inputStream = zipFile.getInputStream(entry);
+                     OutputStream outputStream = Files.newOutputStream(filePath)) {
+                    IOUtils.copyLarge(inputStream, outputStream, buffer);
+                }
+            }
+            return null;
+        };
+        if (workerCount == 1) {
+            try {
+                worker.call();
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("解压失败: " + e.getMessage(), e);
+            }
+            return;
+        }
+        
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "zip-extract-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < workerCount; i++) {
+                futures.add(executor.submit(worker));
+            }
+            // 等待全部线程结束后再返回，失败时其余线程不再领取新条目
+            Throwable failure = null;
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    nextEntry.set(fileEntries.size());
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure != null) {
+                throw new IOException("并行解压失败: " + failure.getMessage(), failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            nextEntry.set(fileEntries.size());
+            throw new InterruptedIOException("并行解压被中断");
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * 解析ZIP条目的目标路径，拒绝解压到目录之外的条目
+     */
+    static Path resolveEntryPath(Path normalizedRoot, String entryName) throws IOException {
+        Path filePath = normalizedRoot.resolve(entryName).normalize();
+        if (!filePath.startsWith(normalizedRoot)) {
+            throw new IOException("ZIP条目路径非法，超出解压目录: " + entryName);
+        }
+        return filePath;
+    }
+    
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
     }
     
     /**
@@ -220,25 +560,7 @@ public class FileDownloadUtil implements ApplicationContextAware {
         
         // 创建解压目录
         Path extractPath = Files.createTempDirectory("extract_");
-        
-        try (ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(zipFilePath.toFile()))) {
-            ZipEntry entry;
-            while ((entry = zipInputStream.getNextEntry()) != null) {
-                Path filePath = extractPath.resolve(entry.getName());
-                
-                if (entry.isDirectory()) {
-                    Files.createDirectories(filePath);
-                } else {
-                    Files.createDirectories(filePath.getParent());
-                    try (FileOutputStream outputStream = new FileOutputStream(filePath.toFile())) {
-                        IOUtils.copy(zipInputStream, outputStream);
-                    }
-                }
-                zipInputStream.closeEntry();
-            }
-        }
-        
-        log.info("ZIP文件解压完成 - 路径: {}", extractPath);
+        extractZipFileTo(zipFilePath, extractPath);
         return extractPath;
     }
     
@@ -279,4 +601,42 @@ public class FileDownloadUtil implements ApplicationContextAware {
             log.warn("清理任务目录失败 - 任务ID: {}, 错误: {}", taskId, e.getMessage());
         }
     }
+    
+    /**
+     * 限制读取字节数的输入流，超过限制时抛出异常
+     */
+    private static class SizeLimitedInputStream extends FilterInputStream {
+        private final long maxBytes;
+        private long readBytes;
+        
+        private SizeLimitedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+        
+        private void count(long bytes) throws IOException {
+            readBytes += bytes;
+            if (readBytes > maxBytes) {
+                throw new IOException("文件大小超过限制: " + maxBytes + " 字节");
+            }
+        }
+    }
 }
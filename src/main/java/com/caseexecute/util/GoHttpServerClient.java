@@ -3,6 +3,7 @@ package com.caseexecute.util;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -10,31 +11,37 @@ import java.util.concurrent.TimeUnit;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.HttpMultipartMode;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
 
 /**
  * GoHttpServer客户端工具类
+ * 使用共享HTTP客户端的连接池上传文件，文件内容从磁盘流式发送，内存占用与文件大小无关
  * 
  * @author system
  * @since 2024-01-01
  */
 @Slf4j
+@Component
 public class GoHttpServerClient {
 
     private final CloseableHttpClient httpClient;
 
+    @Autowired
+    public GoHttpServerClient(PooledHttpClient pooledHttpClient) {
+        this.httpClient = pooledHttpClient.getHttpClient();
+    }
+
+    /**
+     * 未运行在Spring容器中时使用，共用按默认配置创建的连接池
+     */
     public GoHttpServerClient() {
-        this.httpClient = HttpClients.custom()
-                .setDefaultRequestConfig(
-                    org.apache.http.client.config.RequestConfig.custom()
-                        .setConnectTimeout(30000)
-                        .setSocketTimeout(60000)
-                        .build()
-                )
-                .build();
+        this(PooledHttpClient.standalone());
     }
 
     /**
@@ -62,17 +69,19 @@ public class GoHttpServerClient {
                 uploadUrl = goHttpServerUrl + "/upload";
             }
             
-            // 读取文件内容
-            byte[] fileBytes = Files.readAllBytes(sourcePath);
-            
-            // 构建multipart请求
+            // 构建multipart请求，文件内容在发送时从磁盘分块读取，不整体读入内存
             String boundary = "----WebKitFormBoundary" + System.currentTimeMillis();
-            byte[] multipartBody = buildMultipartBody(fileBytes, targetFileName, boundary);
+            HttpEntity multipartBody = MultipartEntityBuilder.create()
+                    .setMode(HttpMultipartMode.BROWSER_COMPATIBLE)
+                    .setBoundary(boundary)
+                    .setCharset(StandardCharsets.UTF_8)
+                    .addBinaryBody("file", sourcePath.toFile(), ContentType.create("text/plain"), targetFileName)
+                    .build();
             
-            // 发送HTTP请求
+            // 发送HTTP请求，Content-Type（含boundary）由multipart实体提供
             HttpPost request = new HttpPost(uploadUrl);
-            request.setHeader("Content-Type", "multipart/form-data; boundary=" + boundary);
-            request.setEntity(new ByteArrayEntity(multipartBody));
+            request.setEntity(multipartBody);
+            log.info("上传文件大小: {} bytes", Files.size(sourcePath));
             
             CloseableHttpResponse response = httpClient.execute(request);
             
@@ -81,12 +90,7 @@ public class GoHttpServerClient {
                 String responseBody = EntityUtils.toString(response.getEntity());
                 
                 if (statusCode == 200 || statusCode == 201) {
-                    String fileUrl;
-                    if (taskId != null && !taskId.trim().isEmpty()) {
-                        fileUrl = goHttpServerUrl + "/upload/" + taskId + "/" + targetFileName;
-                    } else {
-                        fileUrl = goHttpServerUrl + "/upload/" + targetFileName;
-                    }
+                    String fileUrl = fileUrl(targetFileName, goHttpServerUrl, taskId);
                     log.info("本地文件上传成功: {}", fileUrl);
                     return fileUrl;
                 } else {
@@ -102,6 +106,20 @@ public class GoHttpServerClient {
         }
     }
 
+    /**
+     * 文件上传后的访问URL，由上传参数确定，可以在上传完成前获取
+     * @param targetFileName 目标文件名
+     * @param goHttpServerUrl gohttpserver地址
+     * @param taskId 任务ID（可选）
+     * @return 文件URL
+     */
+    public String fileUrl(String targetFileName, String goHttpServerUrl, String taskId) {
+        if (taskId != null && !taskId.trim().isEmpty()) {
+            return goHttpServerUrl + "/upload/" + taskId + "/" + targetFileName;
+        }
+        return goHttpServerUrl + "/upload/" + targetFileName;
+    }
+
     /**
      * 上传本地文件到gohttpserver（兼容旧版本）
      * @param localFilePath 本地文件路径
@@ -112,29 +130,4 @@ public class GoHttpServerClient {
     public String uploadLocalFile(String localFilePath, String targetFileName, String goHttpServerUrl) throws IOException {
         return uploadLocalFile(localFilePath, targetFileName, goHttpServerUrl, null);
     }
-
-    /**
-     * 构建multipart body
-     */
-    private byte[] buildMultipartBody(byte[] fileBytes, String fileName, String boundary) throws IOException {
-        StringBuilder body = new StringBuilder();
-        
-        // 添加文件部分
-        body.append("--").append(boundary).append("\r\n");
-        body.append("Content-Disposition: form-data; name=\"file\"; filename=\"").append(fileName).append("\"\r\n");
-        body.append("Content-Type: text/plain\r\n");
-        body.append("\r\n");
-        
-        // 转换为字节数组
-        byte[] headerBytes = body.toString().getBytes("UTF-8");
-        byte[] footerBytes = ("\r\n--" + boundary + "--\r\n").getBytes("UTF-8");
-        
-        // 组合完整的multipart body
-        byte[] multipartBody = new byte[headerBytes.length + fileBytes.length + footerBytes.length];
-        System.arraycopy(headerBytes, 0, multipartBody, 0, headerBytes.length);
-        System.arraycopy(fileBytes, 0, multipartBody, headerBytes.length, fileBytes.length);
-        System.arraycopy(footerBytes, 0, multipartBody, headerBytes.length + fileBytes.length, footerBytes.length);
-        
-        return multipartBody;
-    }
 }
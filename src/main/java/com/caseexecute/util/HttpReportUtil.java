@@ -7,13 +7,13 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 /**
  * HTTP上报工具类
@@ -28,157 +28,143 @@ public class HttpReportUtil {
     @Autowired
     private ObjectMapper objectMapper;
     
+    @Autowired
+    private PooledHttpClient pooledHttpClient;
+    
+    /**
+     * 结果上报的处理结果
+     */
+    public enum ReportOutcome {
+        /** 平台已接收 */
+        SUCCESS,
+        /** 网络错误或平台暂时不可用（5xx、408、429），可以重试 */
+        FAILED,
+        /** 平台拒绝（其他4xx）或请求无法构造，重试也不会成功 */
+        REJECTED
+    }
+    
     /**
      * 上报用例执行结果
      * 
      * @param reportUrl 上报URL
      * @param report 执行结果
-     * @return 是否上报成功
+     * @return 上报结果
      */
-    public boolean reportTestCaseResult(String reportUrl, TestCaseResultReport report) {
+    public ReportOutcome reportTestCaseResult(String reportUrl, TestCaseResultReport report) {
         try {
             log.info("开始上报用例执行结果 - 用例ID: {}, 轮次: {}, 状态: {}", 
                     report.getTestCaseId(), report.getRound(), report.getStatus());
             log.info("上报URL: {}", reportUrl);
             
-            try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-                HttpPost httpPost = new HttpPost(reportUrl);
-                httpPost.setHeader("Content-Type", "application/json");
-                
-                String jsonBody = objectMapper.writeValueAsString(report);
-                httpPost.setEntity(new StringEntity(jsonBody, StandardCharsets.UTF_8));
+            CloseableHttpClient httpClient = pooledHttpClient.getHttpClient();
+            HttpPost httpPost = new HttpPost(reportUrl);
+            httpPost.setHeader("Content-Type", "application/json");
+            
+            String jsonBody = objectMapper.writeValueAsString(report);
+            httpPost.setEntity(new StringEntity(jsonBody, StandardCharsets.UTF_8));
+            
+            // 记录请求体内容
+            log.info("上报请求体内容 - 用例ID: {}, 轮次: {}", report.getTestCaseId(), report.getRound());
+            log.info("请求体JSON: {}", jsonBody);
+            
+            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+                int statusCode = response.getStatusLine().getStatusCode();
+                String responseBody = org.apache.http.util.EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
                 
-                // 记录请求体内容
-                log.info("上报请求体内容 - 用例ID: {}, 轮次: {}", report.getTestCaseId(), report.getRound());
-                log.info("请求体JSON: {}", jsonBody);
+                log.info("上报响应 - 用例ID: {}, 轮次: {}, HTTP状态码: {}, 响应体: {}", 
+                        report.getTestCaseId(), report.getRound(), statusCode, responseBody);
                 
-                try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-                    int statusCode = response.getStatusLine().getStatusCode();
-                    String responseBody = org.apache.http.util.EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
-                    
-                    log.info("上报响应 - 用例ID: {}, 轮次: {}, HTTP状态码: {}, 响应体: {}", 
+                if (statusCode == 200) {
+                    log.info("用例执行结果上报成功 - 用例ID: {}, 轮次: {}", 
+                            report.getTestCaseId(), report.getRound());
+                    return ReportOutcome.SUCCESS;
+                } else {
+                    log.error("用例执行结果上报失败 - 用例ID: {}, 轮次: {}, HTTP状态码: {}, 响应体: {}", 
                             report.getTestCaseId(), report.getRound(), statusCode, responseBody);
-                    
-                    if (statusCode == 200) {
-                        log.info("用例执行结果上报成功 - 用例ID: {}, 轮次: {}", 
-                                report.getTestCaseId(), report.getRound());
-                        return true;
-                    } else {
-                        log.error("用例执行结果上报失败 - 用例ID: {}, 轮次: {}, HTTP状态码: {}, 响应体: {}", 
-                                report.getTestCaseId(), report.getRound(), statusCode, responseBody);
-                        return false;
-                    }
+                    return outcomeOf(statusCode);
                 }
             }
             
+        } catch (com.fasterxml.jackson.core.JsonProcessingException | IllegalArgumentException e) {
+            log.error("用例执行结果无法上报 - 用例ID: {}, 轮次: {}, 上报URL: {}, 错误: {}", 
+                    report.getTestCaseId(), report.getRound(), reportUrl, e.getMessage());
+            return ReportOutcome.REJECTED;
         } catch (Exception e) {
             log.error("上报用例执行结果失败 - 用例ID: {}, 轮次: {}, 错误: {}", 
                     report.getTestCaseId(), report.getRound(), e.getMessage(), e);
-            return false;
+            return ReportOutcome.FAILED;
         }
     }
     
     /**
-     * 上报用例执行日志
+     * 批量上报用例执行结果，请求体为结果的JSON数组
      * 
-     * @param logReportUrl 日志上报URL
-     * @param logContent 日志内容
-     * @param logFileName 日志文件名
-     * @param testCaseId 用例ID
-     * @param round 轮次
-     * @return 是否上报成功
+     * @param bulkUrl 批量上报URL
+     * @param reports 执行结果
+     * @return 上报结果
      */
-    public boolean reportTestCaseLog(String logReportUrl, String logContent, String logFileName, 
-                                          Long testCaseId, Integer round) {
-        
-        // 构建任务ID
-        String taskId = "TASK_" + System.currentTimeMillis() + "_" + testCaseId + "_" + round;
-        return reportTestCaseLog(logReportUrl, logContent, logFileName, taskId, testCaseId, round);
+    public ReportOutcome reportTestCaseResults(String bulkUrl, List<TestCaseResultReport> reports) {
+        try {
+            log.info("开始批量上报用例执行结果 - 结果数: {}, 上报URL: {}", reports.size(), bulkUrl);
+            
+            HttpPost httpPost = new HttpPost(bulkUrl);
+            httpPost.setHeader("Content-Type", "application/json");
+            httpPost.setEntity(new StringEntity(objectMapper.writeValueAsString(reports), StandardCharsets.UTF_8));
+            
+            try (CloseableHttpResponse response = pooledHttpClient.getHttpClient().execute(httpPost)) {
+                int statusCode = response.getStatusLine().getStatusCode();
+                String responseBody = org.apache.http.util.EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+                if (statusCode == 200) {
+                    log.info("用例执行结果批量上报成功 - 结果数: {}", reports.size());
+                    return ReportOutcome.SUCCESS;
+                }
+                log.error("用例执行结果批量上报失败 - 结果数: {}, HTTP状态码: {}, 响应体: {}", 
+                        reports.size(), statusCode, responseBody);
+                return outcomeOf(statusCode);
+            }
+        } catch (com.fasterxml.jackson.core.JsonProcessingException | IllegalArgumentException e) {
+            log.error("用例执行结果无法批量上报 - 结果数: {}, 上报URL: {}, 错误: {}", reports.size(), bulkUrl, e.getMessage());
+            return ReportOutcome.REJECTED;
+        } catch (Exception e) {
+            log.error("批量上报用例执行结果失败 - 结果数: {}, 错误: {}", reports.size(), e.getMessage(), e);
+            return ReportOutcome.FAILED;
+        }
+    }
+    
+    /**
+     * 按HTTP状态码区分可重试的失败和平台拒绝：超时（408）和限流（429）可以重试，其他4xx重试也不会成功
+     */
+    private static ReportOutcome outcomeOf(int statusCode) {
+        if (statusCode >= 400 && statusCode < 500 && statusCode != 408 && statusCode != 429) {
+            return ReportOutcome.REJECTED;
+        }
+        return ReportOutcome.FAILED;
     }
     
     /**
-     * 上报用例执行日志文件
+     * 上报用例执行日志文件，日志内容从磁盘流式发送，不读入内存，适用于任意大小的日志
      * 
      * @param logReportUrl 日志上报URL
-     * @param logContent 日志内容
-     * @param logFileName 日志文件名
+     * @param logFile 日志文件
+     * @param logFileName 上报的日志文件名
      * @param taskId 任务ID
      * @param testCaseId 用例ID
      * @param round 轮次
      * @return 是否上报成功
      */
-    public boolean reportTestCaseLog(String logReportUrl, String logContent, String logFileName, 
-                                          String taskId, Long testCaseId, Integer round) {
+    public boolean reportTestCaseLogFile(String logReportUrl, java.nio.file.Path logFile, String logFileName, 
+                                         String taskId, Long testCaseId, Integer round) {
         try {
-            log.info("开始上报用例执行日志文件 - 用例ID: {}, 轮次: {}", testCaseId, round);
+            String fullLogReportUrl = logUploadUrl(logReportUrl);
+            log.info("开始上报用例执行日志文件 - 用例ID: {}, 轮次: {}, 日志文件: {}, 文件大小: {} bytes, 上报URL: {}", 
+                    testCaseId, round, logFile, java.nio.file.Files.size(logFile), fullLogReportUrl);
             
-            // 构建日志上报URL - 使用文件上传接口
-            String fullLogReportUrl = logReportUrl;
-            if (fullLogReportUrl.endsWith("/")) {
-                fullLogReportUrl = fullLogReportUrl.substring(0, fullLogReportUrl.length() - 1);
-            }
-            fullLogReportUrl += "/upload";
-            
-            log.info("日志上报URL: {}", fullLogReportUrl);
-            log.info("日志文件名: {}", logFileName);
-            log.info("日志内容长度: {} 字符", logContent != null ? logContent.length() : 0);
-            
-            // 记录日志内容的前500个字符（避免日志过长）
-            if (logContent != null && logContent.length() > 0) {
-                String logPreview = logContent.length() > 500 ? 
-                    logContent.substring(0, 500) + "..." : logContent;
-                log.info("日志内容预览 - 用例ID: {}, 轮次: {}", testCaseId, round);
-                log.info("日志预览: {}", logPreview);
-            }
-            
-            // 创建临时日志文件
-            java.nio.file.Path tempLogFile = java.nio.file.Files.createTempFile("testcase_log_", ".log");
-            java.nio.file.Files.write(tempLogFile, logContent.getBytes(StandardCharsets.UTF_8));
-            
-            try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-                // 构建multipart请求
-                org.apache.http.entity.mime.MultipartEntityBuilder builder = org.apache.http.entity.mime.MultipartEntityBuilder.create();
-                builder.setMode(org.apache.http.entity.mime.HttpMultipartMode.BROWSER_COMPATIBLE);
-                
-                // 添加参数
-                builder.addTextBody("taskId", taskId);
-                builder.addTextBody("testCaseId", testCaseId.toString());
-                builder.addTextBody("round", round.toString());
-                
-                // 添加文件
-                builder.addBinaryBody("logFile", 
-                    java.nio.file.Files.readAllBytes(tempLogFile),
+            org.apache.http.entity.mime.MultipartEntityBuilder builder = newLogMultipart(taskId, testCaseId, round);
+            builder.addBinaryBody("logFile",
+                    logFile.toFile(),
                     org.apache.http.entity.ContentType.create("text/plain"),
                     logFileName);
-                
-                org.apache.http.HttpEntity multipart = builder.build();
-                
-                HttpPost httpPost = new HttpPost(fullLogReportUrl);
-                httpPost.setEntity(multipart);
-                
-                log.info("日志文件上传请求 - 用例ID: {}, 轮次: {}, 文件大小: {} bytes", 
-                        testCaseId, round, java.nio.file.Files.size(tempLogFile));
-                
-                try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-                    int statusCode = response.getStatusLine().getStatusCode();
-                    String responseBody = org.apache.http.util.EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
-                    
-                    log.info("日志文件上传响应 - 用例ID: {}, 轮次: {}, HTTP状态码: {}, 响应体: {}", 
-                            testCaseId, round, statusCode, responseBody);
-                    
-                    if (statusCode == 200) {
-                        log.info("用例执行日志文件上传成功 - 用例ID: {}, 轮次: {}", testCaseId, round);
-                        return true;
-                    } else {
-                        log.error("用例执行日志文件上传失败 - 用例ID: {}, 轮次: {}, HTTP状态码: {}, 响应体: {}", 
-                                testCaseId, round, statusCode, responseBody);
-                        return false;
-                    }
-                }
-            } finally {
-                // 清理临时文件
-                java.nio.file.Files.deleteIfExists(tempLogFile);
-            }
+            return postLogMultipart(fullLogReportUrl, builder.build(), testCaseId, round);
             
         } catch (Exception e) {
             log.error("上报用例执行日志文件失败 - 用例ID: {}, 轮次: {}, 错误: {}", 
@@ -186,4 +172,51 @@ public class HttpReportUtil {
             return false;
         }
     }
+    
+    private String logUploadUrl(String logReportUrl) {
+        String fullLogReportUrl = logReportUrl;
+        if (fullLogReportUrl.endsWith("/")) {
+            fullLogReportUrl = fullLogReportUrl.substring(0, fullLogReportUrl.length() - 1);
+        }
+        return fullLogReportUrl + "/upload";
+    }
+    
+    private org.apache.http.entity.mime.MultipartEntityBuilder newLogMultipart(String taskId, Long testCaseId, Integer round) {
+        org.apache.http.entity.mime.MultipartEntityBuilder builder = org.apache.http.entity.mime.MultipartEntityBuilder.create();
+        builder.setMode(org.apache.http.entity.mime.HttpMultipartMode.BROWSER_COMPATIBLE);
+        builder.addTextBody("taskId", taskId);
+        builder.addTextBody("testCaseId", testCaseId.toString());
+        builder.addTextBody("round", round.toString());
+        return builder;
+    }
+    
+    /**
+     * 发送日志上传请求，文件部分在写出请求体时分块读取
+     */
+    private boolean postLogMultipart(String fullLogReportUrl, org.apache.http.HttpEntity multipart, 
+                                     Long testCaseId, Integer round) throws java.io.IOException {
+        CloseableHttpClient httpClient = pooledHttpClient.getHttpClient();
+        HttpPost httpPost = new HttpPost(fullLogReportUrl);
+        httpPost.setEntity(multipart);
+        
+        log.info("日志文件上传请求 - 用例ID: {}, 轮次: {}, 请求体大小: {} bytes", 
+                testCaseId, round, multipart.getContentLength());
+        
+        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            String responseBody = org.apache.http.util.EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            
+            log.info("日志文件上传响应 - 用例ID: {}, 轮次: {}, HTTP状态码: {}, 响应体: {}", 
+                    testCaseId, round, statusCode, responseBody);
+            
+            if (statusCode == 200) {
+                log.info("用例执行日志文件上传成功 - 用例ID: {}, 轮次: {}", testCaseId, round);
+                return true;
+            } else {
+                log.error("用例执行日志文件上传失败 - 用例ID: {}, 轮次: {}, HTTP状态码: {}, 响应体: {}", 
+                        testCaseId, round, statusCode, responseBody);
+                return false;
+            }
+        }
+    }
 }
@@ -0,0 +1,171 @@
+package com.caseexecute.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * 多关键词匹配自动机（Aho-Corasick）
+ * 把所有关键词编译为一个按UTF-8字节转移的确定性自动机，一次扫描输入即可找出所有关键词的出现位置，
+ * 扫描代价与关键词数量无关。ASCII字母按小写转移，区分大小写的关键词在匹配结束时按最近输入的原始字节复核。
+ * 关键词最多64个，匹配结果以位掩码表示，第i位对应第i个关键词
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+public final class KeywordAutomaton {
+
+    /**
+     * 复核区分大小写的关键词需要保留的最近输入字节数，关键词的UTF-8长度不能超过该值
+     */
+    public static final int RECENT_BYTES = 64;
+
+    private static final int RECENT_MASK = RECENT_BYTES - 1;
+
+    private final byte[][] keywords;
+    private final int[] transitions;
+    private final long[] outputs;
+    private final long verifyMask;
+
+    /**
+     * 编译关键词
+     *
+     * @param keywords 关键词
+     * @param ignoreCase 对应关键词是否不区分大小写（仅ASCII字母）
+     */
+    public KeywordAutomaton(String[] keywords, boolean[] ignoreCase) {
+        if (keywords.length > Long.SIZE) {
+            throw new IllegalArgumentException("关键词数量超过" + Long.SIZE + "个: " + keywords.length);
+        }
+        this.keywords = new byte[keywords.length][];
+
+        // 构建字典树，关键词按小写插入
+        List<int[]> trie = new ArrayList<>();
+        List<Long> trieOutputs = new ArrayList<>();
+        trie.add(newNode());
+        trieOutputs.add(0L);
+        long verify = 0;
+        for (int i = 0; i < keywords.length; i++) {
+            byte[] bytes = keywords[i].getBytes(StandardCharsets.UTF_8);
+            if (bytes.length == 0 || bytes.length > RECENT_BYTES) {
+                throw new IllegalArgumentException("关键词长度无效: " + keywords[i]);
+            }
+            this.keywords[i] = bytes;
+            int state = 0;
+            for (byte b : bytes) {
+                int folded = fold(b & 0xff);
+                if (!ignoreCase[i] && isAsciiLetter(b & 0xff)) {
+                    verify |= 1L << i;
+                }
+                int next = trie.get(state)[folded];
+                if (next == 0) {
+                    next = trie.size();
+                    trie.add(newNode());
+                    trieOutputs.add(0L);
+                    trie.get(state)[folded] = next;
+                }
+                state = next;
+            }
+            trieOutputs.set(state, trieOutputs.get(state) | 1L << i);
+        }
+        this.verifyMask = verify;
+
+        // 按广度优先计算失败转移，补全为确定性转移表，并合并后缀关键词的匹配结果
+        int stateCount = trie.size();
+        this.transitions = new int[stateCount << 8];
+        this.outputs = new long[stateCount];
+        int[] failure = new int[stateCount];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < 256; c++) {
+            int next = trie.get(0)[c];
+            transitions[c] = next;
+            if (next != 0) {
+                queue.add(next);
+            }
+        }
+        for (int state = 0; state < stateCount; state++) {
+            outputs[state] = trieOutputs.get(state);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] |= outputs[failure[state]];
+            for (int c = 0; c < 256; c++) {
+                int next = trie.get(state)[c];
+                if (next != 0) {
+                    failure[next] = transitions[(failure[state] << 8) | c];
+                    transitions[(state << 8) | c] = next;
+                    queue.add(next);
+                } else {
+                    transitions[(state << 8) | c] = transitions[(failure[state] << 8) | c];
+                }
+            }
+        }
+        // 大写字母与小写字母转移相同
+        for (int state = 0; state < stateCount; state++) {
+            for (int c = 'A'; c <= 'Z'; c++) {
+                transitions[(state << 8) | c] = transitions[(state << 8) | fold(c)];
+            }
+        }
+    }
+
+    /**
+     * 初始状态
+     */
+    public static int initialState() {
+        return 0;
+    }
+
+    /**
+     * 输入一个字节后的状态
+     */
+    public int next(int state, byte b) {
+        return transitions[(state << 8) | (b & 0xff)];
+    }
+
+    /**
+     * 以刚输入的字节结尾的关键词（未复核大小写）
+     */
+    public long candidates(int state) {
+        return outputs[state];
+    }
+
+    /**
+     * 复核候选关键词的大小写
+     *
+     * @param candidates 候选关键词位掩码
+     * @param recent 最近输入字节的环形缓冲区，长度为{@link #RECENT_BYTES}
+     * @param recentEnd 已写入环形缓冲区的字节总数，最近输入的字节位于recentEnd - 1
+     * @return 实际匹配的关键词位掩码
+     */
+    public long verify(long candidates, byte[] recent, long recentEnd) {
+        long matched = candidates;
+        long toVerify = candidates & verifyMask;
+        while (toVerify != 0) {
+            int index = Long.numberOfTrailingZeros(toVerify);
+            toVerify &= toVerify - 1;
+            byte[] keyword = keywords[index];
+            long start = recentEnd - keyword.length;
+            for (int i = 0; i < keyword.length; i++) {
+                if (recent[(int) ((start + i) & RECENT_MASK)] != keyword[i]) {
+                    matched &= ~(1L << index);
+                    break;
+                }
+            }
+        }
+        return matched;
+    }
+
+    private static int[] newNode() {
+        return new int[256];
+    }
+
+    private static boolean isAsciiLetter(int c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    private static int fold(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+}
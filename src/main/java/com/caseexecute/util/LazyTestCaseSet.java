@@ -0,0 +1,240 @@
+package com.caseexecute.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 按需解压的用例集
+ * 打开下载好的用例集压缩包并索引中央目录，只解压任务用例列表引用的脚本（按{@link ScriptIndex}查找）
+ * 和用例集清单（压缩包根目录的case-manifest.json）声明的共享依赖，其余条目在查找时按需解压：
+ * <pre>
+ * {"shared": ["common/**", "lib/**", "data/config.yaml"]}
+ * </pre>
+ * 用例集不包含清单时无法确定脚本的依赖，解压全部条目。任务结束前必须关闭，释放压缩包文件句柄
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+public class LazyTestCaseSet implements AutoCloseable {
+
+    public static final String MANIFEST_NAME = "case-manifest.json";
+
+    private final ZipFile zipFile;
+    private final Path root;
+    private final int threads;
+    private final Map<String, ZipArchiveEntry> index = new LinkedHashMap<>();
+    private final Set<String> extracted = new HashSet<>();
+    private final List<Pattern> sharedPatterns;
+    private final ScriptIndex scriptIndex;
+    private long extractedBytes;
+
+    private LazyTestCaseSet(ZipFile zipFile, Path root, int threads) throws IOException {
+        this.zipFile = zipFile;
+        this.root = root;
+        this.threads = threads;
+        for (ZipArchiveEntry entry : Collections.list(zipFile.getEntries())) {
+            if (!entry.isDirectory()) {
+                FileDownloadUtil.resolveEntryPath(root, entry.getName());
+                index.put(entry.getName(), entry);
+            }
+        }
+        JsonNode manifest = readManifest();
+        this.sharedPatterns = manifest != null ? sharedPatterns(manifest) : null;
+        this.scriptIndex = new ScriptIndex(index.keySet(), manifest);
+    }
+
+    /**
+     * 打开用例集压缩包
+     *
+     * @param zipFilePath 用例集压缩包
+     * @param extractPath 解压目录
+     * @param threads 解压线程数
+     * @return 按需解压的用例集
+     * @throws IOException 压缩包无法读取或包含非法路径
+     */
+    public static LazyTestCaseSet open(Path zipFilePath, Path extractPath, int threads) throws IOException {
+        Path root = extractPath.toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        ZipFile zipFile = new ZipFile(zipFilePath.toFile());
+        try {
+            return new LazyTestCaseSet(zipFile, root, Math.max(1, threads));
+        } catch (IOException | RuntimeException e) {
+            zipFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取解压目录
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * 用例集是否包含清单
+     */
+    public boolean hasManifest() {
+        return sharedPatterns != null;
+    }
+
+    /**
+     * 获取根据压缩包中央目录构建的脚本索引
+     */
+    public ScriptIndex getScriptIndex() {
+        return scriptIndex;
+    }
+
+    /**
+     * 解压用例列表需要的脚本和清单声明的共享依赖，没有清单时解压全部条目
+     *
+     * @param testCaseNumbers 用例编号
+     * @throws IOException 解压异常
+     */
+    public synchronized void extractRequired(Collection<String> testCaseNumbers) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Set<String> scripts = new HashSet<>();
+        for (String testCaseNumber : testCaseNumbers) {
+            if (testCaseNumber != null && !testCaseNumber.trim().isEmpty()) {
+                String scriptPath = scriptIndex.find(testCaseNumber);
+                if (scriptPath != null) {
+                    scripts.add(scriptPath);
+                }
+            }
+        }
+
+        List<ZipArchiveEntry> required = new ArrayList<>();
+        for (ZipArchiveEntry entry : index.values()) {
+            if (!hasManifest() || isShared(entry.getName()) || scripts.contains(entry.getName())) {
+                required.add(entry);
+            }
+        }
+        extract(required);
+
+        log.info("用例集按需解压完成 - 目录: {}, 清单: {}, 已解压条目: {}/{}, 已解压大小: {}KB, 耗时: {}ms",
+                root, hasManifest() ? "有" : "无（全部解压）", extracted.size(), index.size(),
+                extractedBytes / 1024, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 解压单个条目，已解压时直接返回
+     *
+     * @param entryName 条目在压缩包中的路径
+     * @return 解压后的文件路径，压缩包中不存在该条目时返回null
+     * @throws IOException 解压异常
+     */
+    public synchronized Path faultIn(String entryName) throws IOException {
+        ZipArchiveEntry entry = index.get(entryName);
+        if (entry == null) {
+            return null;
+        }
+        if (!extracted.contains(entryName)) {
+            log.info("按需解压用例集条目: {}", entryName);
+            extract(Collections.singletonList(entry));
+        }
+        return root.resolve(entryName).normalize();
+    }
+
+    private void extract(List<ZipArchiveEntry> entries) throws IOException {
+        List<ZipArchiveEntry> pending = new ArrayList<>();
+        for (ZipArchiveEntry entry : entries) {
+            if (!extracted.contains(entry.getName())) {
+                pending.add(entry);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        FileDownloadUtil.extractArchiveEntries(zipFile, pending, root, threads);
+        for (ZipArchiveEntry entry : pending) {
+            extracted.add(entry.getName());
+            extractedBytes += Math.max(0, entry.getSize());
+        }
+    }
+
+    /**
+     * 读取用例集清单，清单不存在时返回null
+     */
+    private JsonNode readManifest() throws IOException {
+        ZipArchiveEntry manifestEntry = index.get(MANIFEST_NAME);
+        if (manifestEntry == null) {
+            return null;
+        }
+        try (InputStream inputStream = zipFile.getInputStream(manifestEntry)) {
+            return new ObjectMapper().readTree(inputStream);
+        }
+    }
+
+    /**
+     * 清单中声明的共享依赖
+     */
+    private static List<Pattern> sharedPatterns(JsonNode manifest) {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(Pattern.compile(Pattern.quote(MANIFEST_NAME)));
+        for (JsonNode glob : manifest.path("shared")) {
+            patterns.add(globToPattern(glob.asText()));
+        }
+        log.info("读取用例集清单 - 共享依赖: {}", manifest.path("shared"));
+        return patterns;
+    }
+
+    private boolean isShared(String entryName) {
+        for (Pattern pattern : sharedPatterns) {
+            if (pattern.matcher(entryName).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 将清单中的通配符转换为正则表达式：**匹配任意层级目录，*和?不跨越目录，以/结尾表示目录下的全部条目
+     */
+    private static Pattern globToPattern(String glob) {
+        String normalized = glob.trim().replace('\\', '/');
+        if (normalized.startsWith("/")) {
+            normalized = normalized.substring(1);
+        }
+        if (normalized.endsWith("/")) {
+            normalized = normalized + "**";
+        }
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (c == '*' && i + 1 < normalized.length() && normalized.charAt(i + 1) == '*') {
+                regex.append(".*");
+                i++;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    @Override
+    public void close() throws IOException {
+        zipFile.close();
+    }
+}
@@ -0,0 +1,285 @@
+package com.caseexecute.util;
+
+import com.caseexecute.config.FileStorageConfig;
+import com.caseexecute.config.LogUploadConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用例日志后台上传管道
+ * 用例执行线程只提交上传请求并立即得到日志的目标URL（由gohttpserver地址、任务ID和文件名确定），
+ * 结果上报不再等待上传完成。日志文件先硬链接（不支持时复制）到文件存储根目录的log-upload-spool目录，
+ * 任务结束清理任务目录不影响待上传的日志；上传由固定数量的线程执行，失败按指数退避重试，
+ * 上传成功或放弃后删除暂存文件。等待上传的日志数达到上限时在调用线程上同步上传
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class LogUploadPipeline implements InitializingBean, DisposableBean {
+
+    private static final String SPOOL_DIRECTORY = "log-upload-spool";
+
+    @Autowired
+    private LogUploadConfig logUploadConfig;
+
+    @Autowired
+    private FileStorageConfig fileStorageConfig;
+
+    @Autowired
+    private GoHttpServerClient goHttpServerClient;
+
+    private final AtomicInteger backlog = new AtomicInteger();
+    private final AtomicInteger inProgress = new AtomicInteger();
+    private final AtomicLong spoolSequence = new AtomicLong();
+    private final AtomicLong submittedUploads = new AtomicLong();
+    private final AtomicLong uploadedFiles = new AtomicLong();
+    private final AtomicLong uploadedBytes = new AtomicLong();
+    private final AtomicLong uploadMillis = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong abandonedUploads = new AtomicLong();
+    private final AtomicLong syncFallbackUploads = new AtomicLong();
+
+    private ScheduledThreadPoolExecutor executor;
+    private Path spoolDirectory;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!logUploadConfig.isAsyncEnabled()) {
+            log.info("用例日志后台上传未启用，日志在用例执行线程上同步上传");
+            return;
+        }
+        String rootDir = fileStorageConfig.getRootDirectory() != null ? fileStorageConfig.getRootDirectory() : System.getProperty("java.io.tmpdir");
+        spoolDirectory = Paths.get(rootDir, SPOOL_DIRECTORY);
+        try {
+            if (Files.exists(spoolDirectory)) {
+                // 暂存文件不记录上传地址，服务重启前未完成的上传无法继续
+                log.warn("清理上次运行遗留的待上传日志 - 目录: {}", spoolDirectory);
+                FileUtils.deleteDirectory(spoolDirectory.toFile());
+            }
+            Files.createDirectories(spoolDirectory);
+        } catch (IOException e) {
+            log.error("创建日志上传暂存目录失败，日志在用例执行线程上同步上传 - 目录: {}, 错误: {}", spoolDirectory, e.getMessage());
+            spoolDirectory = null;
+            return;
+        }
+        int concurrency = Math.max(1, logUploadConfig.getConcurrency());
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "case-log-uploader-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 关闭时不再执行等待重试的上传
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        log.info("用例日志后台上传管道已启动 - 并发数: {}, 等待上传上限: {}, 最多上传次数: {}",
+                concurrency, logUploadConfig.getQueueCapacity(), logUploadConfig.getMaxAttempts());
+    }
+
+    /**
+     * 提交日志上传
+     *
+     * @param taskId 任务ID
+     * @param logFile 日志文件
+     * @param targetFileName 上传后的文件名
+     * @param goHttpServerUrl gohttpserver地址
+     * @return 日志的目标URL；后台上传时立即返回，同步上传失败时返回null
+     */
+    public String submit(String taskId, Path logFile, String targetFileName, String goHttpServerUrl) {
+        submittedUploads.incrementAndGet();
+        String fileUrl = goHttpServerClient.fileUrl(targetFileName, goHttpServerUrl, taskId);
+        if (executor == null) {
+            return uploadNow(taskId, logFile, targetFileName, goHttpServerUrl) ? fileUrl : null;
+        }
+        if (backlog.incrementAndGet() > Math.max(1, logUploadConfig.getQueueCapacity())) {
+            backlog.decrementAndGet();
+            syncFallbackUploads.incrementAndGet();
+            log.warn("等待上传的日志数已达上限，同步上传 - 任务ID: {}, 文件: {}, 等待上传: {}", taskId, targetFileName, backlog.get());
+            return uploadNow(taskId, logFile, targetFileName, goHttpServerUrl) ? fileUrl : null;
+        }
+        Path spoolFile;
+        try {
+            spoolFile = spool(taskId, logFile);
+        } catch (IOException e) {
+            backlog.decrementAndGet();
+            syncFallbackUploads.incrementAndGet();
+            log.warn("暂存待上传日志失败，同步上传 - 任务ID: {}, 文件: {}, 错误: {}", taskId, logFile, e.getMessage());
+            return uploadNow(taskId, logFile, targetFileName, goHttpServerUrl) ? fileUrl : null;
+        }
+        UploadJob job = new UploadJob(taskId, spoolFile, targetFileName, goHttpServerUrl, fileUrl);
+        try {
+            executor.execute(job);
+        } catch (RejectedExecutionException e) {
+            // 服务正在关闭
+            job.finish();
+            syncFallbackUploads.incrementAndGet();
+            return uploadNow(taskId, logFile, targetFileName, goHttpServerUrl) ? fileUrl : null;
+        }
+        log.info("日志已提交后台上传 - 任务ID: {}, 文件: {}, 目标URL: {}", taskId, targetFileName, fileUrl);
+        return fileUrl;
+    }
+
+    /**
+     * 上传管道指标
+     */
+    public Map<String, Object> getMetrics() {
+        long millis = uploadMillis.get();
+        long bytes = uploadedBytes.get();
+        long files = uploadedFiles.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("asyncEnabled", executor != null);
+        metrics.put("concurrency", executor != null ? executor.getCorePoolSize() : 0);
+        metrics.put("backlog", backlog.get());
+        metrics.put("inProgress", inProgress.get());
+        metrics.put("submittedUploads", submittedUploads.get());
+        metrics.put("uploadedFiles", files);
+        metrics.put("uploadedBytes", bytes);
+        metrics.put("failedAttempts", failedAttempts.get());
+        metrics.put("retries", retries.get());
+        metrics.put("abandonedUploads", abandonedUploads.get());
+        metrics.put("syncFallbackUploads", syncFallbackUploads.get());
+        metrics.put("averageUploadMillis", files > 0 ? millis / files : 0);
+        metrics.put("averageThroughputKBps", millis > 0 ? bytes * 1000 / 1024 / millis : 0);
+        return metrics;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(Math.max(0, logUploadConfig.getShutdownTimeoutSeconds()), TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+        if (backlog.get() > 0) {
+            log.warn("服务关闭时仍有用例日志未上传 - 日志数: {}", backlog.get());
+        }
+    }
+
+    /**
+     * 把日志放入暂存目录，优先使用硬链接避免复制
+     */
+    private Path spool(String taskId, Path logFile) throws IOException {
+        Path spoolFile = spoolDirectory.resolve(spoolSequence.incrementAndGet() + "_" + taskId + "_" + logFile.getFileName());
+        try {
+            Files.createLink(spoolFile, logFile);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(logFile, spoolFile);
+        }
+        return spoolFile;
+    }
+
+    private boolean uploadNow(String taskId, Path logFile, String targetFileName, String goHttpServerUrl) {
+        try {
+            long startTime = System.currentTimeMillis();
+            long size = Files.size(logFile);
+            String uploadedUrl = goHttpServerClient.uploadLocalFile(logFile.toString(), targetFileName, goHttpServerUrl, taskId);
+            recordUpload(size, System.currentTimeMillis() - startTime);
+            log.info("日志文件上传成功 - 任务ID: {}, 上传URL: {}", taskId, uploadedUrl);
+            return true;
+        } catch (Exception e) {
+            failedAttempts.incrementAndGet();
+            log.error("日志文件上传失败 - 任务ID: {}, 文件: {}, 错误: {}", taskId, targetFileName, e.getMessage());
+            return false;
+        }
+    }
+
+    private void recordUpload(long bytes, long millis) {
+        uploadedFiles.incrementAndGet();
+        uploadedBytes.addAndGet(bytes);
+        uploadMillis.addAndGet(millis);
+    }
+
+    /**
+     * 一个日志的上传，失败时按指数退避重新调度
+     */
+    private class UploadJob implements Runnable {
+        private final String taskId;
+        private final Path spoolFile;
+        private final String targetFileName;
+        private final String goHttpServerUrl;
+        private final String fileUrl;
+        private int attempts;
+        private long backoffMillis;
+
+        private UploadJob(String taskId, Path spoolFile, String targetFileName, String goHttpServerUrl, String fileUrl) {
+            this.taskId = taskId;
+            this.spoolFile = spoolFile;
+            this.targetFileName = targetFileName;
+            this.goHttpServerUrl = goHttpServerUrl;
+            this.fileUrl = fileUrl;
+        }
+
+        @Override
+        public void run() {
+            attempts++;
+            inProgress.incrementAndGet();
+            try {
+                long startTime = System.currentTimeMillis();
+                long size = Files.size(spoolFile);
+                goHttpServerClient.uploadLocalFile(spoolFile.toString(), targetFileName, goHttpServerUrl, taskId);
+                recordUpload(size, System.currentTimeMillis() - startTime);
+                log.info("日志文件后台上传成功 - 任务ID: {}, 上传URL: {}, 上传次数: {}", taskId, fileUrl, attempts);
+                finish();
+            } catch (Exception e) {
+                failedAttempts.incrementAndGet();
+                retryOrAbandon(e);
+            } finally {
+                inProgress.decrementAndGet();
+            }
+        }
+
+        private void retryOrAbandon(Exception e) {
+            if (attempts >= Math.max(1, logUploadConfig.getMaxAttempts()) || executor.isShutdown()) {
+                abandonedUploads.incrementAndGet();
+                log.error("日志文件上传失败，放弃上传 - 任务ID: {}, 目标URL: {}, 上传次数: {}, 错误: {}",
+                        taskId, fileUrl, attempts, e.getMessage());
+                finish();
+                return;
+            }
+            backoffMillis = backoffMillis == 0
+                    ? Math.max(1, logUploadConfig.getRetryInitialBackoffMillis())
+                    : Math.min(backoffMillis * 2, Math.max(1, logUploadConfig.getRetryMaxBackoffMillis()));
+            retries.incrementAndGet();
+            log.warn("日志文件上传失败，{}ms后重试 - 任务ID: {}, 文件: {}, 上传次数: {}, 错误: {}",
+                    backoffMillis, taskId, targetFileName, attempts, e.getMessage());
+            try {
+                executor.schedule(this, backoffMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException rejected) {
+                abandonedUploads.incrementAndGet();
+                finish();
+            }
+        }
+
+        /**
+         * 上传结束（成功或放弃），删除暂存文件
+         */
+        private void finish() {
+            backlog.decrementAndGet();
+            try {
+                Files.deleteIfExists(spoolFile);
+            } catch (IOException e) {
+                log.warn("删除待上传日志暂存文件失败 - 文件: {}, 错误: {}", spoolFile, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.caseexecute.util;
+
+import com.caseexecute.config.HttpClientConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 共享HTTP客户端
+ * 结果上报、日志上传和用例集下载共用一个带连接池的HTTP客户端，同一目标地址的请求复用长连接，
+ * 不再为每次请求重新建立TCP/TLS连接；空闲连接由后台线程定期关闭。
+ * 客户端由本组件管理，调用方只关闭响应，不关闭客户端
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class PooledHttpClient implements DisposableBean {
+
+    private static volatile PooledHttpClient standalone;
+
+    private final HttpClientConfig config;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong leaseTimeouts = new AtomicLong();
+    private final AtomicLong leaseWaitNanos = new AtomicLong();
+    private final AtomicLong maxLeaseWaitNanos = new AtomicLong();
+
+    @Autowired
+    public PooledHttpClient(HttpClientConfig config) {
+        this.config = config;
+        this.connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(Math.max(1, config.getMaxTotal()));
+        connectionManager.setDefaultMaxPerRoute(Math.max(1, config.getMaxPerRoute()));
+        connectionManager.setValidateAfterInactivity(config.getValidateAfterInactivityMillis());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.getConnectTimeoutMillis())
+                .setSocketTimeout(config.getSocketTimeoutMillis())
+                .setConnectionRequestTimeout(config.getConnectionRequestTimeoutMillis())
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(new MeteredConnectionManager(connectionManager))
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(Math.max(1, config.getIdleTimeoutSeconds()), TimeUnit.SECONDS)
+                .build();
+        log.info("HTTP客户端连接池已创建 - 最大连接数: {}, 每个地址最大连接数: {}, 连接超时: {}ms, 读取超时: {}ms",
+                config.getMaxTotal(), config.getMaxPerRoute(), config.getConnectTimeoutMillis(), config.getSocketTimeoutMillis());
+    }
+
+    /**
+     * 未运行在Spring容器中时使用的共享实例，按默认配置创建
+     */
+    public static PooledHttpClient standalone() {
+        if (standalone == null) {
+            synchronized (PooledHttpClient.class) {
+                if (standalone == null) {
+                    standalone = new PooledHttpClient(new HttpClientConfig());
+                }
+            }
+        }
+        return standalone;
+    }
+
+    /**
+     * 共享的HTTP客户端，调用方不要关闭
+     */
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * 连接池指标
+     */
+    public Map<String, Object> getMetrics() {
+        PoolStats stats = connectionManager.getTotalStats();
+        long leaseCount = leases.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("maxTotal", stats.getMax());
+        metrics.put("maxPerRoute", connectionManager.getDefaultMaxPerRoute());
+        metrics.put("leased", stats.getLeased());
+        metrics.put("available", stats.getAvailable());
+        metrics.put("pending", stats.getPending());
+        metrics.put("routes", connectionManager.getRoutes().size());
+        metrics.put("leases", leaseCount);
+        metrics.put("leaseTimeouts", leaseTimeouts.get());
+        metrics.put("averageLeaseWaitMillis", leaseCount > 0 ? leaseWaitNanos.get() / leaseCount / 1_000_000.0 : 0.0);
+        metrics.put("maxLeaseWaitMillis", maxLeaseWaitNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+
+    @Override
+    public void destroy() {
+        try {
+            httpClient.close();
+            log.info("HTTP客户端连接池已关闭");
+        } catch (IOException e) {
+            log.warn("关闭HTTP客户端连接池失败: {}", e.getMessage());
+        }
+    }
+
+    private void recordLease(long waitNanos) {
+        leases.incrementAndGet();
+        leaseWaitNanos.addAndGet(waitNanos);
+        long max;
+        while (waitNanos > (max = maxLeaseWaitNanos.get())) {
+            if (maxLeaseWaitNanos.compareAndSet(max, waitNanos)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 统计从连接池获取连接的次数和等待时间，其余操作直接交给连接池
+     */
+    private class MeteredConnectionManager implements HttpClientConnectionManager {
+        private final HttpClientConnectionManager delegate;
+
+        private MeteredConnectionManager(HttpClientConnectionManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+            ConnectionRequest request = delegate.requestConnection(route, state);
+            return new ConnectionRequest() {
+                @Override
+                public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+                        throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                    long start = System.nanoTime();
+                    try {
+                        HttpClientConnection connection = request.get(timeout, timeUnit);
+                        recordLease(System.nanoTime() - start);
+                        return connection;
+                    } catch (ConnectionPoolTimeoutException e) {
+                        leaseTimeouts.incrementAndGet();
+                        log.warn("从HTTP连接池获取连接超时 - 目标地址: {}, 等待: {}ms, 连接池: {}",
+                                route.getTargetHost(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                                connectionManager.getTotalStats());
+                        throw e;
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return request.cancel();
+                }
+            };
+        }
+
+        @Override
+        public void releaseConnection(HttpClientConnection conn, Object newState, long validDuration, TimeUnit timeUnit) {
+            delegate.releaseConnection(conn, newState, validDuration, timeUnit);
+        }
+
+        @Override
+        public void connect(HttpClientConnection conn, HttpRoute route, int connectTimeout, HttpContext context) throws IOException {
+            delegate.connect(conn, route, connectTimeout, context);
+        }
+
+        @Override
+        public void upgrade(HttpClientConnection conn, HttpRoute route, HttpContext context) throws IOException {
+            delegate.upgrade(conn, route, context);
+        }
+
+        @Override
+        public void routeComplete(HttpClientConnection conn, HttpRoute route, HttpContext context) throws IOException {
+            delegate.routeComplete(conn, route, context);
+        }
+
+        @Override
+        public void closeIdleConnections(long idleTime, TimeUnit timeUnit) {
+            delegate.closeIdleConnections(idleTime, timeUnit);
+        }
+
+        @Override
+        public void closeExpiredConnections() {
+            delegate.closeExpiredConnections();
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+    }
+}
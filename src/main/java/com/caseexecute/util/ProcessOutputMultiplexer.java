@@ -0,0 +1,263 @@
+package com.caseexecute.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 子进程输出多路复用器
+ * 所有子进程的输出流由固定数量的泵线程轮询读取，线程数不随同时执行的用例数增长：
+ * 只在available()表明管道中有数据时读取，读取不会阻塞线程；所有流都没有数据时按退避间隔休眠。
+ * 每个输出流始终由同一个泵线程读取，同一进程的输出按顺序写入
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+public final class ProcessOutputMultiplexer {
+
+    /**
+     * 默认泵线程数
+     */
+    public static final int DEFAULT_THREADS = 2;
+
+    /**
+     * 单次读取的最大字节数
+     */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 所有流都没有数据时的最长休眠间隔（毫秒）
+     */
+    private static final long MAX_IDLE_SLEEP_MILLIS = 20;
+
+    /**
+     * 进程退出后管道持续没有数据多久视为读取结束（毫秒）
+     * 子进程继承的输出流可能在进程退出后仍未关闭，不等待其关闭
+     */
+    private static final long EXIT_DRAIN_MILLIS = 100;
+
+    private static volatile PumpThread[] pumpThreads;
+
+    private ProcessOutputMultiplexer() {
+    }
+
+    /**
+     * 输出目标，只由所属泵线程调用
+     */
+    public interface Sink {
+
+        /**
+         * 写入一段输出
+         */
+        void write(byte[] buffer, int length) throws IOException;
+
+        /**
+         * 管道暂无数据时调用，把已写入的输出刷新到目标
+         */
+        void flush() throws IOException;
+
+        /**
+         * 输出流读取结束后调用
+         */
+        void close() throws IOException;
+    }
+
+    /**
+     * 注册子进程输出流
+     *
+     * @param process 子进程
+     * @param sink 输出目标
+     * @param threads 泵线程数，仅第一次注册时生效
+     * @return 输出流读取结束、输出目标关闭后完成的Future
+     */
+    public static CompletableFuture<Void> register(Process process, Sink sink, int threads) {
+        Channel channel = new Channel(process, sink);
+        PumpThread target = null;
+        for (PumpThread pumpThread : pumpThreads(threads)) {
+            if (target == null || pumpThread.load.get() < target.load.get()) {
+                target = pumpThread;
+            }
+        }
+        target.add(channel);
+        return channel.completion;
+    }
+
+    /**
+     * 正在读取的输出流数
+     */
+    public static int getActiveChannels() {
+        PumpThread[] current = pumpThreads;
+        int channels = 0;
+        if (current != null) {
+            for (PumpThread pumpThread : current) {
+                channels += pumpThread.load.get();
+            }
+        }
+        return channels;
+    }
+
+    private static PumpThread[] pumpThreads(int threads) {
+        PumpThread[] current = pumpThreads;
+        if (current != null) {
+            return current;
+        }
+        synchronized (ProcessOutputMultiplexer.class) {
+            if (pumpThreads == null) {
+                PumpThread[] created = new PumpThread[Math.max(1, threads)];
+                for (int i = 0; i < created.length; i++) {
+                    created[i] = new PumpThread("case-log-pump-" + (i + 1));
+                    created[i].start();
+                }
+                log.info("子进程输出泵线程已启动 - 线程数: {}", created.length);
+                pumpThreads = created;
+            }
+            return pumpThreads;
+        }
+    }
+
+    /**
+     * 泵线程，轮询读取分配给它的所有输出流
+     */
+    private static class PumpThread extends Thread {
+        private final Queue<Channel> incoming = new ConcurrentLinkedQueue<>();
+        private final List<Channel> channels = new ArrayList<>();
+        private final AtomicInteger load = new AtomicInteger();
+        private final byte[] buffer = new byte[READ_BUFFER_SIZE];
+
+        private PumpThread(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        private void add(Channel channel) {
+            load.incrementAndGet();
+            incoming.add(channel);
+            LockSupport.unpark(this);
+        }
+
+        @Override
+        public void run() {
+            long idleSleepMillis = 1;
+            while (true) {
+                Channel added;
+                while ((added = incoming.poll()) != null) {
+                    channels.add(added);
+                }
+
+                boolean progressed = false;
+                for (Iterator<Channel> iterator = channels.iterator(); iterator.hasNext(); ) {
+                    Channel channel = iterator.next();
+                    if (channel.poll(buffer)) {
+                        progressed = true;
+                    }
+                    if (channel.finished) {
+                        iterator.remove();
+                        load.decrementAndGet();
+                    }
+                }
+
+                if (progressed) {
+                    idleSleepMillis = 1;
+                } else if (channels.isEmpty() && incoming.isEmpty()) {
+                    LockSupport.park(this);
+                } else {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(idleSleepMillis));
+                    idleSleepMillis = Math.min(MAX_IDLE_SLEEP_MILLIS, idleSleepMillis * 2);
+                }
+            }
+        }
+    }
+
+    /**
+     * 单个子进程的输出流
+     */
+    private static class Channel {
+        private final Process process;
+        private final InputStream inputStream;
+        private final Sink sink;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private boolean dirty;
+        private long exitedAt;
+        private boolean finished;
+
+        private Channel(Process process, Sink sink) {
+            this.process = process;
+            this.inputStream = process.getInputStream();
+            this.sink = sink;
+        }
+
+        /**
+         * 读取管道中已有的数据
+         *
+         * @return 是否读取到数据
+         */
+        private boolean poll(byte[] buffer) {
+            try {
+                int available = inputStream.available();
+                if (available > 0) {
+                    int read = inputStream.read(buffer, 0, Math.min(available, buffer.length));
+                    if (read < 0) {
+                        finish(null);
+                        return false;
+                    }
+                    sink.write(buffer, read);
+                    dirty = true;
+                    exitedAt = 0;
+                    return true;
+                }
+                if (dirty) {
+                    sink.flush();
+                    dirty = false;
+                }
+                if (!process.isAlive()) {
+                    long now = System.currentTimeMillis();
+                    if (exitedAt == 0) {
+                        exitedAt = now;
+                    } else if (now - exitedAt >= EXIT_DRAIN_MILLIS) {
+                        finish(null);
+                    }
+                }
+                return false;
+            } catch (IOException | RuntimeException e) {
+                // 输出目标抛出的运行时异常只结束该输出流，泵线程继续读取其他输出流
+                if (e instanceof RuntimeException) {
+                    log.error("写入子进程输出时发生错误，停止读取该输出流 - 错误: {}", e.getMessage(), e);
+                }
+                finish(e);
+                return false;
+            }
+        }
+
+        private void finish(Exception error) {
+            finished = true;
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                log.debug("关闭子进程输出流失败: {}", e.getMessage());
+            }
+            try {
+                sink.close();
+            } catch (IOException | RuntimeException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+            if (error != null) {
+                completion.completeExceptionally(error);
+            } else {
+                completion.complete(null);
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.caseexecute.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进程回收器
+ * 统一监听用例进程的退出、超时和取消事件，执行线程阻塞等待事件而不是轮询进程状态：
+ * 进程退出或任务取消时立即唤醒，所有用例的超时由同一个定时器线程负责。
+ * 终止用例进程时先发送SIGTERM，宽限期结束后由同一个定时器线程发送SIGKILL，调用线程无需等待进程退出
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class ProcessReaper implements DisposableBean {
+
+    /**
+     * Java 9+ 提供的Process.onExit()，由JDK内部的进程回收线程通知退出，无需为每个进程占用等待线程
+     */
+    private static final Method ON_EXIT_METHOD = findOnExitMethod();
+
+    private final ScheduledThreadPoolExecutor timer;
+    private final ExecutorService waiterPool;
+    private final Map<String, Set<ProcessWatch>> watchesByTask = new ConcurrentHashMap<>();
+    private final Map<Process, CompletableFuture<Void>> terminations = new ConcurrentHashMap<>();
+
+    public ProcessReaper() {
+        timer = new ScheduledThreadPoolExecutor(1, daemonThreadFactory("process-timer"));
+        timer.setRemoveOnCancelPolicy(true);
+        waiterPool = Executors.newCachedThreadPool(daemonThreadFactory("process-waiter"));
+    }
+
+    /**
+     * 进程事件
+     */
+    public enum ProcessEvent {
+        /** 进程已退出 */
+        EXITED,
+        /** 进程执行超时 */
+        TIMEOUT,
+        /** 任务被取消 */
+        CANCELLED
+    }
+
+    /**
+     * 开始监听进程
+     *
+     * @param taskId 任务ID
+     * @param process 进程对象
+     * @param timeoutMillis 超时时长（毫秒）
+     * @return 进程监听句柄
+     */
+    public ProcessWatch watch(String taskId, Process process, long timeoutMillis) {
+        ProcessWatch watch = new ProcessWatch(taskId);
+        watchesByTask.computeIfAbsent(taskId, key -> ConcurrentHashMap.newKeySet()).add(watch);
+
+        ScheduledFuture<?> timeoutFuture = timer.schedule(() -> watch.signal(ProcessEvent.TIMEOUT), timeoutMillis, TimeUnit.MILLISECONDS);
+        watch.event.whenComplete((event, error) -> {
+            timeoutFuture.cancel(false);
+            Set<ProcessWatch> watches = watchesByTask.get(taskId);
+            if (watches != null) {
+                watches.remove(watch);
+                if (watches.isEmpty()) {
+                    watchesByTask.remove(taskId, watches);
+                }
+            }
+        });
+
+        onProcessExit(process).whenComplete((result, error) -> watch.signal(ProcessEvent.EXITED));
+        return watch;
+    }
+
+    /**
+     * 取消任务下所有正在等待的进程，等待线程会立即收到CANCELLED事件
+     *
+     * @param taskId 任务ID
+     * @return 收到取消事件的进程数
+     */
+    public int cancelTask(String taskId) {
+        Set<ProcessWatch> watches = watchesByTask.get(taskId);
+        int count = 0;
+        if (watches != null) {
+            for (ProcessWatch watch : watches) {
+                if (watch.signal(ProcessEvent.CANCELLED)) {
+                    count++;
+                }
+            }
+        }
+        log.info("已向任务下等待中的进程发送取消事件 - 任务ID: {}, 进程数: {}", taskId, count);
+        return count;
+    }
+
+    /**
+     * 终止用例进程及其子孙进程，不阻塞调用线程
+     * 用例进程是会话首进程时向整个会话发送SIGTERM，否则向进程树发送SIGTERM；
+     * 宽限期结束后向仍存活的进程发送SIGKILL。同一进程重复调用时返回同一个Future。
+     * 由执行器代为运行的用例（{@link DelegatedProcess}）通过{@link DelegatedProcess#killProcesses(boolean)}
+     * 终止本次执行自身的进程组或进程树，由执行器确认本次执行仍占用执行进程后再发送信号；
+     * 执行进程退出后子孙进程可能仍存活，宽限期结束后总是再发送一次SIGKILL
+     *
+     * @param process 用例进程
+     * @param graceMillis SIGTERM后等待进程自行退出的时长（毫秒）
+     * @return 终止完成（宽限期内全部退出或已发送SIGKILL）后完成的Future
+     */
+    public CompletableFuture<Void> terminate(Process process, long graceMillis) {
+        CompletableFuture<Void> termination = new CompletableFuture<>();
+        CompletableFuture<Void> existing = terminations.putIfAbsent(process, termination);
+        if (existing != null) {
+            return existing;
+        }
+        termination.whenComplete((result, error) -> terminations.remove(process, termination));
+
+        boolean delegated = process instanceof DelegatedProcess;
+        long pid = PythonExecutorUtil.getProcessId(process);
+        // 记录发送SIGTERM时的进程启动时间，升级为SIGKILL前校验，避免进程ID被复用后误杀其他进程
+        long startTime = !delegated && pid > 0 ? ProcessTree.startTime(pid) : -1;
+        boolean group = startTime >= 0 && ProcessTree.isGroupLeader(pid);
+        int signalled = 0;
+        if (delegated) {
+            signalled = ((DelegatedProcess) process).killProcesses(false);
+        } else if (startTime >= 0) {
+            signalled = group ? ProcessTree.killGroup(pid, false) : ProcessTree.killTree(process, false);
+        }
+        if (signalled <= 0) {
+            process.destroy();
+        }
+        log.info("已发送SIGTERM - PID: {}, 会话: {}, 进程数: {}, 宽限期: {}ms", pid, group || delegated, signalled, graceMillis);
+
+        Runnable escalation = () -> {
+            int killed = 0;
+            long currentStartTime = startTime >= 0 ? ProcessTree.startTime(pid) : -1;
+            if (delegated) {
+                killed = Math.max(((DelegatedProcess) process).killProcesses(true), 0);
+            } else if (currentStartTime == startTime && startTime >= 0) {
+                killed = group ? ProcessTree.killGroup(pid, true) : ProcessTree.killTree(process, true);
+            } else if (group && currentStartTime < 0) {
+                // 首进程已退出，会话中仍有成员时该进程ID不会被复用，按会话ID终止剩余成员
+                killed = ProcessTree.killGroup(pid, true);
+            }
+            if (killed == 0 && process.isAlive()) {
+                process.destroyForcibly();
+                killed = 1;
+            }
+            if (killed > 0) {
+                log.warn("宽限期内未退出，已发送SIGKILL - PID: {}, 进程数: {}", pid, killed);
+            }
+            termination.complete(null);
+        };
+        if (graceMillis <= 0) {
+            escalation.run();
+            return termination;
+        }
+        ScheduledFuture<?> escalationFuture = timer.schedule(escalation, graceMillis, TimeUnit.MILLISECONDS);
+        if (!group && !delegated) {
+            // 不在独立会话中的进程退出后无法再找到其子孙进程，提前结束
+            onProcessExit(process).whenComplete((result, error) -> {
+                if (escalationFuture.cancel(false)) {
+                    termination.complete(null);
+                }
+            });
+        }
+        return termination;
+    }
+
+    /**
+     * 获取进程退出的Future
+     */
+    private CompletableFuture<?> onProcessExit(Process process) {
+        if (ON_EXIT_METHOD != null) {
+            try {
+                return (CompletableFuture<?>) ON_EXIT_METHOD.invoke(process);
+            } catch (Exception e) {
+                log.debug("调用Process.onExit失败，改为等待线程: {}", e.getMessage());
+            }
+        }
+        // Java 8 没有进程退出回调，由等待线程阻塞在waitFor上，进程退出后立即返回
+        return CompletableFuture.runAsync(() -> {
+            try {
+                process.waitFor();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, waiterPool);
+    }
+
+    private static Method findOnExitMethod() {
+        try {
+            return Process.class.getMethod("onExit");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger index = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void destroy() {
+        int killed = ProcessTree.killAllTasks();
+        if (killed > 0) {
+            log.info("服务停止，已终止仍在运行的用例进程 - 进程数: {}", killed);
+        }
+        timer.shutdownNow();
+        waiterPool.shutdownNow();
+    }
+
+    /**
+     * 进程监听句柄
+     */
+    public static class ProcessWatch {
+        private final String taskId;
+        private final CompletableFuture<ProcessEvent> event = new CompletableFuture<>();
+
+        private ProcessWatch(String taskId) {
+            this.taskId = taskId;
+        }
+
+        private boolean signal(ProcessEvent processEvent) {
+            return event.complete(processEvent);
+        }
+
+        /**
+         * 阻塞等待第一个到达的进程事件
+         *
+         * @return 进程事件
+         * @throws InterruptedException 等待期间线程被中断
+         */
+        public ProcessEvent await() throws InterruptedException {
+            try {
+                return event.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("等待进程事件失败 - 任务ID: " + taskId, e.getCause());
+            }
+        }
+
+        /**
+         * 取消等待，等待线程收到CANCELLED事件
+         */
+        public void cancel() {
+            signal(ProcessEvent.CANCELLED);
+        }
+
+        public String getTaskId() { return taskId; }
+    }
+}
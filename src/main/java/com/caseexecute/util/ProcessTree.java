@@ -0,0 +1,535 @@
+package com.caseexecute.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Linux进程树工具类
+ * 直接读取/proc/&lt;pid&gt;/stat构建进程树并在JVM内发送信号，终止进程树时不再启动ps、pkill、kill等外部命令：
+ * 维护任务ID到用例进程ID的登记表，按任务终止时无需扫描系统进程；
+ * 登记时记录进程启动时间，发送信号前校验，避免进程ID被复用后误杀其他进程；
+ * 信号通过ProcessHandle（Java 9+，反射调用）发送，Java 8运行时合并为一条kill命令。
+ * 独立启动的用例进程通过setsid成为新会话的首进程，终止时按会话ID查找成员，
+ * 已脱离父进程（被init收养）的子孙进程也会一并终止
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+public class ProcessTree {
+
+    private static final Path PROC = Paths.get("/proc");
+    private static final boolean SUPPORTED = System.getProperty("os.name").toLowerCase().contains("linux") && Files.isDirectory(PROC);
+    private static final boolean UNIX = !System.getProperty("os.name").toLowerCase().contains("windows");
+    private static final int MAX_KILL_PASSES = 3;
+    private static final String SETSID_COMMAND = SUPPORTED ? findSetsidCommand() : null;
+
+    private static final Map<String, Map<Long, Long>> TASK_PROCESSES = new ConcurrentHashMap<>();
+
+    private static final Method PROCESS_HANDLE_OF;
+    private static final Method PROCESS_HANDLE_DESTROY;
+    private static final Method PROCESS_HANDLE_DESTROY_FORCIBLY;
+
+    static {
+        Method of = null;
+        Method destroy = null;
+        Method destroyForcibly = null;
+        try {
+            Class<?> processHandleClass = Class.forName("java.lang.ProcessHandle");
+            of = processHandleClass.getMethod("of", long.class);
+            destroy = processHandleClass.getMethod("destroy");
+            destroyForcibly = processHandleClass.getMethod("destroyForcibly");
+        } catch (ReflectiveOperationException e) {
+            log.info("当前Java运行时不支持ProcessHandle，终止进程树时使用kill命令发送信号");
+        }
+        PROCESS_HANDLE_OF = of;
+        PROCESS_HANDLE_DESTROY = destroy;
+        PROCESS_HANDLE_DESTROY_FORCIBLY = destroyForcibly;
+    }
+
+    private ProcessTree() {
+    }
+
+    /**
+     * 当前系统是否支持通过/proc管理进程树
+     */
+    public static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    /**
+     * 在新会话中启动命令，用例进程成为新会话和进程组的首进程，不支持时返回原命令
+     * 由JVM启动的子进程不是进程组首进程，setsid直接exec目标命令，进程ID不变
+     *
+     * @param command 原命令
+     * @return 通过setsid启动的命令
+     */
+    public static List<String> inNewSession(List<String> command) {
+        if (SETSID_COMMAND == null) {
+            return command;
+        }
+        List<String> wrapped = new ArrayList<>(command.size() + 1);
+        wrapped.add(SETSID_COMMAND);
+        wrapped.addAll(command);
+        return wrapped;
+    }
+
+    /**
+     * 进程是否为进程组或会话的首进程
+     *
+     * @param pid 进程ID
+     */
+    public static boolean isGroupLeader(long pid) {
+        String[] fields = readStatFields(pid);
+        if (fields == null || fields.length < 4) {
+            return false;
+        }
+        String leader = String.valueOf(pid);
+        return leader.equals(fields[2]) || leader.equals(fields[3]);
+    }
+
+    /**
+     * 向以指定进程为首进程的会话和进程组的所有成员发送信号
+     * 成员按会话ID和进程组ID查找，首进程退出后仍能找到被init收养的成员；
+     * 成员创建的、又另起会话的子孙进程按父子关系一并终止
+     *
+     * @param leaderPid 首进程ID
+     * @param force true发送SIGKILL，false发送SIGTERM
+     * @return 发送了信号的进程数
+     */
+    public static int killGroup(long leaderPid, boolean force) {
+        if (leaderPid <= 0) {
+            return 0;
+        }
+        if (!SUPPORTED) {
+            // 没有/proc的Unix系统（如macOS）无法查找成员，按进程组ID发送信号
+            return UNIX && killCommand(Collections.singletonList(-leaderPid), force) ? 1 : 0;
+        }
+        List<long[]> table = readProcessTable();
+        Set<Long> members = new LinkedHashSet<>();
+        for (long[] row : table) {
+            if (row[2] == leaderPid || row[3] == leaderPid) {
+                members.add(row[0]);
+            }
+        }
+        if (members.isEmpty()) {
+            return 0;
+        }
+        Set<Long> targets = collectDescendants(members, childrenIndex(table));
+        targets.addAll(members);
+        signal(targets, force);
+        return targets.size();
+    }
+
+    /**
+     * 强制终止所有任务登记的用例进程，服务停止时调用
+     * 用例进程位于独立会话，不会随服务所在的进程组收到终端发送的信号
+     *
+     * @return 发送了信号的进程数
+     */
+    public static int killAllTasks() {
+        int killed = 0;
+        for (String taskId : new ArrayList<>(TASK_PROCESSES.keySet())) {
+            for (Long pid : getTaskProcessIds(taskId)) {
+                killed += isGroupLeader(pid) ? killGroup(pid, true) : killTrees(Collections.singletonList(pid), true);
+            }
+            TASK_PROCESSES.remove(taskId);
+        }
+        return killed;
+    }
+
+    /**
+     * 登记任务的用例进程
+     *
+     * @param taskId 任务ID
+     * @param process 用例进程
+     */
+    public static void register(String taskId, Process process) {
+        if (!SUPPORTED || taskId == null || process == null) {
+            return;
+        }
+        long pid = PythonExecutorUtil.getProcessId(process);
+        long startTime = startTime(pid);
+        if (pid > 0 && startTime >= 0) {
+            TASK_PROCESSES.computeIfAbsent(taskId, key -> new ConcurrentHashMap<>()).put(pid, startTime);
+        }
+    }
+
+    /**
+     * 取消登记任务的用例进程
+     *
+     * @param taskId 任务ID
+     * @param process 用例进程
+     */
+    public static void unregister(String taskId, Process process) {
+        if (!SUPPORTED || taskId == null || process == null) {
+            return;
+        }
+        Map<Long, Long> processes = TASK_PROCESSES.get(taskId);
+        if (processes != null) {
+            processes.remove(PythonExecutorUtil.getProcessId(process));
+        }
+    }
+
+    /**
+     * 任务结束时清除登记表
+     *
+     * @param taskId 任务ID
+     */
+    public static void releaseTask(String taskId) {
+        if (taskId != null) {
+            TASK_PROCESSES.remove(taskId);
+        }
+    }
+
+    /**
+     * 获取任务已登记且仍在运行的用例进程ID
+     *
+     * @param taskId 任务ID
+     * @return 进程ID列表
+     */
+    public static List<Long> getTaskProcessIds(String taskId) {
+        Map<Long, Long> processes = TASK_PROCESSES.get(taskId);
+        if (processes == null) {
+            return Collections.emptyList();
+        }
+        List<Long> pids = new ArrayList<>();
+        for (Map.Entry<Long, Long> entry : processes.entrySet()) {
+            if (startTime(entry.getKey()) == entry.getValue()) {
+                pids.add(entry.getKey());
+            }
+        }
+        return pids;
+    }
+
+    /**
+     * 强制终止任务登记的所有用例进程树
+     *
+     * @param taskId 任务ID
+     * @return 发送了信号的进程数
+     */
+    public static int killTask(String taskId) {
+        List<Long> roots = getTaskProcessIds(taskId);
+        if (roots.isEmpty()) {
+            return 0;
+        }
+        int killed = killTrees(roots, true);
+        log.info("已终止任务的用例进程树 - 任务ID: {}, 用例进程数: {}, 终止进程数: {}", taskId, roots.size(), killed);
+        return killed;
+    }
+
+    /**
+     * 向用例进程及其所有子孙进程发送信号
+     *
+     * @param process 用例进程
+     * @param force true发送SIGKILL，false发送SIGTERM
+     * @return 发送了信号的进程数，无法获取进程ID或当前系统不支持时返回0
+     */
+    public static int killTree(Process process, boolean force) {
+        long pid = process != null ? PythonExecutorUtil.getProcessId(process) : -1;
+        if (!SUPPORTED || pid <= 0) {
+            return 0;
+        }
+        return killTrees(Collections.singletonList(pid), force);
+    }
+
+    /**
+     * 向进程及其所有子孙进程发送信号
+     * 先读取一次/proc得到整棵进程树，再一次性向所有进程发送信号；
+     * 发送期间新创建的子进程在下一轮扫描中补充终止
+     *
+     * @param roots 根进程ID
+     * @param force true发送SIGKILL，false发送SIGTERM
+     * @return 发送了信号的进程数
+     */
+    public static int killTrees(List<Long> roots, boolean force) {
+        Set<Long> signalled = new LinkedHashSet<>();
+        Set<Long> parents = new LinkedHashSet<>(roots);
+        for (int pass = 0; pass < MAX_KILL_PASSES && !parents.isEmpty(); pass++) {
+            Set<Long> tree = collectDescendants(parents, childrenIndex(readProcessTable()));
+            tree.addAll(parents);
+            tree.removeAll(signalled);
+            if (tree.isEmpty()) {
+                break;
+            }
+            signal(tree, force);
+            signalled.addAll(tree);
+            // 只在已终止进程仍有子进程时继续扫描
+            parents = tree;
+        }
+        return signalled.size();
+    }
+
+    /**
+     * 获取进程的所有子孙进程ID（不含自身）
+     *
+     * @param pid 进程ID
+     * @return 子孙进程ID
+     */
+    public static Set<Long> getDescendants(long pid) {
+        return collectDescendants(Collections.singleton(pid), childrenIndex(readProcessTable()));
+    }
+
+    /**
+     * 按命令行内容查找进程
+     *
+     * @param fragments 命令行需要包含的全部内容
+     * @return 进程ID列表
+     */
+    public static List<Long> findByCommandLine(String... fragments) {
+        List<Long> pids = new ArrayList<>();
+        if (!SUPPORTED) {
+            return pids;
+        }
+        long self = selfPid();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(PROC)) {
+            for (Path entry : entries) {
+                long pid = parsePid(entry);
+                if (pid <= 0 || pid == self) {
+                    continue;
+                }
+                String commandLine = commandLine(pid);
+                boolean matched = commandLine != null;
+                for (int i = 0; matched && i < fragments.length; i++) {
+                    matched = commandLine.contains(fragments[i]);
+                }
+                if (matched) {
+                    pids.add(pid);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("读取/proc失败: {}", e.getMessage());
+        }
+        return pids;
+    }
+
+    /**
+     * 读取进程的命令行，参数之间以空格分隔
+     *
+     * @param pid 进程ID
+     * @return 命令行，进程不存在时返回null
+     */
+    public static String commandLine(long pid) {
+        try {
+            byte[] content = Files.readAllBytes(PROC.resolve(String.valueOf(pid)).resolve("cmdline"));
+            for (int i = 0; i < content.length; i++) {
+                if (content[i] == 0) {
+                    content[i] = ' ';
+                }
+            }
+            return new String(content, StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 读取进程启动时间（/proc/&lt;pid&gt;/stat第22个字段，单位为时钟滴答）
+     *
+     * @param pid 进程ID
+     * @return 启动时间，进程不存在时返回-1
+     */
+    static long startTime(long pid) {
+        String[] fields = readStatFields(pid);
+        return fields != null && fields.length > 19 ? Long.parseLong(fields[19]) : -1;
+    }
+
+    /**
+     * 读取进程的会话ID（/proc/&lt;pid&gt;/stat第6个字段）
+     *
+     * @param pid 进程ID
+     * @return 会话ID，进程不存在时返回-1
+     */
+    static long sessionId(long pid) {
+        String[] fields = readStatFields(pid);
+        return fields != null && fields.length > 3 ? Long.parseLong(fields[3]) : -1;
+    }
+
+    /**
+     * 会话中是否仍有未退出的成员，有成员时该会话ID不会被复用为其他进程的ID
+     *
+     * @param sid 会话ID
+     */
+    static boolean hasSessionMembers(long sid) {
+        if (sid <= 0) {
+            return false;
+        }
+        for (long[] row : readProcessTable()) {
+            if (row[3] == sid) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取/proc/&lt;pid&gt;/stat中进程名之后的字段，第一个元素为第3个字段（进程状态）
+     * 进程名可能包含空格和括号，以最后一个右括号作为分隔
+     */
+    private static String[] readStatFields(long pid) {
+        try {
+            String stat = new String(Files.readAllBytes(PROC.resolve(String.valueOf(pid)).resolve("stat")), StandardCharsets.UTF_8);
+            int commandEnd = stat.lastIndexOf(')');
+            if (commandEnd < 0) {
+                return null;
+            }
+            return stat.substring(commandEnd + 2).trim().split(" ");
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 读取所有未退出进程的进程ID、父进程ID、进程组ID和会话ID
+     */
+    private static List<long[]> readProcessTable() {
+        List<long[]> table = new ArrayList<>();
+        if (!SUPPORTED) {
+            return table;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(PROC)) {
+            for (Path entry : entries) {
+                long pid = parsePid(entry);
+                if (pid <= 0) {
+                    continue;
+                }
+                String[] fields = readStatFields(pid);
+                // 僵尸进程已退出，只等待父进程回收，不需要发送信号
+                if (fields != null && fields.length > 3 && !"Z".equals(fields[0])) {
+                    table.add(new long[] {pid, Long.parseLong(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3])});
+                }
+            }
+        } catch (IOException e) {
+            log.warn("读取/proc失败: {}", e.getMessage());
+        }
+        return table;
+    }
+
+    /**
+     * 构建父进程ID到子进程ID的索引
+     */
+    private static Map<Long, List<Long>> childrenIndex(List<long[]> table) {
+        Map<Long, List<Long>> children = new HashMap<>();
+        for (long[] row : table) {
+            children.computeIfAbsent(row[1], key -> new ArrayList<>()).add(row[0]);
+        }
+        return children;
+    }
+
+    private static Set<Long> collectDescendants(Set<Long> roots, Map<Long, List<Long>> children) {
+        Set<Long> descendants = new LinkedHashSet<>();
+        Deque<Long> pending = new ArrayDeque<>(roots);
+        while (!pending.isEmpty()) {
+            List<Long> direct = children.get(pending.poll());
+            if (direct == null) {
+                continue;
+            }
+            for (Long child : direct) {
+                if (!roots.contains(child) && descendants.add(child)) {
+                    pending.add(child);
+                }
+            }
+        }
+        return descendants;
+    }
+
+    /**
+     * 向一组进程发送信号，不等待进程退出
+     */
+    private static void signal(Set<Long> pids, boolean force) {
+        long self = selfPid();
+        List<Long> fallback = new ArrayList<>();
+        for (Long pid : pids) {
+            if (pid == self) {
+                continue;
+            }
+            if (PROCESS_HANDLE_OF == null) {
+                fallback.add(pid);
+                continue;
+            }
+            try {
+                Optional<?> handle = (Optional<?>) PROCESS_HANDLE_OF.invoke(null, pid);
+                if (handle.isPresent()) {
+                    (force ? PROCESS_HANDLE_DESTROY_FORCIBLY : PROCESS_HANDLE_DESTROY).invoke(handle.get());
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                fallback.add(pid);
+            }
+        }
+        if (!fallback.isEmpty()) {
+            killCommand(fallback, force);
+        }
+    }
+
+    /**
+     * 使用一条kill命令向一组进程发送信号（Java 8运行时），负数表示进程组ID
+     *
+     * @return 是否成功执行kill命令
+     */
+    private static boolean killCommand(List<Long> pids, boolean force) {
+        List<String> command = new ArrayList<>();
+        command.add("kill");
+        command.add(force ? "-9" : "-15");
+        command.add("--");
+        for (Long pid : pids) {
+            command.add(String.valueOf(pid));
+        }
+        try {
+            Process killProcess = new ProcessBuilder(command).redirectErrorStream(true).start();
+            return killProcess.waitFor(5, TimeUnit.SECONDS) && killProcess.exitValue() == 0;
+        } catch (IOException e) {
+            log.warn("发送信号失败 - 进程: {}, 错误: {}", pids, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private static String findSetsidCommand() {
+        for (String directory : new String[] {"/usr/bin", "/bin", "/usr/sbin", "/sbin"}) {
+            Path candidate = Paths.get(directory, "setsid");
+            if (Files.isExecutable(candidate)) {
+                return candidate.toString();
+            }
+        }
+        log.info("未找到setsid命令，用例进程与服务共用会话，终止时按父子关系查找子孙进程");
+        return null;
+    }
+
+    private static long parsePid(Path procEntry) {
+        String name = procEntry.getFileName().toString();
+        for (int i = 0; i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return -1;
+            }
+        }
+        return name.isEmpty() ? -1 : Long.parseLong(name);
+    }
+
+    private static long selfPid() {
+        try {
+            return Long.parseLong(PROC.resolve("self").toRealPath().getFileName().toString());
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.caseexecute.util;
 
 import com.caseexecute.config.FileStorageConfig;
+import com.caseexecute.config.LogOutputConfig;
 import com.caseexecute.dto.TestCaseExecutionRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeansException;
@@ -17,13 +18,15 @@ import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -41,7 +44,12 @@ public class PythonExecutorUtil implements ApplicationContextAware {
     
     private static ApplicationContext applicationContext;
     private static FileStorageConfig fileStorageConfig;
-    private static final ExecutorService executorService = Executors.newCachedThreadPool();
+    private static LogOutputConfig logOutputConfig;
+    
+    /**
+     * 用例输出泵及其输出分类器，按用例进程索引，进程对象被回收后自动移除
+     */
+    private static final Map<Process, CaseLogOutput> LOG_OUTPUTS = Collections.synchronizedMap(new WeakHashMap<>());
     
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
@@ -62,6 +70,21 @@ public class PythonExecutorUtil implements ApplicationContextAware {
         return fileStorageConfig;
     }
     
+    /**
+     * 获取LogOutputConfig实例，无法获取时使用默认配置
+     */
+    private static LogOutputConfig getLogOutputConfig() {
+        if (logOutputConfig == null) {
+            try {
+                logOutputConfig = applicationContext != null ? applicationContext.getBean(LogOutputConfig.class) : new LogOutputConfig();
+            } catch (BeansException e) {
+                log.debug("无法获取LogOutputConfig，使用默认配置: {}", e.getMessage());
+                logOutputConfig = new LogOutputConfig();
+            }
+        }
+        return logOutputConfig;
+    }
+    
     /**
      * 设置文件存储配置
      */
@@ -81,6 +104,36 @@ public class PythonExecutorUtil implements ApplicationContextAware {
         return new GoHttpServerClient();
     }
     
+    /**
+     * 获取PythonZygoteManager实例，无法获取时返回null
+     */
+    private static PythonZygoteManager getPythonZygoteManager() {
+        if (applicationContext == null) {
+            return null;
+        }
+        try {
+            return applicationContext.getBean(PythonZygoteManager.class);
+        } catch (BeansException e) {
+            log.debug("无法获取PythonZygoteManager: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 获取PythonWorkerPool实例，无法获取时返回null
+     */
+    private static PythonWorkerPool getPythonWorkerPool() {
+        if (applicationContext == null) {
+            return null;
+        }
+        try {
+            return applicationContext.getBean(PythonWorkerPool.class);
+        } catch (BeansException e) {
+            log.debug("无法获取PythonWorkerPool: {}", e.getMessage());
+            return null;
+        }
+    }
+    
 
     
 
@@ -108,6 +161,97 @@ public class PythonExecutorUtil implements ApplicationContextAware {
             throw new RuntimeException("Python脚本文件不存在: " + scriptPath);
         }
         
+        Path logFilePath = resolveLogFilePath(taskId, testCaseId, testCaseNumber, round);
+        
+        // 构建命令参数：python3 script_path --ip executor_ip --category business_category --app app_value --dataset_round intent --key value --uelist ue_json
+        List<String> commandArgs = buildCommandArguments(scriptPath, executorIp, collectStrategyInfo, ueList, taskCustomParams);
+        
+        // 启用派生模式时由任务的派生服务fork用例进程，派生服务不可用时继续尝试常驻执行器和独立进程
+        PythonZygoteManager pythonZygoteManager = getPythonZygoteManager();
+        if (pythonZygoteManager != null && pythonZygoteManager.isEnabled()) {
+            Process forkedProcess = pythonZygoteManager.launch(taskId, scriptPath, toScriptArguments(commandArgs.subList(2, commandArgs.size())), logFilePath);
+            if (forkedProcess != null) {
+                log.info("Python脚本进程已由派生服务创建 - 用例ID: {}, 轮次: {}, 日志文件: {}", 
+                        testCaseId, round, logFilePath);
+                return forkedProcess;
+            }
+        }
+        
+        // 启用常驻执行器时优先提交给空闲执行器，没有空闲执行器时继续启动独立进程
+        PythonWorkerPool pythonWorkerPool = getPythonWorkerPool();
+        if (pythonWorkerPool != null && pythonWorkerPool.isEnabled()) {
+            Process pooledProcess = pythonWorkerPool.execute(scriptPath, toScriptArguments(commandArgs.subList(2, commandArgs.size())), logFilePath);
+            if (pooledProcess != null) {
+                log.info("Python脚本已在常驻执行器中启动 - 用例ID: {}, 轮次: {}, 日志文件: {}", 
+                        testCaseId, round, logFilePath);
+                return pooledProcess;
+            }
+        }
+        
+        // Linux上在新会话中启动，超时或取消时向整个会话发送信号
+        ProcessBuilder processBuilder = new ProcessBuilder(ProcessTree.inNewSession(commandArgs));
+        processBuilder.redirectErrorStream(true);
+        applyPythonEnvironment(processBuilder);
+        processBuilder.environment().put(CaseResultReport.RESULT_FILE_ENV, CaseResultReport.resultFileFor(logFilePath).toAbsolutePath().toString());
+        
+        Process process = processBuilder.start();
+        log.info("Python脚本进程已启动 - 用例ID: {}, 轮次: {}, 日志文件: {}", 
+                testCaseId, round, logFilePath);
+        
+        // 启动输出泵把Python进程的输出写入日志文件，按限流镜像到服务日志
+        startOutputReader(process, logFilePath, testCaseId, round);
+        
+        return process;
+    }
+    
+    /**
+     * 创建多轮次批量执行
+     * 同一用例脚本的多个轮次在同一个Python解释器中依次执行，每个轮次的输出仍写入各自的日志文件
+     * 
+     * @param scriptPath 脚本路径
+     * @param testCaseId 用例ID
+     * @param testCaseNumber 用例编号
+     * @param rounds 轮次列表，按执行顺序排列
+     * @param taskId 任务ID
+     * @param executorIp 执行机IP地址
+     * @param collectStrategyInfo 采集策略信息（可选）
+     * @param ueList UE列表信息（可选）
+     * @param taskCustomParams 采集任务的自定义参数（可选）
+     * @return 多轮次批量执行句柄，通过startRound获取每个轮次的进程对象（执行器在获取第一个轮次时启动）
+     */
+    public static PythonRoundBatch createRoundBatch(Path scriptPath, Long testCaseId, String testCaseNumber, List<Integer> rounds, String taskId, String executorIp, TestCaseExecutionRequest.CollectStrategyInfo collectStrategyInfo, List<TestCaseExecutionRequest.UeInfo> ueList, String taskCustomParams) throws Exception {
+        log.info("创建多轮次批量执行 - 脚本路径: {}, 用例ID: {}, 轮次: {}", scriptPath, testCaseId, rounds);
+        
+        if (!Files.exists(scriptPath)) {
+            throw new RuntimeException("Python脚本文件不存在: " + scriptPath);
+        }
+        
+        Map<Integer, Path> logFilePaths = new LinkedHashMap<>();
+        for (Integer round : rounds) {
+            logFilePaths.put(round, resolveLogFilePath(taskId, testCaseId, testCaseNumber, round));
+        }
+        
+        List<String> commandArgs = buildCommandArguments(scriptPath, executorIp, collectStrategyInfo, ueList, taskCustomParams);
+        String rootDir = getFileStorageConfig() != null ? getFileStorageConfig().getRootDirectory() : System.getProperty("java.io.tmpdir");
+        // 批量执行器依赖常驻执行器脚本中的单次执行逻辑，两个脚本释放到同一目录
+        PythonRuntimeScripts.resolve(rootDir, "case_worker.py");
+        Path runnerScript = PythonRuntimeScripts.resolve(rootDir, "case_rounds.py");
+        
+        return new PythonRoundBatch(taskId, testCaseNumber != null ? testCaseNumber : String.valueOf(testCaseId), 
+                commandArgs.get(0), runnerScript, scriptPath, toScriptArguments(commandArgs.subList(2, commandArgs.size())), 
+                logFilePaths, PythonExecutorUtil::applyPythonEnvironment);
+    }
+    
+    /**
+     * 获取用例日志文件路径，日志目录不存在时创建，并删除同名用例之前执行遗留的结构化结果文件
+     * 
+     * @param taskId 任务ID
+     * @param testCaseId 用例ID
+     * @param testCaseNumber 用例编号
+     * @param round 轮次
+     * @return 日志文件路径
+     */
+    private static Path resolveLogFilePath(String taskId, Long testCaseId, String testCaseNumber, Integer round) throws IOException {
         // 创建日志目录 - 使用临时目录或配置的目录
         String rootDir = getFileStorageConfig() != null ? getFileStorageConfig().getRootDirectory() : System.getProperty("java.io.tmpdir");
         Path rootDirectory = Paths.get(rootDir);
@@ -134,7 +278,21 @@ public class PythonExecutorUtil implements ApplicationContextAware {
             logFileName = String.format("%d_%d.log", testCaseId, round);
         }
         Path logFilePath = logsDir.resolve(logFileName);
-        
+        Files.deleteIfExists(CaseResultReport.resultFileFor(logFilePath));
+        return logFilePath;
+    }
+    
+    /**
+     * 构建Python命令参数列表，前两项为Python命令和脚本路径
+     * 
+     * @param scriptPath 脚本路径
+     * @param executorIp 执行机IP地址
+     * @param collectStrategyInfo 采集策略信息（可选）
+     * @param ueList UE列表信息（可选）
+     * @param taskCustomParams 采集任务的自定义参数（可选）
+     * @return 命令参数列表
+     */
+    private static List<String> buildCommandArguments(Path scriptPath, String executorIp, TestCaseExecutionRequest.CollectStrategyInfo collectStrategyInfo, List<TestCaseExecutionRequest.UeInfo> ueList, String taskCustomParams) {
         // 执行Python脚本 - 直接使用系统python命令
         String pythonCommand = "python";
         log.info("使用系统Python执行器: {}", pythonCommand);
@@ -221,10 +379,6 @@ public class PythonExecutorUtil implements ApplicationContextAware {
             }
         }
         
-        // 构建命令参数：python3 script_path --ip executor_ip --category business_category --app app_value --dataset_round intent --key value --uelist ue_json
-        ProcessBuilder processBuilder = new ProcessBuilder(commandArgs);
-        processBuilder.redirectErrorStream(true);
-        
         // 打印完整的Python命令
         StringBuilder commandString = new StringBuilder();
         for (String arg : commandArgs) {
@@ -240,6 +394,15 @@ public class PythonExecutorUtil implements ApplicationContextAware {
         }
         log.info("执行Python命令: {}", commandString.toString());
         
+        return commandArgs;
+    }
+    
+    /**
+     * 设置Python进程的环境变量
+     * 
+     * @param processBuilder 进程构建器
+     */
+    private static void applyPythonEnvironment(ProcessBuilder processBuilder) {
         // 设置环境变量以确保正确的字符编码
         processBuilder.environment().put("PYTHONIOENCODING", "utf-8");
         processBuilder.environment().put("LANG", "zh_CN.UTF-8");
@@ -250,15 +413,6 @@ public class PythonExecutorUtil implements ApplicationContextAware {
         processBuilder.environment().put("LC_NUMERIC", "zh_CN.UTF-8");
         processBuilder.environment().put("LC_TIME", "zh_CN.UTF-8");
         processBuilder.environment().put("LC_COLLATE", "zh_CN.UTF-8");
-        
-        Process process = processBuilder.start();
-        log.info("Python脚本进程已启动 - 用例ID: {}, 轮次: {}, 日志文件: {}", 
-                testCaseId, round, logFilePath);
-        
-        // 启动异步线程来读取Python进程的输出，同时输出到控制台和日志文件
-        startOutputReader(process, logFilePath, testCaseId, round);
-        
-        return process;
     }
     
     /**
@@ -270,30 +424,47 @@ public class PythonExecutorUtil implements ApplicationContextAware {
      * @param round 轮次
      */
     private static void startOutputReader(Process process, Path logFilePath, Long testCaseId, Integer round) {
-        executorService.submit(() -> {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
-                 BufferedWriter fileWriter = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(logFilePath), StandardCharsets.UTF_8))) {
-                
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    // 输出到控制台
-                    System.out.println(String.format("[Python-用例%d-轮次%d] %s", testCaseId, round, line));
-                    
-                    // 输出到日志文件
-                    fileWriter.write(line);
-                    fileWriter.newLine();
-                    fileWriter.flush();
-                    
-                    // 输出到服务日志
-                    log.info("[Python-用例{}-轮次{}] {}", testCaseId, round, line);
-                }
-                
-                log.info("Python进程输出读取完成 - 用例ID: {}, 轮次: {}", testCaseId, round);
-                
-            } catch (IOException e) {
-                log.error("读取Python进程输出时发生错误 - 用例ID: {}, 轮次: {}, 错误: {}", testCaseId, round, e.getMessage(), e);
-            }
-        });
+        String label = String.format("Python-用例%d-轮次%d", testCaseId, round);
+        CaseOutputClassifier classifier = new CaseOutputClassifier();
+        CompletableFuture<Void> pump = CaseLogPump.start(process, logFilePath, label, getLogOutputConfig(), classifier);
+        LOG_OUTPUTS.put(process, new CaseLogOutput(pump, classifier));
+    }
+    
+    /**
+     * 等待用例输出泵读取完剩余输出，返回输出过程中增量得出的分类结果
+     * 用例进程退出后，继承了输出流的子进程可能仍在运行，最多等待指定时长
+     * 
+     * @param process 用例进程
+     * @param timeoutMillis 最长等待时长（毫秒）
+     * @return 输出分类结果；进程不是由输出泵读取输出、读取出错或等待超时时返回null
+     */
+    public static CaseOutputClassifier awaitCaseOutput(Process process, long timeoutMillis) {
+        CaseLogOutput output = LOG_OUTPUTS.remove(process);
+        if (output == null) {
+            return null;
+        }
+        try {
+            output.pump.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return output.classifier;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.debug("等待用例输出读取完成超时或出错: {}", e.getMessage());
+        }
+        return null;
+    }
+    
+    /**
+     * 用例输出泵及其输出分类器
+     */
+    private static class CaseLogOutput {
+        private final CompletableFuture<Void> pump;
+        private final CaseOutputClassifier classifier;
+        
+        private CaseLogOutput(CompletableFuture<Void> pump, CaseOutputClassifier classifier) {
+            this.pump = pump;
+            this.classifier = classifier;
+        }
     }
     
     /**
@@ -430,7 +601,11 @@ public class PythonExecutorUtil implements ApplicationContextAware {
         try {
             // 获取进程ID
             long pid = getProcessId(process);
-            if (pid > 0) {
+            if (pid > 0 && ProcessTree.isSupported()) {
+                // Linux上直接读取/proc获取整棵进程树并发送信号
+                int killed = ProcessTree.killTrees(java.util.Collections.singletonList(pid), true);
+                log.info("已终止进程树，主进程PID: {}, 终止进程数: {}", pid, killed);
+            } else if (pid > 0) {
                 log.info("终止进程树，主进程PID: {}", pid);
                 
                 // 使用pkill命令终止整个进程树
@@ -461,7 +636,19 @@ public class PythonExecutorUtil implements ApplicationContextAware {
      * @param process 进程对象
      * @return 进程ID，如果无法获取则返回-1
      */
-    private static long getProcessId(Process process) {
+    static long getProcessId(Process process) {
+        // 派生服务、常驻执行器中运行的用例进程由执行器回传进程ID
+        if (process instanceof DelegatedProcess) {
+            return ((DelegatedProcess) process).pid();
+        }
+        try {
+            // Java 9+直接调用Process.pid()，Unix上的实现类改为ProcessImpl且模块系统禁止反射访问私有字段
+            return (Long) Process.class.getMethod("pid").invoke(process);
+        } catch (NoSuchMethodException e) {
+            // Java 8运行时，按下面的方式反射读取
+        } catch (Exception e) {
+            log.debug("无法获取进程ID: {}", e.getMessage());
+        }
         try {
             // 在Java 8中，我们无法直接获取进程ID
             // 但我们可以通过反射尝试获取
@@ -532,6 +719,8 @@ public class PythonExecutorUtil implements ApplicationContextAware {
             
             if (osName.contains("windows")) {
                 terminatePythonProcessesByTaskIdWindows(taskId);
+            } else if (ProcessTree.isSupported()) {
+                terminatePythonProcessesByTaskIdLinux(taskId);
             } else if (osName.contains("mac") || osName.contains("linux")) {
                 terminatePythonProcessesByTaskIdUnix(taskId);
             } else {
@@ -664,6 +853,25 @@ public class PythonExecutorUtil implements ApplicationContextAware {
     
 
     
+    /**
+     * 在Linux系统上根据任务ID终止Python进程
+     * 优先终止登记表中任务的用例进程树，没有登记的进程时按命令行查找
+     * 
+     * @param taskId 任务ID
+     */
+    private static void terminatePythonProcessesByTaskIdLinux(String taskId) {
+        int killed = ProcessTree.killTask(taskId);
+        if (killed > 0) {
+            return;
+        }
+        List<Long> pids = ProcessTree.findByCommandLine("python", taskId);
+        if (!pids.isEmpty()) {
+            log.info("找到命令行包含任务ID的Python进程 - 任务ID: {}, PID: {}", taskId, pids);
+            killed = ProcessTree.killTrees(pids, true);
+        }
+        log.info("已终止任务ID为 {} 的所有Python进程，共 {} 个进程", taskId, killed);
+    }
+    
     /**
      * 在Unix系统上根据任务ID终止Python进程
      * 
@@ -680,8 +888,8 @@ public class PythonExecutorUtil implements ApplicationContextAware {
                 
                 String line;
                 while ((line = reader.readLine()) != null) {
-                    // 查找包含python3和任务ID的进程
-                    if (line.contains("python3") && line.contains(taskId)) {
+                    // 查找包含python（含python3）和任务ID的进程
+                    if (line.contains("python") && line.contains(taskId)) {
                         String[] parts = line.trim().split("\\s+");
                         if (parts.length > 1) {
                             String pid = parts[1];
@@ -783,6 +991,12 @@ public class PythonExecutorUtil implements ApplicationContextAware {
         try {
             log.info("终止进程树（Unix），PID: {}", pid);
             
+            if (ProcessTree.isSupported()) {
+                int killed = ProcessTree.killTrees(java.util.Collections.singletonList(pid), true);
+                log.info("已终止进程树（Linux），PID: {}, 终止进程数: {}", pid, killed);
+                return;
+            }
+            
             // 首先终止所有子进程
             ProcessBuilder pkillBuilder = new ProcessBuilder("pkill", "-P", String.valueOf(pid));
             Process pkillProcess = pkillBuilder.start();
@@ -909,6 +1123,13 @@ public class PythonExecutorUtil implements ApplicationContextAware {
             // 获取脚本文件名
             String scriptName = Paths.get(scriptPath).getFileName().toString();
             
+            if (ProcessTree.isSupported()) {
+                List<Long> pids = ProcessTree.findByCommandLine("python", scriptName);
+                int killed = ProcessTree.killTrees(pids, true);
+                log.info("已终止脚本路径为 {} 的所有Python进程，Python进程: {}, 终止进程数: {}", scriptPath, pids, killed);
+                return;
+            }
+            
             // 查找包含脚本名称的Python进程
             ProcessBuilder psBuilder = new ProcessBuilder("ps", "aux");
             Process psProcess = psBuilder.start();
@@ -918,8 +1139,8 @@ public class PythonExecutorUtil implements ApplicationContextAware {
                 
                 String line;
                 while ((line = reader.readLine()) != null) {
-                    // 查找包含python3和脚本名称的进程
-                    if (line.contains("python3") && line.contains(scriptName)) {
+                    // 查找包含python（含python3）和脚本名称的进程
+                    if (line.contains("python") && line.contains(scriptName)) {
                         String[] parts = line.trim().split("\\s+");
                         if (parts.length > 1) {
                             String pid = parts[1];
@@ -946,65 +1167,6 @@ public class PythonExecutorUtil implements ApplicationContextAware {
         }
     }
     
-    /**
-     * 分析失败原因
-     * 
-     * @param logContent 日志内容
-     * @param exitCode 进程退出码
-     * @return 失败原因
-     */
-    private static String analyzeFailureReason(String logContent, int exitCode) {
-        // 检查具体的环境问题
-        if (logContent.contains("ImportError") || logContent.contains("ModuleNotFoundError")) {
-            return "Python模块导入失败: 缺少必要的依赖包，请检查Python环境和依赖安装";
-        } else if (logContent.contains("Permission denied") || logContent.contains("access denied")) {
-            return "权限不足: 无法访问文件或目录，请检查文件权限设置";
-        } else if (logContent.contains("No such file") || logContent.contains("file not found")) {
-            return "文件不存在: 无法找到所需的文件或目录，请检查文件路径";
-        } else if (logContent.contains("Connection refused") || logContent.contains("network is unreachable")) {
-            return "网络连接失败: 无法连接到目标服务器，请检查网络配置";
-        } else if (logContent.contains("Connection timeout") || logContent.contains("dns resolution failed")) {
-            return "网络超时: DNS解析失败或连接超时，请检查网络连接";
-        } else if (logContent.contains("out of memory") || logContent.contains("memory error")) {
-            return "内存不足: 系统内存不足，无法执行用例";
-        } else if (logContent.contains("disk space") || logContent.contains("no space left")) {
-            return "磁盘空间不足: 系统磁盘空间不足，无法写入文件";
-        } else if (logContent.contains("FAIL") || logContent.contains("ERROR") || logContent.contains("失败")) {
-            return "用例执行失败: 日志中包含FAIL、ERROR或失败信息";
-        } else if (logContent.contains("PASS") || logContent.contains("SUCCESS") || logContent.contains("成功")) {
-            return "用例执行成功，但退出码非0: 可能存在其他问题，退出码: " + exitCode;
-        } else {
-            return "用例执行被阻塞: 未知原因导致执行失败，退出码: " + exitCode;
-        }
-    }
-    
-    /**
-     * 分析测试输出结果
-     * 
-     * @param logContent 日志内容
-     * @return 测试结果分析
-     */
-    private static TestResultAnalysis analyzeTestOutput(String logContent) {
-        String status = "SUCCESS";
-        String result = "用例执行成功";
-        String failureReason = null;
-
-        if (logContent.contains("FAIL") || logContent.contains("ERROR") || logContent.contains("失败")) {
-            status = "FAILED";
-            result = "用例执行失败";
-            failureReason = "用例执行失败，日志中包含FAIL、ERROR或失败";
-        } else if (logContent.contains("PASS") || logContent.contains("SUCCESS") || logContent.contains("成功")) {
-            status = "SUCCESS";
-            result = "用例执行成功";
-            failureReason = null; // 成功时没有失败原因
-        } else {
-            status = "BLOCKED";
-            result = "用例执行被阻塞";
-            failureReason = "用例执行被阻塞: 日志中未包含明确的成功或失败标识，可能由于环境问题或脚本异常导致";
-        }
-        return new TestResultAnalysis(status, result, failureReason);
-    }
-
     /**
      * Python执行结果
      */
@@ -1014,7 +1176,8 @@ public class PythonExecutorUtil implements ApplicationContextAware {
         private Long executionTime;
         private LocalDateTime startTime;
         private LocalDateTime endTime;
-        private String logContent;
+        private CaseOutputClassifier caseOutput;
+        private CaseResultReport caseResult;
         private String logFilePath;
         private String failureReason;
         
@@ -1051,8 +1214,13 @@ public class PythonExecutorUtil implements ApplicationContextAware {
                 return this;
             }
             
-            public Builder logContent(String logContent) {
-                executionResult.logContent = logContent;
+            public Builder caseOutput(CaseOutputClassifier caseOutput) {
+                executionResult.caseOutput = caseOutput;
+                return this;
+            }
+            
+            public Builder caseResult(CaseResultReport caseResult) {
+                executionResult.caseResult = caseResult;
                 return this;
             }
             
@@ -1077,55 +1245,12 @@ public class PythonExecutorUtil implements ApplicationContextAware {
         public Long getExecutionTime() { return executionTime; }
         public LocalDateTime getStartTime() { return startTime; }
         public LocalDateTime getEndTime() { return endTime; }
-        public String getLogContent() { return logContent; }
+        public CaseOutputClassifier getCaseOutput() { return caseOutput; }
+        public CaseResultReport getCaseResult() { return caseResult; }
         public String getLogFilePath() { return logFilePath; }
         public String getFailureReason() { return failureReason; }
     }
 
-    /**
-     * 检查是否因环境问题被阻塞
-     * 
-     * @param logContent 日志内容
-     * @return 是否被阻塞
-     */
-    private static boolean isBlockedByEnvironment(String logContent) {
-        if (logContent == null) {
-            return false;
-        }
-        
-        String lowerLog = logContent.toLowerCase();
-        
-        // 检查Python环境问题
-        if (lowerLog.contains("importerror") || lowerLog.contains("modulenotfounderror") ||
-            lowerLog.contains("no module named") || lowerLog.contains("python executable")) {
-            return true;
-        }
-        
-        // 检查文件权限问题
-        if (lowerLog.contains("permission denied") || lowerLog.contains("access denied")) {
-            return true;
-        }
-        
-        // 检查文件不存在
-        if (lowerLog.contains("no such file") || lowerLog.contains("file not found")) {
-            return true;
-        }
-        
-        // 检查网络连接问题
-        if (lowerLog.contains("connection refused") || lowerLog.contains("network is unreachable") ||
-            lowerLog.contains("connection timeout") || lowerLog.contains("dns resolution failed")) {
-            return true;
-        }
-        
-        // 检查系统资源问题
-        if (lowerLog.contains("out of memory") || lowerLog.contains("disk space") ||
-            lowerLog.contains("resource temporarily unavailable")) {
-            return true;
-        }
-        
-        return false;
-    }
-
     /**
      * 测试结果分析
      */
@@ -1145,6 +1270,53 @@ public class PythonExecutorUtil implements ApplicationContextAware {
         public String getFailureReason() { return failureReason; }
     }
     
+    /**
+     * 将命令参数转换为脚本实际收到的sys.argv参数
+     * 独立进程模式下，Windows会按命令行规则去掉参数外层的双引号并还原转义的双引号，
+     * Linux/macOS则原样传递；常驻执行器模式下按相同规则转换，保证脚本收到的参数与独立进程模式一致
+     * 
+     * @param commandArgs 命令参数（不含python命令和脚本路径）
+     * @return 脚本参数
+     */
+    private static List<String> toScriptArguments(List<String> commandArgs) {
+        List<String> scriptArgs = new ArrayList<>();
+        if (!System.getProperty("os.name").toLowerCase().contains("windows")) {
+            scriptArgs.addAll(commandArgs);
+            return scriptArgs;
+        }
+        
+        for (String arg : commandArgs) {
+            StringBuilder parsed = new StringBuilder();
+            int backslashes = 0;
+            for (char c : arg.toCharArray()) {
+                if (c == '\\') {
+                    backslashes++;
+                    continue;
+                }
+                if (c == '"') {
+                    // 2n个反斜杠加双引号还原为n个反斜杠，双引号作为分组符号去掉；2n+1个时双引号为字面字符
+                    appendBackslashes(parsed, backslashes / 2);
+                    if (backslashes % 2 == 1) {
+                        parsed.append('"');
+                    }
+                } else {
+                    appendBackslashes(parsed, backslashes);
+                    parsed.append(c);
+                }
+                backslashes = 0;
+            }
+            appendBackslashes(parsed, backslashes);
+            scriptArgs.add(parsed.toString());
+        }
+        return scriptArgs;
+    }
+    
+    private static void appendBackslashes(StringBuilder builder, int count) {
+        for (int i = 0; i < count; i++) {
+            builder.append('\\');
+        }
+    }
+    
     /**
      * 对JSON字符串进行转义处理，避免命令行解析错误
      * 
@@ -0,0 +1,273 @@
+package com.caseexecute.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 用例多轮次批量执行句柄
+ * 同一用例脚本的连续多个轮次在一个Python解释器（case_rounds.py）中依次执行，省去每个轮次冷启动解释器的开销。
+ * 每个轮次对调用方表现为独立的进程对象，超时、取消、结果上报仍按轮次进行：
+ * 执行器在独立会话中启动，终止某个轮次时向执行器的进程组发送信号，脚本创建的子孙进程一并终止，
+ * 尚未开始的轮次由新的执行器继续执行
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+public class PythonRoundBatch implements AutoCloseable {
+
+    private static final String ROUND_START_MARKER = "##ROUND_START";
+    private static final String ROUND_END_MARKER = "##ROUND_END";
+
+    private final String taskId;
+    private final String caseLabel;
+    private final String pythonCommand;
+    private final Path runnerScript;
+    private final Path scriptPath;
+    private final List<String> scriptArgs;
+    private final Consumer<ProcessBuilder> environmentConfigurer;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Integer, RoundProcess> rounds = new LinkedHashMap<>();
+
+    private Process runner;
+    private int launches;
+    private boolean closed;
+
+    PythonRoundBatch(String taskId, String caseLabel, String pythonCommand, Path runnerScript, Path scriptPath,
+                     List<String> scriptArgs, Map<Integer, Path> logFilePaths, Consumer<ProcessBuilder> environmentConfigurer) {
+        this.taskId = taskId;
+        this.caseLabel = caseLabel;
+        this.pythonCommand = pythonCommand;
+        this.runnerScript = runnerScript;
+        this.scriptPath = scriptPath;
+        this.scriptArgs = scriptArgs;
+        this.environmentConfigurer = environmentConfigurer;
+        for (Map.Entry<Integer, Path> entry : logFilePaths.entrySet()) {
+            rounds.put(entry.getKey(), new RoundProcess(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    /**
+     * 获取指定轮次的进程对象
+     * 执行器尚未启动或已退出时，从该轮次开始为剩余轮次启动新的执行器
+     *
+     * @param round 轮次
+     * @return 该轮次的进程对象，轮次结束时退出
+     * @throws IOException 启动执行器失败
+     */
+    public synchronized Process startRound(Integer round) throws IOException {
+        RoundProcess roundProcess = rounds.get(round);
+        if (roundProcess == null) {
+            throw new IllegalArgumentException("轮次不在批量执行范围内: " + round);
+        }
+        roundProcess.claimed = true;
+        if (!roundProcess.started && (runner == null || roundProcess.runner != runner || !runner.isAlive())) {
+            launch(round);
+        }
+        return roundProcess;
+    }
+
+    /**
+     * 启动执行器，执行从指定轮次开始的所有尚未执行的轮次
+     */
+    private void launch(Integer fromRound) throws IOException {
+        if (closed) {
+            throw new IOException("批量执行已关闭 - 任务ID: " + taskId + ", 用例: " + caseLabel);
+        }
+        List<RoundProcess> remaining = new ArrayList<>();
+        boolean reached = false;
+        for (RoundProcess roundProcess : rounds.values()) {
+            reached = reached || roundProcess.round.equals(fromRound);
+            if (reached && !roundProcess.started) {
+                remaining.add(roundProcess);
+            }
+        }
+
+        List<Map<String, Object>> roundSpecs = new ArrayList<>();
+        for (RoundProcess roundProcess : remaining) {
+            Map<String, Object> roundSpec = new LinkedHashMap<>();
+            roundSpec.put("round", roundProcess.round);
+            roundSpec.put("log", roundProcess.logFilePath.toAbsolutePath().toString());
+            roundSpecs.add(roundSpec);
+        }
+        Map<String, Object> spec = new LinkedHashMap<>();
+        spec.put("script", scriptPath.toAbsolutePath().toString());
+        spec.put("args", scriptArgs);
+        spec.put("rounds", roundSpecs);
+
+        launches++;
+        Path specFile = remaining.get(0).logFilePath.resolveSibling(caseLabel + "_rounds_" + launches + ".json");
+        Files.write(specFile, objectMapper.writeValueAsBytes(spec));
+
+        ProcessBuilder processBuilder = new ProcessBuilder(ProcessTree.inNewSession(
+                Arrays.asList(pythonCommand, runnerScript.toString(), specFile.toString())));
+        processBuilder.redirectErrorStream(true);
+        environmentConfigurer.accept(processBuilder);
+        Process process = processBuilder.start();
+        runner = process;
+        for (RoundProcess roundProcess : remaining) {
+            roundProcess.runner = process;
+        }
+        log.info("多轮次批量执行器已启动 - 任务ID: {}, 用例: {}, 第{}次启动, 轮次数: {}, 起始轮次: {}",
+                taskId, caseLabel, launches, remaining.size(), fromRound);
+
+        Thread readerThread = new Thread(() -> readProgress(process, remaining), "round-batch-" + caseLabel + "-" + launches);
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    /**
+     * 读取执行器报告的轮次进度，执行器退出后读取结束
+     */
+    private void readProgress(Process process, List<RoundProcess> launchedRounds) {
+        int startedRounds = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(ROUND_START_MARKER)) {
+                    RoundProcess roundProcess = rounds.get(parseRound(line, ROUND_START_MARKER).path("round").asInt());
+                    if (roundProcess != null) {
+                        roundProcess.started = true;
+                        startedRounds++;
+                    }
+                } else if (line.startsWith(ROUND_END_MARKER)) {
+                    JsonNode message = parseRound(line, ROUND_END_MARKER);
+                    RoundProcess roundProcess = rounds.get(message.path("round").asInt());
+                    if (roundProcess != null) {
+                        roundProcess.complete(message.path("exitCode").asInt(1));
+                    }
+                } else {
+                    log.info("[Python-批量执行-{}] {}", caseLabel, line);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("读取多轮次批量执行器输出结束 - 任务ID: {}, 用例: {}, 原因: {}", taskId, caseLabel, e.getMessage());
+        }
+
+        int exitCode;
+        try {
+            exitCode = process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exitCode = -1;
+        }
+
+        synchronized (this) {
+            RoundProcess waiting = null;
+            for (RoundProcess roundProcess : launchedRounds) {
+                if (roundProcess.started && roundProcess.isAlive()) {
+                    // 执行中的轮次随执行器退出而结束（被终止、脚本调用os._exit等）
+                    roundProcess.endedWithRunner = true;
+                    roundProcess.complete(exitCode);
+                } else if (!roundProcess.started && roundProcess.claimed && roundProcess.runner == process && waiting == null) {
+                    waiting = roundProcess;
+                }
+            }
+            if (waiting == null) {
+                // 尚未开始的轮次在调用方获取时重新启动执行器
+                return;
+            }
+            if (startedRounds == 0 || closed) {
+                // 执行器未能开始任何轮次，不再重启，避免反复拉起
+                log.error("多轮次批量执行器异常退出 - 任务ID: {}, 用例: {}, 退出码: {}", taskId, caseLabel, exitCode);
+                waiting.complete(exitCode);
+                return;
+            }
+            try {
+                launch(waiting.round);
+            } catch (IOException e) {
+                log.error("重新启动多轮次批量执行器失败 - 任务ID: {}, 用例: {}, 错误: {}", taskId, caseLabel, e.getMessage());
+                waiting.complete(exitCode);
+            }
+        }
+    }
+
+    private JsonNode parseRound(String line, String marker) throws IOException {
+        return objectMapper.readTree(line.substring(marker.length()).trim());
+    }
+
+    /**
+     * 结束批量执行，终止仍在运行的执行器
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (runner != null && runner.isAlive()) {
+            int killed = ProcessTree.killGroup(PythonExecutorUtil.getProcessId(runner), true);
+            log.info("终止多轮次批量执行器 - 任务ID: {}, 用例: {}, 进程数: {}", taskId, caseLabel, killed);
+            runner.destroyForcibly();
+        }
+    }
+
+    /**
+     * 批量执行中的单个轮次
+     */
+    private static class RoundProcess extends DelegatedProcess {
+        private final Integer round;
+        private final Path logFilePath;
+        private volatile Process runner;
+        private volatile boolean claimed;
+        private volatile boolean started;
+        private volatile boolean endedWithRunner;
+
+        private RoundProcess(Integer round, Path logFilePath) {
+            this.round = round;
+            this.logFilePath = logFilePath;
+        }
+
+        @Override
+        protected String describe() {
+            return "批量执行轮次: " + round;
+        }
+
+        @Override
+        public void destroy() {
+            Process current = runner;
+            if (killProcesses(false) == 0) {
+                current.destroy();
+            }
+        }
+
+        @Override
+        public Process destroyForcibly() {
+            Process current = runner;
+            if (killProcesses(true) == 0) {
+                current.destroyForcibly();
+            }
+            return this;
+        }
+
+        /**
+         * 向执行器的进程组发送信号。轮次执行期间执行器已退出时仍发送，终止执行器退出后仍存活的子孙进程；
+         * 该执行器不会再执行其他轮次，进程组中仍有成员时其进程ID不会被复用
+         */
+        @Override
+        protected int killProcesses(boolean force) {
+            Process current = runner;
+            if (current == null || !(isAlive() || endedWithRunner)) {
+                return -1;
+            }
+            return ProcessTree.killGroup(PythonExecutorUtil.getProcessId(current), force);
+        }
+
+        @Override
+        public long pid() {
+            Process current = runner;
+            return current != null ? PythonExecutorUtil.getProcessId(current) : -1;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.caseexecute.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内置Python运行时脚本工具类
+ * 常驻执行器等Python侧脚本随服务打包在classpath的python目录下，
+ * 使用前释放到文件存储根目录的runtime目录中，每个脚本在服务生命周期内只释放一次
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+public class PythonRuntimeScripts {
+
+    private static final String RESOURCE_DIRECTORY = "python/";
+    private static final Map<String, Path> EXTRACTED_SCRIPTS = new ConcurrentHashMap<>();
+
+    private PythonRuntimeScripts() {
+    }
+
+    /**
+     * 获取内置脚本在磁盘上的路径，首次调用时从classpath释放
+     *
+     * @param rootDirectory 文件存储根目录
+     * @param scriptName 脚本文件名
+     * @return 脚本路径
+     * @throws IOException 释放脚本失败
+     */
+    public static Path resolve(String rootDirectory, String scriptName) throws IOException {
+        Path target = Paths.get(rootDirectory, "runtime", scriptName);
+        Path cached = EXTRACTED_SCRIPTS.get(target.toString());
+        if (cached != null && Files.exists(cached)) {
+            return cached;
+        }
+        synchronized (EXTRACTED_SCRIPTS) {
+            try (InputStream in = PythonRuntimeScripts.class.getClassLoader().getResourceAsStream(RESOURCE_DIRECTORY + scriptName)) {
+                if (in == null) {
+                    throw new IOException("内置Python脚本不存在: " + scriptName);
+                }
+                Files.createDirectories(target.getParent());
+                Path tempFile = target.resolveSibling(scriptName + ".tmp");
+                Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            EXTRACTED_SCRIPTS.put(target.toString(), target);
+            log.info("内置Python脚本已释放 - 脚本: {}, 路径: {}", scriptName, target);
+            return target;
+        }
+    }
+}
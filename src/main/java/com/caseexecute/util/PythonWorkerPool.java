@@ -0,0 +1,440 @@
+package com.caseexecute.util;
+
+import com.caseexecute.config.FileStorageConfig;
+import com.caseexecute.config.PythonWorkerConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Python常驻执行器池
+ * 预先启动若干常驻Python进程（case_worker.py），解释器和预加载模块只初始化一次，
+ * 用例通过标准输入/输出上的JSON行协议提交给空闲执行器运行，省去每个用例冷启动解释器的开销。
+ * 每次执行返回一个独立的Process句柄：输出写入该次执行的日志文件。执行器在独立会话中启动，
+ * 用例脚本创建的子孙进程与执行器同属一个进程组，超时或取消时销毁句柄会终止整个进程组，
+ * 执行器达到最大执行次数、遗留非守护线程或子进程、异常退出后由池回收并补充新的执行器
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class PythonWorkerPool implements InitializingBean, DisposableBean {
+
+    private static final String WORKER_SCRIPT = "case_worker.py";
+
+    @Autowired
+    private PythonWorkerConfig pythonWorkerConfig;
+
+    @Autowired
+    private FileStorageConfig fileStorageConfig;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<PythonWorker> idleWorkers = new LinkedBlockingQueue<>();
+    private final Set<PythonWorker> workers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger workerIndex = new AtomicInteger();
+    private final AtomicLong runIdGenerator = new AtomicLong();
+
+    private final AtomicLong pooledRuns = new AtomicLong();
+    private final AtomicLong coldStartRuns = new AtomicLong();
+    private final AtomicLong recycledWorkers = new AtomicLong();
+    private final AtomicLong crashedWorkers = new AtomicLong();
+
+    private volatile boolean shutdown;
+    private Path workerScript;
+    private Path workerLogDirectory;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!pythonWorkerConfig.isEnabled()) {
+            log.info("Python常驻执行器未启用，每个用例将启动独立的Python进程");
+            return;
+        }
+        try {
+            workerScript = PythonRuntimeScripts.resolve(fileStorageConfig.getRootDirectory(), WORKER_SCRIPT);
+            workerLogDirectory = Paths.get(fileStorageConfig.getRootDirectory(), "runtime", "workers");
+            Files.createDirectories(workerLogDirectory);
+        } catch (IOException e) {
+            log.error("Python常驻执行器初始化失败，将使用独立进程执行用例 - 错误: {}", e.getMessage(), e);
+            return;
+        }
+
+        int poolSize = Math.max(1, pythonWorkerConfig.getPoolSize());
+        for (int i = 0; i < poolSize; i++) {
+            startWorker();
+        }
+        log.info("Python常驻执行器池初始化完成 - 执行器数量: {}, 单个执行器最大执行次数: {}, 预加载模块: {}",
+                poolSize, pythonWorkerConfig.getMaxRunsPerWorker(), pythonWorkerConfig.getPreloadModules());
+    }
+
+    /**
+     * 是否启用常驻执行器模式
+     */
+    public boolean isEnabled() {
+        return pythonWorkerConfig.isEnabled() && workerScript != null && !shutdown;
+    }
+
+    /**
+     * 在空闲的常驻执行器上运行用例脚本
+     *
+     * @param scriptPath 脚本路径
+     * @param args 脚本参数，与独立进程模式下脚本收到的参数一致
+     * @param logFilePath 本次执行的日志文件
+     * @return 本次执行的进程句柄；没有可用的空闲执行器时返回null，由调用方启动独立进程
+     */
+    public Process execute(Path scriptPath, List<String> args, Path logFilePath) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        PythonWorker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            WorkerRun run = new WorkerRun(worker, runIdGenerator.incrementAndGet());
+            if (!worker.beginRun(run)) {
+                // 执行器在空闲期间已退出，由退出处理回收
+                continue;
+            }
+
+            Map<String, Object> request = new LinkedHashMap<>();
+            request.put("id", run.id);
+            request.put("script", scriptPath.toAbsolutePath().toString());
+            request.put("args", args);
+            request.put("log", logFilePath.toAbsolutePath().toString());
+            try {
+                worker.send(objectMapper.writeValueAsString(request));
+            } catch (IOException e) {
+                log.warn("向Python常驻执行器发送请求失败 - 执行器: {}, 错误: {}", worker.name, e.getMessage());
+                worker.process.destroyForcibly();
+                continue;
+            }
+
+            PythonWorker runWorker = worker;
+            run.onExit().whenComplete((process, error) -> onRunFinished(runWorker, run));
+            pooledRuns.incrementAndGet();
+            log.info("用例已提交到Python常驻执行器 - 执行器: {}, PID: {}, 脚本: {}, 日志文件: {}",
+                    worker.name, worker.pid, scriptPath, logFilePath);
+            return run;
+        }
+
+        coldStartRuns.incrementAndGet();
+        log.info("没有空闲的Python常驻执行器，使用独立进程执行 - 脚本: {}", scriptPath);
+        return null;
+    }
+
+    /**
+     * 获取执行器池指标
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", isEnabled());
+        metrics.put("workers", workers.size());
+        metrics.put("idleWorkers", idleWorkers.size());
+        metrics.put("pooledRuns", pooledRuns.get());
+        metrics.put("coldStartRuns", coldStartRuns.get());
+        metrics.put("recycledWorkers", recycledWorkers.get());
+        metrics.put("crashedWorkers", crashedWorkers.get());
+        return metrics;
+    }
+
+    /**
+     * 启动一个常驻执行器
+     */
+    private void startWorker() {
+        if (shutdown) {
+            return;
+        }
+        String name = "python-worker-" + workerIndex.incrementAndGet();
+        try {
+            ProcessBuilder processBuilder = new ProcessBuilder(ProcessTree.inNewSession(Arrays.asList(pythonWorkerConfig.getPythonCommand(),
+                    workerScript.toString(), "--preload", String.join(",", pythonWorkerConfig.getPreloadModules()))));
+            processBuilder.redirectError(ProcessBuilder.Redirect.appendTo(new File(workerLogDirectory.toFile(), name + ".log")));
+            processBuilder.environment().put("PYTHONIOENCODING", "utf-8");
+            processBuilder.environment().put("LANG", "zh_CN.UTF-8");
+            processBuilder.environment().put("LC_ALL", "zh_CN.UTF-8");
+
+            PythonWorker worker = new PythonWorker(name, processBuilder.start());
+            workers.add(worker);
+            Thread readerThread = new Thread(() -> readControlChannel(worker), name + "-reader");
+            readerThread.setDaemon(true);
+            readerThread.start();
+            idleWorkers.offer(worker);
+            log.info("Python常驻执行器已启动 - 执行器: {}", name);
+        } catch (IOException e) {
+            log.error("启动Python常驻执行器失败 - 执行器: {}, 错误: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * 读取执行器的协议输出，执行器进程退出后读取结束
+     */
+    private void readControlChannel(PythonWorker worker) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(worker.process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    JsonNode message = objectMapper.readTree(line);
+                    if (message.has("event")) {
+                        worker.pid = message.path("pid").asLong(-1);
+                        worker.groupLeader = ProcessTree.isGroupLeader(worker.pid);
+                        log.info("Python常驻执行器就绪 - 执行器: {}, PID: {}, 独立进程组: {}", worker.name, worker.pid, worker.groupLeader);
+                    } else if (message.has("id")) {
+                        worker.finishRun(message.get("id").asLong(), message.path("exitCode").asInt(1),
+                                message.path("dirty").asBoolean(false));
+                    }
+                } catch (IOException e) {
+                    log.warn("解析Python常驻执行器消息失败 - 执行器: {}, 消息: {}", worker.name, line);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("读取Python常驻执行器输出结束 - 执行器: {}, 原因: {}", worker.name, e.getMessage());
+        }
+
+        int exitCode;
+        try {
+            exitCode = worker.process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exitCode = -1;
+        }
+        boolean hadRun = worker.exit(exitCode);
+        if (!hadRun) {
+            // 空闲期间退出：服务过用例的执行器补充新实例，启动即退出的执行器不再重启，避免反复拉起
+            boolean servedRuns = worker.runCount > 0;
+            if (retire(worker) && !shutdown) {
+                crashedWorkers.incrementAndGet();
+                log.warn("Python常驻执行器异常退出 - 执行器: {}, 退出码: {}", worker.name, exitCode);
+                if (servedRuns) {
+                    startWorker();
+                } else {
+                    log.error("Python常驻执行器启动后立即退出，不再补充，请检查执行器日志: {}",
+                            workerLogDirectory.resolve(worker.name + ".log"));
+                }
+            }
+        }
+    }
+
+    /**
+     * 单次执行结束后归还或回收执行器
+     */
+    private void onRunFinished(PythonWorker worker, WorkerRun run) {
+        worker.runCount++;
+        if (shutdown) {
+            return;
+        }
+        String reason = null;
+        if (!worker.process.isAlive() || run.killed) {
+            reason = "执行器进程已终止";
+        } else if (run.dirty) {
+            reason = "脚本遗留非守护线程或子进程";
+        } else if (worker.runCount >= Math.max(1, pythonWorkerConfig.getMaxRunsPerWorker())) {
+            reason = "达到最大执行次数";
+        }
+
+        if (reason == null) {
+            idleWorkers.offer(worker);
+            return;
+        }
+        if (retire(worker)) {
+            recycledWorkers.incrementAndGet();
+            log.info("回收Python常驻执行器 - 执行器: {}, 已执行次数: {}, 原因: {}", worker.name, worker.runCount, reason);
+            startWorker();
+        }
+    }
+
+    /**
+     * 将执行器移出池并终止进程
+     *
+     * @return 本次调用是否实际回收了执行器
+     */
+    private boolean retire(PythonWorker worker) {
+        if (!workers.remove(worker)) {
+            return false;
+        }
+        idleWorkers.remove(worker);
+        worker.closeQuietly();
+        if (worker.process.isAlive()) {
+            worker.process.destroyForcibly();
+        }
+        return true;
+    }
+
+    @Override
+    public void destroy() {
+        shutdown = true;
+        if (!workers.isEmpty()) {
+            log.info("关闭Python常驻执行器池 - 执行器数量: {}", workers.size());
+        }
+        for (PythonWorker worker : workers) {
+            retire(worker);
+        }
+    }
+
+    /**
+     * 常驻执行器
+     */
+    private static class PythonWorker {
+        private final String name;
+        private final Process process;
+        private final BufferedWriter writer;
+        private volatile long pid;
+        private volatile boolean groupLeader;
+        private volatile int runCount;
+        private WorkerRun currentRun;
+        private boolean exited;
+
+        private PythonWorker(String name, Process process) {
+            this.name = name;
+            this.process = process;
+            this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            // setsid直接exec解释器，就绪消息到达前使用启动时的进程ID
+            this.pid = PythonExecutorUtil.getProcessId(process);
+        }
+
+        private synchronized boolean beginRun(WorkerRun run) {
+            if (exited) {
+                return false;
+            }
+            currentRun = run;
+            return true;
+        }
+
+        private synchronized void send(String message) throws IOException {
+            writer.write(message);
+            writer.newLine();
+            writer.flush();
+        }
+
+        private void finishRun(long runId, int exitCode, boolean dirty) {
+            WorkerRun run;
+            synchronized (this) {
+                run = currentRun;
+                if (run == null || run.id != runId) {
+                    return;
+                }
+                currentRun = null;
+            }
+            run.dirty = dirty;
+            run.complete(exitCode);
+        }
+
+        /**
+         * 执行器进程退出，正在执行的用例以进程退出码结束
+         *
+         * @return 退出时是否有正在执行的用例
+         */
+        private boolean exit(int exitCode) {
+            WorkerRun run;
+            synchronized (this) {
+                exited = true;
+                run = currentRun;
+                currentRun = null;
+            }
+            if (run == null) {
+                return false;
+            }
+            run.killed = true;
+            run.complete(exitCode);
+            return true;
+        }
+
+        private synchronized boolean isRunning(WorkerRun run) {
+            return currentRun == run;
+        }
+
+        private void closeQuietly() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.debug("关闭Python常驻执行器输入流失败 - 执行器: {}", name);
+            }
+        }
+    }
+
+    /**
+     * 在常驻执行器上的一次用例执行
+     */
+    private static class WorkerRun extends DelegatedProcess {
+        private final PythonWorker worker;
+        private final long id;
+        private volatile boolean dirty;
+        private volatile boolean killed;
+
+        private WorkerRun(PythonWorker worker, long id) {
+            this.worker = worker;
+            this.id = id;
+        }
+
+        @Override
+        protected String describe() {
+            return "执行器: " + worker.name;
+        }
+
+        @Override
+        public void destroy() {
+            if (killProcesses(false) == 0) {
+                worker.process.destroy();
+            }
+        }
+
+        @Override
+        public Process destroyForcibly() {
+            if (killProcesses(true) == 0) {
+                worker.process.destroyForcibly();
+            }
+            return this;
+        }
+
+        /**
+         * 执行器是进程组首进程时向整个进程组发送信号，否则向执行器及其子孙进程发送信号。
+         * 只有用例仍在该执行器上执行，或执行器在执行该用例期间已退出（不会再被复用）时才发送信号
+         */
+        @Override
+        protected int killProcesses(boolean force) {
+            if (!worker.isRunning(this) && !killed) {
+                return -1;
+            }
+            if (worker.groupLeader || ProcessTree.isGroupLeader(worker.pid)) {
+                // 执行器退出后，进程组中仍有成员时该进程ID不会被复用
+                return ProcessTree.killGroup(worker.pid, force);
+            }
+            return ProcessTree.killTrees(Collections.singletonList(worker.pid), force);
+        }
+
+        /**
+         * 执行用例的常驻执行器进程ID
+         */
+        @Override
+        public long pid() {
+            return worker.pid;
+        }
+    }
+}
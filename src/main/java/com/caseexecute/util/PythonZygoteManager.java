@@ -0,0 +1,385 @@
+package com.caseexecute.util;
+
+import com.caseexecute.config.FileStorageConfig;
+import com.caseexecute.config.PythonZygoteConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Python派生服务（zygote）管理器
+ * 每个任务（即每个解压后的用例集）启动一个常驻的派生服务进程（case_zygote.py），解释器和预加载模块只初始化一次，
+ * 每个用例由派生服务fork出独立的子进程执行，保持与独立进程模式相同的进程隔离。
+ * 子进程是独立的会话和进程组，输出直接写入用例日志文件，退出码由派生服务回传；
+ * 返回的Process句柄接入现有的超时、取消和进程树终止流程。任务结束时关闭派生服务
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class PythonZygoteManager implements InitializingBean, DisposableBean {
+
+    private static final String ZYGOTE_SCRIPT = "case_zygote.py";
+    private static final int SIGTERM = 15;
+    private static final int SIGKILL = 9;
+
+    @Autowired
+    private PythonZygoteConfig pythonZygoteConfig;
+
+    @Autowired
+    private FileStorageConfig fileStorageConfig;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Zygote> zygotes = new ConcurrentHashMap<>();
+    private final AtomicLong runIdGenerator = new AtomicLong();
+    private final AtomicLong forkedRuns = new AtomicLong();
+    private final AtomicLong coldStartRuns = new AtomicLong();
+
+    private volatile boolean shutdown;
+    private Path zygoteScript;
+    private Path zygoteLogDirectory;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!pythonZygoteConfig.isEnabled()) {
+            return;
+        }
+        if (System.getProperty("os.name").toLowerCase().contains("windows")) {
+            log.warn("Windows系统不支持fork，Python派生模式不生效，每个用例将启动独立的Python进程");
+            return;
+        }
+        try {
+            zygoteScript = PythonRuntimeScripts.resolve(fileStorageConfig.getRootDirectory(), ZYGOTE_SCRIPT);
+            zygoteLogDirectory = Paths.get(fileStorageConfig.getRootDirectory(), "runtime", "zygotes");
+            Files.createDirectories(zygoteLogDirectory);
+            log.info("Python派生模式已启用 - 预加载模块: {}", pythonZygoteConfig.getPreloadModules());
+        } catch (IOException e) {
+            zygoteScript = null;
+            log.error("Python派生服务初始化失败，将使用独立进程执行用例 - 错误: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 是否启用派生模式
+     */
+    public boolean isEnabled() {
+        return pythonZygoteConfig.isEnabled() && zygoteScript != null && !shutdown;
+    }
+
+    /**
+     * 由任务的派生服务fork子进程执行用例脚本，派生服务不存在时先启动
+     *
+     * @param taskId 任务ID
+     * @param scriptPath 脚本路径
+     * @param args 脚本参数，与独立进程模式下脚本收到的参数一致
+     * @param logFilePath 本次执行的日志文件
+     * @return 用例子进程句柄；派生服务不可用时返回null，由调用方启动独立进程
+     */
+    public Process launch(String taskId, Path scriptPath, List<String> args, Path logFilePath) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        Zygote zygote = zygotes.computeIfAbsent(taskId, this::startZygote);
+        if (zygote == null || !zygote.process.isAlive()) {
+            coldStartRuns.incrementAndGet();
+            return null;
+        }
+
+        ForkedProcess forkedProcess = new ForkedProcess(zygote, runIdGenerator.incrementAndGet());
+        zygote.pending.put(forkedProcess.id, forkedProcess);
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("id", forkedProcess.id);
+        request.put("script", scriptPath.toAbsolutePath().toString());
+        request.put("args", args);
+        request.put("log", logFilePath.toAbsolutePath().toString());
+
+        try {
+            zygote.send(objectMapper.writeValueAsString(request));
+            forkedProcess.started.get(pythonZygoteConfig.getStartTimeoutSeconds(), TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            zygote.pending.remove(forkedProcess.id);
+            coldStartRuns.incrementAndGet();
+            return null;
+        } catch (IOException | ExecutionException | TimeoutException e) {
+            // 派生服务无响应时关闭，避免之后才创建出无人管理的用例进程
+            log.warn("Python派生服务创建用例进程失败，关闭派生服务并改用独立进程 - 任务ID: {}, 错误: {}", taskId, e.toString());
+            zygote.pending.remove(forkedProcess.id);
+            shutdown(taskId);
+            coldStartRuns.incrementAndGet();
+            return null;
+        }
+
+        forkedRuns.incrementAndGet();
+        log.info("用例进程已由Python派生服务创建 - 任务ID: {}, PID: {}, 脚本: {}, 日志文件: {}",
+                taskId, forkedProcess.pid, scriptPath, logFilePath);
+        return forkedProcess;
+    }
+
+    /**
+     * 关闭任务的派生服务，仍在运行的用例进程组一并终止
+     *
+     * @param taskId 任务ID
+     */
+    public void shutdown(String taskId) {
+        Zygote zygote = zygotes.remove(taskId);
+        if (zygote == null) {
+            return;
+        }
+        log.info("关闭Python派生服务 - 任务ID: {}, 运行中的用例进程数: {}", taskId, zygote.pending.size());
+        zygote.close();
+    }
+
+    /**
+     * 获取派生模式指标
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", isEnabled());
+        metrics.put("zygotes", zygotes.size());
+        metrics.put("forkedRuns", forkedRuns.get());
+        metrics.put("coldStartRuns", coldStartRuns.get());
+        return metrics;
+    }
+
+    /**
+     * 启动任务的派生服务
+     */
+    private Zygote startZygote(String taskId) {
+        try {
+            ProcessBuilder processBuilder = new ProcessBuilder(pythonZygoteConfig.getPythonCommand(), zygoteScript.toString(),
+                    "--preload", String.join(",", pythonZygoteConfig.getPreloadModules()), "--task", taskId);
+            processBuilder.redirectError(ProcessBuilder.Redirect.appendTo(new File(zygoteLogDirectory.toFile(), taskId + ".log")));
+            processBuilder.environment().put("PYTHONIOENCODING", "utf-8");
+            processBuilder.environment().put("LANG", "zh_CN.UTF-8");
+            processBuilder.environment().put("LC_ALL", "zh_CN.UTF-8");
+
+            Zygote zygote = new Zygote(taskId, processBuilder.start());
+            Thread readerThread = new Thread(() -> readControlChannel(zygote), "python-zygote-" + taskId);
+            readerThread.setDaemon(true);
+            readerThread.start();
+            log.info("Python派生服务已启动 - 任务ID: {}", taskId);
+            return zygote;
+        } catch (IOException e) {
+            log.error("启动Python派生服务失败 - 任务ID: {}, 错误: {}", taskId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 读取派生服务的协议输出，派生服务退出后读取结束
+     */
+    private void readControlChannel(Zygote zygote) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(zygote.process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    JsonNode message = objectMapper.readTree(line);
+                    String event = message.path("event").asText();
+                    if ("ready".equals(event)) {
+                        log.info("Python派生服务就绪 - 任务ID: {}, PID: {}", zygote.taskId, message.path("pid").asLong());
+                    } else if ("started".equals(event)) {
+                        ForkedProcess forkedProcess = zygote.pending.get(message.path("id").asLong());
+                        if (forkedProcess != null) {
+                            forkedProcess.recordStart(message.path("pid").asLong(-1));
+                            forkedProcess.started.complete(null);
+                        }
+                    } else if ("exited".equals(event)) {
+                        ForkedProcess forkedProcess = zygote.pending.remove(message.path("id").asLong());
+                        if (forkedProcess != null) {
+                            forkedProcess.complete(message.path("exitCode").asInt(1));
+                        }
+                    }
+                } catch (IOException e) {
+                    log.warn("解析Python派生服务消息失败 - 任务ID: {}, 消息: {}", zygote.taskId, line);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("读取Python派生服务输出结束 - 任务ID: {}, 原因: {}", zygote.taskId, e.getMessage());
+        }
+
+        // 派生服务退出后无法再收到子进程的退出事件，终止仍在运行的用例进程组并按被强制终止处理
+        zygotes.remove(zygote.taskId, zygote);
+        List<ForkedProcess> orphans = new ArrayList<>(zygote.pending.values());
+        zygote.pending.clear();
+        if (!orphans.isEmpty()) {
+            log.warn("Python派生服务已退出，终止其创建的用例进程 - 任务ID: {}, 进程数: {}", zygote.taskId, orphans.size());
+        }
+        for (ForkedProcess orphan : orphans) {
+            orphan.started.completeExceptionally(new IOException("Python派生服务已退出"));
+            orphan.killProcesses(true);
+            orphan.complete(128 + SIGKILL);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        shutdown = true;
+        for (String taskId : new ArrayList<>(zygotes.keySet())) {
+            shutdown(taskId);
+        }
+    }
+
+    /**
+     * 任务的派生服务进程
+     */
+    private static class Zygote {
+        private final String taskId;
+        private final Process process;
+        private final BufferedWriter writer;
+        private final Map<Long, ForkedProcess> pending = new ConcurrentHashMap<>();
+
+        private Zygote(String taskId, Process process) {
+            this.taskId = taskId;
+            this.process = process;
+            this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        private synchronized void send(String message) throws IOException {
+            writer.write(message);
+            writer.newLine();
+            writer.flush();
+        }
+
+        /**
+         * 向用例进程组发送信号
+         */
+        private void kill(ForkedProcess forkedProcess, int signal) {
+            try {
+                send("{\"kill\": " + forkedProcess.id + ", \"signal\": " + signal + "}");
+            } catch (IOException e) {
+                // 派生服务已不可用，直接向进程组发送信号
+                forkedProcess.killProcesses(signal == SIGKILL);
+            }
+        }
+
+        /**
+         * 关闭协议通道，派生服务终止所有用例进程组后退出
+         */
+        private void close() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.debug("关闭Python派生服务输入流失败 - 任务ID: {}", taskId);
+            }
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * 由派生服务fork出的用例子进程
+     */
+    private static class ForkedProcess extends DelegatedProcess {
+        private final Zygote zygote;
+        private final long id;
+        private final CompletableFuture<Void> started = new CompletableFuture<>();
+        private volatile long pid = -1;
+        private volatile long startTime = -1;
+        private volatile long sessionId = -1;
+
+        private ForkedProcess(Zygote zygote, long id) {
+            this.zygote = zygote;
+            this.id = id;
+        }
+
+        @Override
+        protected String describe() {
+            return "任务ID: " + zygote.taskId + ", PID: " + pid;
+        }
+
+        /**
+         * 无论首进程是否仍在运行都直接向进程组发送信号，首进程退出后仍存活的成员一并终止；
+         * 无法查找进程组时由派生服务向仍在运行的子进程组发送信号
+         */
+        @Override
+        public void destroy() {
+            if (killProcesses(false) == 0 && isAlive()) {
+                zygote.kill(this, SIGTERM);
+            }
+        }
+
+        @Override
+        public Process destroyForcibly() {
+            if (killProcesses(true) == 0 && isAlive()) {
+                zygote.kill(this, SIGKILL);
+            }
+            return this;
+        }
+
+        /**
+         * 记录用例子进程的进程ID、启动时间和会话ID，终止前据此确认进程组仍属于本次执行
+         */
+        private void recordStart(long pid) {
+            if (pid > 0 && ProcessTree.isSupported()) {
+                startTime = ProcessTree.startTime(pid);
+                sessionId = ProcessTree.sessionId(pid);
+            }
+            this.pid = pid;
+        }
+
+        /**
+         * 用例子进程调用setsid成为独立会话和进程组的首进程。首进程仍在运行时校验启动时间；
+         * 首进程已退出时，只有会话中仍有记录的会话ID的成员才发送信号，此时该进程ID不会被复用，
+         * 否则进程组已不存在，进程ID可能已分配给其他进程
+         */
+        @Override
+        protected int killProcesses(boolean force) {
+            if (pid <= 0) {
+                return 0;
+            }
+            if (!ProcessTree.isSupported()) {
+                return ProcessTree.killGroup(pid, force);
+            }
+            if (sessionId != pid) {
+                return 0;
+            }
+            long currentStartTime = ProcessTree.startTime(pid);
+            if (currentStartTime >= 0 ? currentStartTime != startTime : !ProcessTree.hasSessionMembers(sessionId)) {
+                return 0;
+            }
+            return ProcessTree.killGroup(pid, force);
+        }
+
+        @Override
+        public long pid() {
+            return pid;
+        }
+    }
+}
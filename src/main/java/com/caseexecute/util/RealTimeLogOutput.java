@@ -6,8 +6,6 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -20,11 +18,16 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class RealTimeLogOutput {
     
-    private static final ExecutorService executorService = Executors.newCachedThreadPool();
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
     
     /**
-     * 实时输出进程日志
+     * 单行最多缓存的字节数，超长的行按该长度拆分输出，避免没有换行的输出占满内存；
+     * 拆分位置落在多字节UTF-8字符中间时退到该字符之前，字符完整地输出到下一段
+     */
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+    
+    /**
+     * 实时输出进程日志，输出流由{@link ProcessOutputMultiplexer}的泵线程读取
      * 
      * @param process 进程对象
      * @param logWriter 日志文件写入器
@@ -35,53 +38,19 @@ public class RealTimeLogOutput {
      */
     public static Future<?> startRealTimeLogOutput(Process process, BufferedWriter logWriter, 
                                                   Long testCaseId, Integer round, String testCaseNumber) {
-        return executorService.submit(() -> {
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-                
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    // 获取当前时间
-                    String timestamp = LocalDateTime.now().format(TIME_FORMATTER);
-                    
-                    // 构建日志前缀
-                    String logPrefix = String.format("[%s] [用例执行] 用例ID: %d, 轮次: %d", 
-                            timestamp, testCaseId, round);
-                    
-                    if (testCaseNumber != null && !testCaseNumber.trim().isEmpty()) {
-                        logPrefix += String.format(", 用例编号: %s", testCaseNumber);
-                    }
-                    
-                    // 实时输出到控制台
-                    log.info("{} - {}", logPrefix, line);
-                    
-                    // 同时写入日志文件，确保UTF-8编码
-                    synchronized (logWriter) {
-                        try {
-                            // 确保字符串是UTF-8编码
-                            String logLine = String.format("[%s] %s", timestamp, line);
-                            logWriter.write(logLine);
-                            logWriter.newLine();
-                            logWriter.flush();
-                        } catch (Exception e) {
-                            log.error("写入日志文件失败: {}", e.getMessage());
-                            // 尝试使用不同的编码方式
-                            try {
-                                String logLine = String.format("[%s] %s", timestamp, line);
-                                logWriter.write(logLine);
-                                logWriter.newLine();
-                                logWriter.flush();
-                            } catch (Exception e2) {
-                                log.error("重试写入日志文件也失败: {}", e2.getMessage());
-                            }
-                        }
+        // 构建日志前缀
+        String casePrefix = String.format("[用例执行] 用例ID: %d, 轮次: %d", testCaseId, round);
+        if (testCaseNumber != null && !testCaseNumber.trim().isEmpty()) {
+            casePrefix += String.format(", 用例编号: %s", testCaseNumber);
+        }
+        return ProcessOutputMultiplexer.register(process, new LineSink(logWriter, casePrefix),
+                ProcessOutputMultiplexer.DEFAULT_THREADS)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.error("读取进程输出流失败 - 用例ID: {}, 轮次: {}, 错误: {}", 
+                                testCaseId, round, error.getMessage());
                     }
-                }
-            } catch (IOException e) {
-                log.error("读取进程输出流失败 - 用例ID: {}, 轮次: {}, 错误: {}", 
-                        testCaseId, round, e.getMessage());
-            }
-        });
+                });
     }
     
     /**
@@ -156,4 +125,100 @@ public class RealTimeLogOutput {
         
         log.error("{} - 执行错误: {}", logPrefix, errorMessage);
     }
+    
+    /**
+     * 按行输出到控制台并写入日志文件
+     */
+    private static class LineSink implements ProcessOutputMultiplexer.Sink {
+        private final BufferedWriter logWriter;
+        private final String casePrefix;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        
+        private LineSink(BufferedWriter logWriter, String casePrefix) {
+            this.logWriter = logWriter;
+            this.casePrefix = casePrefix;
+        }
+        
+        @Override
+        public void write(byte[] buffer, int length) throws IOException {
+            int start = 0;
+            for (int i = 0; i < length; i++) {
+                if (buffer[i] == '\n') {
+                    line.write(buffer, start, i - start);
+                    emitLine();
+                    start = i + 1;
+                } else if (line.size() + i - start >= MAX_LINE_BYTES) {
+                    line.write(buffer, start, i - start);
+                    splitLine(buffer[i]);
+                    start = i;
+                }
+            }
+            line.write(buffer, start, length - start);
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            synchronized (logWriter) {
+                logWriter.flush();
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (line.size() > 0) {
+                emitLine();
+            }
+            flush();
+        }
+        
+        /**
+         * 输出超长行的前一段，next为拆分位置之后的第一个字节；被拆开的字符的前几个字节留在缓存中
+         */
+        private void splitLine(byte next) throws IOException {
+            byte[] bytes = line.toByteArray();
+            int cut = characterBoundary(bytes, next);
+            line.reset();
+            line.write(bytes, cut, bytes.length - cut);
+            emit(new String(bytes, 0, cut, StandardCharsets.UTF_8));
+        }
+        
+        /**
+         * 在bytes末尾之后拆分时不切断UTF-8字符的拆分位置：next不是后续字节时就是末尾，
+         * 否则退到最后一个字符的首字节之前；不是合法UTF-8时不回退
+         */
+        private static int characterBoundary(byte[] bytes, byte next) {
+            if ((next & 0xC0) != 0x80) {
+                return bytes.length;
+            }
+            for (int i = bytes.length - 1; i >= 0 && i >= bytes.length - 3; i--) {
+                if ((bytes[i] & 0xC0) != 0x80) {
+                    return (bytes[i] & 0xC0) == 0xC0 ? i : bytes.length;
+                }
+            }
+            return bytes.length;
+        }
+        
+        private void emitLine() throws IOException {
+            String text = new String(line.toByteArray(), StandardCharsets.UTF_8);
+            line.reset();
+            emit(text);
+        }
+        
+        private void emit(String text) throws IOException {
+            if (text.endsWith("\r")) {
+                text = text.substring(0, text.length() - 1);
+            }
+            // 获取当前时间
+            String timestamp = LocalDateTime.now().format(TIME_FORMATTER);
+            
+            // 实时输出到控制台
+            log.info("[{}] {} - {}", timestamp, casePrefix, text);
+            
+            // 同时写入日志文件，确保UTF-8编码
+            synchronized (logWriter) {
+                logWriter.write(String.format("[%s] %s", timestamp, text));
+                logWriter.newLine();
+            }
+        }
+    }
 }
@@ -0,0 +1,457 @@
+package com.caseexecute.util;
+
+import com.caseexecute.dto.TestCaseResultReport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 用例执行结果发件箱
+ * 结果在上报前先追加写入磁盘上的分段日志，平台确认后才视为上报完成，上报失败或服务重启都不会丢失结果：
+ * <ul>
+ *   <li>segment-{首条记录ID}.log：每行一条记录，包含记录ID、提交时间、上报URL和执行结果，写满后切换新分段</li>
+ *   <li>segment-{首条记录ID}.ack：该分段中已确认（上报成功或放弃）的记录ID，每行一个</li>
+ * </ul>
+ * 非当前写入的分段全部确认后连同确认文件一起删除；服务启动时加载已有分段，未确认的记录重新上报。
+ * 进程在写入过程中退出时，分段末尾不完整的记录被忽略
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+public class ResultReportOutbox {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String ACK_SUFFIX = ".ack";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 所有分段，按首条记录ID排序，最后一个为当前写入的分段
+     */
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    private Segment active;
+    private long nextId = 1;
+    private long pendingRecords;
+    private long recoveredRecords;
+
+    /**
+     * 打开发件箱，加载目录中已有的分段
+     *
+     * @param directory 发件箱目录
+     * @param segmentBytes 单个分段的最大字节数
+     * @param fsync 每次写入后是否强制刷盘
+     * @param objectMapper 序列化执行结果使用的ObjectMapper
+     */
+    public ResultReportOutbox(Path directory, long segmentBytes, boolean fsync, ObjectMapper objectMapper) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = Math.max(1, segmentBytes);
+        this.fsync = fsync;
+        this.objectMapper = objectMapper;
+        Files.createDirectories(directory);
+        recover();
+        recoveredRecords = pendingRecords;
+        active = openSegment(nextId);
+    }
+
+    /**
+     * 追加一条待上报的结果
+     *
+     * @return 记录ID，按追加顺序递增
+     */
+    public synchronized long append(String reportUrl, TestCaseResultReport report, long createdAt) throws IOException {
+        if (active.bytes >= segmentBytes) {
+            roll();
+        }
+        long id = nextId;
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("id", id);
+        record.put("createdAt", createdAt);
+        record.put("reportUrl", reportUrl);
+        record.set("report", objectMapper.valueToTree(report));
+        try {
+            active.write(objectMapper.writeValueAsString(record) + "\n", fsync);
+        } catch (IOException e) {
+            // 写入失败时分段末尾可能残留不完整的记录，下次追加切换到新分段
+            active.bytes = segmentBytes;
+            throw e;
+        }
+        active.pending.set((int) (id - active.firstId));
+        active.pendingCount++;
+        active.lastId = id;
+        nextId++;
+        pendingRecords++;
+        return id;
+    }
+
+    /**
+     * 确认记录已上报（或已放弃），全部确认的非当前分段被删除
+     *
+     * @param ids 记录ID
+     */
+    public synchronized void acknowledge(Collection<Long> ids) throws IOException {
+        Map<Segment, StringBuilder> acks = new TreeMap<>((a, b) -> Long.compare(a.firstId, b.firstId));
+        for (Long id : ids) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(id);
+            if (entry == null) {
+                continue;
+            }
+            Segment segment = entry.getValue();
+            int offset = (int) (id - segment.firstId);
+            if (id > segment.lastId || !segment.pending.get(offset)) {
+                continue;
+            }
+            segment.pending.clear(offset);
+            segment.pendingCount--;
+            pendingRecords--;
+            acks.computeIfAbsent(segment, s -> new StringBuilder()).append(id).append('\n');
+        }
+        for (Map.Entry<Segment, StringBuilder> entry : acks.entrySet()) {
+            Segment segment = entry.getKey();
+            if (segment.pendingCount == 0 && segment != active) {
+                delete(segment);
+            } else {
+                segment.writeAck(entry.getValue().toString(), fsync);
+            }
+        }
+    }
+
+    /**
+     * 当前已追加的最大记录ID
+     */
+    public synchronized long lastId() {
+        return nextId - 1;
+    }
+
+    /**
+     * 从磁盘读取未确认的记录，不持有发件箱的锁，读取期间可以继续追加和确认
+     *
+     * @param afterId 只读取ID大于该值的记录
+     * @param upToId 只读取ID不超过该值的记录，调用前通过{@link #lastId()}获取，保证这些记录已完整写入
+     * @param filter 记录筛选条件
+     * @param limit 最多读取的记录数
+     * @return 按ID排序的记录
+     */
+    public List<Record> readPending(long afterId, long upToId, RecordFilter filter, int limit) {
+        List<Segment> candidates;
+        synchronized (this) {
+            candidates = new ArrayList<>();
+            for (Segment segment : segments.values()) {
+                if (segment.lastId > afterId && segment.firstId <= upToId && segment.pendingCount > 0) {
+                    candidates.add(segment);
+                }
+            }
+        }
+        List<Record> records = new ArrayList<>();
+        for (Segment segment : candidates) {
+            try (BufferedReader reader = Files.newBufferedReader(segment.path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null && records.size() < limit) {
+                    Record record = parse(line);
+                    if (record == null || record.id <= afterId) {
+                        continue;
+                    }
+                    if (record.id > upToId) {
+                        return records;
+                    }
+                    if (isPending(segment, record.id) && filter.accept(record)) {
+                        records.add(record);
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                // 分段已全部确认并删除
+            } catch (IOException e) {
+                log.error("读取结果发件箱分段失败 - 文件: {}, 错误: {}", segment.path, e.getMessage());
+            }
+            if (records.size() >= limit) {
+                break;
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 启动时加载的未确认记录数
+     */
+    public long getRecoveredRecords() {
+        return recoveredRecords;
+    }
+
+    /**
+     * 未确认的记录数
+     */
+    public synchronized long getPendingRecords() {
+        return pendingRecords;
+    }
+
+    /**
+     * 分段数（含当前写入的分段）
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 分段占用的磁盘空间（字节）
+     */
+    public synchronized long getSizeBytes() {
+        long bytes = 0;
+        for (Segment segment : segments.values()) {
+            bytes += segment.bytes + segment.ackBytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * 关闭发件箱，当前分段已全部确认时删除
+     */
+    public synchronized void close() {
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            try {
+                if (segment.pendingCount == 0) {
+                    delete(segment);
+                } else {
+                    segment.close();
+                }
+            } catch (IOException e) {
+                log.warn("关闭结果发件箱分段失败 - 文件: {}, 错误: {}", segment.path, e.getMessage());
+            }
+        }
+        log.info("结果发件箱已关闭 - 未确认记录数: {}", pendingRecords);
+    }
+
+    private synchronized boolean isPending(Segment segment, long id) {
+        return segments.get(segment.firstId) == segment && id <= segment.lastId
+                && segment.pending.get((int) (id - segment.firstId));
+    }
+
+    private void roll() throws IOException {
+        Segment previous = active;
+        active = openSegment(nextId);
+        if (previous.pendingCount == 0) {
+            delete(previous);
+        } else {
+            previous.close();
+        }
+    }
+
+    private Segment openSegment(long firstId) throws IOException {
+        Segment segment = new Segment(firstId, directory.resolve(SEGMENT_PREFIX + firstId + SEGMENT_SUFFIX),
+                directory.resolve(SEGMENT_PREFIX + firstId + ACK_SUFFIX));
+        segment.lastId = firstId - 1;
+        segments.put(firstId, segment);
+        return segment;
+    }
+
+    private void delete(Segment segment) throws IOException {
+        segment.close();
+        segments.remove(segment.firstId);
+        Files.deleteIfExists(segment.path);
+        Files.deleteIfExists(segment.ackPath);
+    }
+
+    /**
+     * 加载已有分段：记录ID由分段内容确定，已确认的记录从待上报集合中去除，全部确认的分段直接删除
+     */
+    private void recover() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                paths.add(path);
+            }
+        }
+        for (Path path : paths) {
+            String fileName = path.getFileName().toString();
+            long firstId;
+            try {
+                firstId = Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                log.warn("忽略无法识别的结果发件箱文件: {}", path);
+                continue;
+            }
+            Segment segment = new Segment(firstId, path, directory.resolve(SEGMENT_PREFIX + firstId + ACK_SUFFIX));
+            segment.lastId = firstId - 1;
+            int invalidLines = 0;
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Record record = parse(line);
+                    if (record == null || record.id < firstId) {
+                        invalidLines++;
+                        continue;
+                    }
+                    segment.pending.set((int) (record.id - firstId));
+                    segment.lastId = Math.max(segment.lastId, record.id);
+                }
+            }
+            if (Files.exists(segment.ackPath)) {
+                for (String line : Files.readAllLines(segment.ackPath, StandardCharsets.UTF_8)) {
+                    try {
+                        long id = Long.parseLong(line.trim());
+                        if (id >= firstId && id <= segment.lastId) {
+                            segment.pending.clear((int) (id - firstId));
+                        }
+                    } catch (NumberFormatException e) {
+                        // 进程退出时未写完的确认行，对应记录会重新上报
+                    }
+                }
+            }
+            segment.pendingCount = segment.pending.cardinality();
+            segment.bytes = Files.size(path);
+            segment.ackBytes = Files.exists(segment.ackPath) ? Files.size(segment.ackPath) : 0;
+            nextId = Math.max(nextId, segment.lastId + 1);
+            if (invalidLines > 0) {
+                log.warn("结果发件箱分段中有无法解析的记录，已忽略 - 文件: {}, 行数: {}", path, invalidLines);
+            }
+            segments.put(firstId, segment);
+            if (segment.pendingCount == 0) {
+                delete(segment);
+            } else {
+                pendingRecords += segment.pendingCount;
+            }
+        }
+        if (pendingRecords > 0) {
+            log.info("结果发件箱加载完成，未上报的结果将重新上报 - 目录: {}, 分段数: {}, 未确认记录数: {}",
+                    directory, segments.size(), pendingRecords);
+        }
+    }
+
+    private Record parse(String line) {
+        if (line.isEmpty()) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            if (node == null || !node.hasNonNull("id") || !node.hasNonNull("report")) {
+                return null;
+            }
+            return new Record(node.get("id").asLong(), node.path("createdAt").asLong(),
+                    node.path("reportUrl").isNull() ? null : node.path("reportUrl").asText(null),
+                    objectMapper.treeToValue(node.get("report"), TestCaseResultReport.class));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 记录筛选条件
+     */
+    public interface RecordFilter {
+        boolean accept(Record record);
+    }
+
+    /**
+     * 发件箱中的一条记录
+     */
+    public static class Record {
+        private final long id;
+        private final long createdAt;
+        private final String reportUrl;
+        private final TestCaseResultReport report;
+
+        private Record(long id, long createdAt, String reportUrl, TestCaseResultReport report) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.reportUrl = reportUrl;
+            this.report = report;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public String getReportUrl() {
+            return reportUrl;
+        }
+
+        public TestCaseResultReport getReport() {
+            return report;
+        }
+    }
+
+    /**
+     * 分段，记录ID从firstId开始连续分配，pending中第i位表示记录firstId + i尚未确认
+     */
+    private static class Segment {
+        private final long firstId;
+        private final Path path;
+        private final Path ackPath;
+        private final BitSet pending = new BitSet();
+        private long lastId;
+        private int pendingCount;
+        private long bytes;
+        private long ackBytes;
+        private FileChannel channel;
+        private FileChannel ackChannel;
+
+        private Segment(long firstId, Path path, Path ackPath) {
+            this.firstId = firstId;
+            this.path = path;
+            this.ackPath = ackPath;
+        }
+
+        private void write(String content, boolean fsync) throws IOException {
+            if (channel == null) {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            bytes += writeFully(channel, content, fsync);
+        }
+
+        private void writeAck(String content, boolean fsync) throws IOException {
+            if (ackChannel == null) {
+                ackChannel = FileChannel.open(ackPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            ackBytes += writeFully(ackChannel, content, fsync);
+        }
+
+        private static int writeFully(FileChannel channel, String content, boolean fsync) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+            int length = buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            return length;
+        }
+
+        private void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+            if (ackChannel != null) {
+                ackChannel.close();
+                ackChannel = null;
+            }
+        }
+    }
+}
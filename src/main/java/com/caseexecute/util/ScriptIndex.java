@@ -0,0 +1,134 @@
+package com.caseexecute.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 用例脚本索引
+ * 用例集解压后构建一次，之后按用例编号查找脚本只需一次哈希表查找，不再逐个用例遍历scripts目录。
+ * 用例集清单（case-manifest.json）的"scripts"可显式指定用例编号对应的脚本，未指定的用例按scripts目录及其子目录中的
+ * &lt;用例编号&gt;.py查找：
+ * <pre>
+ * {"scripts": {"TC001": "scripts/network/4G_Network_Connection_Test.py"}}
+ * </pre>
+ * 索引中的路径均为相对于用例集根目录、以/分隔的路径
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+public class ScriptIndex {
+
+    private static final String SCRIPTS_DIRECTORY = "scripts/";
+
+    private final Map<String, String> scriptsByFileName = new HashMap<>();
+    private final Map<String, String> scriptsByCaseNumber = new HashMap<>();
+
+    /**
+     * 根据用例集中的文件列表构建索引
+     *
+     * @param relativeFiles 用例集中全部文件的相对路径（以/分隔）
+     * @param manifest 用例集清单，没有清单时为null
+     */
+    public ScriptIndex(Collection<String> relativeFiles, JsonNode manifest) {
+        // 同名脚本按路径排序后取第一个，保证查找结果稳定
+        List<String> sortedFiles = new ArrayList<>(relativeFiles);
+        Collections.sort(sortedFiles);
+        for (String relativeFile : sortedFiles) {
+            if (!relativeFile.startsWith(SCRIPTS_DIRECTORY)) {
+                continue;
+            }
+            String fileName = relativeFile.substring(relativeFile.lastIndexOf('/') + 1);
+            String existing = scriptsByFileName.putIfAbsent(fileName, relativeFile);
+            if (existing != null) {
+                log.warn("用例集中存在同名脚本，使用 {}，忽略 {}", existing, relativeFile);
+            }
+        }
+
+        if (manifest != null) {
+            Set<String> files = new HashSet<>(relativeFiles);
+            Iterator<Map.Entry<String, JsonNode>> mappings = manifest.path("scripts").fields();
+            while (mappings.hasNext()) {
+                Map.Entry<String, JsonNode> mapping = mappings.next();
+                String scriptPath = mapping.getValue().asText().replace('\\', '/');
+                if (scriptPath.startsWith("/")) {
+                    scriptPath = scriptPath.substring(1);
+                }
+                if (files.contains(scriptPath)) {
+                    scriptsByCaseNumber.put(mapping.getKey(), scriptPath);
+                } else {
+                    log.warn("用例集清单指定的脚本不存在，忽略 - 用例编号: {}, 脚本: {}", mapping.getKey(), scriptPath);
+                }
+            }
+        }
+        log.info("用例脚本索引构建完成 - 脚本数: {}, 清单映射数: {}", scriptsByFileName.size(), scriptsByCaseNumber.size());
+    }
+
+    /**
+     * 遍历解压目录构建索引
+     *
+     * @param extractPath 用例集解压目录
+     * @return 脚本索引
+     * @throws IOException 遍历目录或读取清单失败
+     */
+    public static ScriptIndex build(Path extractPath) throws IOException {
+        List<String> relativeFiles;
+        Path scriptsDirectory = extractPath.resolve("scripts");
+        if (Files.isDirectory(scriptsDirectory)) {
+            try (Stream<Path> paths = Files.walk(scriptsDirectory)) {
+                relativeFiles = paths.filter(Files::isRegularFile)
+                        .map(path -> extractPath.relativize(path).toString().replace('\\', '/'))
+                        .collect(Collectors.toList());
+            }
+        } else {
+            log.warn("scripts目录不存在或不是目录: {}", scriptsDirectory);
+            relativeFiles = new ArrayList<>();
+        }
+
+        JsonNode manifest = null;
+        Path manifestPath = extractPath.resolve(LazyTestCaseSet.MANIFEST_NAME);
+        if (Files.isRegularFile(manifestPath)) {
+            manifest = new ObjectMapper().readTree(manifestPath.toFile());
+            // 清单映射的脚本可能位于scripts目录之外，逐个补充到文件列表
+            Iterator<JsonNode> mapped = manifest.path("scripts").elements();
+            while (mapped.hasNext()) {
+                String scriptPath = mapped.next().asText().replace('\\', '/');
+                Path resolved = extractPath.resolve(scriptPath).normalize();
+                if (resolved.startsWith(extractPath.normalize()) && Files.isRegularFile(resolved)) {
+                    relativeFiles.add(scriptPath.startsWith("/") ? scriptPath.substring(1) : scriptPath);
+                }
+            }
+        }
+        return new ScriptIndex(relativeFiles, manifest);
+    }
+
+    /**
+     * 查找用例脚本
+     *
+     * @param testCaseNumber 用例编号
+     * @return 脚本相对路径，未找到时返回null
+     */
+    public String find(String testCaseNumber) {
+        String scriptPath = scriptsByCaseNumber.get(testCaseNumber);
+        if (scriptPath != null) {
+            return scriptPath;
+        }
+        return scriptsByFileName.get(testCaseNumber + ".py");
+    }
+}
@@ -0,0 +1,39 @@
+package com.caseexecute.util;
+
+/**
+ * 任务生命周期监听器
+ * 由CaseTaskScheduler在任务入队、开始执行、执行结束时回调
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+public interface TaskLifecycleListener {
+
+    /**
+     * 任务已进入调度队列
+     *
+     * @param taskId 任务ID
+     * @param queueSize 入队后的排队任务数
+     */
+    default void onTaskQueued(String taskId, int queueSize) {
+    }
+
+    /**
+     * 任务开始执行
+     *
+     * @param taskId 任务ID
+     * @param waitMillis 在队列中等待的时长（毫秒）
+     */
+    default void onTaskStarted(String taskId, long waitMillis) {
+    }
+
+    /**
+     * 任务执行结束（正常完成、异常或被取消）
+     *
+     * @param taskId 任务ID
+     * @param runMillis 实际执行时长（毫秒），未开始执行即被取消时为0
+     * @param error 异常信息，正常完成时为null
+     */
+    default void onTaskFinished(String taskId, long runMillis, Throwable error) {
+    }
+}
@@ -2,9 +2,6 @@ package com.caseexecute.util;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * 用例执行结果解析工具类
  * 
@@ -21,19 +18,29 @@ public class TestCaseResultParser {
      * @return 解析结果
      */
     public static TestCaseParseResult parseResult(String logContent) {
+        return parseResult(CaseOutputClassifier.of(logContent));
+    }
+    
+    /**
+     * 根据流式分类器的结果解析测试用例执行结果
+     * 
+     * @param output 用例输出分类器
+     * @return 解析结果
+     */
+    public static TestCaseParseResult parseResult(CaseOutputClassifier output) {
         TestCaseParseResult result = new TestCaseParseResult();
         
         // 解析测试统计信息
-        parseTestStatistics(logContent, result);
+        parseTestStatistics(output, result);
         
         // 解析执行状态
-        parseExecutionStatus(logContent, result);
+        parseExecutionStatus(output, result);
         
         // 解析失败详情
-        parseFailureDetails(logContent, result);
+        parseFailureDetails(output, result);
         
         // 解析性能指标
-        parsePerformanceMetrics(logContent, result);
+        parsePerformanceMetrics(output, result);
         
         return result;
     }
@@ -41,15 +48,12 @@ public class TestCaseResultParser {
     /**
      * 解析测试统计信息
      */
-    private static void parseTestStatistics(String logContent, TestCaseParseResult result) {
+    private static void parseTestStatistics(CaseOutputClassifier output, TestCaseParseResult result) {
         // 匹配测试结果统计
-        Pattern statsPattern = Pattern.compile("运行测试数:\\s*(\\d+).*?失败数:\\s*(\\d+).*?错误数:\\s*(\\d+)", Pattern.DOTALL);
-        Matcher statsMatcher = statsPattern.matcher(logContent);
-        
-        if (statsMatcher.find()) {
-            result.setTotalTests(Integer.parseInt(statsMatcher.group(1)));
-            result.setFailedTests(Integer.parseInt(statsMatcher.group(2)));
-            result.setErrorTests(Integer.parseInt(statsMatcher.group(3)));
+        if (output.hasStatistics()) {
+            result.setTotalTests(output.getTotalTests());
+            result.setFailedTests(output.getFailedTests());
+            result.setErrorTests(output.getErrorTests());
             result.setSuccessTests(result.getTotalTests() - result.getFailedTests() - result.getErrorTests());
         }
         
@@ -62,12 +66,12 @@ public class TestCaseResultParser {
     /**
      * 解析执行状态 - 只返回3种状态：SUCCESS、FAILED、BLOCKED
      */
-    private static void parseExecutionStatus(String logContent, TestCaseParseResult result) {
+    private static void parseExecutionStatus(CaseOutputClassifier output, TestCaseParseResult result) {
         String status = "BLOCKED";
         String resultMessage = "用例执行被阻塞";
         
         // 检查成功标识
-        if (logContent.contains("PASS") || logContent.contains("SUCCESS") || logContent.contains("成功")) {
+        if (output.contains("PASS") || output.contains("SUCCESS") || output.contains("成功")) {
             if (result.getFailedTests() == 0 && result.getErrorTests() == 0) {
                 status = "SUCCESS";
                 resultMessage = "用例执行成功";
@@ -79,21 +83,21 @@ public class TestCaseResultParser {
         }
         
         // 检查失败标识
-        if (logContent.contains("FAIL") || logContent.contains("ERROR") || logContent.contains("失败")) {
+        if (output.contains("FAIL") || output.contains("ERROR") || output.contains("失败")) {
             status = "FAILED";
             resultMessage = "用例执行失败";
         }
         
         // 检查超时标识 - 超时归类为FAILED
-        if (logContent.contains("超时") || logContent.contains("timeout") || logContent.contains("TIMEOUT")) {
+        if (output.contains("超时") || output.contains("timeout") || output.contains("TIMEOUT")) {
             status = "FAILED";
             resultMessage = "用例执行超时";
         }
         
         // 检查是否有Python环境问题或其他阻塞因素
-        if (logContent.contains("ImportError") || logContent.contains("ModuleNotFoundError") || 
-            logContent.contains("Permission denied") || logContent.contains("No such file") ||
-            logContent.contains("Connection refused") || logContent.contains("Network is unreachable")) {
+        if (output.contains("ImportError") || output.contains("ModuleNotFoundError") || 
+            output.contains("Permission denied") || output.contains("No such file") ||
+            output.contains("Connection refused") || output.contains("Network is unreachable")) {
             status = "BLOCKED";
             resultMessage = "用例执行被阻塞（环境或网络问题）";
         }
@@ -105,34 +109,15 @@ public class TestCaseResultParser {
     /**
      * 解析失败详情
      */
-    private static void parseFailureDetails(String logContent, TestCaseParseResult result) {
-        StringBuilder failureDetails = new StringBuilder();
-        
-        // 提取失败的测试用例信息
-        Pattern failurePattern = Pattern.compile("失败的测试:.*?(- .*?): (.*?)(?=\\n|$)", Pattern.DOTALL);
-        Matcher failureMatcher = failurePattern.matcher(logContent);
-        
-        while (failureMatcher.find()) {
-            String testName = failureMatcher.group(1).trim();
-            String errorMessage = failureMatcher.group(2).trim();
-            failureDetails.append(testName).append(": ").append(errorMessage).append("; ");
-        }
-        
-        // 提取错误信息
-        Pattern errorPattern = Pattern.compile("错误的测试:.*?(- .*?): (.*?)(?=\\n|$)", Pattern.DOTALL);
-        Matcher errorMatcher = errorPattern.matcher(logContent);
-        
-        while (errorMatcher.find()) {
-            String testName = errorMatcher.group(1).trim();
-            String errorMessage = errorMatcher.group(2).trim();
-            failureDetails.append(testName).append(": ").append(errorMessage).append("; ");
-        }
+    private static void parseFailureDetails(CaseOutputClassifier output, TestCaseParseResult result) {
+        // 失败的测试和错误的测试中列出的测试用例信息
+        StringBuilder failureDetails = new StringBuilder(output.getTestFailureDetails());
         
         // 如果没有找到具体的失败信息，尝试从日志中提取错误关键词
         if (failureDetails.length() == 0) {
             String[] errorKeywords = {"AssertionError", "Exception", "Error", "失败", "错误"};
             for (String keyword : errorKeywords) {
-                if (logContent.contains(keyword)) {
+                if (output.contains(keyword)) {
                     failureDetails.append("发现错误关键词: ").append(keyword).append("; ");
                 }
             }
@@ -144,28 +129,11 @@ public class TestCaseResultParser {
     /**
      * 解析性能指标
      */
-    private static void parsePerformanceMetrics(String logContent, TestCaseParseResult result) {
-        // 解析网络延迟
-        Pattern latencyPattern = Pattern.compile("网络延迟:\\s*([\\d.]+)ms");
-        Matcher latencyMatcher = latencyPattern.matcher(logContent);
-        if (latencyMatcher.find()) {
-            result.setNetworkLatency(Double.parseDouble(latencyMatcher.group(1)));
-        }
-        
-        // 解析带宽信息
-        Pattern bandwidthPattern = Pattern.compile("带宽:\\s*([\\d.]+)\\s*(Mbps|Kbps)");
-        Matcher bandwidthMatcher = bandwidthPattern.matcher(logContent);
-        if (bandwidthMatcher.find()) {
-            result.setBandwidth(Double.parseDouble(bandwidthMatcher.group(1)));
-            result.setBandwidthUnit(bandwidthMatcher.group(2));
-        }
-        
-        // 解析信号强度
-        Pattern signalPattern = Pattern.compile("信号强度:\\s*([\\d.]+)\\s*dBm");
-        Matcher signalMatcher = signalPattern.matcher(logContent);
-        if (signalMatcher.find()) {
-            result.setSignalStrength(Double.parseDouble(signalMatcher.group(1)));
-        }
+    private static void parsePerformanceMetrics(CaseOutputClassifier output, TestCaseParseResult result) {
+        result.setNetworkLatency(output.getNetworkLatency());
+        result.setBandwidth(output.getBandwidth());
+        result.setBandwidthUnit(output.getBandwidthUnit());
+        result.setSignalStrength(output.getSignalStrength());
     }
     
     /**
@@ -0,0 +1,425 @@
+package com.caseexecute.util;
+
+import com.caseexecute.config.FileStorageConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 用例集缓存
+ * 已解压的用例集按“用例集ID + 内容版本”缓存在文件存储根目录的case-set-cache目录下，多个任务共享同一份解压结果：
+ * 内容版本优先取自HEAD请求返回的ETag/Last-Modified，服务端未提供时下载后按内容SHA-256确定，
+ * 此时每个任务仍要完整下载解压一次，内容相同时只复用已有目录、节省磁盘空间，不计为缓存命中；
+ * 任务通过租约引用缓存目录，同一用例集的并发请求只下载解压一次；
+ * 缓存总大小超过磁盘预算时按最近最少使用淘汰未被引用的用例集；
+ * 每个缓存目录写入.complete标记文件，服务重启时据此重建索引，未完成的临时目录直接删除
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class TestCaseSetCache implements InitializingBean {
+
+    private static final String CACHE_DIRECTORY = "case-set-cache";
+    private static final String COMPLETE_MARKER = ".complete";
+    private static final String EVICTED_SUFFIX = ".evicted-";
+
+    @Autowired
+    private FileStorageConfig fileStorageConfig;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 缓存索引，按访问顺序排列，最前面的为最近最少使用
+     */
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, InFlightLoad> inFlightLoads = new HashMap<>();
+
+    private Path cacheDirectory;
+    private long totalBytes;
+    private long hits;
+    private long contentHashMatches;
+    private long misses;
+    private long evictions;
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!fileStorageConfig.isCacheEnabled()) {
+            return;
+        }
+        cacheDirectory = Paths.get(fileStorageConfig.getRootDirectory(), CACHE_DIRECTORY);
+        Files.createDirectories(cacheDirectory);
+        rebuildIndex();
+    }
+
+    /**
+     * 是否启用用例集缓存
+     */
+    public boolean isEnabled() {
+        return fileStorageConfig.isCacheEnabled() && cacheDirectory != null;
+    }
+
+    /**
+     * 租用用例集的解压目录，缓存中不存在时下载并解压
+     *
+     * @param testCaseSetId 用例集ID
+     * @param testCaseSetPath 用例集下载地址
+     * @return 缓存租约，任务结束后必须关闭
+     * @throws Exception 下载或解压失败
+     */
+    public CacheLease acquire(Long testCaseSetId, String testCaseSetPath) throws Exception {
+        String setKey = testCaseSetId != null ? String.valueOf(testCaseSetId) : "url-" + sha256Hex(testCaseSetPath).substring(0, 12);
+        String versionTag = FileDownloadUtil.fetchVersionTag(testCaseSetPath);
+
+        if (versionTag != null) {
+            String key = setKey + "-" + sha256Hex(versionTag).substring(0, 16);
+            return acquire(key, false, () -> {
+                Path tempDirectory = newTempDirectory(key);
+                String contentSha256 = FileDownloadUtil.downloadAndExtractZipFile(testCaseSetPath, tempDirectory);
+                return commit(key, testCaseSetId, versionTag, contentSha256, tempDirectory);
+            });
+        }
+
+        // 服务端未提供版本标识：先边下载边解压并计算内容哈希，内容相同时复用已有的缓存目录（不节省下载和解压）
+        log.info("用例集下载地址未提供ETag/Last-Modified，按内容哈希缓存 - 用例集ID: {}", testCaseSetId);
+        Path tempDirectory = newTempDirectory(setKey);
+        try {
+            String contentSha256 = FileDownloadUtil.downloadAndExtractZipFile(testCaseSetPath, tempDirectory);
+            String key = setKey + "-" + contentSha256.substring(0, 16);
+            return acquire(key, true, () -> commit(key, testCaseSetId, null, contentSha256, tempDirectory));
+        } finally {
+            // 命中已有缓存时临时目录未被使用
+            FileUtils.deleteQuietly(tempDirectory.toFile());
+        }
+    }
+
+    /**
+     * 按缓存键租用，未命中时由第一个请求加载，其余并发请求等待同一次加载
+     *
+     * @param downloaded 调用前是否已下载解压过用例集（按内容哈希确定缓存键），是则找到已有目录时不计为命中
+     */
+    private CacheLease acquire(String key, boolean downloaded, CacheLoader loader) throws Exception {
+        InFlightLoad inFlightLoad;
+        boolean loading = false;
+        synchronized (this) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null) {
+                entry.refCount++;
+                countReuse(downloaded);
+                touch(entry);
+                log.info("用例集缓存命中 - 缓存键: {}, 引用数: {}", key, entry.refCount);
+                return new CacheLease(entry);
+            }
+            inFlightLoad = inFlightLoads.get(key);
+            if (inFlightLoad == null) {
+                inFlightLoad = new InFlightLoad();
+                inFlightLoads.put(key, inFlightLoad);
+                loading = true;
+                misses++;
+            } else {
+                inFlightLoad.waiters++;
+                countReuse(downloaded);
+                log.info("用例集正在加载，等待加载完成 - 缓存键: {}", key);
+            }
+        }
+
+        if (loading) {
+            CacheEntry entry;
+            try {
+                entry = loader.load();
+            } catch (Exception e) {
+                synchronized (this) {
+                    inFlightLoads.remove(key);
+                }
+                inFlightLoad.future.completeExceptionally(e);
+                throw e;
+            }
+            synchronized (this) {
+                inFlightLoads.remove(key);
+                // 加载者和等待者的引用在加入索引前一并计入，避免加载完成后立即被淘汰
+                entry.refCount = 1 + inFlightLoad.waiters;
+                entries.put(key, entry);
+                totalBytes += entry.sizeBytes;
+            }
+            inFlightLoad.future.complete(entry);
+            evictIfNeeded();
+            return new CacheLease(entry);
+        }
+
+        try {
+            return new CacheLease(inFlightLoad.future.get());
+        } catch (ExecutionException e) {
+            throw new IOException("用例集加载失败 - 缓存键: " + key + ", 错误: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 记录复用已有缓存目录（或等待同一次加载）的请求
+     */
+    private void countReuse(boolean downloaded) {
+        if (downloaded) {
+            contentHashMatches++;
+        } else {
+            hits++;
+        }
+    }
+
+    /**
+     * 写入完成标记后将解压好的临时目录移动到缓存目录
+     */
+    private CacheEntry commit(String key, Long testCaseSetId, String versionTag, String contentSha256,
+                              Path tempDirectory) throws Exception {
+        Path targetDirectory = cacheDirectory.resolve(key);
+        try {
+            long sizeBytes = FileUtils.sizeOfDirectory(tempDirectory.toFile());
+
+            Map<String, Object> marker = new LinkedHashMap<>();
+            marker.put("testCaseSetId", testCaseSetId);
+            marker.put("versionTag", versionTag);
+            marker.put("contentSha256", contentSha256);
+            marker.put("sizeBytes", sizeBytes);
+            marker.put("createdAt", System.currentTimeMillis());
+            Files.write(tempDirectory.resolve(COMPLETE_MARKER), objectMapper.writeValueAsBytes(marker));
+
+            if (Files.exists(targetDirectory)) {
+                FileUtils.deleteDirectory(targetDirectory.toFile());
+            }
+            Files.move(tempDirectory, targetDirectory, StandardCopyOption.ATOMIC_MOVE);
+            log.info("用例集已加入缓存 - 缓存键: {}, 大小: {}MB", key, sizeBytes / (1024 * 1024));
+            return new CacheEntry(key, targetDirectory, sizeBytes);
+        } catch (Exception e) {
+            FileUtils.deleteQuietly(tempDirectory.toFile());
+            throw e;
+        }
+    }
+
+    /**
+     * 缓存目录下的临时解压目录，重启时作为未完成的目录删除
+     */
+    private Path newTempDirectory(String key) {
+        return cacheDirectory.resolve(key + ".tmp-" + UUID.randomUUID());
+    }
+
+    /**
+     * 释放租约
+     */
+    private void release(CacheEntry entry) {
+        synchronized (this) {
+            entry.refCount--;
+        }
+        evictIfNeeded();
+    }
+
+    /**
+     * 缓存总大小超过预算时，按最近最少使用淘汰未被引用的用例集
+     * 被淘汰的目录在锁内重命名为唯一的待删除目录，锁外再删除；
+     * 同一缓存键随后重新加载时提交到原路径，不会被迟到的删除操作清除
+     */
+    private void evictIfNeeded() {
+        long budgetBytes = fileStorageConfig.getCacheMaxSizeMB() * 1024 * 1024;
+        List<Path> tombstones = new ArrayList<>();
+        synchronized (this) {
+            Iterator<CacheEntry> iterator = entries.values().iterator();
+            while (totalBytes > budgetBytes && iterator.hasNext()) {
+                CacheEntry entry = iterator.next();
+                if (entry.refCount > 0) {
+                    continue;
+                }
+                iterator.remove();
+                totalBytes -= entry.sizeBytes;
+                evictions++;
+                log.info("淘汰用例集缓存 - 缓存键: {}, 大小: {}MB", entry.key, entry.sizeBytes / (1024 * 1024));
+                Path tombstone = cacheDirectory.resolve(entry.key + EVICTED_SUFFIX + UUID.randomUUID());
+                try {
+                    Files.move(entry.directory, tombstone, StandardCopyOption.ATOMIC_MOVE);
+                    tombstones.add(tombstone);
+                } catch (IOException e) {
+                    log.warn("重命名被淘汰的用例集缓存失败，直接删除 - 缓存键: {}, 错误: {}", entry.key, e.getMessage());
+                    FileUtils.deleteQuietly(entry.directory.toFile());
+                }
+            }
+        }
+        for (Path tombstone : tombstones) {
+            FileUtils.deleteQuietly(tombstone.toFile());
+        }
+    }
+
+    /**
+     * 服务启动时根据完成标记重建缓存索引，删除未完成的临时文件
+     */
+    private void rebuildIndex() throws IOException {
+        List<CacheEntry> loaded = new ArrayList<>();
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(cacheDirectory)) {
+            for (Path child : children) {
+                Path marker = child.resolve(COMPLETE_MARKER);
+                if (!Files.isDirectory(child) || !Files.exists(marker) || child.getFileName().toString().contains(EVICTED_SUFFIX)) {
+                    log.info("删除未完成或已淘汰的用例集缓存文件: {}", child);
+                    FileUtils.deleteQuietly(child.toFile());
+                    continue;
+                }
+                try {
+                    JsonNode markerContent = objectMapper.readTree(marker.toFile());
+                    CacheEntry entry = new CacheEntry(child.getFileName().toString(), child, markerContent.path("sizeBytes").asLong());
+                    entry.lastAccess = Files.getLastModifiedTime(marker).toMillis();
+                    loaded.add(entry);
+                } catch (IOException e) {
+                    log.warn("用例集缓存标记文件损坏，删除该缓存: {}", child);
+                    FileUtils.deleteQuietly(child.toFile());
+                }
+            }
+        }
+
+        loaded.sort((left, right) -> Long.compare(left.lastAccess, right.lastAccess));
+        synchronized (this) {
+            for (CacheEntry entry : loaded) {
+                entries.put(entry.key, entry);
+                totalBytes += entry.sizeBytes;
+            }
+        }
+        log.info("用例集缓存索引已重建 - 目录: {}, 用例集数: {}, 总大小: {}MB, 预算: {}MB",
+                cacheDirectory, loaded.size(), totalBytes / (1024 * 1024), fileStorageConfig.getCacheMaxSizeMB());
+        evictIfNeeded();
+    }
+
+    /**
+     * 更新完成标记的修改时间，重启后据此恢复最近使用顺序
+     */
+    private void touch(CacheEntry entry) {
+        entry.lastAccess = System.currentTimeMillis();
+        try {
+            Files.setLastModifiedTime(entry.directory.resolve(COMPLETE_MARKER), FileTime.fromMillis(entry.lastAccess));
+        } catch (IOException e) {
+            log.debug("更新用例集缓存访问时间失败 - 缓存键: {}", entry.key);
+        }
+    }
+
+    /**
+     * 获取缓存指标
+     */
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", isEnabled());
+        metrics.put("entries", entries.size());
+        metrics.put("sizeMB", totalBytes / (1024 * 1024));
+        metrics.put("budgetMB", fileStorageConfig.getCacheMaxSizeMB());
+        metrics.put("inFlightLoads", inFlightLoads.size());
+        metrics.put("hits", hits);
+        metrics.put("contentHashMatches", contentHashMatches);
+        metrics.put("misses", misses);
+        metrics.put("evictions", evictions);
+        return metrics;
+    }
+
+    private static String sha256Hex(String value) throws Exception {
+        return toHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 缓存加载逻辑
+     */
+    private interface CacheLoader {
+        CacheEntry load() throws Exception;
+    }
+
+    /**
+     * 正在进行的加载
+     */
+    private static class InFlightLoad {
+        private final CompletableFuture<CacheEntry> future = new CompletableFuture<>();
+        private int waiters;
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static class CacheEntry {
+        private final String key;
+        private final Path directory;
+        private final long sizeBytes;
+        private int refCount;
+        private long lastAccess;
+        private ScriptIndex scriptIndex;
+
+        private CacheEntry(String key, Path directory, long sizeBytes) {
+            this.key = key;
+            this.directory = directory;
+            this.sizeBytes = sizeBytes;
+        }
+
+        /**
+         * 脚本索引在第一个任务使用时构建，之后由使用同一缓存目录的任务共享
+         */
+        private synchronized ScriptIndex scriptIndex() throws IOException {
+            if (scriptIndex == null) {
+                scriptIndex = ScriptIndex.build(directory);
+            }
+            return scriptIndex;
+        }
+    }
+
+    /**
+     * 用例集缓存租约，持有期间对应的缓存目录不会被淘汰
+     */
+    public class CacheLease implements AutoCloseable {
+        private final CacheEntry entry;
+        private boolean released;
+
+        private CacheLease(CacheEntry entry) {
+            this.entry = entry;
+        }
+
+        /**
+         * 获取用例集解压目录
+         */
+        public Path getPath() {
+            return entry.directory;
+        }
+
+        /**
+         * 获取用例集的脚本索引，同一缓存目录只构建一次
+         */
+        public ScriptIndex getScriptIndex() throws IOException {
+            return entry.scriptIndex();
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.caseexecute.util;
+
+import com.caseexecute.dto.TestCaseExecutionRequest;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 任务级UE设备锁表
+ * 并行执行用例时，每个用例在执行前从锁表中租用所需的UE，
+ * 使用相同UE的用例串行执行，使用不同UE的用例可同时执行；未声明所需UE的用例默认租用任意一个空闲UE，
+ * 也可配置为租用全部UE。租用请求按到达顺序排队：先到的请求等待的UE不会被后到的请求抢先租用，
+ * 租用全部UE的请求不会被持续到达的单UE请求饿死
+ *
+ * @author system
+ * @since 2024-01-01
+ */
+@Slf4j
+public class UeLockTable {
+
+    private final Map<String, TestCaseExecutionRequest.UeInfo> ueMap = new LinkedHashMap<>();
+    private final Set<String> leasedUeIds = new HashSet<>();
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private final boolean undeclaredLeaseAll;
+
+    /**
+     * @param ueList 执行机UE列表
+     * @param undeclaredLeaseAll 未声明所需UE的用例是否租用全部UE，否则租用任意一个空闲UE
+     */
+    public UeLockTable(List<TestCaseExecutionRequest.UeInfo> ueList, boolean undeclaredLeaseAll) {
+        this.undeclaredLeaseAll = undeclaredLeaseAll;
+        if (ueList != null) {
+            for (TestCaseExecutionRequest.UeInfo ue : ueList) {
+                String key = getUeKey(ue);
+                if (key != null) {
+                    ueMap.put(key, ue);
+                }
+            }
+        }
+    }
+
+    /**
+     * 用例声明了所需UE但都不在执行机UE列表中时返回这些UE标识，否则返回空列表；
+     * 这类用例无法租用任何UE，不能执行，否则会与持有同一UE的用例同时运行
+     *
+     * @param requiredUeIds 用例声明所需的UE唯一标识
+     * @return 无法匹配的UE标识
+     */
+    public List<String> getUnknownUeIds(List<String> requiredUeIds) {
+        if (ueMap.isEmpty() || requiredUeIds == null || requiredUeIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        for (String ueId : requiredUeIds) {
+            if (ueMap.containsKey(ueId)) {
+                return Collections.emptyList();
+            }
+        }
+        return requiredUeIds;
+    }
+
+    /**
+     * 租用UE，所需UE全部空闲且没有更早的请求在等待这些UE时才一次性租用，避免多个用例交叉持有导致死锁
+     *
+     * @param requiredUeIds 用例声明所需的UE唯一标识；为空时租用任意一个空闲UE或全部UE（按构造参数）
+     * @return UE租约，使用完成后必须关闭
+     * @throws InterruptedException 等待期间线程被中断
+     * @throws IllegalArgumentException 声明的UE都不在执行机UE列表中
+     */
+    public synchronized UeLease acquire(List<String> requiredUeIds) throws InterruptedException {
+        if (ueMap.isEmpty()) {
+            return new UeLease(Collections.emptyList());
+        }
+
+        List<String> keys = null;
+        if (requiredUeIds == null || requiredUeIds.isEmpty()) {
+            if (undeclaredLeaseAll) {
+                keys = new ArrayList<>(ueMap.keySet());
+            }
+        } else {
+            keys = new ArrayList<>();
+            for (String ueId : requiredUeIds) {
+                if (ueMap.containsKey(ueId)) {
+                    if (!keys.contains(ueId)) {
+                        keys.add(ueId);
+                    }
+                } else {
+                    log.warn("用例声明的UE不在执行机UE列表中，忽略 - UE ID: {}", ueId);
+                }
+            }
+            if (keys.isEmpty()) {
+                throw new IllegalArgumentException("用例声明的UE都不在执行机UE列表中: " + requiredUeIds);
+            }
+        }
+
+        Waiter waiter = new Waiter(keys);
+        waiters.addLast(waiter);
+        try {
+            List<String> granted;
+            while ((granted = tryGrant(waiter)) == null) {
+                wait();
+            }
+            leasedUeIds.addAll(granted);
+            return new UeLease(granted);
+        } finally {
+            // 排在后面的请求可能因本请求离开队列而可以租用
+            waiters.remove(waiter);
+            notifyAll();
+        }
+    }
+
+    /**
+     * 按到达顺序判断请求能否租用：更早的请求等待的UE视为已占用，
+     * 更早的任意UE请求各自预留一个空闲UE
+     *
+     * @return 可以租用的UE，不能租用时返回null
+     */
+    private List<String> tryGrant(Waiter waiter) {
+        Set<String> reserved = new HashSet<>(leasedUeIds);
+        int pendingAny = 0;
+        for (Waiter earlier : waiters) {
+            if (earlier == waiter) {
+                break;
+            }
+            if (earlier.keys == null) {
+                pendingAny++;
+            } else {
+                reserved.addAll(earlier.keys);
+            }
+        }
+        if (waiter.keys != null) {
+            for (String key : waiter.keys) {
+                if (reserved.contains(key)) {
+                    return null;
+                }
+            }
+            return waiter.keys;
+        }
+        for (String key : ueMap.keySet()) {
+            if (!reserved.contains(key) && pendingAny-- == 0) {
+                return Collections.singletonList(key);
+            }
+        }
+        return null;
+    }
+
+    private synchronized void release(List<String> keys) {
+        leasedUeIds.removeAll(keys);
+        notifyAll();
+    }
+
+    /**
+     * 获取UE的锁键，优先使用UE唯一标识，其次使用UE ID
+     */
+    private static String getUeKey(TestCaseExecutionRequest.UeInfo ue) {
+        if (ue == null) {
+            return null;
+        }
+        if (ue.getUeId() != null && !ue.getUeId().trim().isEmpty()) {
+            return ue.getUeId();
+        }
+        return ue.getId() != null ? String.valueOf(ue.getId()) : null;
+    }
+
+    /**
+     * 等待中的租用请求
+     */
+    private static class Waiter {
+        /** 所需UE，为null时租用任意一个空闲UE */
+        private final List<String> keys;
+
+        private Waiter(List<String> keys) {
+            this.keys = keys;
+        }
+    }
+
+    /**
+     * UE租约
+     */
+    public class UeLease implements AutoCloseable {
+        private final List<String> keys;
+        private boolean released;
+
+        private UeLease(List<String> keys) {
+            this.keys = keys;
+        }
+
+        /**
+         * 获取本次租用的UE信息列表
+         */
+        public List<TestCaseExecutionRequest.UeInfo> getUeList() {
+            List<TestCaseExecutionRequest.UeInfo> ueList = new ArrayList<>();
+            for (String key : keys) {
+                ueList.add(ueMap.get(key));
+            }
+            return ueList;
+        }
+
+        public List<String> getUeIds() {
+            return keys;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(keys);
+            }
+        }
+    }
+}
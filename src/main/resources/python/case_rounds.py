@@ -0,0 +1,59 @@
+# -*- coding: utf-8 -*-
+"""
+用例多轮次批量执行器
+
+由Java服务启动，在同一个解释器中依次执行同一用例脚本的多个轮次，省去每个轮次冷启动解释器的开销：
+
+    python case_rounds.py <批量执行描述文件>
+
+描述文件格式：
+    {"script": "/path/TC001.py", "args": ["--ip", "..."],
+     "rounds": [{"round": 1, "log": "/path/TC001_1.log"}, {"round": 2, "log": "/path/TC001_2.log"}]}
+
+每个轮次的输出写入各自的日志文件，当前轮次通过环境变量CASE_ROUND传递给脚本。
+执行器由Java侧通过setsid启动（缺少setsid命令时自行创建会话），是独立会话和进程组的首进程，
+终止轮次时按进程组发送信号。
+标准输出仅用于向Java侧报告轮次进度：
+
+    ##ROUND_START {"round": 1}
+    ##ROUND_END {"round": 1, "exitCode": 0}
+
+脚本遗留非守护线程或仍在运行的子进程时，报告完当前轮次后退出，由Java侧重新启动执行器执行剩余轮次，
+进程组中不会混入前一轮次遗留的进程。
+"""
+
+import json
+import os
+import sys
+
+from case_worker import ensure_own_process_group, library_prefixes, run_script
+
+
+def _report(marker, message):
+    sys.stdout.write("%s %s\n" % (marker, json.dumps(message, ensure_ascii=False)))
+    sys.stdout.flush()
+
+
+def main():
+    ensure_own_process_group()
+    with open(sys.argv[1], "r", encoding="utf-8") as spec_file:
+        spec = json.load(spec_file)
+
+    prefixes = library_prefixes()
+    for round_spec in spec["rounds"]:
+        round_number = round_spec["round"]
+        _report("##ROUND_START", {"round": round_number})
+        exit_code, dirty = run_script({
+            "script": spec["script"],
+            "args": spec.get("args") or [],
+            "log": round_spec["log"],
+            "env": {"CASE_ROUND": str(round_number)},
+        }, prefixes)
+        _report("##ROUND_END", {"round": round_number, "exitCode": exit_code})
+        if dirty:
+            # 遗留线程或子进程可能继续写入下一轮次的日志，结束本进程以隔离剩余轮次
+            os._exit(0)
+
+
+if __name__ == "__main__":
+    main()
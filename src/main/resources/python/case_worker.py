@@ -0,0 +1,227 @@
+# -*- coding: utf-8 -*-
+"""
+用例脚本常驻执行器
+
+由Java服务的PythonWorkerPool启动并管理，解释器和预加载模块只初始化一次，
+之后通过标准输入/输出上的JSON行协议循环接收用例执行请求：
+
+    请求: {"id": 1, "script": "/path/case.py", "args": ["--ip", "..."], "log": "/path/TC001_1.log"}
+    响应: {"id": 1, "exitCode": 0, "dirty": false}
+
+每次执行时将文件描述符1和2重定向到该次执行的日志文件，脚本以__main__方式运行，
+sys.argv与直接执行 python script args... 时一致；环境变量CASE_RESULT_FILE为该次执行的结构化结果文件。
+执行器是独立会话和进程组的首进程，同一时间只执行一个用例，脚本创建的子孙进程都属于该进程组，
+超时或取消时Java侧按进程组终止。脚本遗留了非守护线程或仍在运行的子进程时返回dirty=true，
+由Java侧回收该执行器，进程组中不会混入前一次执行遗留的进程。
+"""
+
+import argparse
+import importlib
+import json
+import os
+import sys
+import threading
+import traceback
+import runpy
+
+
+def _open_control_channels():
+    """
+    将协议通道从标准输入/输出上移走，避免脚本读写stdin/stdout破坏协议
+    """
+    control_in = os.fdopen(os.dup(0), "r", encoding="utf-8")
+    control_out = os.fdopen(os.dup(1), "w", encoding="utf-8")
+
+    devnull = os.open(os.devnull, os.O_RDWR)
+    os.dup2(devnull, 0)
+    # 执行间隙的输出写入执行器自身的错误输出
+    os.dup2(2, 1)
+    os.close(devnull)
+    return control_in, control_out
+
+
+def _send(control_out, message):
+    control_out.write(json.dumps(message, ensure_ascii=False) + "\n")
+    control_out.flush()
+
+
+def ensure_own_process_group():
+    """
+    成为独立会话和进程组的首进程，Java侧未能通过setsid启动时在此补充（仅Unix）
+    """
+    if hasattr(os, "setsid") and os.getpgrp() != os.getpid():
+        try:
+            os.setsid()
+        except OSError as e:
+            print("创建独立会话失败: %s" % e, file=sys.stderr)
+
+
+def _reap_children():
+    """
+    回收已退出但未被等待的子进程，避免僵尸进程被计为遗留进程
+    """
+    while True:
+        try:
+            pid, _ = os.waitpid(-1, os.WNOHANG)
+        except (ChildProcessError, OSError):
+            return
+        if pid == 0:
+            return
+
+
+def leftover_group_processes():
+    """
+    本进程组中除执行器自身外仍在运行的进程ID，仅在执行器是进程组首进程且支持/proc时检查
+    """
+    if not hasattr(os, "getpgrp") or os.getpgrp() != os.getpid() or not os.path.isdir("/proc"):
+        return []
+    _reap_children()
+    self_pid = os.getpid()
+    leftovers = []
+    for entry in os.listdir("/proc"):
+        if not entry.isdigit() or int(entry) == self_pid:
+            continue
+        try:
+            with open("/proc/%s/stat" % entry, "rb") as stat_file:
+                stat = stat_file.read().decode("utf-8", "replace")
+        except OSError:
+            continue
+        # 进程名可能包含空格和括号，以最后一个右括号作为分隔
+        fields = stat[stat.rfind(")") + 2:].split()
+        if len(fields) > 2 and fields[0] != "Z" and int(fields[2]) == self_pid:
+            leftovers.append(int(entry))
+    return leftovers
+
+
+def library_prefixes():
+    prefixes = {sys.prefix, sys.base_prefix, sys.exec_prefix}
+    for path in sys.path:
+        if path and ("site-packages" in path or "dist-packages" in path):
+            prefixes.add(path)
+    return tuple(os.path.abspath(p) for p in prefixes if p)
+
+
+def result_file_for(log_path):
+    """
+    日志文件对应的结构化结果文件：与日志文件同目录，扩展名.log替换为.result.json
+    """
+    base, ext = os.path.splitext(log_path)
+    return (base if ext == ".log" else log_path) + ".result.json"
+
+
+def _purge_local_modules(modules_before, library_prefixes):
+    """
+    卸载本次执行期间从用例集目录导入的模块，避免不同用例集的同名模块互相影响；
+    标准库和第三方库保留在sys.modules中，后续执行无需重复导入
+    """
+    for name in list(sys.modules.keys()):
+        if name in modules_before:
+            continue
+        module = sys.modules.get(name)
+        module_file = getattr(module, "__file__", None)
+        if module_file and not os.path.abspath(module_file).startswith(library_prefixes):
+            del sys.modules[name]
+
+
+def run_script(request, library_prefixes):
+    """
+    在当前解释器中以__main__方式执行一次用例脚本，执行后恢复解释器状态
+
+    :return: (退出码, 是否遗留了非守护线程或子进程)
+    """
+    script = request["script"]
+    args = request.get("args") or []
+    log_path = request["log"]
+
+    saved_cwd = os.getcwd()
+    saved_argv = sys.argv
+    saved_path = list(sys.path)
+    saved_environ = dict(os.environ)
+    modules_before = set(sys.modules.keys())
+    threads_before = set(threading.enumerate())
+
+    sys.stdout.flush()
+    sys.stderr.flush()
+    saved_stdout_fd = os.dup(1)
+    saved_stderr_fd = os.dup(2)
+    log_fd = os.open(log_path, os.O_WRONLY | os.O_CREAT | os.O_TRUNC, 0o644)
+    os.dup2(log_fd, 1)
+    os.dup2(log_fd, 2)
+    os.close(log_fd)
+
+    exit_code = 0
+    try:
+        os.environ.update(request.get("env") or {})
+        os.environ["CASE_RESULT_FILE"] = result_file_for(log_path)
+        sys.argv = [script] + list(args)
+        # 与 python script.py 一致，脚本所在目录作为模块搜索路径的第一项
+        sys.path.insert(0, os.path.dirname(os.path.abspath(script)))
+        runpy.run_path(script, run_name="__main__")
+    except SystemExit as e:
+        if e.code is None:
+            exit_code = 0
+        elif isinstance(e.code, int):
+            exit_code = e.code
+        else:
+            print(e.code, file=sys.stderr)
+            exit_code = 1
+    except KeyboardInterrupt:
+        traceback.print_exc()
+        exit_code = 130
+    except BaseException:
+        traceback.print_exc()
+        exit_code = 1
+    finally:
+        try:
+            sys.stdout.flush()
+            sys.stderr.flush()
+        except Exception:
+            pass
+        os.dup2(saved_stdout_fd, 1)
+        os.dup2(saved_stderr_fd, 2)
+        os.close(saved_stdout_fd)
+        os.close(saved_stderr_fd)
+
+        try:
+            os.chdir(saved_cwd)
+        except OSError:
+            pass
+        sys.argv = saved_argv
+        sys.path[:] = saved_path
+        os.environ.clear()
+        os.environ.update(saved_environ)
+        _purge_local_modules(modules_before, library_prefixes)
+
+    leftover_threads = [t for t in threading.enumerate()
+                        if t not in threads_before and t.is_alive() and not t.daemon]
+    return exit_code, len(leftover_threads) > 0 or len(leftover_group_processes()) > 0
+
+
+def main():
+    parser = argparse.ArgumentParser(description="用例脚本常驻执行器")
+    parser.add_argument("--preload", default="", help="预加载模块，逗号分隔")
+    options = parser.parse_args()
+
+    ensure_own_process_group()
+    control_in, control_out = _open_control_channels()
+
+    for module_name in [m.strip() for m in options.preload.split(",") if m.strip()]:
+        try:
+            importlib.import_module(module_name)
+        except Exception as e:
+            print("预加载模块失败: %s, 错误: %s" % (module_name, e), file=sys.stderr)
+
+    prefixes = library_prefixes()
+    _send(control_out, {"event": "ready", "pid": os.getpid()})
+
+    for line in control_in:
+        line = line.strip()
+        if not line:
+            continue
+        request = json.loads(line)
+        exit_code, dirty = run_script(request, prefixes)
+        _send(control_out, {"id": request.get("id"), "exitCode": exit_code, "dirty": dirty})
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,184 @@
+# -*- coding: utf-8 -*-
+"""
+用例脚本派生服务（zygote）
+
+由Java服务的PythonZygoteManager为每个用例集启动一个，解释器和预加载模块只初始化一次，
+之后每个用例都由本进程fork出独立的子进程执行，子进程之间、子进程与本进程之间完全隔离。
+仅支持提供os.fork的平台（Linux/macOS）。
+
+标准输入/输出上的JSON行协议：
+
+    派生: {"id": 1, "script": "/path/case.py", "args": ["--ip", "..."], "log": "/path/TC001_1.log"}
+      ->  {"event": "started", "id": 1, "pid": 12345}
+      ->  {"event": "exited", "id": 1, "pid": 12345, "exitCode": 0}
+    终止: {"kill": 1, "signal": 15}
+
+子进程调用setsid成为新会话和进程组的首进程，终止时向整个进程组发送信号，
+用例脚本启动的子孙进程一并终止。子进程退出码与独立进程一致：被信号终止时为128+信号值。
+环境变量CASE_RESULT_FILE为子进程的结构化结果文件（日志文件扩展名.log替换为.result.json）。
+"""
+
+import argparse
+import errno
+import importlib
+import json
+import os
+import runpy
+import select
+import signal
+import sys
+
+
+class Zygote(object):
+
+    def __init__(self):
+        # 协议通道从标准输入/输出上移走，用例子进程的标准输入为空设备
+        self.control_in_fd = os.dup(0)
+        self.control_out_fd = os.dup(1)
+        devnull = os.open(os.devnull, os.O_RDWR)
+        os.dup2(devnull, 0)
+        os.dup2(2, 1)
+        os.close(devnull)
+
+        self.wakeup_r, self.wakeup_w = os.pipe()
+        os.set_blocking(self.wakeup_w, False)
+        os.set_blocking(self.wakeup_r, False)
+        signal.set_wakeup_fd(self.wakeup_w)
+        signal.signal(signal.SIGCHLD, lambda signum, frame: None)
+
+        self.children = {}
+        self.buffer = b""
+
+    def send(self, message):
+        data = (json.dumps(message, ensure_ascii=False) + "\n").encode("utf-8")
+        while data:
+            written = os.write(self.control_out_fd, data)
+            data = data[written:]
+
+    def serve(self):
+        self.send({"event": "ready", "pid": os.getpid()})
+        while True:
+            readable, _, _ = select.select([self.control_in_fd, self.wakeup_r], [], [])
+            if self.wakeup_r in readable:
+                self.drain_wakeup()
+                self.reap_children()
+            if self.control_in_fd in readable:
+                data = os.read(self.control_in_fd, 65536)
+                if not data:
+                    self.shutdown()
+                    return
+                self.buffer += data
+                while b"\n" in self.buffer:
+                    line, self.buffer = self.buffer.split(b"\n", 1)
+                    if line.strip():
+                        self.handle(json.loads(line.decode("utf-8")))
+
+    def handle(self, request):
+        if "kill" in request:
+            self.kill(request["kill"], request.get("signal", signal.SIGTERM))
+            return
+        pid = self.spawn(request)
+        self.children[pid] = request["id"]
+        self.send({"event": "started", "id": request["id"], "pid": pid})
+
+    def spawn(self, request):
+        sys.stdout.flush()
+        sys.stderr.flush()
+        pid = os.fork()
+        if pid == 0:
+            # 子进程以SystemExit结束，异常沿调用栈传播到解释器顶层，不会回到派生服务的主循环
+            self.exec_child(request)
+        return pid
+
+    def exec_child(self, request):
+        os.setsid()
+        signal.set_wakeup_fd(-1)
+        signal.signal(signal.SIGCHLD, signal.SIG_DFL)
+        for fd in (self.control_in_fd, self.control_out_fd, self.wakeup_r, self.wakeup_w):
+            os.close(fd)
+
+        log_fd = os.open(request["log"], os.O_WRONLY | os.O_CREAT | os.O_TRUNC, 0o644)
+        os.dup2(log_fd, 1)
+        os.dup2(log_fd, 2)
+        os.close(log_fd)
+        base, ext = os.path.splitext(request["log"])
+        os.environ["CASE_RESULT_FILE"] = (base if ext == ".log" else request["log"]) + ".result.json"
+
+        script = request["script"]
+        sys.argv = [script] + list(request.get("args") or [])
+        # 与 python script.py 一致，脚本所在目录作为模块搜索路径的第一项
+        sys.path.insert(0, os.path.dirname(os.path.abspath(script)))
+        try:
+            runpy.run_path(script, run_name="__main__")
+        except SystemExit:
+            raise
+        except BaseException:
+            import traceback
+            traceback.print_exc()
+            sys.exit(1)
+        # 以正常的解释器退出流程结束：等待非守护线程、执行atexit、刷新输出
+        sys.exit(0)
+
+    def kill(self, run_id, signum):
+        for pid, child_id in self.children.items():
+            if child_id == run_id:
+                try:
+                    os.killpg(pid, signum)
+                except OSError as e:
+                    if e.errno != errno.ESRCH:
+                        print("终止用例进程组失败: pid=%s, 错误: %s" % (pid, e), file=sys.stderr)
+                return
+
+    def drain_wakeup(self):
+        try:
+            while os.read(self.wakeup_r, 4096):
+                pass
+        except OSError as e:
+            if e.errno not in (errno.EAGAIN, errno.EWOULDBLOCK):
+                raise
+
+    def reap_children(self):
+        while self.children:
+            try:
+                pid, status = os.waitpid(-1, os.WNOHANG)
+            except OSError as e:
+                if e.errno == errno.ECHILD:
+                    return
+                raise
+            if pid == 0:
+                return
+            run_id = self.children.pop(pid, None)
+            if run_id is None:
+                continue
+            if os.WIFSIGNALED(status):
+                exit_code = 128 + os.WTERMSIG(status)
+            else:
+                exit_code = os.WEXITSTATUS(status)
+            self.send({"event": "exited", "id": run_id, "pid": pid, "exitCode": exit_code})
+
+    def shutdown(self):
+        # Java侧关闭协议通道：终止仍在运行的用例进程组后退出
+        for pid in list(self.children.keys()):
+            try:
+                os.killpg(pid, signal.SIGKILL)
+            except OSError:
+                pass
+
+
+def main():
+    parser = argparse.ArgumentParser(description="用例脚本派生服务")
+    parser.add_argument("--preload", default="", help="预加载模块，逗号分隔")
+    parser.add_argument("--task", default="", help="所属任务ID")
+    options = parser.parse_args()
+
+    zygote = Zygote()
+    for module_name in [m.strip() for m in options.preload.split(",") if m.strip()]:
+        try:
+            importlib.import_module(module_name)
+        except Exception as e:
+            print("预加载模块失败: %s, 错误: %s" % (module_name, e), file=sys.stderr)
+    zygote.serve()
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,201 @@
+#!/usr/bin/env python3
+# -*- coding: utf-8 -*-
+"""
+用例进程会话终止测试脚本
+验证取消任务（或用例超时）后，用例脚本创建的所有子孙进程都被终止（仅Linux）。
+
+测试用例脚本会创建：
+    1. 忽略SIGTERM的子进程（验证宽限期后升级为SIGKILL）
+    2. 通过两次fork脱离父进程、被init收养的孙进程（验证按会话终止，而不是按父子关系）
+并把自身及上述进程的PID写入PID文件。
+
+用例启动方式（--launch，需与服务配置一致）：
+    process  独立进程（默认配置）
+    worker   常驻执行器，服务需开启 case.execution.python-worker.enabled，
+             用例在执行器进程中运行，执行器进程随用例进程组一并终止
+    rounds   多轮次批量执行，服务需开启 case.execution.batch-rounds-enabled，
+             同一用例提交两个轮次，在第一个轮次执行期间终止
+
+使用方法（服务需运行在本机）：
+    python3 test_process_group_termination.py                 # 提交任务后调用取消接口
+    python3 test_process_group_termination.py --mode timeout  # 等待用例超时（timeout-minutes + 宽限期）
+    python3 test_process_group_termination.py --launch worker # 常驻执行器模式下取消
+    python3 test_process_group_termination.py --launch rounds --mode timeout  # 批量执行模式下超时
+"""
+
+import argparse
+import functools
+import http.server
+import json
+import os
+import socketserver
+import sys
+import tempfile
+import threading
+import time
+import urllib.request
+import zipfile
+
+CASE_NUMBER = "PGTEST001"
+
+CASE_SCRIPT = r'''
+import os
+import signal
+import subprocess
+import sys
+import time
+
+PID_FILE = %(pid_file)r
+
+child = subprocess.Popen([sys.executable, "-c",
+                          "import signal, time\n"
+                          "signal.signal(signal.SIGTERM, signal.SIG_IGN)\n"
+                          "time.sleep(3600)"])
+pids = [os.getpid(), child.pid]
+
+read_fd, write_fd = os.pipe()
+first = os.fork()
+if first == 0:
+    os.close(read_fd)
+    if os.fork() == 0:
+        os.write(write_fd, str(os.getpid()).encode("ascii"))
+        os.close(write_fd)
+        time.sleep(3600)
+    os._exit(0)
+os.close(write_fd)
+os.waitpid(first, 0)
+pids.append(int(os.read(read_fd, 32).decode("ascii")))
+os.close(read_fd)
+
+with open(PID_FILE, "w") as f:
+    f.write(" ".join(str(pid) for pid in pids))
+print("用例进程已启动，PID: %%s" %% pids, flush=True)
+time.sleep(3600)
+'''
+
+
+def build_test_case_set(path, pid_file):
+    with zipfile.ZipFile(path, "w", zipfile.ZIP_DEFLATED) as zf:
+        zf.writestr("scripts/%s.py" % CASE_NUMBER, CASE_SCRIPT % {"pid_file": pid_file})
+
+
+def start_file_server(directory, port):
+    handler = functools.partial(http.server.SimpleHTTPRequestHandler, directory=directory)
+    handler.log_message = lambda *args: None
+    server = socketserver.ThreadingTCPServer(("0.0.0.0", port), handler)
+    thread = threading.Thread(target=server.serve_forever, daemon=True)
+    thread.start()
+    return server
+
+
+def http_json(url, body=None):
+    data = json.dumps(body).encode("utf-8") if body is not None else b""
+    request = urllib.request.Request(url, data=data, headers={"Content-Type": "application/json"})
+    with urllib.request.urlopen(request, timeout=30) as response:
+        return json.loads(response.read().decode("utf-8"))
+
+
+def is_alive(pid):
+    """进程存在且不是僵尸进程"""
+    try:
+        with open("/proc/%d/stat" % pid) as f:
+            return f.read().rsplit(")", 1)[1].split()[0] != "Z"
+    except (IOError, IndexError):
+        return False
+
+
+def cmdline(pid):
+    try:
+        with open("/proc/%d/cmdline" % pid, "rb") as f:
+            return f.read().replace(b"\0", b" ").decode("utf-8", "replace").strip()
+    except IOError:
+        return ""
+
+
+def wait_for_pids(pid_file, timeout):
+    deadline = time.time() + timeout
+    while time.time() < deadline:
+        if os.path.exists(pid_file):
+            content = open(pid_file).read().split()
+            if len(content) == 3:
+                return [int(pid) for pid in content]
+        time.sleep(0.2)
+    return None
+
+
+def main():
+    parser = argparse.ArgumentParser(description="用例进程会话终止测试")
+    parser.add_argument("--service", default="http://localhost:8081/api", help="CaseExecuteService地址")
+    parser.add_argument("--host", default="127.0.0.1", help="服务访问本机文件服务使用的地址")
+    parser.add_argument("--port", type=int, default=8766, help="本地文件服务端口")
+    parser.add_argument("--mode", choices=["cancel", "timeout"], default="cancel", help="终止方式")
+    parser.add_argument("--grace", type=int, default=5, help="服务配置的terminate-grace-seconds")
+    parser.add_argument("--timeout-minutes", type=int, default=1, help="服务配置的timeout-minutes（timeout模式）")
+    parser.add_argument("--launch", choices=["process", "worker", "rounds"], default="process",
+                        help="服务配置的用例启动方式：独立进程、常驻执行器、多轮次批量执行")
+    args = parser.parse_args()
+
+    if not sys.platform.startswith("linux"):
+        print("SKIP: 仅支持Linux")
+        return 0
+
+    work_dir = tempfile.mkdtemp(prefix="pgtest_")
+    pid_file = os.path.join(work_dir, "case.pids")
+    build_test_case_set(os.path.join(work_dir, "pg_set.zip"), pid_file)
+    server = start_file_server(work_dir, args.port)
+    file_url = "http://%s:%d/pg_set.zip" % (args.host, args.port)
+    task_id = "PGTEST_%d" % int(time.time())
+    rounds = [1, 2] if args.launch == "rounds" else [1]
+
+    try:
+        http_json(args.service + "/test-case-execution/receive", {
+            "taskId": task_id,
+            "executorIp": "127.0.0.1",
+            "testCaseSetId": int(time.time() * 1000),
+            "testCaseSetPath": file_url,
+            "testCaseList": [{"testCaseId": 1, "testCaseNumber": CASE_NUMBER, "round": r} for r in rounds],
+            "resultReportUrl": file_url,
+            "logReportUrl": file_url,
+        })
+        pids = wait_for_pids(pid_file, 60)
+        if pids is None:
+            print("FAIL: 用例进程未在60秒内启动")
+            return 1
+        print("启动方式: %s, 用例进程: %d, 忽略SIGTERM的子进程: %d, 脱离父进程的孙进程: %d" % ((args.launch,) + tuple(pids)))
+        runner_script = {"worker": "case_worker.py", "rounds": "case_rounds.py"}.get(args.launch)
+        if runner_script and runner_script not in cmdline(pids[0]):
+            print("FAIL: 用例未以%s方式执行，请检查服务配置，进程命令行: %s" % (args.launch, cmdline(pids[0])))
+            for pid in pids:
+                try:
+                    os.kill(pid, 9)
+                except OSError:
+                    pass
+            return 1
+
+        if args.mode == "cancel":
+            start = time.time()
+            http_json(args.service + "/test-case-execution/cancel/" + task_id)
+            print("取消接口耗时: %.0fms" % ((time.time() - start) * 1000))
+            wait_seconds = args.grace + 3
+        else:
+            wait_seconds = args.timeout_minutes * 60 + args.grace + 3
+        print("等待 %d 秒后检查进程..." % wait_seconds)
+        time.sleep(wait_seconds)
+
+        survivors = [pid for pid in pids if is_alive(pid)]
+        if survivors:
+            print("FAIL: 以下进程仍在运行: %s" % survivors)
+            for pid in survivors:
+                try:
+                    os.kill(pid, 9)
+                except OSError:
+                    pass
+            return 1
+        print("PASS: 用例进程及其所有子孙进程均已终止")
+        return 0
+    finally:
+        server.shutdown()
+
+
+if __name__ == "__main__":
+    sys.exit(main())